@@ -340,6 +340,12 @@ public final class ClassGen implements ClassInfo, Endable{
 	public FunctionInfo getFunction(FunctionInfo.Signature signature) throws MalformedJorth{
 		var fun = functions.get(signature);
 		if(fun != null) return fun;
+		if(!signature.name().equals("<init>")){
+			//Inherited functions
+			try{
+				return superType().getFunction(signature);
+			}catch(MalformedJorth ignored){ }
+		}
 		throw new MalformedJorth("Function of " + signature + " does not exist in " + name.dotted());
 	}
 	@Override
@@ -386,10 +386,10 @@ public final class FunctionGen implements Endable, FunctionInfo{
 			callOp = INVOKEINTERFACE;
 		}else{
 			//https://stackoverflow.com/a/13764338
+			//Final methods are called as virtual as invokespecial only accepts methods of the calling class and its supertypes
 			if(superCall ||
 			   name.equals("<init>") ||
-			   function.visibility() == Visibility.PRIVATE ||
-			   function.isFinal()
+			   function.visibility() == Visibility.PRIVATE
 			){
 				callOp = INVOKESPECIAL;
 			}else{
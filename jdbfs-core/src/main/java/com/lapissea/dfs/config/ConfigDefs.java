@@ -1,6 +1,7 @@
 package com.lapissea.dfs.config;
 
 import com.lapissea.dfs.logging.Log;
+import com.lapissea.dfs.objects.collections.BPlusTreeMap;
 import com.lapissea.dfs.type.compilation.FieldCompiler.AccessType;
 import com.lapissea.dfs.type.compilation.JorthLogger.CodeLog;
 import com.lapissea.util.LogUtil;
@@ -64,14 +65,17 @@ public sealed interface ConfigDefs permits ConfigTools.Dummy{
 		return CompLogLevel.NONE;
 	}));
 	
-	Flag.FDur              LONG_WAIT_THRESHOLD = flagDur("loading.longWaitThreshold", RELEASE_MODE.boolMap(null, Duration.ofMillis(10000/cores()))).positive();
-	Flag.FEnum<AccessType> FIELD_ACCESS_TYPE   = flagE("tweaks.fieldAccess", () -> jVersion()>23? VAR_HANDLE : UNSAFE);
-	Flag.FBool             COSTLY_STACK_TRACE  = flagB("tweaks.costlyStackTrace", deb());
-	Flag.FDur              DELAY_COMP_OBJ_GC   = flagDur("tweaks.delayCompilationObjGC", RELEASE_MODE.boolMap(Duration.ZERO, Duration.ofSeconds(5))).positive();
+	Flag.FDur              LONG_WAIT_THRESHOLD     = flagDur("loading.longWaitThreshold", RELEASE_MODE.boolMap(null, Duration.ofMillis(10000/cores()))).positive();
+	Flag.FInt              LOADING_COMPILE_THREADS = flagI("loading.compileThreads", () -> Runtime.getRuntime().availableProcessors()).positive();
+	Flag.FBool             LOADING_SCAN_TYPES      = flagB("loading.scanStoredTypes", false);
+	Flag.FEnum<AccessType> FIELD_ACCESS_TYPE       = flagE("tweaks.fieldAccess", () -> jVersion()>23? VAR_HANDLE : UNSAFE);
+	Flag.FBool             COSTLY_STACK_TRACE      = flagB("tweaks.costlyStackTrace", deb());
+	Flag.FDur              DELAY_COMP_OBJ_GC       = flagDur("tweaks.delayCompilationObjGC", RELEASE_MODE.boolMap(Duration.ZERO, Duration.ofSeconds(5))).positive();
 	
 	Flag.FBool OPTIMIZED_PIPE               = flagB("optimizedPipe", true);
 	Flag.FBool OPTIMIZED_PIPE_USE_CHUNK     = flagB("optimizedPipe.chunk", OPTIMIZED_PIPE);
 	Flag.FBool OPTIMIZED_PIPE_USE_REFERENCE = flagB("optimizedPipe.reference", OPTIMIZED_PIPE);
+	Flag.FBool GENERATED_PIPE               = flagB("generatedPipe", false);
 	
 	Flag.FEnum<FreedMemoryPurgeType> PURGE_ACCIDENTAL_CHUNK_HEADERS = flagE("purgeAccidentalChunkHeaders", () -> deb()? ONLY_HEADER_BYTES : ZERO_OUT);
 	
@@ -89,12 +93,20 @@ public sealed interface ConfigDefs permits ConfigTools.Dummy{
 	Flag.FBool          CLASSGEN_PRINT_GENERATING_INFO = flagB("classGen.printGeneratingInfo", CLASSGEN_DEBUG);
 	Flag.FEnum<CodeLog> CLASSGEN_PRINT_BYTECODE        = flagE("classGen.printBytecode", CLASSGEN_DEBUG.boolMap(TRUE, FALSE));
 	Flag.FStrOptional   CLASSGEN_DUMP_LOCATION         = flagS("classGen.dumpLocation");
+	Flag.FStrOptional   CLASSGEN_CACHE_LOCATION        = flagS("classGen.cacheLocation");
 	
 	
 	Flag.FEnum<LZ4Compatibility> LZ4_COMPATIBILITY = flagEV("lz4.compatibility", LZ4Compatibility.ANY);
 	
 	Flag.FInt ROOT_PROVIDER_WARMUP_COUNT = flagI("rootProviderWarmupCount", 20).positive();
 	
+	Flag.FInt BTREE_PAGE_SIZE  = flagI("btree.pageSize", 4096).min(BPlusTreeMap.MIN_PAGE_SIZE);
+	Flag.FInt BTREE_PAGE_CACHE = flagI("btree.pageCache", 64).positive();
+	
+	Flag.FInt TYPE_DB_CACHE = flagI("typeDB.cache", 64).positive();
+	
+	Flag.FBool HASH_MAP_BLOOM_FILTER = flagB("hashMap.bloomFilter", false);
+	
 	private static int cores(){
 		return Math.min(10, Runtime.getRuntime().availableProcessors());
 	}
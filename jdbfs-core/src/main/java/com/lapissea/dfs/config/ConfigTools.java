@@ -165,6 +165,12 @@ public final class ConfigTools{
 					return null;
 				});
 			}
+			public FInt min(int min){
+				return withValidation(val -> {
+					if(val<min) return "Value must be at least " + min + "!";
+					return null;
+				});
+			}
 			public FInt withValidation(Function<Integer, String> validate){
 				Objects.requireNonNull(validate);
 				return new FInt(name, defaultValue, this.validate == null? validate : validateBoth(this.validate, validate));
@@ -3,7 +3,6 @@ package com.lapissea.dfs.core;
 import com.lapissea.dfs.MagicID;
 import com.lapissea.dfs.Utils;
 import com.lapissea.dfs.config.ConfigDefs;
-import com.lapissea.dfs.config.GlobalConfig;
 import com.lapissea.dfs.core.chunk.Chunk;
 import com.lapissea.dfs.core.chunk.ChunkCache;
 import com.lapissea.dfs.core.memory.MemoryOperations;
@@ -15,6 +14,7 @@ import com.lapissea.dfs.internal.Preload;
 import com.lapissea.dfs.io.IOInterface;
 import com.lapissea.dfs.io.impl.MemoryData;
 import com.lapissea.dfs.io.instancepipe.FixedStructPipe;
+import com.lapissea.dfs.logging.Log;
 import com.lapissea.dfs.objects.ChunkPointer;
 import com.lapissea.dfs.objects.ObjectID;
 import com.lapissea.dfs.objects.Reference;
@@ -23,11 +23,13 @@ import com.lapissea.dfs.objects.collections.IOList;
 import com.lapissea.dfs.objects.collections.IOMap;
 import com.lapissea.dfs.objects.collections.UnmanagedIOMap;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.IOType;
 import com.lapissea.dfs.type.IOTypeDB;
 import com.lapissea.dfs.type.MemoryWalker;
 import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.WordSpace;
 import com.lapissea.dfs.type.compilation.FieldCompiler;
+import com.lapissea.dfs.type.compilation.StructCompileScheduler;
 import com.lapissea.dfs.type.def.TypeDef;
 import com.lapissea.dfs.type.field.IOFieldTools;
 import com.lapissea.dfs.type.field.annotations.IODependency;
@@ -43,9 +45,9 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -330,7 +332,7 @@ public final class Cluster implements DataProvider{
 				.cachedView(128, 128)
 		);
 		
-		if(GlobalConfig.TYPE_VALIDATION){
+		if(ConfigDefs.LOADING_SCAN_TYPES.resolveVal()){
 			scanTypeDB();
 		}
 	}
@@ -360,28 +362,54 @@ public final class Cluster implements DataProvider{
 		
 		var tLoader = db.getTemplateLoader();
 		
-		List<Struct<?>> structs = new ArrayList<>(names.size());
+		var defs = new LinkedHashMap<Class<?>, TypeDef.DInstance>();
 		for(String name : names){
 			if(name.isEmpty()) continue;
 			try{
 				var def = db.getDefinitionFromClassName(name).orElseThrow();
-				if(!(def instanceof TypeDef.DInstance)) continue;
+				if(!(def instanceof TypeDef.DInstance inst)) continue;
 				var clazz = tLoader.loadClass(name);
 				if(clazz.getClassLoader() != tLoader){
 					continue;
 				}
-				structs.add(Struct.ofUnknown(clazz));
+				defs.put(clazz, inst);
 			}catch(Throwable e){
 				throw fail(names, name, e);
 			}
 		}
 		
-		for(Struct<?> struct : structs){
-			try{
-				struct.waitForStateDone();
-			}catch(Throwable e){
-				throw fail(names, struct.getType().getName(), e);
+		var byName = Iters.keys(defs).toMap(Class::getName, c -> c);
+		
+		var scheduler = new StructCompileScheduler();
+		for(var e : defs.entrySet()){
+			var deps = new HashSet<String>();
+			for(var field : e.getValue().fields){
+				collectTypeNames(field.type, deps);
+			}
+			scheduler.add(e.getKey(), Iters.from(deps).map(byName::get).nonNulls().toList());
+		}
+		
+		try{
+			var report = scheduler.compile();
+			Log.trace("Compiled {} stored types in {}ms on {} threads", report.timings().size(), report.total().toMillis(), report.threads());
+		}catch(StructCompileScheduler.CompilationFailed e){
+			throw fail(names, e.type.getName(), e.getCause());
+		}
+	}
+	
+	private static void collectTypeNames(IOType type, Set<String> dest){
+		switch(type){
+			case IOType.TypeRaw raw -> dest.add(raw.getName());
+			case IOType.TypeGeneric gen -> {
+				dest.add(gen.getTypeName());
+				for(var arg : gen.getArgs()){
+					collectTypeNames(arg, dest);
+				}
+			}
+			case IOType.TypeWildcard wild -> {
+				if(wild.getBound() != null) collectTypeNames(wild.getBound(), dest);
 			}
+			case IOType.TypeNameArg ignored -> { }
 		}
 	}
 	
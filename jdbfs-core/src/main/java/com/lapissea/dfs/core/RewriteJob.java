@@ -0,0 +1,300 @@
+package com.lapissea.dfs.core;
+
+import com.lapissea.dfs.core.chunk.Chunk;
+import com.lapissea.dfs.internal.Runner;
+import com.lapissea.dfs.io.instancepipe.FixedStructPipe;
+import com.lapissea.dfs.io.instancepipe.ObjectPipe;
+import com.lapissea.dfs.io.instancepipe.StructPipe;
+import com.lapissea.dfs.logging.Log;
+import com.lapissea.dfs.objects.ChunkPointer;
+import com.lapissea.dfs.objects.Reference;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.MemoryWalker;
+import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.VaryingSize;
+import com.lapissea.dfs.type.field.annotations.IOCompression;
+import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.type.field.fields.RefField;
+import com.lapissea.util.Nullable;
+import com.lapissea.util.UtilL;
+import com.lapissea.util.function.UnsafeConsumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.lapissea.dfs.type.MemoryWalker.CONTINUE;
+import static com.lapissea.dfs.type.MemoryWalker.END;
+import static com.lapissea.dfs.type.MemoryWalker.SAVE;
+import static com.lapissea.dfs.type.MemoryWalker.SKIP;
+import static com.lapissea.dfs.type.field.annotations.IONullability.Mode.NULLABLE;
+
+/**
+ * Rewrites every instance of a type that is stored behind a reference. An instance is read, written to a new chunk with the
+ * current pipe of its reference and the reference is moved to the new chunk. This is how a change of encoding, like a
+ * different {@link IOCompression.Type}, is applied to data that is already stored. Instances that are inlined in another
+ * instance are rewritten with the instance that holds them.
+ * <p>
+ * The job is a single walk of the cluster. A rewritten instance is walked from its new chunk, so the old chunk is never read
+ * again. After every {@link #batchSize} instances, the old chunks are freed, the progress is reported and, if enabled, stored
+ * as a checkpoint root. The checkpoint holds the number of instances the walk has passed, so an interrupted job skips them
+ * when it continues. Instances that are added before that point in the meantime are not rewritten. The bytes the job reads
+ * and writes can be limited so that it does not starve other users of the cluster.<br>
+ * Like defragmentation, the job does not coordinate with concurrent writers of the instances it rewrites.
+ * </p>
+ */
+public record RewriteJob(
+	Class<? extends IOInstance<?>> type, int batchSize, long bytesPerSecond,
+	Optional<String> checkpointRoot, @Nullable UnsafeConsumer<Progress, IOException> progressListener
+){
+	
+	public record Progress(long rewritten, long bytesRead, long bytesWritten, boolean done){ }
+	
+	/**
+	 * The state of an unfinished job, stored as a root with the name of {@link #checkpointRoot}.
+	 */
+	@IOValue
+	public static final class Checkpoint extends IOInstance.Managed<Checkpoint>{
+		@IONullability(NULLABLE)
+		public String       type;
+		/**
+		 * The chunk of the {@link Counters}. They are written in place after every batch, as the roots can not change while
+		 * they are walked
+		 */
+		public ChunkPointer counters = ChunkPointer.NULL;
+		
+		public Checkpoint(){ }
+		
+		public Counters readCounters(DataProvider provider) throws IOException{
+			return counters.makeReference().readNew(provider, COUNTERS_PIPE, null);
+		}
+	}
+	
+	@IOValue
+	public static final class Counters extends IOInstance.Managed<Counters>{
+		/**
+		 * The number of instances of the type that the walk has passed
+		 */
+		public long walked;
+		public long rewritten;
+		public long bytesRead;
+		public long bytesWritten;
+		
+		public Counters(){ }
+	}
+	
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	
+	private static final StructPipe<Counters> COUNTERS_PIPE = FixedStructPipe.of(Counters.class);
+	
+	public RewriteJob{
+		Objects.requireNonNull(type);
+		if(!IOInstance.isManaged(type)) throw new IllegalArgumentException(type.getName() + " is not a managed instance");
+		if(batchSize<=0) throw new IllegalArgumentException("batchSize must be positive");
+		if(bytesPerSecond<=0) throw new IllegalArgumentException("bytesPerSecond must be positive");
+		Objects.requireNonNull(checkpointRoot);
+	}
+	
+	public static RewriteJob of(Class<? extends IOInstance<?>> type){
+		return new RewriteJob(type, DEFAULT_BATCH_SIZE, Long.MAX_VALUE, Optional.empty(), null);
+	}
+	
+	public RewriteJob withBatchSize(int batchSize){
+		return new RewriteJob(type, batchSize, bytesPerSecond, checkpointRoot, progressListener);
+	}
+	
+	/**
+	 * Limits the sum of bytes the job reads and writes per second.
+	 */
+	public RewriteJob withRateLimit(long bytesPerSecond){
+		return new RewriteJob(type, batchSize, bytesPerSecond, checkpointRoot, progressListener);
+	}
+	
+	/**
+	 * Stores the progress after every batch as a root with this name. A job with a stored checkpoint continues from it. The
+	 * root is removed once the job finishes.
+	 */
+	public RewriteJob withCheckpoint(String rootName){
+		return new RewriteJob(type, batchSize, bytesPerSecond, Optional.of(rootName), progressListener);
+	}
+	
+	/**
+	 * The listener is called after every batch. An exception thrown by it stops the job.
+	 */
+	public RewriteJob withProgress(UnsafeConsumer<Progress, IOException> progressListener){
+		return new RewriteJob(type, batchSize, bytesPerSecond, checkpointRoot, progressListener);
+	}
+	
+	/**
+	 * Runs the job as a background task. See {@link Runner#run}
+	 */
+	public CompletableFuture<Progress> start(Cluster cluster){
+		return Runner.async(() -> {
+			try{
+				return run(cluster);
+			}catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	public Progress run(Cluster cluster) throws IOException{
+		var rewrite = new Rewrite(cluster);
+		
+		if(checkpointRoot.isPresent()){
+			var name       = checkpointRoot.get();
+			var checkpoint = cluster.roots().request(name, Checkpoint.class);
+			if(checkpoint.type != null){
+				if(!checkpoint.type.equals(type.getName())){
+					throw new IllegalStateException(
+						"Checkpoint " + name + " is of a job on " + checkpoint.type + ", not " + type.getName()
+					);
+				}
+				rewrite.counters = checkpoint.readCounters(cluster);
+				rewrite.skip = rewrite.counters.walked;
+				rewrite.counters.walked = 0;
+				Log.info("Continuing rewrite of {}#yellow from {}#yellow instances", type.getName(), rewrite.counters.rewritten);
+			}else{
+				checkpoint.type = type.getName();
+				checkpoint.counters = AllocateTicket.withData(COUNTERS_PIPE, cluster, rewrite.counters).submit(cluster).getPtr();
+				cluster.roots().provide(name, checkpoint);
+			}
+			rewrite.countersPtr = checkpoint.counters;
+		}
+		
+		var progress = rewrite.walk();
+		
+		//Dropping the checkpoint also frees the chunk of its counters
+		if(checkpointRoot.isPresent()) cluster.roots().drop(checkpointRoot.get());
+		if(progressListener != null) progressListener.accept(progress);
+		return progress;
+	}
+	
+	private final class Rewrite implements MemoryWalker.PointerRecord{
+		
+		private final Cluster cluster;
+		private final long    startTime = System.nanoTime();
+		
+		private final List<Chunk> toFree = new ArrayList<>();
+		
+		private Counters     counters = new Counters();
+		private ChunkPointer countersPtr;
+		private long         skip;
+		private int          batchCount;
+		private int          depth;
+		private long         throttledBytes;
+		private IOException  listenerFail;
+		
+		private Rewrite(Cluster cluster){
+			this.cluster = cluster;
+		}
+		
+		private Progress walk() throws IOException{
+			cluster.rootWalker(this, false).walk();
+			if(listenerFail != null) throw listenerFail;
+			if(batchCount>0) endBatch();
+			if(listenerFail != null) throw listenerFail;
+			return new Progress(counters.rewritten, counters.bytesRead, counters.bytesWritten, true);
+		}
+		
+		/**
+		 * Called before the next instance is rewritten, by then the holders of the batch have been saved
+		 */
+		private void endBatch() throws IOException{
+			cluster.getMemoryManager().free(toFree);
+			toFree.clear();
+			batchCount = 0;
+			
+			if(countersPtr != null) countersPtr.makeReference().write(cluster, false, COUNTERS_PIPE, counters);
+			if(progressListener != null){
+				try{
+					progressListener.accept(new Progress(counters.rewritten, counters.bytesRead, counters.bytesWritten, false));
+				}catch(IOException e){
+					listenerFail = e;
+				}
+			}
+		}
+		
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		@Override
+		public <T extends IOInstance<T>> int log(Reference instanceReference, T instance, RefField<T, ?> field, Reference valueReference, Holder holder) throws IOException{
+			if(listenerFail != null) return END;
+			if(valueReference.getOffset() != 0 || !field.getType().isAssignableFrom(type) || !(field instanceof RefField.Inst<?, ?>)){
+				return CONTINUE;
+			}
+			
+			var value = field.get(null, instance);
+			if(!type.isInstance(value)){
+				return CONTINUE;
+			}
+			//Rewritten before the checkpoint
+			if(counters.walked<skip){
+				counters.walked++;
+				return CONTINUE;
+			}
+			
+			//A batch only ends outside the nested walks, their holders are not saved yet
+			if(batchCount>=batchSize && depth == 0){
+				endBatch();
+				if(listenerFail != null) return END;
+			}
+			counters.walked++;
+			
+			var ptr  = valueReference.getPtr();
+			var ch   = ptr.dereference(cluster);
+			var pipe = ((RefField.Inst<T, ?>)field).getReferencedPipe(instance);
+			
+			var newCh = AllocateTicket.withData((ObjectPipe)pipe, cluster, value)
+			                          .withPositionMagnet(instanceReference.calcGlobalOffset(cluster))
+			                          .submit(cluster);
+			
+			try{
+				field.setReference(instance, newCh.getPtr().makeReference());
+			}catch(VaryingSize.TooSmall e){
+				Log.trace("Can not move {}#yellow to {}#yellow, the reference does not fit", ptr, newCh.getPtr());
+				newCh.freeChaining();
+				return CONTINUE;
+			}
+			
+			ch.addChainTo(toFree);
+			
+			var read    = ch.chainSize();
+			var written = newCh.chainSize();
+			counters.bytesRead += read;
+			counters.bytesWritten += written;
+			counters.rewritten++;
+			batchCount++;
+			throttle(read + written);
+			
+			//What the instance references is walked from the new chunk, so that it is saved there
+			depth++;
+			try{
+				new MemoryWalker(cluster, (IOInstance)value, newCh.getPtr().makeReference(), (StructPipe)pipe, false, this).walk();
+			}finally{
+				depth--;
+			}
+			
+			return SKIP|SAVE;
+		}
+		@Override
+		public <T extends IOInstance<T>> int logChunkPointer(Reference instanceReference, T instance, IOField<T, ChunkPointer> field, ChunkPointer value, Holder holder){
+			return CONTINUE;
+		}
+		
+		private void throttle(long bytes){
+			if(bytesPerSecond == Long.MAX_VALUE) return;
+			throttledBytes += bytes;
+			
+			var due  = startTime + (long)(throttledBytes*1000_000_000D/bytesPerSecond);
+			var wait = due - System.nanoTime();
+			if(wait>0){
+				UtilL.sleep(wait/1000_000D);
+			}
+		}
+	}
+}
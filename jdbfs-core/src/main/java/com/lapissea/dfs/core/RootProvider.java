@@ -9,6 +9,7 @@ import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.IOType;
 import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.SupportedPrimitive;
+import com.lapissea.dfs.type.TypeMigration;
 import com.lapissea.dfs.type.WordSpace;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.iterableplus.IterablePP;
@@ -147,6 +148,11 @@ public interface RootProvider extends DataProvider.Holder{
 			var expected = typeArgs[i];
 			var actual   = actualArgs.get(i).getTypeClass(db);
 			if(UtilL.instanceOf(actual, expected)) continue;
+			if(TypeMigration.isVersionOf(actual, expected)){
+				throw new ClassCastException(
+					actual.getName() + " is an old version of " + expected.getName() + ", require " + type.getSimpleName() + " as its interface to migrate it"
+				);
+			}
 			throw new ClassCastException("Incompatible type: " + actual.getName() + " can not be cast to " + expected.getName());
 		}
 		
@@ -164,7 +170,13 @@ public interface RootProvider extends DataProvider.Holder{
 		var t = SupportedPrimitive.get(type)
 		                          .map(p -> (Class<T>)p.wrapper)
 		                          .orElse(type);
-		return t.cast(val);
+		var migrated = TypeMigration.migrateValue(val, t);
+		if(migrated == val){
+			//A collection can only be viewed as its interface
+			var view = TypeMigration.migrateElements(val);
+			if(t.isInstance(view)) migrated = view;
+		}
+		return t.cast(migrated);
 	}
 	
 	default <T> T request(long id, Class<?> raw, Class<?>... args) throws IOException                  { return request(ObjectID.of(id), raw, args); }
@@ -176,6 +176,14 @@ public interface AccessProvider{
 			var funType    = MethodType.methodType(functionalInterface);
 			var handleType = handle.type();
 			
+			//A generic interface passes boxed arguments, they are unboxed for primitive parameters of the handle
+			for(int i = 0; i<Math.min(signature.parameterCount(), handleType.parameterCount()); i++){
+				var param = handleType.parameterType(i);
+				if(param.isPrimitive() && !signature.parameterType(i).isPrimitive()){
+					handleType = handleType.changeParameterType(i, MethodType.methodType(param).wrap().returnType());
+				}
+			}
+			
 			if(!caller.hasFullPrivilegeAccess()){
 				throw new IllegalAccessException(Log.fmt("Invalid caller: {}#red", caller));
 			}
@@ -101,6 +101,14 @@ public sealed interface ValueStorage<T>{
 		public T readNew(ContentReader src) throws IOException{
 			return pipe.readNew(provider, src, ctx);
 		}
+		@Override
+		public T readReusing(ContentReader src, T reuse) throws IOException{
+			if(reuse == null || pipe.getType().needsBuilderObj()){
+				return readNew(src);
+			}
+			pipe.read(provider, src, reuse, ctx);
+			return reuse;
+		}
 		
 		@Override
 		public void write(RandomIO dest, T src) throws IOException{
@@ -190,6 +198,14 @@ public sealed interface ValueStorage<T>{
 		public T readNew(ContentReader src) throws IOException{
 			return pipe.readNew(provider, src, ctx);
 		}
+		@Override
+		public T readReusing(ContentReader src, T reuse) throws IOException{
+			if(reuse == null || pipe.getType().needsBuilderObj()){
+				return readNew(src);
+			}
+			pipe.read(provider, src, reuse, ctx);
+			return reuse;
+		}
 		
 		@Override
 		public void write(RandomIO dest, T src) throws IOException{
@@ -327,6 +343,18 @@ public sealed interface ValueStorage<T>{
 			}
 			return ref.readNew(provider, pipe, ctx);
 		}
+		@Override
+		public T readReusing(ContentReader src, T reuse) throws IOException{
+			if(reuse == null || pipe.getType().needsBuilderObj()){
+				return readNew(src);
+			}
+			var ref = readInline(src);
+			if(ref.isNull()){
+				return null;
+			}
+			ref.io(provider, io -> pipe.read(provider, io, reuse, ctx));
+			return reuse;
+		}
 		
 		@Override
 		public void write(RandomIO dest, T src) throws IOException{
@@ -1366,6 +1394,13 @@ public sealed interface ValueStorage<T>{
 	}
 	
 	T readNew(ContentReader src) throws IOException;
+	/**
+	 * Reads a value and stores it in to the reuse object if the storage is able to. The returned value should be used as the result.
+	 * It may be the reuse object, a new object or null.
+	 */
+	default T readReusing(ContentReader src, T reuse) throws IOException{
+		return readNew(src);
+	}
 	void write(RandomIO dest, T src) throws IOException;
 	
 	List<ChunkPointer> notifyRemoval(RandomIO io, boolean dereferenceWrite) throws IOException;
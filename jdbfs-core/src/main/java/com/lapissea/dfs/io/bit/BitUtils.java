@@ -1,12 +1,108 @@
 package com.lapissea.dfs.io.bit;
 
+import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.exceptions.IllegalBitValue;
+import com.lapissea.dfs.type.compilation.FieldCompiler;
 import com.lapissea.iterableplus.Iters;
+import sun.misc.Unsafe;
 
+import java.nio.ByteOrder;
+import java.util.Objects;
 import java.util.OptionalLong;
 import java.util.stream.Collectors;
 
+import static com.lapissea.dfs.internal.MyUnsafe.UNSAFE;
+
 public final class BitUtils{
 	
+	/**
+	 * When enabled, 8 booleans are loaded as one long and packed with a single multiply. A java boolean is always stored as a 0 or 1
+	 * byte so the lanes never carry in to each other.
+	 */
+	private static final boolean SWAR = ConfigDefs.FIELD_ACCESS_TYPE.resolveLocking() == FieldCompiler.AccessType.UNSAFE &&
+	                                    ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+	
+	private static final long PACK_MAGIC = 0x0102040810204080L;
+	private static final long BOOL_BASE  = Unsafe.ARRAY_BOOLEAN_BASE_OFFSET;
+	
+	private static final long[] UNPACK_LANES = new long[256];
+	static{
+		for(int b = 0; b<256; b++){
+			long lanes = 0;
+			for(int i = 0; i<8; i++){
+				lanes |= (long)((b >>> i)&1)<<(i*8);
+			}
+			UNPACK_LANES[b] = lanes;
+		}
+	}
+	
+	/**
+	 * Packs the booleans in the same layout as {@link BitOutputStream#writeBits(boolean[])}. The first value goes to the lowest bit and
+	 * the unused bits of the last byte are filled with ones.
+	 */
+	public static byte[] packBits(boolean[] data){
+		var result = new byte[bitsToBytes(data.length)];
+		packBits(data, result);
+		return result;
+	}
+	public static void packBits(boolean[] data, byte[] dest){
+		Objects.checkFromIndexSize(0, bitsToBytes(data.length), dest.length);
+		int full = data.length/8;
+		if(SWAR){
+			for(int i = 0; i<full; i++){
+				var lanes = UNSAFE.getLong(data, BOOL_BASE + i*8L);
+				dest[i] = (byte)((lanes*PACK_MAGIC) >>> 56);
+			}
+		}else{
+			for(int i = 0; i<full; i++){
+				int o = i*8;
+				dest[i] = (byte)((data[o]? 1 : 0)|(data[o + 1]? 2 : 0)|(data[o + 2]? 4 : 0)|(data[o + 3]? 8 : 0)|
+				                 (data[o + 4]? 16 : 0)|(data[o + 5]? 32 : 0)|(data[o + 6]? 64 : 0)|(data[o + 7]? 128 : 0));
+			}
+		}
+		int tail = data.length - full*8;
+		if(tail>0){
+			int last = 0xFF&~(int)makeMask(tail);
+			for(int i = 0; i<tail; i++){
+				if(data[full*8 + i]) last |= 1<<i;
+			}
+			dest[full] = (byte)last;
+		}
+	}
+	
+	/**
+	 * The inverse of {@link #packBits(boolean[], byte[])}. The padding is checked the same way as {@link BitInputStream#close()}.
+	 */
+	public static boolean[] unpackBits(byte[] packed, boolean[] dest) throws IllegalBitValue{
+		Objects.checkFromIndexSize(0, bitsToBytes(dest.length), packed.length);
+		int full = dest.length/8;
+		if(SWAR){
+			for(int i = 0; i<full; i++){
+				UNSAFE.putLong(dest, BOOL_BASE + i*8L, UNPACK_LANES[packed[i]&0xFF]);
+			}
+		}else{
+			for(int i = 0; i<full; i++){
+				int b = packed[i], o = i*8;
+				for(int j = 0; j<8; j++){
+					dest[o + j] = ((b >>> j)&1) == 1;
+				}
+			}
+		}
+		int tail = dest.length - full*8;
+		if(tail>0){
+			int last = packed[full]&0xFF;
+			for(int i = 0; i<tail; i++){
+				dest[full*8 + i] = ((last >>> i)&1) == 1;
+			}
+			var zero = findBinaryZero(last >>> tail, 8 - tail);
+			if(zero != -1){
+				var bit = full*8L + tail + zero;
+				throw new IllegalBitValue(bit, "Illegal bit found at " + bit);
+			}
+		}
+		return dest;
+	}
+	
 	public static int findBinaryZero(long chunk, int bits){
 		var mask = makeMask(bits);
 		if(mask == (chunk&mask)){
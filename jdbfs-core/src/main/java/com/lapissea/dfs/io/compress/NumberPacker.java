@@ -0,0 +1,163 @@
+package com.lapissea.dfs.io.compress;
+
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentOutputBuilder;
+import com.lapissea.dfs.io.content.ContentReader;
+import com.lapissea.dfs.io.content.ContentWriter;
+import com.lapissea.dfs.objects.NumberSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Packs a sequence of numbers by storing the n-th order difference of the sequence (the order is 0 for plain values, 1 for
+ * deltas, 2 for deltas of deltas) as frame of reference blocks. Every block stores its minimum and the bit width of the
+ * largest offset from it, followed by all offsets tightly bit packed.<br>
+ * A sorted list of ids or a list of timestamps has small differences so most of its values end up only a few bits wide.
+ */
+public final class NumberPacker{
+	
+	private static final int BLOCK_SIZE = 128;
+	
+	private static final class BitWriter{
+		private final ContentWriter dest;
+		private       long          acc;
+		private       int           bits;
+		
+		private BitWriter(ContentWriter dest){ this.dest = dest; }
+		
+		private void write(long value, int width) throws IOException{
+			if(width>32){
+				write(value&0xFFFFFFFFL, 32);
+				write(value>>>32, width - 32);
+				return;
+			}
+			acc |= value<<bits;
+			bits += width;
+			while(bits>=8){
+				dest.writeInt1((int)acc);
+				acc >>>= 8;
+				bits -= 8;
+			}
+		}
+		private void flush() throws IOException{
+			if(bits>0) dest.writeInt1((int)acc);
+			acc = 0;
+			bits = 0;
+		}
+	}
+	
+	private static final class BitReader{
+		private final ContentReader src;
+		private       long          acc;
+		private       int           bits;
+		
+		private BitReader(ContentReader src){ this.src = src; }
+		
+		private long read(int width) throws IOException{
+			if(width>32){
+				var low = read(32);
+				return low|(read(width - 32)<<32);
+			}
+			while(bits<width){
+				acc |= (long)src.readUnsignedInt1()<<bits;
+				bits += 8;
+			}
+			var value = acc&((1L<<width) - 1);
+			acc >>>= width;
+			bits -= width;
+			return value;
+		}
+		private void reset(){
+			acc = 0;
+			bits = 0;
+		}
+	}
+	
+	public static byte[] pack(long[] values, int order){
+		var residuals = values.clone();
+		for(int pass = 1; pass<=order; pass++){
+			for(int i = residuals.length - 1; i>=pass; i--){
+				residuals[i] -= residuals[i - 1];
+			}
+		}
+		
+		var out = new ContentOutputBuilder(16 + values.length);
+		try{
+			writeSigned(out, residuals.length);
+			
+			int heads = Math.min(order, residuals.length);
+			for(int i = 0; i<heads; i++){
+				writeSigned(out, residuals[i]);
+			}
+			
+			var bits = new BitWriter(out);
+			for(int start = heads; start<residuals.length; start += BLOCK_SIZE){
+				int end = Math.min(residuals.length, start + BLOCK_SIZE);
+				
+				long min = residuals[start], max = min;
+				for(int i = start + 1; i<end; i++){
+					min = Math.min(min, residuals[i]);
+					max = Math.max(max, residuals[i]);
+				}
+				var width = Long.SIZE - Long.numberOfLeadingZeros(max - min);
+				
+				writeSigned(out, min);
+				out.writeInt1(width);
+				for(int i = start; i<end; i++){
+					bits.write(residuals[i] - min, width);
+				}
+				bits.flush();
+			}
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+	
+	public static long[] unpack(byte[] packed, int order) throws IOException{
+		var src = new ContentInputStream.BA(packed);
+		
+		var count = readSigned(src);
+		if(count<0 || count>Integer.MAX_VALUE){
+			throw new IOException("Illegal element count: " + count);
+		}
+		var values = new long[(int)count];
+		
+		int heads = Math.min(order, values.length);
+		for(int i = 0; i<heads; i++){
+			values[i] = readSigned(src);
+		}
+		
+		var bits = new BitReader(src);
+		for(int start = heads; start<values.length; start += BLOCK_SIZE){
+			int end = Math.min(values.length, start + BLOCK_SIZE);
+			
+			var min   = readSigned(src);
+			var width = src.readUnsignedInt1();
+			if(width>Long.SIZE) throw new IOException("Illegal bit width: " + width);
+			for(int i = start; i<end; i++){
+				values[i] = min + bits.read(width);
+			}
+			bits.reset();
+		}
+		
+		for(int pass = order; pass>=1; pass--){
+			for(int i = pass; i<values.length; i++){
+				values[i] += values[i - 1];
+			}
+		}
+		return values;
+	}
+	
+	private static void writeSigned(ContentWriter out, long value) throws IOException{
+		var siz = NumberSize.bySizeSigned(value);
+		out.writeInt1(siz.ordinal());
+		siz.writeSigned(out, value);
+	}
+	private static long readSigned(ContentReader src) throws IOException{
+		var id = src.readUnsignedInt1();
+		if(id>=NumberSize.FLAG_INFO.size()) throw new IOException("Illegal number size: " + id);
+		return NumberSize.ordinal(id).readSigned(src);
+	}
+}
@@ -5,6 +5,7 @@ import com.lapissea.dfs.type.compilation.FieldCompiler;
 import sun.misc.Unsafe;
 
 import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import static com.lapissea.dfs.internal.MyUnsafe.UNSAFE;
@@ -192,4 +193,26 @@ public final class BBView{
 	public static long readInt8(byte[] byteBuffer, int offset) { return (long)LONG_VIEW.get(byteBuffer, offset); }
 	public static float readFloat4(byte[] byteBuffer, int off) { return (float)FLOAT_VIEW.get(byteBuffer, off); }
 	public static double readFloat8(byte[] byteBuffer, int off){ return (double)DOUBLE_VIEW.get(byteBuffer, off); }
+	
+	//////////BULK//////////
+	
+	/**
+	 * Bulk copies go through a little endian {@link ByteBuffer} view. The JDK compiles these to a plain memory copy
+	 * (or a swapping copy on big endian machines) instead of one var handle access per element.
+	 */
+	private static ByteBuffer le(byte[] data, int off, int len){ return ByteBuffer.wrap(data, off, len).order(LITTLE_ENDIAN); }
+	
+	public static void writeChars2(byte[] dest, int off, char[] src, int from, int len)   { le(dest, off, len*2).asCharBuffer().put(src, from, len); }
+	public static void writeInts2(byte[] dest, int off, short[] src, int from, int len)   { le(dest, off, len*2).asShortBuffer().put(src, from, len); }
+	public static void writeInts4(byte[] dest, int off, int[] src, int from, int len)     { le(dest, off, len*4).asIntBuffer().put(src, from, len); }
+	public static void writeInts8(byte[] dest, int off, long[] src, int from, int len)    { le(dest, off, len*8).asLongBuffer().put(src, from, len); }
+	public static void writeFloats4(byte[] dest, int off, float[] src, int from, int len) { le(dest, off, len*4).asFloatBuffer().put(src, from, len); }
+	public static void writeFloats8(byte[] dest, int off, double[] src, int from, int len){ le(dest, off, len*8).asDoubleBuffer().put(src, from, len); }
+	
+	public static void readChars2(byte[] src, int off, char[] dest, int from, int len)   { le(src, off, len*2).asCharBuffer().get(dest, from, len); }
+	public static void readInts2(byte[] src, int off, short[] dest, int from, int len)   { le(src, off, len*2).asShortBuffer().get(dest, from, len); }
+	public static void readInts4(byte[] src, int off, int[] dest, int from, int len)     { le(src, off, len*4).asIntBuffer().get(dest, from, len); }
+	public static void readInts8(byte[] src, int off, long[] dest, int from, int len)    { le(src, off, len*8).asLongBuffer().get(dest, from, len); }
+	public static void readFloats4(byte[] src, int off, float[] dest, int from, int len) { le(src, off, len*4).asFloatBuffer().get(dest, from, len); }
+	public static void readFloats8(byte[] src, int off, double[] dest, int from, int len){ le(src, off, len*8).asDoubleBuffer().get(dest, from, len); }
 }
@@ -0,0 +1,7 @@
+package com.lapissea.dfs.io.content;
+
+interface BulkDecode<A>{
+	
+	void decode(byte[] src, int offset, A dest, int from, int len);
+	
+}
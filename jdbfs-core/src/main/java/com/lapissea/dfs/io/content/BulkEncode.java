@@ -0,0 +1,7 @@
+package com.lapissea.dfs.io.content;
+
+interface BulkEncode<A>{
+	
+	void encode(byte[] dest, int offset, A src, int from, int len);
+	
+}
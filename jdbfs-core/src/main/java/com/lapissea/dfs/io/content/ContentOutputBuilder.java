@@ -4,6 +4,29 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 public class ContentOutputBuilder extends ByteArrayOutputStream implements ContentWriter{
+	
+	private static final int                               SCRATCH_MAX_SIZE = 1<<13;
+	private static final ThreadLocal<ContentOutputBuilder> SCRATCH          = new ThreadLocal<>();
+	
+	/**
+	 * Takes the scratch buffer of the current thread or creates a new one if it is already in use.
+	 * The buffer should be given back with {@link #releaseScratch(ContentOutputBuilder)} once its content is no longer needed.
+	 */
+	public static ContentOutputBuilder takeScratch(int size){
+		var buff = SCRATCH.get();
+		if(buff == null) return new ContentOutputBuilder(size);
+		SCRATCH.set(null);
+		return buff;
+	}
+	/**
+	 * Makes the buffer available to the next {@link #takeScratch(int)} on this thread. Large buffers are dropped so they do not stay allocated.
+	 */
+	public static void releaseScratch(ContentOutputBuilder buff){
+		if(buff.buf.length>SCRATCH_MAX_SIZE) return;
+		buff.reset();
+		SCRATCH.set(buff);
+	}
+	
 	public ContentOutputBuilder(){
 	}
 	public ContentOutputBuilder(int size){
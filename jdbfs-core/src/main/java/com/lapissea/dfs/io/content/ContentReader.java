@@ -115,27 +115,7 @@ public interface ContentReader extends AutoCloseable{
 	}
 	
 	default char[] readChars2(int elementsToRead) throws IOException{
-		int bytesPerElement  = 2;
-		int elementsPerChunk = Math.min(elementsToRead, 256);
-		
-		var result = new char[elementsToRead];
-		var buff   = new byte[elementsPerChunk*bytesPerElement];
-		
-		int remaining = result.length;
-		while(remaining>0){
-			int read = result.length - remaining;
-			
-			int readElements = Math.min(remaining, elementsPerChunk);
-			readFully(buff, 0, readElements*bytesPerElement);
-			
-			for(int i = 0; i<readElements; i++){
-				result[read + i] = BBView.readChar2(buff, i*bytesPerElement);
-			}
-			
-			remaining -= readElements;
-		}
-		
-		return result;
+		return readBulk(new char[elementsToRead], elementsToRead, 2, BBView::readChars2);
 	}
 	
 	default char readChar2() throws IOException{
@@ -167,27 +147,7 @@ public interface ContentReader extends AutoCloseable{
 	
 	
 	default short[] readInts2(int elementsToRead) throws IOException{
-		int bytesPerElement  = 2;
-		int elementsPerChunk = Math.min(elementsToRead, 256);
-		
-		var result = new short[elementsToRead];
-		var buff   = new byte[elementsPerChunk*bytesPerElement];
-		
-		int remaining = result.length;
-		while(remaining>0){
-			int read = result.length - remaining;
-			
-			int readElements = Math.min(remaining, elementsPerChunk);
-			readFully(buff, 0, readElements*bytesPerElement);
-			
-			for(int i = 0; i<readElements; i++){
-				result[read + i] = BBView.readInt2(buff, i*bytesPerElement);
-			}
-			
-			remaining -= readElements;
-		}
-		
-		return result;
+		return readBulk(new short[elementsToRead], elementsToRead, 2, BBView::readInts2);
 	}
 	
 	default short readInt2() throws IOException{
@@ -235,7 +195,7 @@ public interface ContentReader extends AutoCloseable{
 	
 	
 	default int[] readInts4(int elementsToRead) throws IOException{
-		return readInts(elementsToRead, 4, BBView::readInt4);
+		return readBulk(new int[elementsToRead], elementsToRead, 4, BBView::readInts4);
 	}
 	
 	default int readInt4() throws IOException{
@@ -261,7 +221,7 @@ public interface ContentReader extends AutoCloseable{
 	}
 	
 	default long[] readInts8(int elementsToRead) throws IOException{
-		return readLongs(elementsToRead, 8, BBView::readInt8);
+		return readBulk(new long[elementsToRead], elementsToRead, 8, BBView::readInts8);
 	}
 	
 	default long readUnsignedInt8Dynamic() throws IOException{
@@ -301,6 +261,19 @@ public interface ContentReader extends AutoCloseable{
 		return result;
 	}
 	
+	private <A> A readBulk(A result, int elementsToRead, int bytesPerElement, BulkDecode<A> decoder) throws IOException{
+		if(elementsToRead == 0) return result;
+		int elementsPerChunk = Math.min(elementsToRead, Math.max(1, BATCH_BYTES/bytesPerElement));
+		
+		var buff = new byte[elementsPerChunk*bytesPerElement];
+		for(int start = 0; start<elementsToRead; start += elementsPerChunk){
+			int readElements = Math.min(elementsToRead - start, elementsPerChunk);
+			readFully(buff, 0, readElements*bytesPerElement);
+			decoder.decode(buff, 0, result, start, readElements);
+		}
+		return result;
+	}
+	
 	private long[] readLongs(int elementsToRead, int bytesPerElement, ReadLongFromBuff reader) throws IOException{
 		int elementsPerChunk = Math.min(elementsToRead, 256);
 		
@@ -337,11 +310,7 @@ public interface ContentReader extends AutoCloseable{
 		return buff;
 	}
 	default void readFloats4(float[] f) throws IOException{
-		int    numSize = 4;
-		byte[] bb      = readInts1(f.length*numSize);
-		for(int i = 0; i<f.length; i++){
-			f[i] = BBView.readFloat4(bb, i*numSize);
-		}
+		readBulk(f, f.length, 4, BBView::readFloats4);
 	}
 	
 	default double readFloat8() throws IOException{
@@ -353,11 +322,7 @@ public interface ContentReader extends AutoCloseable{
 		return buff;
 	}
 	default void readFloats8(double[] f) throws IOException{
-		int    numSize = 8;
-		byte[] bb      = readInts1(f.length*numSize);
-		for(int i = 0; i<f.length; i++){
-			f[i] = BBView.readFloat8(bb, i*numSize);
-		}
+		readBulk(f, f.length, 8, BBView::readFloats8);
 	}
 	
 	default byte[] readFully(byte[] b) throws IOException{
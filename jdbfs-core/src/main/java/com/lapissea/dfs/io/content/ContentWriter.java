@@ -72,12 +72,7 @@ public interface ContentWriter extends AutoCloseable{
 	}
 	
 	default void writeInts2(short[] b) throws IOException{
-		int    numSize = 2;
-		byte[] bb      = new byte[b.length*numSize];
-		for(int i = 0; i<b.length; i++){
-			BBView.writeInt2(bb, i*numSize, b[i]);
-		}
-		write(bb);
+		writeBulk(b, b.length, 2, BBView::writeInts2);
 	}
 	
 	default void writeInt2(int v) throws IOException{
@@ -98,12 +93,7 @@ public interface ContentWriter extends AutoCloseable{
 	}
 	
 	default void writeInts4(int[] b) throws IOException{
-		int    numSize = 4;
-		byte[] bb      = new byte[b.length*numSize];
-		for(int i = 0; i<b.length; i++){
-			BBView.writeInt4(bb, i*numSize, b[i]);
-		}
-		write(bb, 0, bb.length);
+		writeBulk(b, b.length, 4, BBView::writeInts4);
 	}
 	
 	default void writeUnsignedInt4Dynamic(int v) throws IOException{
@@ -149,12 +139,7 @@ public interface ContentWriter extends AutoCloseable{
 	}
 	
 	default void writeInts8(long[] b) throws IOException{
-		int    numSize = 8;
-		byte[] bb      = new byte[b.length*numSize];
-		for(int i = 0; i<b.length; i++){
-			BBView.writeInt8(bb, i*numSize, b[i]);
-		}
-		write(bb, 0, bb.length);
+		writeBulk(b, b.length, 8, BBView::writeInts8);
 	}
 	
 	default void writeUnsignedInt8Dynamic(long v) throws IOException{
@@ -173,12 +158,7 @@ public interface ContentWriter extends AutoCloseable{
 	}
 	
 	default void writeFloats4(float[] f) throws IOException{
-		int    numSize = 4;
-		byte[] bb      = new byte[f.length*numSize];
-		for(int i = 0; i<f.length; i++){
-			BBView.writeFloat4(bb, i*numSize, f[i]);
-		}
-		write(bb, 0, bb.length);
+		writeBulk(f, f.length, 4, BBView::writeFloats4);
 	}
 	
 	default void writeFloat2(float v) throws IOException{
@@ -190,12 +170,23 @@ public interface ContentWriter extends AutoCloseable{
 	}
 	
 	default void writeFloats8(double[] f) throws IOException{
-		int    numSize = 8;
-		byte[] bb      = new byte[f.length*numSize];
-		for(int i = 0; i<f.length; i++){
-			BBView.writeFloat8(bb, i*numSize, f[i]);
+		writeBulk(f, f.length, 8, BBView::writeFloats8);
+	}
+	
+	/**
+	 * Encodes a primitive array in batches of at most {@link com.lapissea.dfs.config.GlobalConfig#BATCH_BYTES} so large arrays
+	 * do not need a second copy of the same size.
+	 */
+	private <A> void writeBulk(A src, int len, int bytesPerElement, BulkEncode<A> encoder) throws IOException{
+		if(len == 0) return;
+		int elementsPerChunk = Math.min(len, Math.max(1, BATCH_BYTES/bytesPerElement));
+		
+		var buff = new byte[elementsPerChunk*bytesPerElement];
+		for(int start = 0; start<len; start += elementsPerChunk){
+			int count = Math.min(len - start, elementsPerChunk);
+			encoder.encode(buff, 0, src, start, count);
+			write(buff, 0, count*bytesPerElement);
 		}
-		write(bb, 0, bb.length);
 	}
 	
 	default void writeFloat8(double v) throws IOException{
@@ -212,12 +203,7 @@ public interface ContentWriter extends AutoCloseable{
 	}
 	
 	default void writeChars2(char[] c) throws IOException{
-		int    numSize = 2;
-		byte[] bb      = new byte[c.length*numSize];
-		for(int i = 0; i<c.length; i++){
-			BBView.writeChar2(bb, i*numSize, c[i]);
-		}
-		write(bb, 0, bb.length);
+		writeBulk(c, c.length, 2, BBView::writeChars2);
 	}
 	
 	default void writeChar2(char v) throws IOException{
@@ -29,6 +29,11 @@ import static java.util.function.Predicate.not;
 
 public abstract class BaseFixedStructPipe<T extends IOInstance<T>> extends StructPipe<T>{
 	
+	/**
+	 * Set by {@link StructView#of(BaseFixedStructPipe)}. Held by the pipe so that it lives exactly as long as the pipe does.
+	 */
+	volatile StructView.Factory<T> viewFactory;
+	
 	public <E extends Exception> BaseFixedStructPipe(Struct<T> type, PipeFieldCompiler<T, E> compiler, int syncStage) throws E{
 		super(type, compiler, syncStage);
 	}
@@ -34,8 +34,8 @@ public final class FixedVaryingStructPipe<T extends IOInstance<T>> extends BaseF
 		
 		private List<Step> steps;
 		
-		private final Map<List<NumberSize>, FixedVaryingStructPipe<T>> cache     = new HashMap<>();
-		private final ReadWriteClosableLock                            cacheLock = ReadWriteClosableLock.reentrant();
+		private final Map<List<VaryingSize>, FixedVaryingStructPipe<T>> cache     = new HashMap<>();
+		private final ReadWriteClosableLock                             cacheLock = ReadWriteClosableLock.reentrant();
 		
 		private ProviderReply(Struct<T> type){
 			this.type = type;
@@ -59,9 +59,10 @@ public final class FixedVaryingStructPipe<T extends IOInstance<T>> extends BaseF
 				return pipe;
 			}
 			
-			List<NumberSize> buff = new ArrayList<>(steps.size());
+			//The IDs are a part of the key as a nested pipe has to report too small sizes with the IDs of the rule it was made from
+			List<VaryingSize> buff = new ArrayList<>(steps.size());
 			for(var step : steps){
-				buff.add(rule.provide(step.max, null, step.ptr).size);
+				buff.add(rule.provide(step.max, null, step.ptr));
 			}
 			buff = List.copyOf(buff);
 			
@@ -76,8 +77,8 @@ public final class FixedVaryingStructPipe<T extends IOInstance<T>> extends BaseF
 				
 				ConfigDefs.CompLogLevel.JUST_START.log("Creating new varying pip of {}#cyan with {}#purpleBright", type, buff);
 				
-				var pipe = new FixedVaryingStructPipe<>(type, VaryingSize.Provider.repeat(buff));
-				pipe.sizesStr = Iters.from(buff).map(NumberSize::shortName).joinAsStr();
+				var pipe = new FixedVaryingStructPipe<>(type, VaryingSize.Provider.replay(buff));
+				pipe.sizesStr = Iters.from(buff).map(v -> v.size.shortName).joinAsStr();
 				cache.put(buff, pipe);
 				
 				return pipe;
@@ -86,10 +86,7 @@ public class StandardStructPipe<T extends IOInstance<T>> extends StructPipe<T>{
 //			skipCheck(ioPool, provider, instance, src, genericContext);
 //		}
 		
-		FieldSet<T> fields = getSpecificFields();
-		for(IOField<T, ?> field : fields){
-			readField(ioPool, provider, src, instance, genericContext, field);
-		}
+		readIOFields(getSpecificFields(), ioPool, provider, src, instance, genericContext);
 		return instance;
 	}
 	
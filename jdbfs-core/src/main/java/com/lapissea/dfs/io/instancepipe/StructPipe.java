@@ -13,7 +13,6 @@ import com.lapissea.dfs.internal.Access;
 import com.lapissea.dfs.internal.Runner;
 import com.lapissea.dfs.io.RandomIO;
 import com.lapissea.dfs.io.bit.BitUtils;
-import com.lapissea.dfs.io.content.ContentInputStream;
 import com.lapissea.dfs.io.content.ContentOutputBuilder;
 import com.lapissea.dfs.io.content.ContentReader;
 import com.lapissea.dfs.io.content.ContentWriter;
@@ -28,7 +27,9 @@ import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.SupportedPrimitive;
 import com.lapissea.dfs.type.VarPool;
 import com.lapissea.dfs.type.WordSpace;
+import com.lapissea.dfs.type.compilation.DefInstanceCompiler;
 import com.lapissea.dfs.type.compilation.FieldCompiler;
+import com.lapissea.dfs.type.compilation.StructPipeCompiler;
 import com.lapissea.dfs.type.compilation.helpers.ProxyBuilder;
 import com.lapissea.dfs.type.field.FieldNames;
 import com.lapissea.dfs.type.field.FieldSet;
@@ -302,8 +303,21 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 	
 	private List<IOField.ValueGeneratorInfo<T, ?>> generators;
 	
+	private StructPipeCompiler.FieldIO<T> generatedIO;
+	
+	/**
+	 * Holds one reusable io pool per thread. Taking the pool empties the slot so a nested read or write of the same type allocates its own pool.
+	 */
+	private ThreadLocal<VarPool.GeneralVarArray<T>> ioPoolCache;
+	
 	private FieldDependency<T> fieldDependency;
 	
+	/**
+	 * For each specific field, the bits of {@link IOInstance.Managed#modifiedFields} that it is written for. Empty if the type
+	 * does not track all of its fields.
+	 */
+	private long[] modifiedFieldMasks;
+	
 	private StructPipe<ProxyBuilder<T>> builderPipe;
 	private boolean                     needsBuilderObj;
 	
@@ -338,6 +352,12 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 					generators = Utils.nullIfEmpty(IOFieldTools.fieldsToGenerators(ioFields));
 					
 					referenceWalkCommands = generateReferenceWalkCommands();
+					if(getType().needsPool(StoragePool.IO)){
+						ioPoolCache = new ThreadLocal<>();
+					}
+					if(ConfigDefs.GENERATED_PIPE.resolveVal() && !ioFields.isEmpty()){
+						generatedIO = compileFieldIO();
+					}
 					earlyNullChecks = !DEBUG_VALIDATION? null : Utils.nullIfEmpty(
 						getNonNulls().filter(f -> generators == null || Iters.from(generators).noneMatch(gen -> gen.field() == f))
 						             .toList()
@@ -355,6 +375,15 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		}, syncStage == STATE_DONE? null : this::postValidate);
 	}
 	
+	private StructPipeCompiler.FieldIO<T> compileFieldIO(){
+		try{
+			return StructPipeCompiler.compile(getType(), ioFields);
+		}catch(Throwable e){
+			Log.warn("Failed to generate field IO for {}#yellow, using generic IO. Reason: {}#red", this, Utils.errToStackTraceOnDemand(e));
+			return null;
+		}
+	}
+	
 	boolean needsBuilderObj(){
 		waitForState(STATE_IO_FIELD);
 		return needsBuilderObj;
@@ -736,9 +765,13 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 	
 	@Override
 	public final void write(DataProvider provider, ContentWriter dest, T instance) throws IOException{
-		var ioPool = makeIOPool();
-		if(DEBUG_VALIDATION) earlyCheckNulls(ioPool, instance);
-		doWrite(provider, dest, ioPool, instance);
+		var ioPool = takeIOPool();
+		try{
+			if(DEBUG_VALIDATION) earlyCheckNulls(ioPool, instance);
+			doWrite(provider, dest, ioPool, instance);
+		}finally{
+			releaseIOPool(ioPool);
+		}
 	}
 	
 	protected abstract void doWrite(DataProvider provider, ContentWriter dest, VarPool<T> ioPool, T instance) throws IOException;
@@ -784,7 +817,12 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		}else{
 			instance = type.make();
 		}
-		readDeps(makeIOPool(), provider, src, depTicket, instance, genericContext);
+		var ioPool = takeIOPool();
+		try{
+			readDeps(ioPool, provider, src, depTicket, instance, genericContext);
+		}finally{
+			releaseIOPool(ioPool);
+		}
 		return instance;
 	}
 	
@@ -815,10 +853,13 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 			return readNewByBuilder(provider, src, genericContext);
 		}
 		T instance = type.make();
+		var ioPool = takeIOPool();
 		try{
-			return doRead(makeIOPool(), provider, src, instance, genericContext);
+			return doRead(ioPool, provider, src, instance, genericContext);
 		}catch(IOException e){
 			throw new TypeIOFail("Failed reading", getType().getType(), e);
+		}finally{
+			releaseIOPool(ioPool);
 		}
 	}
 	private T readNewByBuilder(DataProvider provider, ContentReader src, GenericContext genericContext) throws IOException{
@@ -835,10 +876,13 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 	}
 	
 	public final void read(DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException{
+		var ioPool = takeIOPool();
 		try{
-			doRead(makeIOPool(), provider, src, instance, genericContext);
+			doRead(ioPool, provider, src, instance, genericContext);
 		}catch(IOException e){
 			throw new TypeIOFail("Failed reading", getType().getType(), e);
+		}finally{
+			releaseIOPool(ioPool);
 		}
 	}
 	
@@ -864,6 +908,14 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		return fieldDependency;
 	}
 	
+	/**
+	 * @return true if the fields of this pipe are read and written by a generated class. See {@link ConfigDefs#GENERATED_PIPE}
+	 */
+	public final boolean hasGeneratedIO(){
+		waitForState(LOCAL_DATA);
+		return generatedIO != null;
+	}
+	
 	public final void earlyCheckNulls(VarPool<T> ioPool, T instance){
 		waitForState(LOCAL_DATA);
 		if(earlyNullChecks == null) return;
@@ -889,7 +941,7 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		
 		if(dest.isDirect()){
 			var siz = getSizeDescriptor().calcAllocSize(WordSpace.BYTE);
-			destBuff = new ContentOutputBuilder((int)siz);
+			destBuff = ContentOutputBuilder.takeScratch((int)siz);
 			target = destBuff;
 		}else{
 			target = dest;
@@ -900,9 +952,12 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		}
 		
 		try{
-			for(IOField<T, ?> field : fields){
+			var gen = generatedIO;
+			if(gen != null && fields == ioFields){
+				gen.write(ioPool, provider, target, instance);
+			}else for(IOField<T, ?> field : fields){
 				if(DEBUG_VALIDATION){
-					writeFieldKnownSize(ioPool, provider, target, instance, field);
+					field.writeKnownSize(ioPool, provider, target, instance);
 				}else{
 					field.writeReported(ioPool, provider, target, instance);
 				}
@@ -913,6 +968,7 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		
 		if(destBuff != null){
 			destBuff.writeTo(dest);
+			ContentOutputBuilder.releaseScratch(destBuff);
 		}
 		if(close){
 			dest.close();
@@ -1014,19 +1070,6 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		}
 	}
 	
-	private void writeFieldKnownSize(VarPool<T> ioPool, DataProvider provider, ContentWriter target, T instance, IOField<T, ?> field) throws IOException{
-		var desc     = field.getSizeDescriptor();
-		var bytes    = desc.calcUnknown(ioPool, provider, instance, WordSpace.BYTE);
-		var safeBuff = target.writeTicket(bytes).requireExact().submit();
-		field.writeReported(ioPool, provider, safeBuff, instance);
-		
-		try{
-			safeBuff.close();
-		}catch(Exception e){
-			throw new IOException(TextUtil.toString(field) + " - " + field.getClass().getSimpleName() + " (" + Utils.toShortString(field.get(ioPool, instance)) + ") did not write correctly", e);
-		}
-	}
-	
 	public void writeSingleField(DataProvider provider, RandomIO dest, IOField<T, ?> selectedField, T instance) throws IOException{
 		var deps = getFieldDependency().getDeps(selectedField);
 		writeDeps(provider, dest, deps, instance);
@@ -1047,7 +1090,7 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 				if(fields.get(checkIndex) == field){
 					checkIndex++;
 					if(DEBUG_VALIDATION){
-						writeFieldKnownSize(ioPool, provider, atomicIO, instance, field);
+						field.writeKnownSize(ioPool, provider, atomicIO, instance);
 					}else{
 						field.writeReported(ioPool, provider, atomicIO, instance);
 					}
@@ -1075,6 +1118,46 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		}
 	}
 	
+	/**
+	 * Finds the fields to write for an instance of which only the fields in the mask of
+	 * {@link IOInstance.Managed#modifiedFields} were set, along with the fields that depend on them.
+	 *
+	 * @return null if it is not known what was set or the type does not track its fields
+	 */
+	public final FieldDependency.Ticket<T> modifiedFieldsDeps(long modifiedMask){
+		if(modifiedMask == -1) return null;
+		var masks = modifiedFieldMasks;
+		if(masks == null) modifiedFieldMasks = masks = computeModifiedFieldMasks();
+		if(masks.length == 0) return null;
+		
+		var fields  = getSpecificFields();
+		var changed = new ArrayList<IOField<T, ?>>();
+		for(int i = 0; i<masks.length; i++){
+			if((masks[i]&modifiedMask) != 0) changed.add(fields.get(i));
+		}
+		return getFieldDependency().getDeps(FieldSet.of(changed));
+	}
+	private long[] computeModifiedFieldMasks(){
+		var names = DefInstanceCompiler.modifiedFieldNames(getType().getConcreteType());
+		if(names.isEmpty() || names.size()>64) return new long[0];
+		
+		var fields = getSpecificFields();
+		var masks  = new long[fields.size()];
+		for(int i = 0; i<masks.length; i++){
+			for(var field : fields.get(i).iterUnpackedFields()){
+				if(field.isVirtual(StoragePool.IO)) continue;
+				var index = names.indexOf(field.getName());
+				//A mutable value can change without its setter being called
+				var type = field.getType();
+				if(index == -1 || !(SupportedPrimitive.isAny(type) || type == String.class || type.isEnum())){
+					return new long[0];
+				}
+				masks[i] |= 1L<<index;
+			}
+		}
+		return masks;
+	}
+	
 	private void skipFail(DataProvider provider, RandomIO dest, IOField<T, ?> field, IOException cause) throws IOException{
 		var oldPos = dest.getPos();
 		try{
@@ -1090,6 +1173,16 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 	}
 	
 	protected void readIOFields(FieldSet<T> fields, VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException{
+		var gen = generatedIO;
+		if(gen != null && fields == ioFields){
+			try{
+				gen.read(ioPool, provider, src, instance, genericContext);
+			}catch(EOFException e){
+				//Only inlined primitives are read without reporting the field
+				throw new TypeIOFail("Failed reading fields", getType().getType(), e);
+			}
+			return;
+		}
 		for(IOField<T, ?> field : fields){
 			readField(ioPool, provider, src, instance, genericContext, field);
 		}
@@ -1151,44 +1244,9 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 	}
 	
 	protected void readField(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext, IOField<T, ?> field) throws IOException{
-		if(DEBUG_VALIDATION && field.getSizeDescriptor().hasFixed()){
-			readFieldSafe(ioPool, provider, src, instance, genericContext, field);
-		}else{
-			try{
-				field.read(ioPool, provider, src, instance, genericContext);
-			}catch(TypeIOFail|EOFException e){
-				var typ = field.getAccessor() == null? null : field.getAccessor().getType();
-				throw new TypeIOFail("Failed reading " + field + "", typ, e);
-			}catch(IOException e){
-				e.addSuppressed(new IOException("Failed to read " + field));
-				throw e;
-			}
-		}
+		field.readReported(ioPool, provider, src, instance, genericContext);
 	}
 	
-	private void readFieldSafe(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext, IOField<T, ?> field) throws IOException{
-		var desc  = field.getSizeDescriptor();
-		var bytes = desc.requireFixed(WordSpace.BYTE);
-		
-		ContentInputStream buf;
-		try{
-			buf = src.readTicket(bytes).requireExact().submit();
-		}catch(Exception e){
-			throw fail(field, e, "failed to prepare raw data");
-		}
-		
-		try{
-			field.read(ioPool, provider, buf, instance, genericContext);
-		}catch(Exception e){
-			throw fail(field, e, "failed to read");
-		}
-		
-		try{
-			buf.close();
-		}catch(Exception e){
-			throw fail(field, e, "did not read correctly");
-		}
-	}
 	private static IOException fail(IOField<?, ?> field, Exception e, String msg){
 		var typ = field.getAccessor() == null? null : field.getAccessor().getType();
 		return new TypeIOFail(field + " " + msg, typ, e);
@@ -1199,6 +1257,21 @@ public abstract class StructPipe<T extends IOInstance<T>> extends StagedInit imp
 		return getType().allocVirtualVarPool(StoragePool.IO);
 	}
 	
+	private VarPool<T> takeIOPool(){
+		var cache = ioPoolCache;
+		if(cache == null) return makeIOPool();
+		var pool = cache.get();
+		if(pool == null) return makeIOPool();
+		cache.set(null);
+		return pool;
+	}
+	private void releaseIOPool(VarPool<T> ioPool){
+		var cache = ioPoolCache;
+		if(cache == null || !(ioPool instanceof VarPool.GeneralVarArray<T> pool)) return;
+		pool.clear();
+		cache.set(pool);
+	}
+	
 	public void checkTypeIntegrity() throws IOException{
 		checkTypeIntegrity(type.make(), true);
 	}
@@ -0,0 +1,179 @@
+package com.lapissea.dfs.io.instancepipe;
+
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.type.GenericContext;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.WordSpace;
+import com.lapissea.dfs.type.compilation.StructViewCompiler;
+import com.lapissea.dfs.type.string.StringifySettings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * A view is a generated implementation of an {@link IOInstance.Def} interface that does not hold any data. Its getters read
+ * directly from a buffer laid out by a {@link BaseFixedStructPipe} and its setters write through to it.<br>
+ * A view only stays valid while the underlying memory does and may be repositioned with {@link Factory#move}, so one view can
+ * walk over many elements without allocating. A view records if it was changed through a setter, see {@link Factory#takeModified}.
+ * Only types whose fields are all primitive numbers stored at their full width can be viewed.
+ */
+public abstract class StructView<T extends IOInstance<T>>{
+	
+	public static final class Factory<T extends IOInstance<T>>{
+		
+		private final BaseFixedStructPipe<T>  pipe;
+		private final Supplier<StructView<T>> constructor;
+		private final long                    size;
+		private       DataProvider            provider;
+		
+		public Factory(BaseFixedStructPipe<T> pipe, Supplier<StructView<T>> constructor){
+			this.pipe = pipe;
+			this.constructor = constructor;
+			size = pipe.getFixedDescriptor().get(WordSpace.BYTE);
+		}
+		
+		/**
+		 * Creates a view over the element that starts at the offset.
+		 */
+		@SuppressWarnings("unchecked")
+		public T wrap(ByteBuffer buffer, int offset){
+			var view = constructor.get();
+			view.factory = this;
+			view.moveTo(buffer, offset);
+			return (T)view;
+		}
+		public T wrap(byte[] data, int offset){
+			return wrap(ByteBuffer.wrap(data), offset);
+		}
+		
+		/**
+		 * Points an existing view to a different element of the buffer it is viewing.
+		 */
+		public void move(T view, int offset){
+			var v = (StructView<?>)view;
+			v.moveTo(v.buffer, offset);
+		}
+		/**
+		 * Points an existing view to an element of a different buffer.
+		 */
+		public void move(T view, ByteBuffer buffer, int offset){
+			((StructView<?>)view).moveTo(buffer, offset);
+		}
+		
+		/**
+		 * @return true if a setter of the view was called since it was created or since the last call of this method
+		 */
+		public boolean takeModified(T view){
+			var v        = (StructView<?>)view;
+			var modified = v.modified;
+			v.modified = false;
+			return modified;
+		}
+		
+		public BaseFixedStructPipe<T> getPipe(){
+			return pipe;
+		}
+		
+		/**
+		 * @return the number of bytes a single element occupies
+		 */
+		public long size(){
+			return size;
+		}
+		
+		private DataProvider provider(){
+			var p = provider;
+			if(p == null) provider = p = DataProvider.newVerySimpleProvider();
+			return p;
+		}
+	}
+	
+	public static <T extends IOInstance.Def<T>> Factory<T> of(Class<T> type){
+		return of(FixedStructPipe.of(type, StructPipe.STATE_DONE));
+	}
+	public static <T extends IOInstance<T>> Factory<T> of(BaseFixedStructPipe<T> pipe){
+		var cached = pipe.viewFactory;
+		if(cached != null) return cached;
+		
+		//A race may compile the view twice. Both are equivalent and one of them is kept.
+		var factory = StructViewCompiler.compile(pipe);
+		pipe.viewFactory = factory;
+		return factory;
+	}
+	
+	private Factory<T> factory;
+	private ByteBuffer buffer;
+	private int        offset;
+	private boolean    modified;
+	
+	protected StructView(){ }
+	
+	private void moveTo(ByteBuffer buffer, int offset){
+		Objects.checkFromIndexSize(offset, factory.size, buffer.capacity());
+		if(this.buffer != buffer){
+			this.buffer = buffer.order() == LITTLE_ENDIAN? buffer : buffer.duplicate().order(LITTLE_ENDIAN);
+		}
+		this.offset = offset;
+	}
+	private ByteBuffer modify(){
+		modified = true;
+		return buffer;
+	}
+	
+	protected static long getLong(StructView<?> view, int off)                { return view.buffer.getLong(view.offset + off); }
+	protected static void setLong(StructView<?> view, int off, long value)    { view.modify().putLong(view.offset + off, value); }
+	protected static int getInt(StructView<?> view, int off)                  { return view.buffer.getInt(view.offset + off); }
+	protected static void setInt(StructView<?> view, int off, int value)      { view.modify().putInt(view.offset + off, value); }
+	protected static short getShort(StructView<?> view, int off)              { return view.buffer.getShort(view.offset + off); }
+	protected static void setShort(StructView<?> view, int off, short value)  { view.modify().putShort(view.offset + off, value); }
+	protected static char getChar(StructView<?> view, int off)                { return view.buffer.getChar(view.offset + off); }
+	protected static void setChar(StructView<?> view, int off, char value)    { view.modify().putChar(view.offset + off, value); }
+	protected static byte getByte(StructView<?> view, int off)                { return view.buffer.get(view.offset + off); }
+	protected static void setByte(StructView<?> view, int off, byte value)    { view.modify().put(view.offset + off, value); }
+	protected static double getDouble(StructView<?> view, int off)            { return view.buffer.getDouble(view.offset + off); }
+	protected static void setDouble(StructView<?> view, int off, double value){ view.modify().putDouble(view.offset + off, value); }
+	protected static float getFloat(StructView<?> view, int off)              { return view.buffer.getFloat(view.offset + off); }
+	protected static void setFloat(StructView<?> view, int off, float value)  { view.modify().putFloat(view.offset + off, value); }
+	
+	/**
+	 * Reads the viewed element in to a regular heap instance.
+	 */
+	public final T toInstance(){
+		var bytes = new byte[(int)factory.size];
+		buffer.get(offset, bytes);
+		try{
+			return factory.pipe.readNew(factory.provider(), new ContentInputStream.BA(bytes), null);
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	public final Struct<T> getThisStruct(){
+		return factory.pipe.getType();
+	}
+	
+	public final void allocateNulls(DataProvider provider, GenericContext genericContext){ }
+	
+	@Override
+	public final T clone(){
+		return toInstance();
+	}
+	
+	public final String toShortString(){
+		return toInstance().toShortString();
+	}
+	public final String toString(StringifySettings settings){
+		return toInstance().toString(settings);
+	}
+	@Override
+	public final String toString(){
+		return toInstance().toString();
+	}
+}
@@ -0,0 +1,760 @@
+package com.lapissea.dfs.objects.collections;
+
+import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.core.AllocateTicket;
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.core.chunk.Chunk;
+import com.lapissea.dfs.exceptions.InvalidGenericArgument;
+import com.lapissea.dfs.io.RandomIO;
+import com.lapissea.dfs.io.ValueStorage;
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentReader;
+import com.lapissea.dfs.io.impl.MemoryData;
+import com.lapissea.dfs.objects.ChunkPointer;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.IOType;
+import com.lapissea.dfs.type.SupportedPrimitive;
+import com.lapissea.dfs.type.TypeCheck;
+import com.lapissea.dfs.type.TypeCheck.ArgCheck.RawCheck;
+import com.lapissea.dfs.type.field.annotations.IODependency;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.iterableplus.Iters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.lapissea.dfs.type.TypeCheck.ArgCheck.RawCheck.INSTANCE;
+
+/**
+ * A page oriented B+tree. Every node is a single chunk of roughly {@link #getPageSize()} bytes, so a lookup touches one page
+ * per level and the tree height grows with log<sub>fanout</sub>(n) instead of log<sub>2</sub>(n). Leaves are linked in key
+ * order so that range scans never need to go back up the tree.
+ * <p>
+ * Pages are addressed by their index in a page table. Only the page table holds actual pointers, so the contents of a
+ * page are plain bytes and can be moved around freely. Because of this, keys and values must not contain references to
+ * other chunks. The page table is kept in memory once it has been read, so finding a page does not need to read it.
+ * <p>
+ * String keys are front coded: every key in a page is stored as the length of the prefix it shares with the previous key
+ * followed by the rest of the key. Sorted keys such as file paths share long prefixes, so this stores a fraction of the
+ * full keys. String keyed maps also support prefix scans with {@link #withPrefix(String)}.
+ * <p>
+ * Removal does not merge underfull pages. Pages only ever get freed with {@link #clear()}.
+ */
+public final class BPlusTreeMap<K extends Comparable<K>, V> extends UnmanagedIOMap<K, V>{
+	
+	@IOInstance.StrFormat(name = false, curly = false, fNames = false)
+	private interface PagePtr extends IOInstance.Def<PagePtr>{
+		ChunkPointer ptr();
+		
+		static PagePtr of(ChunkPointer ptr){
+			class Constr{
+				private static final Function<ChunkPointer, PagePtr> VAL = IOInstance.Def.constrRef(PagePtr.class, ChunkPointer.class);
+			}
+			return Constr.VAL.apply(ptr);
+		}
+	}
+	
+	private static final class Page<K extends Comparable<K>, V>{
+		private final long    id;
+		private final boolean leaf;
+		private       long    next = -1;
+		
+		private final ArrayList<K>    keys;
+		private final ArrayList<V>    values;
+		private final ArrayList<Long> children;
+		
+		private Page(long id, boolean leaf, int capacity){
+			this.id = id;
+			this.leaf = leaf;
+			keys = new ArrayList<>(capacity);
+			values = leaf? new ArrayList<>(capacity) : null;
+			children = leaf? null : new ArrayList<>(capacity + 1);
+		}
+		
+		private int childIndex(K key){
+			var idx = Collections.binarySearch(keys, key);
+			return idx>=0? idx + 1 : -(idx + 1);
+		}
+		private long child(K key){
+			return children.get(childIndex(key));
+		}
+		
+		private int count(){
+			return keys.size();
+		}
+		private boolean canSplit(){
+			return count()>=(leaf? 2 : 3);
+		}
+		
+		@Override
+		public String toString(){
+			return (leaf? "Leaf" : "Node") + "{#" + id + ", " + keys + (leaf? next == -1? "" : " -> #" + next : " " + children) + "}";
+		}
+	}
+	
+	private record Encoded(byte[] data, long[] entryEnds){ }
+	
+	private record Separator<K>(K key, long page){ }
+	
+	private record Head(long size, long root, long firstLeaf){ }
+	
+	/**
+	 * The smallest allowed {@link #setPageSize page size}.
+	 */
+	public static final int MIN_PAGE_SIZE = 32;
+	
+	private static final int HEADER_MAX = 1 + 9 + 9;
+	
+	private static final TypeCheck TYPE_CHECK = new TypeCheck(
+		BPlusTreeMap.class,
+		RawCheck.of(Comparable.class::isAssignableFrom, "is not Comparable").and(inlineable()).arg(),
+		inlineable().arg()
+	);
+	
+	private static RawCheck inlineable(){
+		return RawCheck.of(c -> c == String.class || SupportedPrimitive.isAny(c) || INSTANCE.check(c), "can not be stored inside a page");
+	}
+	
+	@IOValue
+	private IOList<PagePtr> pages;
+	
+	@IOValue
+	@IOValue.Unsigned
+	@IODependency.VirtualNumSize
+	private long size;
+	@IOValue
+	@IOValue.Unsigned
+	@IODependency.VirtualNumSize(name = "pageIdSize")
+	private long root;
+	@IOValue
+	@IOValue.Unsigned
+	@IODependency.VirtualNumSize(name = "pageIdSize")
+	private long firstLeaf;
+	@IOValue
+	@IOValue.Unsigned
+	@IODependency.VirtualNumSize
+	private int pageSize;
+	
+	private final ValueStorage<K> keyStorage;
+	private final ValueStorage<V> valueStorage;
+	private final boolean         stringKeys;
+	
+	private final Map<Long, Page<K, V>> pageCache;
+	private       List<ChunkPointer>    pageTable;
+	
+	@SuppressWarnings("unchecked")
+	public BPlusTreeMap(DataProvider provider, Chunk identity, IOType typeDef) throws IOException{
+		super(provider, identity, typeDef, TYPE_CHECK);
+		
+		keyStorage = (ValueStorage<K>)ValueStorage.makeStorage(
+			provider, IOType.getArg(typeDef, 0), getGenerics().argAsContext("K"), new ValueStorage.StorageRule.Default()
+		);
+		valueStorage = (ValueStorage<V>)ValueStorage.makeStorage(
+			provider, IOType.getArg(typeDef, 1), getGenerics().argAsContext("V"), new ValueStorage.StorageRule.Default()
+		);
+		requirePlain(keyStorage, "Key");
+		requirePlain(valueStorage, "Value");
+		stringKeys = keyStorage.getType().getType() == String.class;
+		
+		var cacheSize = ConfigDefs.BTREE_PAGE_CACHE.resolveVal();
+		pageCache = new LinkedHashMap<>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Page<K, V>> eldest){
+				return size()>cacheSize;
+			}
+		};
+		
+		if(!readOnly && isSelfDataEmpty()){
+			pageSize = ConfigDefs.BTREE_PAGE_SIZE.resolveVal();
+			allocateNulls();
+			writeManagedFields();
+		}
+		readManagedFields();
+	}
+	
+	private static void requirePlain(ValueStorage<?> storage, String name){
+		if(storage.needsRemoval() || storage instanceof ValueStorage.RefStorage<?> || storage instanceof ValueStorage.UnknownIDObject){
+			throw new InvalidGenericArgument(name + " of type " + storage.getType().getType().getName() + " may contain references and can not be stored inside a page");
+		}
+	}
+	
+	public int getPageSize(){
+		return pageSize;
+	}
+	/**
+	 * Sets the target size of a page in bytes. This can only be done while the map is empty.
+	 */
+	public void setPageSize(int pageSize) throws IOException{
+		if(pageSize<MIN_PAGE_SIZE){
+			throw new IllegalArgumentException("Page size must be at least " + MIN_PAGE_SIZE + " but is " + pageSize);
+		}
+		if(!isEmpty()){
+			throw new IllegalStateException("Page size can only be changed on an empty map");
+		}
+		if(this.pageSize == pageSize) return;
+		clear();
+		this.pageSize = pageSize;
+		writeManagedFields();
+	}
+	
+	/**
+	 * @return the number of pages that need to be read to reach a leaf. 0 if the map has no pages.
+	 */
+	public int height() throws IOException{
+		if(pages.isEmpty()) return 0;
+		int height = 1;
+		var page   = page(root);
+		while(!page.leaf){
+			page = page(page.children.getFirst());
+			height++;
+		}
+		return height;
+	}
+	
+	private Page<K, V> page(long id) throws IOException{
+		var cached = pageCache.get(id);
+		if(cached != null) return cached;
+		
+		var page = decode(id, pagePtr(id).dereference(getDataProvider()).readAll());
+		pageCache.put(id, page);
+		return page;
+	}
+	
+	private ChunkPointer pagePtr(long id) throws IOException{
+		var table = pageTable;
+		if(table == null){
+			table = new ArrayList<>(Math.toIntExact(pages.size()));
+			for(var ptr : pages){
+				table.add(ptr.ptr());
+			}
+			pageTable = table;
+		}
+		return table.get(Math.toIntExact(id));
+	}
+	
+	private Head head(){
+		return new Head(size, root, firstLeaf);
+	}
+	/**
+	 * Restores the fields to what they were before a failed write and forgets all pages, as they may not have been written.
+	 */
+	private void rollback(Head head){
+		size = head.size;
+		root = head.root;
+		firstLeaf = head.firstLeaf;
+		dropCaches();
+	}
+	private void dropCaches(){
+		pageCache.clear();
+		pageTable = null;
+	}
+	
+	private Page<K, V> decode(long id, byte[] data) throws IOException{
+		var src   = new ContentInputStream.BA(data);
+		var leaf  = src.readBoolean();
+		var count = Math.toIntExact(src.readUnsignedInt8Dynamic());
+		var page  = new Page<K, V>(id, leaf, count);
+		if(leaf){
+			page.next = src.readUnsignedInt8Dynamic() - 1;
+			for(int i = 0; i<count; i++){
+				page.keys.add(readKey(src, i == 0? null : page.keys.get(i - 1)));
+				page.values.add(readValue(src));
+			}
+		}else{
+			page.children.add(src.readUnsignedInt8Dynamic());
+			for(int i = 0; i<count; i++){
+				page.keys.add(readKey(src, i == 0? null : page.keys.get(i - 1)));
+				page.children.add(src.readUnsignedInt8Dynamic());
+			}
+		}
+		return page;
+	}
+	@SuppressWarnings("unchecked")
+	private K readKey(ContentReader src, K prev) throws IOException{
+		if(!stringKeys || prev == null) return keyStorage.readNew(src);
+		var shared = Math.toIntExact(src.readUnsignedInt8Dynamic());
+		var suffix = (String)keyStorage.readNew(src);
+		return (K)(((String)prev).substring(0, shared) + suffix);
+	}
+	private V readValue(ContentReader src) throws IOException{
+		if(!src.readBoolean()) return null;
+		return valueStorage.readNew(src);
+	}
+	
+	private Encoded encode(Page<K, V> page, boolean trackEntries) throws IOException{
+		var count = page.count();
+		var mem   = MemoryData.empty();
+		var ends  = trackEntries? new long[count] : null;
+		try(var io = mem.io()){
+			io.writeBoolean(page.leaf);
+			io.writeUnsignedInt8Dynamic(count);
+			if(page.leaf){
+				io.writeUnsignedInt8Dynamic(page.next + 1);
+				for(int i = 0; i<count; i++){
+					writeLeafEntry(io, i == 0? null : page.keys.get(i - 1), page.keys.get(i), page.values.get(i));
+					if(ends != null) ends[i] = io.getPos();
+				}
+			}else{
+				io.writeUnsignedInt8Dynamic(page.children.getFirst());
+				for(int i = 0; i<count; i++){
+					writeNodeEntry(io, i == 0? null : page.keys.get(i - 1), page.keys.get(i), page.children.get(i + 1));
+					if(ends != null) ends[i] = io.getPos();
+				}
+			}
+		}
+		return new Encoded(mem.readAll(), ends);
+	}
+	private void writeLeafEntry(RandomIO io, K prev, K key, V value) throws IOException{
+		writeKey(io, prev, key);
+		io.writeBoolean(value != null);
+		if(value != null) valueStorage.write(io, value);
+	}
+	private void writeNodeEntry(RandomIO io, K prev, K key, long child) throws IOException{
+		writeKey(io, prev, key);
+		io.writeUnsignedInt8Dynamic(child);
+	}
+	@SuppressWarnings("unchecked")
+	private void writeKey(RandomIO io, K prev, K key) throws IOException{
+		if(!stringKeys || prev == null){
+			keyStorage.write(io, key);
+			return;
+		}
+		var prevStr = (String)prev;
+		var str     = (String)key;
+		var shared  = sharedPrefix(prevStr, str);
+		io.writeUnsignedInt8Dynamic(shared);
+		keyStorage.write(io, (K)str.substring(shared));
+	}
+	private static int sharedPrefix(String a, String b){
+		int len = Math.min(a.length(), b.length()), i = 0;
+		while(i<len && a.charAt(i) == b.charAt(i)) i++;
+		//Never cut a surrogate pair in half
+		if(i>0 && Character.isHighSurrogate(a.charAt(i - 1))) i--;
+		return i;
+	}
+	
+	private Page<K, V> newPage(boolean leaf) throws IOException{
+		var chunk = AllocateTicket.bytes(pageSize).submit(this);
+		var id    = pages.size();
+		pages.add(PagePtr.of(chunk.getPtr()));
+		if(pageTable != null) pageTable.add(chunk.getPtr());
+		var page = new Page<K, V>(id, leaf, 8);
+		pageCache.put(id, page);
+		return page;
+	}
+	
+	private void writePage(Page<K, V> page, byte[] data) throws IOException{
+		var chunk = pagePtr(page.id).dereference(getDataProvider());
+		chunk.write(true, data);
+	}
+	
+	private Page<K, V> findLeaf(K key) throws IOException{
+		var page = page(root);
+		while(!page.leaf){
+			page = page(page.child(key));
+		}
+		return page;
+	}
+	
+	private class ModifiableIOEntry extends IOEntry.Modifiable.Abstract<K, V>{
+		
+		private final K key;
+		private       V value;
+		
+		private ModifiableIOEntry(K key, V value){
+			this.key = key;
+			this.value = value;
+		}
+		
+		@Override
+		public K getKey(){ return key; }
+		@Override
+		public V getValue(){ return value; }
+		
+		@Override
+		public void set(V value) throws IOException{
+			this.value = value;
+			BPlusTreeMap.this.put(key, value);
+		}
+	}
+	
+	@Override
+	public long size(){
+		return size;
+	}
+	
+	@Override
+	public IOEntry.Modifiable<K, V> getEntry(K key) throws IOException{
+		Objects.requireNonNull(key);
+		if(size == 0) return null;
+		var leaf = findLeaf(key);
+		var idx  = Collections.binarySearch(leaf.keys, key);
+		if(idx<0) return null;
+		return new ModifiableIOEntry(key, leaf.values.get(idx));
+	}
+	
+	@Override
+	public void put(K key, V value) throws IOException{
+		Objects.requireNonNull(key);
+		var head = head();
+		try(var ignored = getDataProvider().getSource().openIOTransaction()){
+			if(pages.isEmpty()) initRoot();
+			
+			var path = new ArrayList<Page<K, V>>();
+			var page = page(root);
+			while(!page.leaf){
+				path.add(page);
+				page = page(page.child(key));
+			}
+			
+			var idx = Collections.binarySearch(page.keys, key);
+			if(idx>=0){
+				page.values.set(idx, value);
+				writePage(page, encode(page, false).data);
+				return;
+			}
+			
+			idx = -(idx + 1);
+			page.keys.add(idx, key);
+			page.values.add(idx, value);
+			size++;
+			
+			insertUpwards(path, page);
+			writeManagedFields();
+		}catch(Throwable e){
+			rollback(head);
+			throw e;
+		}
+	}
+	
+	private void initRoot() throws IOException{
+		var leaf = newPage(true);
+		root = firstLeaf = leaf.id;
+		writePage(leaf, encode(leaf, false).data);
+	}
+	
+	/**
+	 * Writes the modified page and splits it and its parents as long as they do not fit in to a page.
+	 */
+	private void insertUpwards(List<Page<K, V>> path, Page<K, V> page) throws IOException{
+		while(true){
+			var enc = encode(page, true);
+			if(enc.data.length<=pageSize || !page.canSplit()){
+				writePage(page, enc.data);
+				return;
+			}
+			
+			var split = split(page, enc.entryEnds);
+			
+			if(path.isEmpty()){
+				var newRoot = newPage(false);
+				newRoot.children.add(page.id);
+				newRoot.keys.add(split.key);
+				newRoot.children.add(split.page);
+				writePage(newRoot, encode(newRoot, false).data);
+				root = newRoot.id;
+				return;
+			}
+			
+			var parent = path.removeLast();
+			var ci     = parent.childIndex(split.key);
+			parent.keys.add(ci, split.key);
+			parent.children.add(ci + 1, split.page);
+			page = parent;
+		}
+	}
+	
+	private Separator<K> split(Page<K, V> page, long[] entryEnds) throws IOException{
+		var count = page.count();
+		var half  = entryEnds[count - 1]/2;
+		int mid   = 0;
+		while(mid<count - 1 && entryEnds[mid]<half) mid++;
+		
+		var right = newPage(page.leaf);
+		K   sep;
+		if(page.leaf){
+			mid = Math.clamp(mid, 1, count - 1);
+			sep = page.keys.get(mid);
+			moveTail(page.keys, right.keys, mid);
+			moveTail(page.values, right.values, mid);
+			right.next = page.next;
+			page.next = right.id;
+		}else{
+			mid = Math.clamp(mid, 1, count - 2);
+			sep = page.keys.get(mid);
+			moveTail(page.keys, right.keys, mid + 1);
+			moveTail(page.children, right.children, mid + 1);
+			page.keys.removeLast();
+		}
+		
+		writePage(page, encode(page, false).data);
+		writePage(right, encode(right, false).data);
+		return new Separator<>(sep, right.id);
+	}
+	private static <E> void moveTail(List<E> src, List<E> dest, int from){
+		var tail = src.subList(from, src.size());
+		dest.addAll(tail);
+		tail.clear();
+	}
+	
+	@Override
+	public void putAll(Map<K, V> values) throws IOException{
+		if(values.isEmpty()) return;
+		if(isEmpty() && values instanceof SortedMap<K, V> sorted && sorted.comparator() == null){
+			bulkLoad(Iters.from(sorted.entrySet()).map(IOEntry::viewOf));
+			return;
+		}
+		try(var ignored = getDataProvider().getSource().openIOTransaction()){
+			for(var e : values.entrySet()){
+				put(e.getKey(), e.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Builds the tree bottom up out of entries with strictly ascending keys. Every page gets filled close to the page size,
+	 * which is both faster and more compact than inserting the entries one by one.
+	 *
+	 * @throws IllegalStateException    if the map is not empty
+	 * @throws IllegalArgumentException if the keys are not strictly ascending
+	 */
+	public void bulkLoad(Iterable<? extends IOEntry<K, V>> sortedEntries) throws IOException{
+		if(!isEmpty()) throw new IllegalStateException("Bulk loading is only possible on an empty map");
+		
+		var budget = pageSize - HEADER_MAX;
+		var head   = head();
+		try(var ignored = getDataProvider().getSource().openIOTransaction()){
+			clear();
+			
+			var        separators = new ArrayList<Separator<K>>();
+			Page<K, V> leaf       = null;
+			K          last       = null;
+			long       count      = 0;
+			var        mem        = MemoryData.empty();
+			try(var io = mem.io()){
+				for(var e : sortedEntries){
+					var key = Objects.requireNonNull(e.getKey());
+					if(last != null && last.compareTo(key)>=0){
+						throw new IllegalArgumentException("Keys are not strictly ascending: " + last + " >= " + key);
+					}
+					last = key;
+					
+					var value = e.getValue();
+					writeLeafEntry(io, leaf == null || leaf.count() == 0? null : leaf.keys.getLast(), key, value);
+					if(leaf == null || (io.getPos()>budget && leaf.count()>0)){
+						var next = newPage(true);
+						if(leaf == null) firstLeaf = next.id;
+						else{
+							leaf.next = next.id;
+							writePage(leaf, encode(leaf, false).data);
+						}
+						leaf = next;
+						separators.add(new Separator<>(key, leaf.id));
+						io.setPos(0);
+						writeLeafEntry(io, null, key, value);
+					}
+					leaf.keys.add(key);
+					leaf.values.add(value);
+					count++;
+				}
+			}
+			if(leaf == null){
+				writeManagedFields();
+				return;
+			}
+			writePage(leaf, encode(leaf, false).data);
+			
+			while(separators.size()>1){
+				separators = bulkLevel(separators, budget);
+			}
+			root = separators.getFirst().page;
+			size = count;
+			writeManagedFields();
+		}catch(Throwable e){
+			rollback(head);
+			throw e;
+		}
+	}
+	
+	private ArrayList<Separator<K>> bulkLevel(List<Separator<K>> children, int budget) throws IOException{
+		var        separators = new ArrayList<Separator<K>>();
+		Page<K, V> node       = null;
+		var        mem        = MemoryData.empty();
+		try(var io = mem.io()){
+			for(var child : children){
+				if(node != null){
+					writeNodeEntry(io, node.count() == 0? null : node.keys.getLast(), child.key, child.page);
+					if(io.getPos()<=budget || node.count()<2){
+						node.keys.add(child.key);
+						node.children.add(child.page);
+						continue;
+					}
+					writePage(node, encode(node, false).data);
+				}
+				node = newPage(false);
+				node.children.add(child.page);
+				separators.add(new Separator<>(child.key, node.id));
+				io.setPos(0);
+			}
+		}
+		writePage(node, encode(node, false).data);
+		return separators;
+	}
+	
+	@Override
+	public boolean remove(K key) throws IOException{
+		Objects.requireNonNull(key);
+		if(size == 0) return false;
+		var head = head();
+		try(var ignored = getDataProvider().getSource().openIOTransaction()){
+			var leaf = findLeaf(key);
+			var idx  = Collections.binarySearch(leaf.keys, key);
+			if(idx<0) return false;
+			
+			leaf.keys.remove(idx);
+			leaf.values.remove(idx);
+			writePage(leaf, encode(leaf, false).data);
+			size--;
+			writeManagedFields();
+			return true;
+		}catch(Throwable e){
+			rollback(head);
+			throw e;
+		}
+	}
+	
+	@Override
+	public void clear() throws IOException{
+		dropCaches();
+		if(pages.isEmpty() && size == 0) return;
+		
+		var toFree = new ArrayList<ChunkPointer>(Math.toIntExact(pages.size()));
+		for(var ptr : pages){
+			toFree.add(ptr.ptr());
+		}
+		try(var ignored = getDataProvider().getSource().openIOTransaction()){
+			pages.clear();
+			size = 0;
+			root = firstLeaf = 0;
+			writeManagedFields();
+		}
+		getDataProvider().getMemoryManager().freeChains(toFree);
+	}
+	
+	/**
+	 * Iterates over all entries in ascending key order.
+	 */
+	@Override
+	public IOIterator.Iter<IOEntry<K, V>> iterator(){
+		return range(null, true, null, true);
+	}
+	
+	/**
+	 * Iterates entries with keys in range [from, to) in ascending order. A null bound is unbounded.
+	 */
+	public IOIterator.Iter<IOEntry<K, V>> range(K from, K to){
+		return range(from, true, to, false);
+	}
+	
+	/**
+	 * Iterates entries with keys between from and to in ascending order. A null bound is unbounded.
+	 * Only the leaf containing from is found through the tree, the rest of the range is read by following the leaf links.
+	 */
+	public IOIterator.Iter<IOEntry<K, V>> range(K from, boolean fromInclusive, K to, boolean toInclusive){
+		if(from != null && to != null && from.compareTo(to)>0){
+			throw new IllegalArgumentException("from (" + from + ") is greater than to (" + to + ")");
+		}
+		if(to == null) return scan(from, fromInclusive, k -> true);
+		return scan(from, fromInclusive, k -> {
+			var c = k.compareTo(to);
+			return c<0 || (c == 0 && toInclusive);
+		});
+	}
+	
+	/**
+	 * Iterates all entries whose key starts with the prefix in ascending order. Only available for String keys.
+	 */
+	@SuppressWarnings("unchecked")
+	public IOIterator.Iter<IOEntry<K, V>> withPrefix(String prefix){
+		if(!stringKeys){
+			throw new UnsupportedOperationException("Prefix scans are only supported for String keys");
+		}
+		Objects.requireNonNull(prefix);
+		return scan((K)prefix, true, k -> ((String)k).startsWith(prefix));
+	}
+	
+	/**
+	 * Iterates entries starting at from, for as long as inRange accepts the keys.
+	 */
+	private IOIterator.Iter<IOEntry<K, V>> scan(K from, boolean fromInclusive, Predicate<K> inRange){
+		return new IOIterator.Iter<>(){
+			private Page<K, V> leaf;
+			private int        index;
+			private boolean    started, done;
+			
+			private void start() throws IOException{
+				started = true;
+				if(size == 0){
+					done = true;
+					return;
+				}
+				if(from == null){
+					leaf = page(firstLeaf);
+					return;
+				}
+				leaf = findLeaf(from);
+				var idx = Collections.binarySearch(leaf.keys, from);
+				index = idx>=0? (fromInclusive? idx : idx + 1) : -(idx + 1);
+			}
+			
+			private boolean seek() throws IOException{
+				if(!started) start();
+				if(done) return false;
+				while(index>=leaf.count()){
+					if(leaf.next == -1){
+						done = true;
+						return false;
+					}
+					leaf = page(leaf.next);
+					index = 0;
+				}
+				if(!inRange.test(leaf.keys.get(index))){
+					done = true;
+					return false;
+				}
+				return true;
+			}
+			
+			@Override
+			public boolean hasNext(){
+				try{
+					return seek();
+				}catch(IOException e){
+					throw new UncheckedIOException(e);
+				}
+			}
+			@Override
+			public IOEntry<K, V> ioNext() throws IOException{
+				if(!seek()) throw new NoSuchElementException();
+				var i = index++;
+				return IOEntry.of(leaf.keys.get(i), leaf.values.get(i));
+			}
+		};
+	}
+	
+	@Override
+	public void free() throws IOException{
+		dropCaches();
+		super.free();
+	}
+}
@@ -15,6 +15,7 @@ import com.lapissea.dfs.io.impl.MemoryData;
 import com.lapissea.dfs.io.instancepipe.FieldDependency;
 import com.lapissea.dfs.io.instancepipe.ObjectPipe;
 import com.lapissea.dfs.io.instancepipe.StructPipe;
+import com.lapissea.dfs.io.instancepipe.StructView;
 import com.lapissea.dfs.logging.Log;
 import com.lapissea.dfs.objects.ChunkPointer;
 import com.lapissea.dfs.objects.NumberSize;
@@ -27,6 +28,7 @@ import com.lapissea.dfs.type.CommandSet;
 import com.lapissea.dfs.type.GenericContext;
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.IOType;
+import com.lapissea.dfs.type.IOTypeDB;
 import com.lapissea.dfs.type.NewObj;
 import com.lapissea.dfs.type.RuntimeType;
 import com.lapissea.dfs.type.TypeCheck;
@@ -54,6 +56,7 @@ import com.lapissea.util.function.UnsafeSupplier;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -91,6 +94,14 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 	private ValueStorage<T> storage;
 	private int             headSize;
 	
+	/**
+	 * Replaced whenever elements are written or moved. Read elements are tracked at this epoch and their index, so a set with
+	 * any other write in between can not be mistaken for an unchanged element.
+	 */
+	private Object trackingEpoch = new Object();
+	
+	private record TrackedAt(Object epoch, long index){ }
+	
 	
 	public ContiguousIOList(DataProvider provider, Chunk identity, IOType typeDef) throws IOException{
 		super(provider, identity, typeDef, TYPE_CHECK);
@@ -357,6 +368,7 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 	}
 	
 	private void writeAt(long index, T value) throws IOException{
+		trackingEpoch = new Object();
 		try(var io = ioAtElement(index)){
 			storage.write(io, value);
 		}catch(VaryingSize.TooSmall e){
@@ -425,6 +437,7 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 		}
 		storage = newStorage;
 		calcHead();
+		trackingEpoch = new Object();
 	}
 	private ValueStorage<T> makeValueStorage(VaryingSize.Provider varying, IOType typeDef){
 		var g   = getGenerics();
@@ -437,7 +450,90 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 	
 	private T readAt(long index) throws IOException{
 		try(var io = ioAtElement(index)){
-			return storage.readNew(io);
+			var val = storage.readNew(io);
+			track(index, val);
+			return val;
+		}
+	}
+	
+	private void track(long index, T value){
+		if(value instanceof IOInstance.Managed<?> m){
+			m.trackModifications(new TrackedAt(trackingEpoch, index));
+		}
+	}
+	
+	@Override
+	public IOIterator<T> reusingIterator(){
+		final class ReusingIterator implements IOIterator<T>{
+			private long index;
+			private T    reuse;
+			@Override
+			public boolean hasNext(){
+				return index<size();
+			}
+			@Override
+			public T ioNext() throws IOException{
+				checkSize(index);
+				try(var io = ioAtElement(index)){
+					var val = storage.readReusing(io, reuse);
+					if(val != null) reuse = val;
+					track(index, val);
+					index++;
+					return val;
+				}
+			}
+		}
+		return new ReusingIterator();
+	}
+	
+	/**
+	 * Walks over all elements with a single {@link StructView}. Elements are bulk read in to a scratch buffer so no
+	 * instance is created per element. Elements that are changed through the view are written back to the list after
+	 * each batch.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEachView(UnsafeConsumer<T, IOException> consumer) throws IOException{
+		if(!(storage instanceof ValueStorage.FixedInstance<?> fixed)){
+			throw new UnsupportedOperationException("Only lists of fixed size instances can be viewed");
+		}
+		forEachView(fixed, (UnsafeConsumer<Object, IOException>)consumer);
+	}
+	private <I extends IOInstance<I>> void forEachView(ValueStorage.FixedInstance<I> fixed, UnsafeConsumer<? super I, IOException> consumer) throws IOException{
+		var factory = StructView.of(fixed.getPipe());
+		
+		var elSize = Math.toIntExact(factory.size());
+		var size   = size();
+		if(size == 0) return;
+		
+		var batch = (int)Math.max(1, Math.min(size, BATCH_BYTES/elSize));
+		var buff  = new byte[batch*elSize];
+		var bb    = ByteBuffer.wrap(buff);
+		I   view  = null;
+		try(var io = ioAtElement(0)){
+			var base = io.getPos();
+			for(long start = 0; start<size; start += batch){
+				var count = (int)Math.min(batch, size - start);
+				io.readFully(buff, 0, count*elSize);
+				
+				int changedStart = -1, changedEnd = -1;
+				for(int i = 0; i<count; i++){
+					if(view == null) view = factory.wrap(bb, 0);
+					else factory.move(view, i*elSize);
+					consumer.accept(view);
+					if(factory.takeModified(view)){
+						if(changedStart == -1) changedStart = i;
+						changedEnd = i + 1;
+					}
+				}
+				
+				if(changedStart != -1){
+					trackingEpoch = new Object();
+					var pos = io.getPos();
+					io.setPos(base + (start + changedStart)*elSize);
+					io.write(buff, changedStart*elSize, (changedEnd - changedStart)*elSize);
+					io.setPos(pos);
+				}
+			}
 		}
 	}
 	
@@ -454,6 +550,7 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 	@Override
 	protected void setSize(long size){
 		this.size = size;
+		trackingEpoch = new Object();
 	}
 	
 	@Override
@@ -465,7 +562,30 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 	@Override
 	public void set(long index, T value) throws IOException{
 		checkSize(index);
-		writeAt(index, value);
+		if(!(storage instanceof ValueStorage.FixedInstance<?> fixed && value instanceof IOInstance.Managed<?> m &&
+		     writeModified(fixed, index, m))){
+			writeAt(index, value);
+		}
+		trackingEpoch = new Object();
+		track(index, value);
+	}
+	
+	/**
+	 * Writes only the fields that were set since the instance was read from this index.
+	 *
+	 * @return false if it is not known what was set
+	 */
+	private <I extends IOInstance<I>> boolean writeModified(ValueStorage.FixedInstance<I> fixed, long index, IOInstance.Managed<?> value) throws IOException{
+		var pipe = fixed.getPipe();
+		var deps = pipe.modifiedFieldsDeps(value.modifiedFields(new TrackedAt(trackingEpoch, index)));
+		if(deps == null || deps.fullWrite()) return false;
+		if(deps.writeFields().isEmpty()) return true;
+		try(var io = ioAtElement(index)){
+			pipe.writeDeps(getDataProvider(), io, deps, (I)value);
+		}catch(VaryingSize.TooSmall e){
+			return false;
+		}
+		return true;
 	}
 	
 	@Override
@@ -855,6 +975,7 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 		checkSize(index);
 		if(!storage.needsRemoval()) return;
 		
+		trackingEpoch = new Object();
 		try(var io = ioAtElement(index)){
 			getDataProvider().getMemoryManager().freeChains(storage.notifyRemoval((RandomIO)io, true));
 		}
@@ -946,6 +1067,10 @@ public final class ContiguousIOList<T> extends UnmanagedIOList<T, ContiguousIOLi
 			}
 		}
 		@Override
+		public IOTypeDB typeDb(){
+			return getDataProvider().getTypeDb();
+		}
+		@Override
 		public void close(){
 			closed = true;
 		}
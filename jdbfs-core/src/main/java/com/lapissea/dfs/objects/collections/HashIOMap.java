@@ -1,5 +1,6 @@
 package com.lapissea.dfs.objects.collections;
 
+import com.lapissea.dfs.config.ConfigDefs;
 import com.lapissea.dfs.core.DataProvider;
 import com.lapissea.dfs.core.chunk.Chunk;
 import com.lapissea.dfs.exceptions.InvalidGenericArgument;
@@ -17,23 +18,28 @@ import com.lapissea.dfs.type.GenericContext;
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.IOType;
 import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.WordSpace;
+import com.lapissea.dfs.type.compilation.TemplateClassLoader;
 import com.lapissea.dfs.type.field.IOField;
 import com.lapissea.dfs.type.field.SizeDescriptor;
 import com.lapissea.dfs.type.field.annotations.IODependency;
 import com.lapissea.dfs.type.field.annotations.IONullability;
 import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.type.field.fields.reflection.IOFieldDynamicInlineObject;
+import com.lapissea.dfs.type.field.fields.RefField;
 import com.lapissea.iterableplus.Iters;
 import com.lapissea.util.ShouldNeverHappenError;
+import com.lapissea.util.function.TriFunction;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.OptionalLong;
-import java.util.function.BiFunction;
 
 import static com.lapissea.dfs.config.GlobalConfig.DEBUG_VALIDATION;
 import static com.lapissea.dfs.type.field.annotations.IONullability.Mode.NULLABLE;
@@ -44,22 +50,30 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	
 	@SuppressWarnings({"unchecked"})
 	@StrFormat.Custom("[!!className]{@key: @value}")
-	@Order({"key", "value"})
+	@Order({"keyHash", "key", "value"})
 	private interface BucketEntry<K, V> extends IOInstance.Def<BucketEntry<K, V>>{
 		
 		Struct<BucketEntry<Object, Object>>     STRUCT = Struct.of((Class<BucketEntry<Object, Object>>)(Object)BucketEntry.class);
 		StructPipe<BucketEntry<Object, Object>> PIPE   = StandardStructPipe.of(STRUCT);
 		
 		static <K, V> BucketEntry<K, V> of(K key, V value){
-			//noinspection rawtypes
+			return of(HashCommons.toHash(key), key, value);
+		}
+		static <K, V> BucketEntry<K, V> of(int keyHash, K key, V value){
 			class Cache{
-				private static BiFunction<Object, Object, BucketEntry> make;
+				private static TriFunction<Integer, Object, Object, BucketEntry<?, ?>> make;
 			}
 			var c = Cache.make;
-			if(c == null) c = Cache.make = IOInstance.Def.constrRef(BucketEntry.class, Object.class, Object.class);
-			return c.apply(key, value);
+			if(c == null) c = Cache.make = IOInstance.Def.constrRef(BucketEntry.class, int.class, Object.class, Object.class);
+			return (BucketEntry<K, V>)c.apply(keyHash, key, value);
 		}
 		
+		/**
+		 * The {@link HashCommons#toHash} of the key. Stored so that lookups can reject most entries and resizes can move
+		 * entries without reading the key.
+		 */
+		int keyHash();
+		
 		@IONullability(NULLABLE)
 		@IOValue.Generic
 		K key();
@@ -82,6 +96,13 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		@IOValue
 		private ContiguousIOList<IONode<BucketEntry<K, V>>> data;
 		
+		/**
+		 * Blocked bloom filter of the key hashes in this set. Null if the map does not use a bloom filter.
+		 */
+		@IOValue
+		@IONullability(NULLABLE)
+		private ContiguousIOList<Long> bloom;
+		
 		@IOValue
 		@IOValue.Unsigned
 		@IODependency.VirtualNumSize
@@ -91,13 +112,89 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		@IODependency.VirtualNumSize
 		private long capacity;
 		
-		private void init(DataProvider provider, GenericContext ctx, long capacity) throws IOException{
+		private void init(DataProvider provider, GenericContext ctx, long capacity, boolean bloomFilter) throws IOException{
 			if(capacity<=0){
 				throw new IOException("Capacity must be greater than 0 but is " + capacity);
 			}
-			allocateNulls(provider, ctx);
+			//Not allocateNulls as that would also allocate a disabled bloom filter
+			refField("data").allocate(this, provider, ctx);
 			data.addMultipleNew(capacity);
 			this.capacity = capacity;
+			if(bloomFilter){
+				refField("bloom").allocate(this, provider, ctx);
+				bloom.addAll(Collections.nCopies(Math.toIntExact(bloomWords(capacity)), 0L));
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		private RefField<BucketSet<K, V>, ?> refField(String name){
+			return (RefField<BucketSet<K, V>, ?>)getThisStruct().getFields().requireByName(name);
+		}
+		
+		private static long bloomWords(long capacity){
+			return Math.max(1, (capacity*BLOOM_BITS_PER_BUCKET + 63)/64);
+		}
+		private static long bloomMix(int keyHash){
+			return HashCommons.mixStafford13(keyHash);
+		}
+		private static long bloomMask(long mixed){
+			long mask = 0;
+			for(int i = 0; i<BLOOM_HASHES; i++){
+				mask |= 1L<<((mixed >>> (i*6))&63);
+			}
+			return mask;
+		}
+		private long bloomWord(long mixed){
+			return Long.remainderUnsigned(mixed >>> 24, bloom.size());
+		}
+		
+		/**
+		 * @return false if the key is definitely not in this set
+		 */
+		private boolean mightContain(int keyHash) throws IOException{
+			if(bloom == null) return true;
+			var mixed = bloomMix(keyHash);
+			var mask  = bloomMask(mixed);
+			return (bloom.get(bloomWord(mixed))&mask) == mask;
+		}
+		private void bloomAdd(int keyHash) throws IOException{
+			if(bloom == null) return;
+			var mixed = bloomMix(keyHash);
+			var word  = bloomWord(mixed);
+			var old   = bloom.get(word);
+			var val   = old|bloomMask(mixed);
+			if(val != old) bloom.set(word, val);
+		}
+		
+		/**
+		 * Recomputes the bloom filter from the keys in this set. Removed keys are never cleared from a filter, so this
+		 * is also how stale bits get dropped.
+		 */
+		private void rebuildBloom(DataProvider provider, GenericContext ctx) throws IOException{
+			var words = new long[Math.toIntExact(bloomWords(capacity))];
+			for(var root : data){
+				if(root == null) continue;
+				for(var node : root){
+					var hashRes = readHash(node);
+					if(!hashRes.hasValue) continue;
+					var mixed = bloomMix(hashRes.hash);
+					var word  = (int)Long.remainderUnsigned(mixed >>> 24, words.length);
+					words[word] |= bloomMask(mixed);
+				}
+			}
+			if(bloom == null) refField("bloom").allocate(this, provider, ctx);
+			else bloom.clear();
+			bloom.addAll(Iters.ofLongs(words).box().toList());
+		}
+		private void dropBloom() throws IOException{
+			if(bloom == null) return;
+			bloom.free();
+			bloom = null;
+		}
+		
+		private void free() throws IOException{
+			data.free();
+			if(bloom != null) bloom.free();
 		}
 		
 		private void deltaCount(long delta){
@@ -130,26 +227,17 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 			}
 			var inc = 0;
 			for(var node : moveNodes){
-				K key;
-				{
-					var keyRes = readKey(node);
-					if(!keyRes.hasValue) continue;
-					key = keyRes.key;
-				}
+				var hashRes = readHash(node);
+				if(!hashRes.hasValue) continue;
+				var hash = hashRes.hash;
 				
-				switch(destSet.find(HashCommons.toHash(key), key)){
-					case EmptyIndex(var index) -> {
-						destSet.data.set(index, node);
-						inc++;
-					}
-					case EqualsResult<BucketEntry<K, V>> ignore2 -> {
-						Log.warn("Found duplicate key in map! Possible corruption. Key: {}#red", key);
-					}
-					case TailNode(var destNode) -> {
-						destNode.setNext(node);
-						inc++;
-					}
+				switch(destSet.findSlot(hash)){
+					case EmptyIndex(var index) -> destSet.data.set(index, node);
+					case TailNode(var destNode) -> destNode.setNext(node);
+					case EqualsResult<BucketEntry<K, V>> ignore -> throw new ShouldNeverHappenError();
 				}
+				destSet.bloomAdd(hash);
+				inc++;
 			}
 			if(inc != 0){
 				destSet.deltaCount(inc);
@@ -163,6 +251,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 			return moveNodes.size();
 		}
 		private boolean replace(int keyHash, BucketEntry<K, V> entry) throws IOException{
+			if(!mightContain(keyHash)) return false;
 			if(find(keyHash, entry.key()) instanceof EqualsResult(var i, var p, var node)){
 				node.setValue(entry);
 				return true;
@@ -171,10 +260,12 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		}
 		
 		private boolean contains(int keyHash, K key) throws IOException{
+			if(!mightContain(keyHash)) return false;
 			return find(keyHash, key) instanceof EqualsResult;
 		}
 		
 		private BucketEntry<K, V> get(int keyHash, K key) throws IOException{
+			if(!mightContain(keyHash)) return null;
 			if(find(keyHash, key) instanceof EqualsResult<BucketEntry<K, V>> v){
 				return v.node().getValue();
 			}
@@ -192,9 +283,9 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 			
 			IONode<BucketEntry<K, V>> last = null;
 			for(IONode<BucketEntry<K, V>> node : root){
-				KeyResult<K> keyResult = readKey(node);
-				if(!keyResult.hasValue) continue;
-				if(Objects.equals(keyResult.key, key)){
+				var hashResult = readHash(node);
+				if(!hashResult.hasValue) continue;
+				if(hashResult.hash == keyHash && Objects.equals(readKey(node).key, key)){
 					return new BucketResult.EqualsResult<>(index, last, node);
 				}
 				last = node;
@@ -203,6 +294,25 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 			return new BucketResult.TailNode<>(last);
 		}
 		
+		/**
+		 * Finds where an entry that is known to not be in this set should be placed. Keys are never read.
+		 */
+		private BucketResult<BucketEntry<K, V>> findSlot(int keyHash) throws IOException{
+			var index = keyHash%capacity;
+			if(index>=data.size()) return new BucketResult.EmptyIndex<>(index);
+			
+			var root = data.get(index);
+			if(root == null){
+				return new BucketResult.EmptyIndex<>(index);
+			}
+			
+			IONode<BucketEntry<K, V>> last = null;
+			for(IONode<BucketEntry<K, V>> node : root){
+				last = node;
+			}
+			return new BucketResult.TailNode<>(last);
+		}
+		
 		private double occupancy(){
 			return entryCount/(double)capacity;
 		}
@@ -224,17 +334,31 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	private static final double MAX_OCCUPANCY = 0.8;
 	private static final double GROWTH_FACTOR = 1.618;
 	
+	private static final int BLOOM_BITS_PER_BUCKET = 10;
+	private static final int BLOOM_HASHES          = 4;
+	
 	@IOValue
 	@IONullability(NULLABLE)
 	private BucketSet<K, V> amortizedSet;
 	@IOValue
 	@IONullability(NULLABLE)
 	private BucketSet<K, V> mainSet;
+	@IOValue
+	private boolean         bloomFilter;
+	
+	/**
+	 * Replaced whenever an entry is written or removed. Read values are tracked at this epoch and their key, so a put with
+	 * any other write in between can not be mistaken for an unchanged value.
+	 */
+	private Object trackingEpoch = new Object();
+	
+	private record TrackedAt(Object epoch, Object key){ }
 	
 	public HashIOMap(DataProvider provider, Chunk identity, IOType typeDef) throws IOException{
 		super(provider, identity, typeDef);
 		
 		if(!readOnly && isSelfDataEmpty()){
+			bloomFilter = ConfigDefs.HASH_MAP_BLOOM_FILTER.resolveVal();
 			writeManagedFields();
 		}
 		readManagedFields();
@@ -247,6 +371,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 				
 				try(var ignore = getDataProvider().getSource().openIOTransaction()){
 					dest.data.set(index, node);
+					dest.bloomAdd(keyHash);
 					dest.deltaCount(1);
 					writeManagedFields();
 				}
@@ -258,6 +383,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 				var nextNode = allocNewNode(entry, node.getPointer().getValue());
 				try(var ignore = getDataProvider().getSource().openIOTransaction()){
 					node.setNext(nextNode);
+					dest.bloomAdd(keyHash);
 					dest.deltaCount(1);
 					writeManagedFields();
 				}
@@ -305,15 +431,18 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	private void newMainSet(long size) throws IOException{
 		mainSet = new BucketSet<>();
 		
+		mainSet.init(getDataProvider(), bucketSetContext(), size, bloomFilter);
+	}
+	private GenericContext bucketSetContext(){
 		var bType   = ((IOType.RawAndArg)getTypeDef()).withRaw(BucketSet.class);
 		var generic = bType.generic(getDataProvider().getTypeDb());
-		var ctx     = GenericContext.of(BucketSet.class, generic);
-		mainSet.init(getDataProvider(), ctx, size);
+		return GenericContext.of(BucketSet.class, generic);
 	}
 	
-	private static IOField<BucketEntry<Object, Object>, ?> keyVar;
+	private static IOField<BucketEntry<Object, Object>, ?> keyVar, hashVar;
 	
 	private record KeyResult<K>(K key, boolean hasValue){ }
+	private record HashResult(int hash, boolean hasValue){ }
 	private static <K, V> KeyResult<K> readKey(IONode<BucketEntry<K, V>> n) throws IOException{
 		if(keyVar == null) initKey();
 		
@@ -325,6 +454,16 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	private static void initKey(){
 		keyVar = BucketEntry.STRUCT.getFields().requireByName("key");
 	}
+	private static <K, V> HashResult readHash(IONode<BucketEntry<K, V>> n) throws IOException{
+		if(hashVar == null) initHash();
+		
+		var res = n.readValueField(hashVar);
+		if(res.empty()) return new HashResult(0, false);
+		return new HashResult(res.val().keyHash(), true);
+	}
+	private static void initHash(){
+		hashVar = BucketEntry.STRUCT.getFields().requireByName("keyHash");
+	}
 	
 	
 	private class ModifiableIOEntry extends IOEntry.Modifiable.Abstract<K, V>{
@@ -351,6 +490,27 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		}
 	}
 	
+	public boolean hasBloomFilter(){
+		return bloomFilter;
+	}
+	
+	/**
+	 * Enables or disables the bloom filter of this map. A bloom filter lets lookups of absent keys return without reading
+	 * any buckets, at the cost of one extra read and possibly a write on every insertion. Useful when most lookups miss.
+	 * The default is {@link ConfigDefs#HASH_MAP_BLOOM_FILTER}.
+	 */
+	public void setBloomFilter(boolean enabled) throws IOException{
+		if(bloomFilter == enabled) return;
+		try(var ignored = getDataProvider().getSource().openIOTransaction()){
+			bloomFilter = enabled;
+			for(var set : Iters.of(amortizedSet, mainSet).nonNulls()){
+				if(enabled) set.rebuildBloom(getDataProvider(), bucketSetContext());
+				else set.dropBloom();
+			}
+			writeManagedFields();
+		}
+	}
+	
 	@Override
 	public long size(){
 		long size = 0;
@@ -368,7 +528,11 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		if(entry == null && amortizedSet != null){
 			entry = amortizedSet.get(hash, key);
 		}
-		return entry == null? null : new ModifiableIOEntry(entry);
+		if(entry == null) return null;
+		if(entry.value() instanceof IOInstance.Managed<?> m){
+			m.trackModifications(new TrackedAt(trackingEpoch, key));
+		}
+		return new ModifiableIOEntry(entry);
 	}
 	
 	@Override
@@ -433,7 +597,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		return reconcile(amortizedSet.entryCount);
 	}
 	private long reconcile(long count) throws IOException{
-		Unmanaged<?> toFree = null;
+		BucketSet<K, V> toFree = null;
 		
 		var  transaction  = getDataProvider().getSource().openIOTransaction();
 		long removedTotal = 0;
@@ -456,8 +620,8 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 				data.removeLast();
 			}
 			if(data.isEmpty()){
+				toFree = amortizedSet;
 				amortizedSet = null;
-				toFree = data;
 			}
 			writeManagedFields();
 			return removedTotal;
@@ -476,13 +640,22 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		
 		var hash = HashCommons.toHash(key);
 		
+		if(value instanceof IOInstance.Managed<?> m){
+			var written = writeModified(hash, key, m);
+			trackingEpoch = new Object();
+			if(written){
+				m.trackModifications(new TrackedAt(trackingEpoch, key));
+				return;
+			}
+		}else trackingEpoch = new Object();
+		
 		if(amortizedSet != null){
 			reconcile(2);
 		}
 		if(mainSet.isFull(1)){
 			resizeAmortized((long)(mainSet.capacity*GROWTH_FACTOR));
 		}
-		var e = BucketEntry.of(key, value);
+		var e = BucketEntry.of(hash, key, value);
 		if(amortizedSet != null && amortizedSet.replace(hash, e)){
 			return;
 		}
@@ -491,6 +664,42 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		if(DEBUG_VALIDATION) checkOccupancy();
 	}
 	
+	/**
+	 * Writes only the fields of a value that were set since it was read from this key. Only values of a fixed size are
+	 * written in place, as they are stored at the end of their bucket node.
+	 *
+	 * @return false if it is not known what was set
+	 */
+	private <I extends IOInstance<I>> boolean writeModified(int hash, K key, IOInstance.Managed<?> value) throws IOException{
+		var mask = value.modifiedFields(new TrackedAt(trackingEpoch, key));
+		if(mask == -1) return false;
+		
+		IONode<BucketEntry<K, V>> node = null;
+		for(var set : Iters.of(amortizedSet, mainSet).nonNulls()){
+			if(set.find(hash, key) instanceof EqualsResult<BucketEntry<K, V>> res){
+				node = res.node();
+				break;
+			}
+		}
+		if(node == null) return false;
+		
+		var pipe = StandardStructPipe.of(((I)value).getThisStruct());
+		var deps = pipe.modifiedFieldsDeps(mask);
+		if(deps == null || deps.fullWrite() || !valueStoredLast()) return false;
+		if(deps.writeFields().isEmpty()) return true;
+		
+		var size = pipe.getSizeDescriptor().getFixed(WordSpace.BYTE);
+		if(size.isEmpty()) return false;
+		try(var io = node.valueIO()){
+			io.setPos(io.getSize() - size.getAsLong());
+			pipe.writeDeps(getDataProvider(), io, deps, (I)value);
+		}
+		return true;
+	}
+	private static boolean valueStoredLast(){
+		return BucketEntry.PIPE.getSpecificFields().getLast() instanceof IOFieldDynamicInlineObject<?, ?> f && f.getName().equals("value");
+	}
+	
 	private void initMainSet() throws IOException{
 		newMainSet(MIN_SIZE);
 		writeManagedFields();
@@ -520,7 +729,8 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	}
 	
 	private void checkValue(V value){
-		if(!(value instanceof IOInstance.Unmanaged)){
+		//A template class only resolves in the database it was generated from
+		if(!(value instanceof IOInstance.Unmanaged) && !(value.getClass().getClassLoader() instanceof TemplateClassLoader)){
 			try{
 				var d    = MemoryData.empty();
 				var link = IOType.of(value.getClass());
@@ -545,6 +755,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	@Override
 	public void putAll(Map<K, V> values) throws IOException{
 		if(values.isEmpty()) return;
+		trackingEpoch = new Object();
 		
 		if(DEBUG_VALIDATION){
 			for(V value : values.values()){
@@ -578,7 +789,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		}
 		
 		for(var e : toAdd){
-			var entry = BucketEntry.of(e.key, e.value);
+			var entry = BucketEntry.of(e.hash, e.key, e.value);
 			if(amortizedSet != null && amortizedSet.replace(e.hash, entry)){
 				continue;
 			}
@@ -590,6 +801,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	@Override
 	public boolean remove(K key) throws IOException{
 		if(mainSet == null) return false;
+		trackingEpoch = new Object();
 		if(amortizedSet != null) reconcile(1);
 		
 		var hash = HashCommons.toHash(key);
@@ -613,6 +825,7 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 	
 	@Override
 	public void clear() throws IOException{
+		trackingEpoch = new Object();
 		var as = amortizedSet;
 		var ms = mainSet;
 		
@@ -623,10 +836,10 @@ public class HashIOMap<K, V> extends UnmanagedIOMap<K, V>{
 		}
 		
 		if(as != null){
-			as.data.free();
+			as.free();
 		}
 		if(ms != null){
-			ms.data.free();
+			ms.free();
 		}
 	}
 	
@@ -511,6 +511,24 @@ public interface IOList<T> extends IterablePPSource<T>, Query.BaseSource<T>{
 		return new IndexAccessIterator();
 	}
 	
+	/**
+	 * Creates an iterator that may read every element in to the same recycled instance. The returned element is only valid until the next
+	 * call to {@link IOIterator#ioNext()} and must not be retained. Lists that can not reuse elements return a regular iterator.
+	 */
+	default IOIterator<T> reusingIterator(){
+		return iterator();
+	}
+	
+	/**
+	 * Passes every element to the consumer in order. The same instance may be reused for every element, see {@link #reusingIterator()}
+	 */
+	default void forEachReusing(UnsafeConsumer<T, IOException> consumer) throws IOException{
+		var iter = reusingIterator();
+		while(iter.hasNext()){
+			consumer.accept(iter.ioNext());
+		}
+	}
+	
 	default IOListIterator<T> listIterator(){ return listIterator(0); }
 	default IOListIterator<T> listIterator(long startIndex){
 		//NOT GOOD FOR LINKED LISTS
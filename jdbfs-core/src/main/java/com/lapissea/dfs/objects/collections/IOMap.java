@@ -2,6 +2,7 @@ package com.lapissea.dfs.objects.collections;
 
 import com.lapissea.dfs.Utils;
 import com.lapissea.dfs.objects.Stringify;
+import com.lapissea.dfs.objects.collections.listtools.MappedIOMap;
 import com.lapissea.dfs.query.Query;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.iterableplus.IterablePPSource;
@@ -13,6 +14,7 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalInt;
+import java.util.function.Function;
 
 @IOValue.OverrideType.DefaultImpl(HashIOMap.class)
 public interface IOMap<K, V> extends IterablePPSource<IOMap.IOEntry<K, V>>, Query.BaseSource<IOMap.IOEntry<K, V>>{
@@ -204,6 +206,23 @@ public interface IOMap<K, V> extends IterablePPSource<IOMap.IOEntry<K, V>>, Quer
 	
 	void clear() throws IOException;
 	
+	default <K2, V2> IOMap<K2, V2> mappedView(Function<K, K2> mapKey, Function<K2, K> unmapKey, Function<V, V2> mapValue, Function<V2, V> unmapValue){
+		Objects.requireNonNull(mapKey);
+		Objects.requireNonNull(unmapKey);
+		Objects.requireNonNull(mapValue);
+		Objects.requireNonNull(unmapValue);
+		return new MappedIOMap<>(this){
+			@Override
+			protected K2 mapKey(K k){ return mapKey.apply(k); }
+			@Override
+			protected K unmapKey(K2 k){ return unmapKey.apply(k); }
+			@Override
+			protected V2 mapValue(V v){ return mapValue.apply(v); }
+			@Override
+			protected V unmapValue(V2 v){ return unmapValue.apply(v); }
+		};
+	}
+	
 	static <K, V> String toString(IOMap<K, V> map){
 		if(map.isEmpty()) return "{}";
 		var i = map.iterator();
@@ -485,6 +485,20 @@ public class IONode<T> extends IOInstance.Unmanaged<IONode<T>> implements Iterab
 		}
 	}
 	
+	/**
+	 * Opens the node positioned at the start of its value.
+	 */
+	ChunkChainIO valueIO() throws IOException{
+		var io = selfIO();
+		try{
+			io.skipExact(valueStart());
+		}catch(Throwable e){
+			io.close();
+			throw e;
+		}
+		return io;
+	}
+	
 	private ChunkPointer getNextPtr() throws IOException{
 		return readNextPtr();
 	}
@@ -4,6 +4,7 @@ import com.lapissea.dfs.Utils;
 import com.lapissea.dfs.core.DataProvider;
 import com.lapissea.dfs.core.chunk.Chunk;
 import com.lapissea.dfs.io.IOTransaction;
+import com.lapissea.dfs.query.Query;
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.IOType;
 import com.lapissea.dfs.type.NewObj;
@@ -18,10 +19,12 @@ import com.lapissea.iterableplus.Iters;
 import com.lapissea.util.NotNull;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
@@ -585,6 +588,202 @@ public final class IOTreeSet<T extends Comparable<T>> extends UnmanagedIOSet<T>{
 		return findParent(value).hasChild();
 	}
 	
+	/**
+	 * A bounded, ordered view of the set. Nodes are only read as the cursor advances so a narrow
+	 * range over a large set only touches the path to the lower bound and the elements that are returned.
+	 * A view is not a snapshot, modifying the set while a cursor is open invalidates the cursor.
+	 */
+	public final class Range implements Query.BaseSource<T>{
+		private final T       from, to;
+		private final boolean fromInclusive, toInclusive;
+		private final boolean descending;
+		
+		private Range(T from, boolean fromInclusive, T to, boolean toInclusive, boolean descending){
+			this.from = from;
+			this.fromInclusive = fromInclusive;
+			this.to = to;
+			this.toInclusive = toInclusive;
+			this.descending = descending;
+		}
+		
+		private boolean belowFrom(T val){
+			if(from == null) return false;
+			var c = val.compareTo(from);
+			return c<0 || (c == 0 && !fromInclusive);
+		}
+		private boolean aboveTo(T val){
+			if(to == null) return false;
+			var c = val.compareTo(to);
+			return c>0 || (c == 0 && !toInclusive);
+		}
+		
+		public Range descending(){
+			return new Range(from, fromInclusive, to, toInclusive, !descending);
+		}
+		
+		public T firstOrNull() throws IOException{
+			var iter = iterator();
+			return iter.hasNext()? iter.ioNext() : null;
+		}
+		
+		public boolean isEmpty() throws IOException{
+			return !iterator().hasNext();
+		}
+		
+		@Override
+		public IOIterator<T> iterator(){
+			return new Cursor(this);
+		}
+		
+		@Override
+		public String toString(){
+			return (from == null? "(-inf" : (fromInclusive? "[" : "(") + from) + ", " +
+			       (to == null? "inf)" : to + (toInclusive? "]" : ")")) +
+			       (descending? " desc" : "");
+		}
+	}
+	
+	private record Frame<T>(Node node, T val){ }
+	
+	/**
+	 * In-order traversal that keeps only the path from the root to the current node on the stack.
+	 */
+	private final class Cursor implements IOIterator<T>{
+		private final Range          range;
+		private final List<Frame<T>> stack = new ArrayList<>();
+		private       boolean        started;
+		
+		private Cursor(Range range){
+			this.range = range;
+		}
+		
+		private boolean beforeStart(T val){ return range.descending? range.aboveTo(val) : range.belowFrom(val); }
+		private boolean pastEnd(T val)    { return range.descending? range.belowFrom(val) : range.aboveTo(val); }
+		
+		private Node child(Node node, boolean forward) throws IOException{
+			var isRight = forward != range.descending;
+			return node.hasChild(isRight)? node(node.getChild(isRight)) : null;
+		}
+		
+		private void seek() throws IOException{
+			started = true;
+			if(IOTreeSet.this.isEmpty()) return;
+			
+			var node = node(0);
+			while(node != null){
+				var val = getVal(node);
+				if(beforeStart(val)){
+					node = child(node, true);
+				}else{
+					stack.add(new Frame<>(node, val));
+					node = child(node, false);
+				}
+			}
+			trimEnd();
+		}
+		
+		private void pushBackSpine(Node node) throws IOException{
+			while(node != null){
+				stack.add(new Frame<>(node, getVal(node)));
+				node = child(node, false);
+			}
+		}
+		
+		private void trimEnd(){
+			if(!stack.isEmpty() && pastEnd(stack.getLast().val)){
+				stack.clear();
+			}
+		}
+		
+		@Override
+		public boolean hasNext() throws IOException{
+			if(!started) seek();
+			return !stack.isEmpty();
+		}
+		@Override
+		public T ioNext() throws IOException{
+			if(!hasNext()) throw new NoSuchElementException();
+			var frame = stack.removeLast();
+			pushBackSpine(child(frame.node, true));
+			trimEnd();
+			return frame.val;
+		}
+	}
+	
+	/**
+	 * @return all elements in ascending order
+	 */
+	public Range ascending(){
+		return new Range(null, false, null, false, false);
+	}
+	/**
+	 * @return all elements in descending order
+	 */
+	public Range descending(){
+		return new Range(null, false, null, false, true);
+	}
+	
+	/**
+	 * @return elements greater than or equal to {@code from} and strictly less than {@code to}
+	 */
+	public Range range(@NotNull T from, @NotNull T to){
+		return range(from, true, to, false);
+	}
+	public Range range(@NotNull T from, boolean fromInclusive, @NotNull T to, boolean toInclusive){
+		Objects.requireNonNull(from);
+		Objects.requireNonNull(to);
+		if(from.compareTo(to)>0){
+			throw new IllegalArgumentException("from > to: " + from + " > " + to);
+		}
+		return new Range(from, fromInclusive, to, toInclusive, false);
+	}
+	
+	/**
+	 * @return elements strictly less than {@code to}
+	 */
+	public Range headSet(@NotNull T to){ return headSet(to, false); }
+	public Range headSet(@NotNull T to, boolean inclusive){
+		return new Range(null, false, Objects.requireNonNull(to), inclusive, false);
+	}
+	
+	/**
+	 * @return elements greater than or equal to {@code from}
+	 */
+	public Range tailSet(@NotNull T from){ return tailSet(from, true); }
+	public Range tailSet(@NotNull T from, boolean inclusive){
+		return new Range(Objects.requireNonNull(from), inclusive, null, false, false);
+	}
+	
+	public IOIterator<T> descendingIterator(){
+		return descending().iterator();
+	}
+	
+	public T first() throws IOException{
+		if(isEmpty()) throw new NoSuchElementException();
+		return ascending().firstOrNull();
+	}
+	public T last() throws IOException{
+		if(isEmpty()) throw new NoSuchElementException();
+		return descending().firstOrNull();
+	}
+	
+	/**
+	 * @return the greatest element less than or equal to {@code value}, or null if there is no such element
+	 */
+	public T floor(@NotNull T value) throws IOException  { return headSet(value, true).descending().firstOrNull(); }
+	/**
+	 * @return the greatest element strictly less than {@code value}, or null if there is no such element
+	 */
+	public T lower(@NotNull T value) throws IOException  { return headSet(value, false).descending().firstOrNull(); }
+	/**
+	 * @return the least element greater than or equal to {@code value}, or null if there is no such element
+	 */
+	public T ceiling(@NotNull T value) throws IOException{ return tailSet(value, true).firstOrNull(); }
+	/**
+	 * @return the least element strictly greater than {@code value}, or null if there is no such element
+	 */
+	public T higher(@NotNull T value) throws IOException { return tailSet(value, false).firstOrNull(); }
+	
 	@Override
 	public IOIterator<T> iterator(){
 		
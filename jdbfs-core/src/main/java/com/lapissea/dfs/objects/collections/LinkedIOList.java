@@ -10,6 +10,7 @@ import com.lapissea.dfs.query.Query;
 import com.lapissea.dfs.query.QueryFields;
 import com.lapissea.dfs.query.QueryableData;
 import com.lapissea.dfs.type.IOType;
+import com.lapissea.dfs.type.IOTypeDB;
 import com.lapissea.dfs.type.RuntimeType;
 import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.TypeCheck;
@@ -399,6 +400,10 @@ public class LinkedIOList<T> extends UnmanagedIOList<T, LinkedIOList<T>>{
 			return (T)t.val();
 		}
 		@Override
+		public IOTypeDB typeDb(){
+			return getDataProvider().getTypeDb();
+		}
+		@Override
 		public void close(){
 			node = null;
 			closed = true;
@@ -0,0 +1,95 @@
+package com.lapissea.dfs.objects.collections.listtools;
+
+import com.lapissea.dfs.objects.Wrapper;
+import com.lapissea.dfs.objects.collections.IOIterator;
+import com.lapissea.dfs.objects.collections.IOMap;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public abstract class MappedIOMap<FromK, FromV, K, V> implements IOMap<K, V>, Wrapper<IOMap<FromK, FromV>>{
+	private final IOMap<FromK, FromV> data;
+	
+	protected MappedIOMap(IOMap<FromK, FromV> data){
+		this.data = data;
+	}
+	
+	
+	protected abstract K mapKey(FromK k);
+	protected abstract FromK unmapKey(K k);
+	protected abstract V mapValue(FromV v);
+	protected abstract FromV unmapValue(V v);
+	
+	@Override
+	public long size(){
+		return data.size();
+	}
+	
+	@Override
+	public IOEntry.Modifiable<K, V> getEntry(K key) throws IOException{
+		var e = data.getEntry(unmapKey(key));
+		if(e == null) return null;
+		return new IOEntry.Modifiable.Abstract<>(){
+			@Override
+			public K getKey(){
+				return mapKey(e.getKey());
+			}
+			@Override
+			public V getValue(){
+				return mapValue(e.getValue());
+			}
+			@Override
+			public void set(V value) throws IOException{
+				e.set(unmapValue(value));
+			}
+		};
+	}
+	
+	@Override
+	public IOIterator.Iter<IOEntry<K, V>> iterator(){
+		return new IOIterator.Iter<>(){
+			private final Iter<IOEntry<FromK, FromV>> src = data.iterator();
+			@Override
+			public boolean hasNext(){
+				return src.hasNext();
+			}
+			@Override
+			public IOEntry<K, V> ioNext() throws IOException{
+				var e = src.ioNext();
+				return IOEntry.of(mapKey(e.getKey()), mapValue(e.getValue()));
+			}
+		};
+	}
+	
+	@Override
+	public void put(K key, V value) throws IOException{
+		data.put(unmapKey(key), unmapValue(value));
+	}
+	@Override
+	public void putAll(Map<K, V> values) throws IOException{
+		var mapped = LinkedHashMap.<FromK, FromV>newLinkedHashMap(values.size());
+		for(var e : values.entrySet()){
+			mapped.put(unmapKey(e.getKey()), unmapValue(e.getValue()));
+		}
+		data.putAll(mapped);
+	}
+	@Override
+	public boolean remove(K key) throws IOException{
+		return data.remove(unmapKey(key));
+	}
+	@Override
+	public void clear() throws IOException{
+		data.clear();
+	}
+	
+	@Override
+	public String toString(){
+		return IOMap.toString(this);
+	}
+	
+	@Override
+	public IOMap<FromK, FromV> getWrappedObj(){
+		return data;
+	}
+}
@@ -3,8 +3,6 @@ package com.lapissea.dfs.objects.text;
 import com.lapissea.dfs.config.ConfigDefs;
 import com.lapissea.dfs.core.DataProvider;
 import com.lapissea.dfs.io.bit.EnumUniverse;
-import com.lapissea.dfs.io.content.ContentInputStream;
-import com.lapissea.dfs.io.content.ContentOutputStream;
 import com.lapissea.dfs.io.content.ContentReader;
 import com.lapissea.dfs.io.content.ContentWriter;
 import com.lapissea.dfs.io.instancepipe.ObjectPipe;
@@ -24,7 +22,6 @@ import com.lapissea.dfs.type.field.fields.reflection.BitFieldMerger;
 import com.lapissea.util.NotNull;
 
 import java.io.IOException;
-import java.nio.CharBuffer;
 import java.util.Objects;
 import java.util.OptionalLong;
 
@@ -208,17 +205,13 @@ public final class AutoText extends IOInstance.Managed<AutoText> implements Char
 	}
 	
 	private byte[] generateBytes() throws IOException{
-		byte[] buff = new byte[encoding.calcSize(data)];
-		encoding.write(new ContentOutputStream.BA(buff), data);
-		return buff;
+		return encoding.encode(data);
 	}
 	
 	@IOValue
 	private void setTextBytes(byte[] bytes) throws IOException{
 		dataSrc = bytes;
-		var buff = CharBuffer.allocate(charCount);
-		encoding.read(new ContentInputStream.BA(bytes), buff);
-		data = buff.flip().toString();
+		data = encoding.decode(bytes, charCount);
 	}
 	
 	@NotNull
@@ -2,9 +2,10 @@ package com.lapissea.dfs.objects.text;
 
 import com.lapissea.dfs.exceptions.IllegalBitValue;
 import com.lapissea.dfs.io.bit.BitInputStream;
-import com.lapissea.dfs.io.bit.BitOutputStream;
 import com.lapissea.dfs.io.bit.BitUtils;
+import com.lapissea.dfs.io.content.BBView;
 import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentOutputStream;
 import com.lapissea.dfs.io.content.ContentWriter;
 import com.lapissea.dfs.logging.Log;
 import com.lapissea.dfs.type.field.FieldNames;
@@ -13,6 +14,7 @@ import com.lapissea.util.ShouldNeverHappenError;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.Channels;
 import java.util.ArrayList;
@@ -62,6 +64,16 @@ public enum Encoding{
 	sealed interface Coding{
 		void read(ContentInputStream src, CharBuffer dest) throws IOException;
 		void write(ContentWriter dest, String str) throws IOException;
+		default String decode(byte[] src, int charCount) throws IOException{
+			var buff = CharBuffer.allocate(charCount);
+			read(new ContentInputStream.BA(src), buff);
+			return buff.flip().toString();
+		}
+		default byte[] encode(String str) throws IOException{
+			var buff = new byte[calcSize(str)];
+			write(new ContentOutputStream.BA(buff), str);
+			return buff;
+		}
 		boolean canEncode(String str);
 		int calcSize(String str);
 		float sizeWeight();
@@ -83,15 +95,44 @@ public enum Encoding{
 			}
 		}
 		
+		@Override
+		public String decode(byte[] src, int charCount) throws IOException{
+			if(src.length == charCount && isAscii(src)){
+				return new String(src, ISO_8859_1);
+			}
+			var decoder = UTF_8.newDecoder().onUnmappableCharacter(REPORT).onMalformedInput(REPORT);
+			var res     = decoder.decode(ByteBuffer.wrap(src)).toString();
+			if(res.length() != charCount){
+				throw new IOException("Expected " + charCount + " characters but got " + res.length());
+			}
+			return res;
+		}
+		
 		@Override
 		public void write(ContentWriter dest, String str) throws IOException{
+			dest.write(encode(str));
+		}
+		@Override
+		public byte[] encode(String str) throws IOException{
+			//The String encoder has an intrinsic fast path but replaces malformed input instead of reporting it
+			if(canEncode(str)){
+				return str.getBytes(UTF_8);
+			}
 			var en = UTF_8.newEncoder().onUnmappableCharacter(REPORT).onMalformedInput(REPORT);
 			var b  = en.encode(CharBuffer.wrap(str));
-			dest.write(b.array(), 0, b.limit());
+			return Arrays.copyOf(b.array(), b.limit());
 		}
 		@Override
 		public boolean canEncode(String str){
-			return UTF_8.newEncoder().canEncode(str);
+			for(int i = 0, len = str.length(); i<len; i++){
+				char ch = str.charAt(i);
+				if(!Character.isSurrogate(ch)) continue;
+				if(Character.isLowSurrogate(ch) || i + 1 == len || !Character.isLowSurrogate(str.charAt(i + 1))){
+					return false;
+				}
+				i++;
+			}
+			return true;
 		}
 		@Override
 		public int calcSize(String str){
@@ -121,15 +162,23 @@ public enum Encoding{
 		public void read(ContentInputStream src, CharBuffer dest) throws IOException{
 			int charCount = dest.remaining();
 			var buff      = src.readInts1(charCount);
-			
-			for(byte b : buff){
-				dest.put((char)Byte.toUnsignedInt(b));
+			dest.put(new String(buff, ISO_8859_1));
+		}
+		@Override
+		public String decode(byte[] src, int charCount) throws IOException{
+			if(src.length != charCount){
+				throw new IOException("Expected " + charCount + " bytes but got " + src.length);
 			}
+			return new String(src, ISO_8859_1);
 		}
 		
 		@Override
 		public void write(ContentWriter dest, String str) throws IOException{
-			dest.write(str.getBytes(ISO_8859_1));
+			dest.write(encode(str));
+		}
+		@Override
+		public byte[] encode(String str){
+			return str.getBytes(ISO_8859_1);
 		}
 		@Override
 		public boolean canEncode(String str){
@@ -163,6 +212,7 @@ public enum Encoding{
 		
 		private final byte[] indexTable;
 		private final char[] chars, ranges;
+		private final byte[] latin1Chars;
 		private final int offset, bits;
 		private final int blockBytes;
 		
@@ -194,6 +244,7 @@ public enum Encoding{
 			this.indexTable = indexTable;
 			this.offset = offset;
 			this.chars = table.clone();
+			this.latin1Chars = new String(table).getBytes(ISO_8859_1);
 			this.bits = bits;
 			this.ranges = Iters.from(ranges).flatMapToInt(r -> Iters.ofInts(r.from, r.to)).toCharArray();
 			this.blockBytes = blockBytes;
@@ -295,6 +346,7 @@ public enum Encoding{
 		}
 		
 		private int encode(char c)    { return indexTable[c - offset]; }
+		private int encode(byte c)    { return indexTable[Byte.toUnsignedInt(c) - offset]; }
 		private char decode(int index){ return chars[index]; }
 		
 		@Override
@@ -324,42 +376,80 @@ public enum Encoding{
 		}
 		
 		@Override
-		public void write(ContentWriter w, String s) throws IOException{
-			int i = 0, charCount = s.length();
+		public byte[] encode(String s){
+			//All table characters are Latin-1 so the string can be viewed as plain bytes
+			var src = s.getBytes(ISO_8859_1);
+			var res = new byte[calcSize(s)];
 			
-			while(charCount - i>=blockCharCount){
-				long acum  = 0;
-				int  start = i;
+			int i = 0, pos = 0, charCount = src.length;
+			for(; charCount - i>=blockCharCount; i += blockCharCount){
+				long acum = 0;
 				for(int j = 0; j<blockCharCount; j++){
-					acum |= ((long)encode(s.charAt(start + j)))<<(bits*j);
+					acum |= ((long)encode(src[i + j]))<<(bits*j);
 				}
-				w.writeWord(acum, blockBytes);
-				i += blockCharCount;
+				putWord(res, pos, acum, blockBytes);
+				pos += blockBytes;
 			}
 			
 			var remainingChars = charCount - i;
-			if(remainingChars == 0) return;
+			if(remainingChars == 0) return res;
 			
-			var remainingBits = remainingChars*bits;
-			if(remainingBits<64){
-				long acum = 0;
-				for(int j = 0; j<remainingChars; j++){
-					acum |= ((long)encode(s.charAt(i + j)))<<(bits*j);
-				}
-				var bytes = bitsToBytes(remainingBits);
-				var ones  = bytes*Byte.SIZE - remainingBits;
-				if(ones>0){
-					acum |= makeMask(ones)<<remainingBits;
+			var  remainingBits = remainingChars*bits;
+			long acum          = 0;
+			for(int j = 0; j<remainingChars; j++){
+				acum |= ((long)encode(src[i + j]))<<(bits*j);
+			}
+			var bytes = bitsToBytes(remainingBits);
+			var ones  = bytes*Byte.SIZE - remainingBits;
+			if(ones>0){
+				acum |= makeMask(ones)<<remainingBits;
+			}
+			putWord(res, pos, acum, bytes);
+			return res;
+		}
+		
+		@Override
+		public String decode(byte[] src, int charCount) throws IOException{
+			var expectedBytes = bitsToBytes((long)charCount*bits);
+			if(src.length != expectedBytes){
+				throw new IOException("Expected " + expectedBytes + " bytes but got " + src.length);
+			}
+			
+			var mask = chars.length - 1;
+			var res  = new byte[charCount];
+			
+			int i = 0, pos = 0;
+			for(; charCount - i>=blockCharCount; i += blockCharCount){
+				var acum = getWord(src, pos, blockBytes);
+				pos += blockBytes;
+				for(int j = 0; j<blockCharCount; j++){
+					res[i + j] = latin1Chars[(int)(acum>>(bits*j))&mask];
 				}
-				w.writeWord(acum, bytes);
-				return;
 			}
 			
-			try(var stream = new BitOutputStream(w)){
-				for(; i<charCount; i++){
-					stream.writeBits(encode(s.charAt(i)), bits);
+			var remainingChars = charCount - i;
+			if(remainingChars>0){
+				var remainingBits = remainingChars*bits;
+				var bytes         = bitsToBytes(remainingBits);
+				var data          = getWord(src, pos, bytes);
+				for(int j = 0; j<remainingChars; j++){
+					res[i + j] = latin1Chars[(int)(data>>(bits*j))&mask];
+				}
+				
+				var ones = bytes*Byte.SIZE - remainingBits;
+				if(ones>0){
+					int zeroIndex = BitUtils.findBinaryZero(data>>remainingBits, ones);
+					if(zeroIndex != -1){
+						throw new IllegalBitValue(zeroIndex + remainingBits);
+					}
 				}
 			}
+			return new String(res, ISO_8859_1);
+		}
+		
+		@Override
+		public void write(ContentWriter w, String s) throws IOException{
+			w.write(encode(s));
 		}
 		
 		@Override
@@ -465,6 +555,32 @@ public enum Encoding{
 		
 	}
 	
+	private static boolean isAscii(byte[] data){
+		int i = 0;
+		for(; i + Long.BYTES<=data.length; i += Long.BYTES){
+			if((BBView.readInt8(data, i)&0x8080808080808080L) != 0){
+				return false;
+			}
+		}
+		for(; i<data.length; i++){
+			if(data[i]<0) return false;
+		}
+		return true;
+	}
+	
+	private static void putWord(byte[] dest, int off, long v, int len){
+		for(int i = 0; i<len; i++){
+			dest[off + i] = (byte)(v >>> (i*8));
+		}
+	}
+	private static long getWord(byte[] src, int off, int len){
+		long val = 0;
+		for(int i = 0; i<len; i++){
+			val |= (src[off + i]&0xFFL)<<(i*8);
+		}
+		return val;
+	}
+	
 	private static boolean isLatin1Compatible(String str){
 		for(int i = 0, l = str.length(); i<l; i++){
 			if(!isLatin1Compatible(str.charAt(i))){
@@ -497,6 +613,30 @@ public enum Encoding{
 	private static final Encoding[] SORTED =
 		Iters.from(Encoding.class).sortedByD(c -> c.format.sizeWeight()).toArray(Encoding[]::new);
 	
+	/**
+	 * For every Latin-1 character, a bit set (by ordinal) of encodings that can encode it. Lets {@link #findBest(String)}
+	 * check all encodings in a single pass over the string.
+	 */
+	private static final short[] LATIN1_SUPPORT = new short[256];
+	private static final short   GENERAL_SUPPORT;
+	
+	static{
+		assert values().length<=Short.SIZE;
+		for(int c = 0; c<LATIN1_SUPPORT.length; c++){
+			var str = String.valueOf((char)c);
+			for(var encoding : values()){
+				if(encoding.format.canEncode(str)){
+					LATIN1_SUPPORT[c] |= (short)(1<<encoding.ordinal());
+				}
+			}
+		}
+		short general = -1;
+		for(var support : LATIN1_SUPPORT){
+			general &= support;
+		}
+		GENERAL_SUPPORT = general;
+	}
+	
 	public static Encoding findBest(String data){
 		return switch(data.length()){
 			case 0 -> DEFAULT;
@@ -507,8 +647,27 @@ public enum Encoding{
 				throw fail(data);
 			}
 			default -> {
+				int supported = -1;
+				for(int i = 0, l = data.length(); i<l; i++){
+					var c = data.charAt(i);
+					if(!isLatin1Compatible(c)){
+						if(UTF8.format.canEncode(data)) yield UTF8;
+						throw fail(data);
+					}
+					supported &= LATIN1_SUPPORT[c];
+					if(supported == GENERAL_SUPPORT){
+						//Only encodings that take any Latin-1 character are left so a range check is enough for the rest
+						for(i++; i<l; i++){
+							if(!isLatin1Compatible(data.charAt(i))){
+								if(UTF8.format.canEncode(data)) yield UTF8;
+								throw fail(data);
+							}
+						}
+						break;
+					}
+				}
 				for(var encoding : SORTED){
-					if(encoding.format.canEncode(data)){
+					if((supported&(1<<encoding.ordinal())) != 0){
 						yield encoding;
 					}
 				}
@@ -523,6 +682,9 @@ public enum Encoding{
 	public final Coding format;
 	Encoding(Coding format){ this.format = format; }
 	
+	public boolean canEncode(String str){
+		return format.canEncode(str);
+	}
 	public int calcSize(String str){
 		return format.calcSize(str);
 	}
@@ -532,4 +694,15 @@ public enum Encoding{
 	public void read(ContentInputStream src, CharBuffer dest) throws IOException{
 		format.read(src, dest);
 	}
+	
+	public byte[] encode(String str) throws IOException{
+		return format.encode(str);
+	}
+	/**
+	 * Decodes a string from exactly the bytes produced by {@link #encode(String)}. Faster than {@link #read} as the whole input is known
+	 * up front and the string does not need to go through a {@link CharBuffer}.
+	 */
+	public String decode(byte[] data, int charCount) throws IOException{
+		return format.decode(data, charCount);
+	}
 }
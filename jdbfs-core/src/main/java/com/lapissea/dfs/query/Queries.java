@@ -2,10 +2,12 @@ package com.lapissea.dfs.query;
 
 
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.IOTypeDB;
 import com.lapissea.dfs.type.field.IOField;
 import com.lapissea.iterableplus.Iters;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
@@ -39,10 +41,16 @@ public final class Queries{
 		public QueryableData.QuerySource<T> open(QueryFields queryFields) throws IOException{
 			addFields(queryFields);
 			var source = parent.open(queryFields);
+			var test   = makeTest(source.typeDb());
 			return new QueryableData.QuerySource<>(){
 				private T       val;
 				private boolean full;
 				
+				@Override
+				public IOTypeDB typeDb(){
+					return source.typeDb();
+				}
+				
 				@Override
 				public boolean step() throws IOException{
 					val = null;
@@ -52,7 +60,7 @@ public final class Queries{
 						var fe = source.fieldEntry();
 						if(fe == null) continue;
 						
-						if(!test(fe)){
+						if(!test.test(fe)){
 							continue;
 						}
 						this.val = fe;
@@ -82,7 +90,7 @@ public final class Queries{
 		
 		protected abstract void addFields(QueryFields queryFields);
 		
-		protected abstract boolean test(T fe);
+		protected abstract Predicate<T> makeTest(IOTypeDB typeDb) throws IOException;
 	}
 	
 	public static class Filtered<T> extends TestedQuery<T>{
@@ -102,13 +110,19 @@ public final class Queries{
 		}
 		
 		@Override
-		protected boolean test(T fe){
-			for(var test : tests){
-				if(!test.test(fe)){
-					return false;
-				}
+		protected Predicate<T> makeTest(IOTypeDB typeDb) throws IOException{
+			var tests = new ArrayList<Test<T>>(this.tests.size());
+			for(var test : this.tests){
+				tests.add(test.prepare(typeDb));
 			}
-			return true;
+			return fe -> {
+				for(var test : tests){
+					if(!test.test(fe)){
+						return false;
+					}
+				}
+				return true;
+			};
 		}
 		
 		@Override
@@ -131,8 +145,8 @@ public final class Queries{
 			queryFields.markUnknown();
 		}
 		@Override
-		protected boolean test(T fe){
-			return match.test(fe);
+		protected Predicate<T> makeTest(IOTypeDB typeDb){
+			return match;
 		}
 	}
 	
@@ -152,6 +166,10 @@ public final class Queries{
 			parentFields.add(mapper);
 			var parent = this.parent.open(parentFields);
 			return new QueryableData.QuerySource<>(){
+				@Override
+				public IOTypeDB typeDb(){
+					return parent.typeDb();
+				}
 				@Override
 				public void close() throws IOException{
 					parent.close();
@@ -186,6 +204,10 @@ public final class Queries{
 		public QueryableData.QuerySource<R> open(QueryFields queryFields) throws IOException{
 			var parent = this.parent.open(queryFields);
 			return new QueryableData.QuerySource<>(){
+				@Override
+				public IOTypeDB typeDb(){
+					return parent.typeDb();
+				}
 				@Override
 				public void close() throws IOException{
 					parent.close();
@@ -223,6 +245,10 @@ public final class Queries{
 			return new QueryableData.QuerySource<>(){
 				private long count = 0;
 				@Override
+				public IOTypeDB typeDb(){
+					return parent.typeDb();
+				}
+				@Override
 				public void close() throws IOException{
 					parent.close();
 				}
@@ -2,8 +2,11 @@ package com.lapissea.dfs.query;
 
 import com.lapissea.dfs.objects.collections.IOIterator;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.IOTypeDB;
 import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.type.field.fields.reflection.wrappers.IOFieldDictionaryString;
 import com.lapissea.iterableplus.Match;
 
 import java.io.IOException;
@@ -154,6 +157,37 @@ public interface Query<T>{
 			}
 		}
 		
+		/**
+		 * Compares a {@link IOValue.Dictionary} string by its dictionary ID. The ID of the needle is looked up once when the
+		 * query is opened, so only the ID field has to be read.
+		 */
+		record DictionaryIs<T extends IOInstance<T>>(IOFieldDictionaryString<T> ref, String needle, boolean forTrue, int needleID) implements Test<T>{
+			public DictionaryIs(IOFieldDictionaryString<T> ref, String needle, boolean forTrue){
+				this(ref, needle, forTrue, -1);
+			}
+			public DictionaryIs{
+				Objects.requireNonNull(ref);
+			}
+			
+			@Override
+			public Iterable<IOField<?, ?>> reportFields(){
+				return List.of(ref.getIdField());
+			}
+			@Override
+			public Test<T> prepare(IOTypeDB typeDb) throws IOException{
+				//Without a database there are no IDs to go by
+				if(typeDb == null) return new FieldIs<>(ref, needle, forTrue);
+				var id = typeDb.toStringID(needle, false);
+				//A string that is not in the dictionary can not be stored in any element
+				return new DictionaryIs<>(ref, needle, forTrue, id.stored()? id.val() : -1);
+			}
+			@Override
+			public boolean test(T element){
+				var id = ref.getIdField().getValue(null, element);
+				return (id == needleID) == forTrue;
+			}
+		}
+		
 		record FieldCompare<T extends IOInstance<T>, V extends Comparable<V>>(
 			IOField<T, V> ref, V check, boolean greater, boolean equal
 		) implements RefF<T, V>{
@@ -193,11 +227,19 @@ public interface Query<T>{
 		static <T extends IOInstance<T>, V> Test<T> fieldNonNull(Struct.FieldRef<T, V> ref){
 			return new FieldIs<>(QuerySupport.asIOField(ref), null, false);
 		}
+		@SuppressWarnings("unchecked")
+		private static <T extends IOInstance<T>, V> Test<T> fieldIs(Struct.FieldRef<T, V> ref, V needle, boolean forTrue){
+			var field = QuerySupport.asIOField(ref);
+			if(field instanceof IOFieldDictionaryString<?> dict){
+				return new DictionaryIs<>((IOFieldDictionaryString<T>)dict, (String)needle, forTrue);
+			}
+			return new FieldIs<>(field, needle, forTrue);
+		}
 		static <T extends IOInstance<T>, V> Test<T> fieldEQ(Struct.FieldRef<T, V> ref, V needle){
-			return new FieldIs<>(QuerySupport.asIOField(ref), needle, true);
+			return fieldIs(ref, needle, true);
 		}
 		static <T extends IOInstance<T>, V> Test<T> fieldNotEQ(Struct.FieldRef<T, V> ref, V needle){
-			return new FieldIs<>(QuerySupport.asIOField(ref), needle, false);
+			return fieldIs(ref, needle, false);
 		}
 		static <T extends IOInstance<T>, V extends Comparable<V>> Test<T> fieldGr(Struct.FieldRef<T, V> ref, V needle){
 			return new FieldCompare<>(QuerySupport.asIOField(ref), needle, true, false);
@@ -214,6 +256,12 @@ public interface Query<T>{
 		
 		Iterable<IOField<?, ?>> reportFields();
 		boolean test(T element);
+		
+		/**
+		 * Called every time a query is opened, with the type database of the data it reads or null if there is none. Tests that
+		 * depend on the data must return a prepared copy here.
+		 */
+		default Test<T> prepare(IOTypeDB typeDb) throws IOException{ return this; }
 	}
 	
 	default Query<T> where(Test<T> test)                               { return where(List.of(test)); }
@@ -2,6 +2,7 @@ package com.lapissea.dfs.query;
 
 import com.lapissea.dfs.objects.collections.IOIterator;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.IOTypeDB;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -65,6 +66,11 @@ public interface QueryableData<T>{
 		boolean step() throws IOException;
 		T fullEntry() throws IOException;
 		T fieldEntry() throws IOException;
+		
+		/**
+		 * @return the type database the entries are read with, or null if they are not read from stored data
+		 */
+		default IOTypeDB typeDb(){ return null; }
 	}
 	
 	QuerySource<T> openQuery(QueryFields queryFields) throws IOException;
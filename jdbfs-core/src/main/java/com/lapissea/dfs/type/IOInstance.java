@@ -74,6 +74,18 @@ public sealed interface IOInstance<SELF extends IOInstance<SELF>> extends Clonea
 		String[] value();
 	}
 	
+	/**
+	 * Lays out the stored fields of a managed class so that all fixed size fields come first, ordered from largest to smallest,
+	 * followed by all bit fields packed together and then by any variable size data. Reading or skipping to a field in the
+	 * prefix does not need to read any of the fields before it.<br>
+	 * The resulting order is a part of the stored {@link com.lapissea.dfs.type.def.TypeDef} of the class. Data that was stored
+	 * with a different order does not match the class and is read with a class generated from its stored definition, as with any
+	 * other change of the class.
+	 */
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE})
+	@interface OptimizedLayout{ }
+	
 	/**
 	 * <p>
 	 * This interface is used to declare the object layout of a <i>managed</i> instance. This means any interface that extends
@@ -161,7 +173,7 @@ public sealed interface IOInstance<SELF extends IOInstance<SELF>> extends Clonea
 			});
 		}
 		
-		static <T extends Def<T>, A1, A2, A3> TriFunction<A1, A2, A3, T> constrRef(Class<T> type, Class<A1> arg1Type, Class<A1> arg2Type, Class<A1> arg3Type){
+		static <T extends Def<T>, A1, A2, A3> TriFunction<A1, A2, A3, T> constrRef(Class<T> type, Class<A1> arg1Type, Class<A2> arg2Type, Class<A3> arg3Type){
 			record Sig(Class<?> c, Class<?> arg1, Class<?> arg2, Class<?> arg3){ }
 			final class Cache{
 				static final Map<Sig, TriFunction<?, ?, ?, ?>> CH = new ConcurrentHashMap<>();
@@ -288,6 +300,9 @@ public sealed interface IOInstance<SELF extends IOInstance<SELF>> extends Clonea
 		private Struct<SELF>  thisStruct;
 		private VarPool<SELF> virtualFields;
 		
+		private long   modifiedFields;
+		private Object modifiedSince;
+		
 		public Managed(){ }
 		
 		public Managed(Struct<SELF> thisStruct){
@@ -329,6 +344,33 @@ public sealed interface IOInstance<SELF extends IOInstance<SELF>> extends Clonea
 		@SuppressWarnings("unchecked")
 		protected final SELF self(){ return (SELF)this; }
 		
+		/**
+		 * Marks a field as set. Called by the setters of a generated {@link Def} implementation, see
+		 * {@link DefInstanceCompiler#modifiedFieldNames}. A field index past 63 marks every field.
+		 */
+		protected final void markModified(int field){
+			modifiedFields |= field<64? 1L<<field : -1;
+		}
+		protected final void markAllModified(){
+			modifiedFields = -1;
+		}
+		
+		/**
+		 * Starts tracking the fields that are set on this instance. The location identifies where the instance was read from
+		 * or written to, so that only the fields that were set since need to be written there again.
+		 */
+		public final void trackModifications(Object location){
+			modifiedSince = Objects.requireNonNull(location);
+			modifiedFields = 0;
+		}
+		/**
+		 * @return a mask of the fields set since {@link #trackModifications} was called with an equal location, or -1 if it
+		 * is not known what was set
+		 */
+		public final long modifiedFields(Object location){
+			return location.equals(modifiedSince)? modifiedFields : -1;
+		}
+		
 		@Override
 		public String toString(){
 			return getThisStruct().instanceToString(self(), false);
@@ -613,7 +613,8 @@ public abstract sealed class IOType extends IOInstance.Managed<IOType>{
 				yield res;
 			}
 			case IOType.TypeWildcard typeWildcard -> {
-				yield typeWildcard.getBound().collectRaws(db);
+				var bound = typeWildcard.getBound();
+				yield bound == null? Set.of(typeWildcard.getRaw()) : bound.collectRaws(db);
 			}
 			case IOType.TypeNameArg typeNameArg -> {
 				var bounds = typeNameArg.findBounds(db);
@@ -627,6 +628,30 @@ public abstract sealed class IOType extends IOInstance.Managed<IOType>{
 		};
 	}
 	
+	/**
+	 * Replaces every use of a class name in this type. If the name is not used, the same instance is returned.
+	 */
+	public IOType renamed(String from, String to){
+		return switch(this){
+			case IOType.TypeRaw typeRaw -> typeRaw.name.equals(from)? new TypeRaw(to) : typeRaw;
+			case IOType.TypeGeneric typeGeneric -> {
+				var raw     = (TypeRaw)typeGeneric.raw.renamed(from, to);
+				var args    = Iters.from(typeGeneric.args).toList(a -> a.renamed(from, to));
+				var changed = raw != typeGeneric.raw || Iters.range(0, args.size()).anyMatch(i -> args.get(i) != typeGeneric.args.get(i));
+				yield changed? new TypeGeneric(raw, args) : typeGeneric;
+			}
+			case IOType.TypeWildcard typeWildcard -> {
+				if(typeWildcard.bound == null) yield typeWildcard;
+				var bound = typeWildcard.bound.renamed(from, to);
+				yield bound != typeWildcard.bound? new TypeWildcard(bound, typeWildcard.isLower) : typeWildcard;
+			}
+			case IOType.TypeNameArg typeNameArg -> {
+				var parent = (TypeRaw)typeNameArg.parent.renamed(from, to);
+				yield parent != typeNameArg.parent? new TypeNameArg(parent, typeNameArg.name) : typeNameArg;
+			}
+		};
+	}
+	
 	public abstract IOType asArrayType(IOTypeDB db);
 	
 	private static boolean argsEqual(List<IOType> a, List<IOType> b){
@@ -6,6 +6,7 @@ import com.lapissea.dfs.core.AllocateTicket;
 import com.lapissea.dfs.core.DataProvider;
 import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
 import com.lapissea.dfs.io.instancepipe.StructPipe;
+import com.lapissea.dfs.logging.Log;
 import com.lapissea.dfs.objects.ObjectID;
 import com.lapissea.dfs.objects.Reference;
 import com.lapissea.dfs.objects.collections.ContiguousIOList;
@@ -15,20 +16,22 @@ import com.lapissea.dfs.objects.collections.IOMap;
 import com.lapissea.dfs.objects.collections.LinkedIOList;
 import com.lapissea.dfs.type.compilation.FieldCompiler;
 import com.lapissea.dfs.type.compilation.TemplateClassLoader;
+import com.lapissea.dfs.type.def.ClassArgDef;
 import com.lapissea.dfs.type.def.FieldDef;
 import com.lapissea.dfs.type.def.TypeDef;
 import com.lapissea.dfs.type.field.IOField;
 import com.lapissea.dfs.type.field.IOFieldTools;
 import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.utils.ClosableLock;
 import com.lapissea.dfs.utils.ReadWriteClosableLock;
 import com.lapissea.iterableplus.Iters;
 import com.lapissea.iterableplus.OptionalPP;
 import com.lapissea.util.LateInit;
-import com.lapissea.util.Rand;
 import com.lapissea.util.TextUtil;
 import com.lapissea.util.UtilL;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
@@ -39,14 +42,18 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.lapissea.dfs.SealedUtil.isSealedCached;
 import static com.lapissea.dfs.config.GlobalConfig.TYPE_VALIDATION;
@@ -72,6 +79,11 @@ public sealed interface IOTypeDB{
 		@Override
 		IOType fromID(int id);
 		boolean hasType(IOType type);
+		
+		@Override
+		TypeID toStringID(String value, boolean recordNew);
+		@Override
+		String fromStringID(int id);
 		boolean hasID(int id);
 		
 		@Override
@@ -81,9 +93,8 @@ public sealed interface IOTypeDB{
 			
 			private final Map<String, TypeDef> defs = new HashMap<>();
 			
-			private final Map<Integer, IOType> idToTyp = new HashMap<>();
-			private final Map<IOType, Integer> typToID = new HashMap<>();
-			private       int                  maxID   = 0;
+			private final IDLookup.Complete ids   = new IDLookup.Complete();
+			private       int               maxID = 0;
 			
 			private WeakReference<ClassLoader> templateLoader = new WeakReference<>(null);
 			
@@ -106,6 +117,9 @@ public sealed interface IOTypeDB{
 			
 			private final Map<Class<?>, MemUniverse<?>> sealedMultiverse = new HashMap<>();
 			
+			private final List<String>         strings    = new ArrayList<>();
+			private final Map<String, Integer> stringToID = new HashMap<>();
+			
 			@Override
 			public TypeID toID(Class<?> type, boolean recordNew){
 				if(type == null) return new TypeID(0, true);
@@ -113,14 +127,14 @@ public sealed interface IOTypeDB{
 			}
 			
 			@Override
-			public long typeLinkCount(){ return typToID.size(); }
+			public long typeLinkCount(){ return ids.size(); }
 			@Override
 			public long definitionCount(){ return defs.size(); }
 			
 			@Override
 			public TypeID toID(IOType type, boolean recordNew){
 				Objects.requireNonNull(type);
-				var id = typToID.get(type);
+				var id = ids.getID(type);
 				if(id != null) return new TypeID(id, true);
 				return newID(type, recordNew);
 			}
@@ -133,23 +147,22 @@ public sealed interface IOTypeDB{
 			@Override
 			public int toID(IOType type){
 				Objects.requireNonNull(type);
-				var id = typToID.get(type);
+				var id = ids.getID(type);
 				if(id != null) return id;
 				return newID(type, true).requireStored();
 			}
 			
 			protected TypeID newID(IOType type, boolean recordNew){
-				if(typToID.containsKey(type)){
-					throw new IllegalArgumentException(type + " is already registered");
-				}
+				//Another thread may have registered the type since the lookup missed
+				var existing = ids.getID(type);
+				if(existing != null) return new TypeID(existing, true);
+				
 				var newID = maxID() + 1;
 				if(!recordNew) return new TypeID(newID, false);
-				idToTyp.put(newID, type);
-				typToID.put(type, newID);
 				maxID = newID;
-				
-				
 				recordType(type);
+				//Lookups are not locked so the ID is only published once the type is fully recorded
+				ids.put(newID, type);
 				return new TypeID(newID, true);
 			}
 			
@@ -172,7 +185,7 @@ public sealed interface IOTypeDB{
 			
 			@Override
 			public IOType fromID(int id){
-				var type = idToTyp.get(id);
+				var type = ids.getType(id);
 				if(type == null){
 					throw new RuntimeException("Unknown type from ID of " + id);
 				}
@@ -204,11 +217,31 @@ public sealed interface IOTypeDB{
 			
 			@Override
 			public boolean hasType(IOType type){
-				return typToID.containsKey(type);
+				return ids.getID(type) != null;
 			}
 			@Override
 			public boolean hasID(int id){
-				return idToTyp.containsKey(id);
+				return ids.getType(id) != null;
+			}
+			
+			@Override
+			public TypeID toStringID(String value, boolean recordNew){
+				if(value == null) return new TypeID(0, true);
+				var id = stringToID.get(value);
+				if(id != null) return new TypeID(id, true);
+				var newID = strings.size() + 1;
+				if(!recordNew) return new TypeID(newID, false);
+				strings.add(value);
+				stringToID.put(value, newID);
+				return new TypeID(newID, true);
+			}
+			@Override
+			public String fromStringID(int id){
+				if(id == 0) return null;
+				if(id<0 || id>strings.size()){
+					throw new RuntimeException("Unknown string from ID of " + id);
+				}
+				return strings.get(id - 1);
 			}
 			
 			private int maxID(){
@@ -231,55 +264,43 @@ public sealed interface IOTypeDB{
 			}
 			
 			public Fixed bake(){
-				return new Fixed(defs, idToTyp, sealedMultiverse);
+				return new Fixed(defs, ids.toMap(), sealedMultiverse);
 			}
 		}
 		
+		/**
+		 * Type ID lookups are not synchronized as they are backed by an {@link IDLookup}. Only registering a new type is.
+		 */
 		final class Synchronized extends Basic{
 			
-			@Override
-			public int toID(IOType type){
-				synchronized(this){
-					return super.toID(type);
-				}
-			}
-			
 			@Override
 			protected TypeID newID(IOType type, boolean recordNew){
 				synchronized(this){
 					return super.newID(type, recordNew);
 				}
 			}
-			
-			@Override
-			public IOType fromID(int id){
-				synchronized(this){
-					return super.fromID(id);
-				}
-			}
-			
 			@Override
-			public boolean hasType(IOType type){
+			public <T> Class<T> fromID(Class<T> rootType, int id){
 				synchronized(this){
-					return super.hasType(type);
+					return super.fromID(rootType, id);
 				}
 			}
 			@Override
-			public boolean hasID(int id){
+			public <T> int toID(Class<T> rootType, Class<T> type, boolean record){
 				synchronized(this){
-					return super.hasID(id);
+					return super.toID(rootType, type, record);
 				}
 			}
 			@Override
-			public <T> Class<T> fromID(Class<T> rootType, int id){
+			public TypeID toStringID(String value, boolean recordNew){
 				synchronized(this){
-					return super.fromID(rootType, id);
+					return super.toStringID(value, recordNew);
 				}
 			}
 			@Override
-			public <T> int toID(Class<T> rootType, Class<T> type, boolean record){
+			public String fromStringID(int id){
 				synchronized(this){
-					return super.toID(rootType, type, record);
+					return super.fromStringID(id);
 				}
 			}
 		}
@@ -378,6 +399,18 @@ public sealed interface IOTypeDB{
 				return id>=idToTyp.length || id<0? null : idToTyp[id];
 			}
 			
+			@Override
+			public TypeID toStringID(String value, boolean recordNew){
+				if(value == null) return new TypeID(0, true);
+				if(!recordNew) return new TypeID(1, false);
+				throw new UnsupportedOperationException();
+			}
+			@Override
+			public String fromStringID(int id){
+				if(id == 0) return null;
+				throw new RuntimeException("Unknown string from ID of " + id);
+			}
+			
 			@Override
 			public boolean hasType(IOType type){
 				return typToID.containsKey(type);
@@ -518,14 +551,33 @@ public sealed interface IOTypeDB{
 		@IOValue
 		private IOMap<TypeName, TypeDef> defs;
 		
-		private final Map<Integer, IOType> dataCache = new HashMap<>();
+		private volatile IDLookup ids = new IDLookup.Cached(ConfigDefs.TYPE_DB_CACHE.resolveVal());
+		
+		private final ClosableLock         linkLock = ClosableLock.reentrant();
 		private       Map<IOType, Integer> reverseDataCache;
 		private       int                  max;
 		
+		private final Map<String, Optional<TypeDef>> defCache = lruCache();
+		
 		private WeakReference<ClassLoader> templateLoader = new WeakReference<>(null);
 		
 		private final ReadWriteClosableLock defsLock = ReadWriteClosableLock.reentrant();
 		
+		/**
+		 * Types and definitions are read from the persisted maps as they are needed. Only the most recently used definitions are
+		 * kept in memory, and types are kept in a {@link IDLookup.Cached} of the same size, so that the cost of using a database
+		 * does not grow with every type it has ever stored.
+		 */
+		private static <K, V> Map<K, V> lruCache(){
+			var cacheSize = ConfigDefs.TYPE_DB_CACHE.resolveVal();
+			return new LinkedHashMap<>(16, 0.75f, true){
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<K, V> eldest){
+					return size()>cacheSize;
+				}
+			};
+		}
+		
 		@Override
 		public long typeLinkCount(){ return data.size(); }
 		@Override
@@ -537,6 +589,42 @@ public sealed interface IOTypeDB{
 			var id      = builtIn.toID(type, false);
 			if(id.stored()) return id;
 			
+			var known = ids.getID(type);
+			if(known != null) return new TypeID(known, true);
+			
+			var upToDate = updateOutdated(type, recordNew);
+			
+			int newID;
+			try(var ignore = linkLock.open()){
+				var existing = findStoredID(type);
+				if(existing.stored()){
+					//An outdated type is not cached so that recording it later still updates it
+					if(upToDate) ids.put(existing.val(), type);
+					return existing;
+				}
+				newID = existing.val();
+				if(!recordNew) return existing;
+				
+				data.put(newID, type);
+				if(reverseDataCache != null){
+					reverseDataCache.put(type, newID);
+					this.max = newID;
+				}
+			}
+			try{
+				recordType(List.of(type));
+			}catch(Throwable e){
+				throw new RuntimeException("Failed to record " + type, e);
+			}
+			//Lookups are not locked so the ID is only published once its definitions are recorded
+			ids.put(newID, type);
+			return new TypeID(newID, true);
+		}
+		
+		/**
+		 * Finds the ID of a type in the persisted links. If it is not found, the ID it would get is returned.
+		 */
+		private TypeID findStoredID(IOType type) throws IOException{
 			if(reverseDataCache == null && data.size()<=100000){
 				reverseDataCache = HashMap.newHashMap((int)data.size());
 				
@@ -550,38 +638,142 @@ public sealed interface IOTypeDB{
 				this.max = max;
 			}
 			
-			int max;
-			
 			if(reverseDataCache != null){
 				var existing = reverseDataCache.get(type);
 				if(existing != null){
 					return new TypeID(existing, true);
 				}
-				max = this.max;
-			}else{
-				max = FIRST_ID;
-				for(var entry : data){
-					var key = entry.getKey();
-					if(entry.getValue().equals(type)){
-						return new TypeID(key, true);
-					}
-					max = Math.max(key, max);
-				}
+				return new TypeID(this.max + 1, false);
 			}
 			
+			int max = FIRST_ID;
+			for(var entry : data){
+				var key = entry.getKey();
+				if(entry.getValue().equals(type)){
+					return new TypeID(key, true);
+				}
+				max = Math.max(key, max);
+			}
+			return new TypeID(max + 1, false);
+		}
+		
+		/**
+		 * A stored class that no longer matches its current class is moved to a versioned name, together with every use of it
+		 * in the stored links and definitions. Data that was written with it keeps reading as before, as a template class of the
+		 * versioned name, while the current class is free to be recorded under its own name.<br>
+		 * Classes are updated before the classes that use them, as updating a class changes the definition of every class
+		 * that uses it.
+		 *
+		 * @param apply if false, nothing is updated
+		 * @return false if the type uses an outdated class that was not updated
+		 */
+		private boolean updateOutdated(IOType type, boolean apply) throws IOException{
+			var classes = new LinkedHashSet<Class<?>>();
+			collectStoredClasses(getBuiltIn(), type, classes);
+			
+			for(var cls : classes){
+				var stored = readDef(cls.getName());
+				if(stored == null || !isVersionable(stored)) continue;
+				var current = TypeDef.of(cls);
+				if(current.equals(stored) || current.getClass() != stored.getClass() || !isVersionable(current)) continue;
+				
+				if(!apply) return false;
+				try(var ignore = linkLock.open()){
+					//Another thread may have already updated it
+					if(!stored.equals(readDef(cls.getName()))) continue;
+					storeAsVersion(cls.getName());
+				}
+			}
+			return true;
+		}
+		
+		private static boolean isVersionable(TypeDef def){
+			var rel = def.getRelations();
+			return (def instanceof TypeDef.DInstance || def instanceof TypeDef.DEnum) &&
+			       rel.sealedParent == null && rel.permittedSubclasses.isEmpty();
+		}
+		
+		private void collectStoredClasses(MemoryOnlyDB.Fixed builtIn, IOType type, Set<Class<?>> dest){
+			for(var raw : type.collectRaws(this)){
+				var name = raw.getTypeName();
+				if(name.startsWith("java.") || builtIn.getDefinitionFromClassName(name).isPresent()) continue;
+				
+				var cls = raw.getTypeClass(this);
+				while(cls.isArray()) cls = cls.componentType();
+				if(cls.isPrimitive() || cls.getClassLoader() instanceof TemplateClassLoader || dest.contains(cls)) continue;
+				
+				//Placeholder keeps the recursion from revisiting the class. It is added back after the classes it uses
+				dest.add(cls);
+				for(var field : TypeDef.of(cls).getFields()){
+					collectStoredClasses(builtIn, field.type, dest);
+				}
+				dest.remove(cls);
+				dest.add(cls);
+			}
+		}
+		
+		private void storeAsVersion(String name) throws IOException{
+			String versioned;
+			int    version = 1;
+			while(readDef(versioned = TypeMigration.versionedName(name, version)) != null){
+				version++;
+			}
+			
+			try(var ignore = defsLock.write()){
+				var renamedDefs = new HashMap<TypeName, TypeDef>();
+				for(var e : defs){
+					var def     = e.getValue();
+					var renamed = renamed(def, name, versioned);
+					if(e.getKey().typeName.equals(name)) renamedDefs.put(new TypeName(versioned), renamed);
+					else if(renamed != def) renamedDefs.put(e.getKey(), renamed);
+				}
+				defs.remove(new TypeName(name));
+				defs.putAll(renamedDefs);
+				synchronized(defCache){
+					defCache.clear();
+				}
+			}
 			
-			var newID = max + 1;
-			if(!recordNew) return new TypeID(newID, false);
+			var renamedLinks = new HashMap<Integer, IOType>();
+			for(var e : data){
+				var renamed = e.getValue().renamed(name, versioned);
+				if(renamed != e.getValue()) renamedLinks.put(e.getKey(), renamed);
+			}
+			data.putAll(renamedLinks);
 			
-			data.put(newID, type);
 			reverseDataCache = null;
-			try{
-				recordType(List.of(type));
-			}catch(Throwable e){
-				throw new RuntimeException("Failed to record " + type, e);
+			ids = new IDLookup.Cached(ConfigDefs.TYPE_DB_CACHE.resolveVal());
+			templateLoader = new WeakReference<>(null);
+			Log.info("Stored class {}#yellow has changed, existing data now uses {}#yellow", name, versioned);
+		}
+		
+		private static TypeDef renamed(TypeDef def, String from, String to){
+			return switch(def){
+				case TypeDef.DInstance inst -> {
+					var fields    = Iters.from(inst.fields).toList(f -> renamed(f, from, to));
+					var relations = renamed(inst.relations, from, to);
+					var changed   = relations != inst.relations || Iters.range(0, fields.size()).anyMatch(i -> fields.get(i) != inst.fields.get(i));
+					yield changed? new TypeDef.DInstance(fields, inst.fieldOrder, relations) : inst;
+				}
+				case TypeDef.DJustInterface inter -> {
+					var relations = renamed(inter.relations, from, to);
+					yield relations != inter.relations? new TypeDef.DJustInterface(relations) : inter;
+				}
+				default -> def;
+			};
+		}
+		private static FieldDef renamed(FieldDef field, String from, String to){
+			var type = field.type.renamed(from, to);
+			return type != field.type? new FieldDef(type, field.name, field.annotations) : field;
+		}
+		private static TypeDef.Relations renamed(TypeDef.Relations relations, String from, String to){
+			var args = Iters.from(relations.typeArgs).toList(a -> a.bound() == null? a : ClassArgDef.of(a.name(), a.bound().renamed(from, to)));
+			if(Iters.range(0, args.size()).allMatch(i -> args.get(i).bound() == relations.typeArgs.get(i).bound())){
+				return relations;
 			}
-			return new TypeID(newID, true);
+			return new TypeDef.Relations(relations.permittedSubclasses, relations.sealedParent, args);
 		}
+		
 		private static MemoryOnlyDB.Fixed getBuiltIn(){
 			if(!BUILT_IN.isInitialized()){
 				BUILT_IN_LOCK.lock();
@@ -596,11 +788,32 @@ public sealed interface IOTypeDB{
 			for(var type : types){
 				recordType(builtIn, type, newDefs);
 			}
-			defsLock.write(() -> defs.putAll(newDefs));
+			try(var ignore = defsLock.write()){
+				defs.putAll(newDefs);
+				synchronized(defCache){
+					for(var e : newDefs.entrySet()){
+						defCache.put(e.getKey().typeName, Optional.of(e.getValue()));
+					}
+				}
+			}
 			
 			if(TYPE_VALIDATION) checkNewTypeValidity(newDefs);
 		}
 		
+		private TypeDef readDef(String className) throws IOException{
+			synchronized(defCache){
+				var cached = defCache.get(className);
+				if(cached != null) return cached.orElse(null);
+			}
+			try(var ignore = defsLock.read()){
+				var def = defs.get(new TypeName(className));
+				synchronized(defCache){
+					defCache.put(className, Optional.ofNullable(def));
+				}
+				return def;
+			}
+		}
+		
 		public Set<String> listStoredTypeDefinitionNames(){
 			return defsLock.read(() -> defs.mapped(k -> k.getKey().typeName).toModSet());
 		}
@@ -650,13 +863,13 @@ public sealed interface IOTypeDB{
 			
 			RuntimeException e = null;
 			
-			
-			Set<String> containedKeys;
-			try(var ignore = defsLock.read()){
-				containedKeys = Iters.from(defs).map(ent -> ent.getKey().typeName).toModSet();
-			}catch(Throwable e1){
-				throw new IOException("Failed to read def keys", e1);
-			}
+			Predicate<String> isStored = name -> {
+				try{
+					return readDef(name) != null;
+				}catch(IOException e1){
+					throw new UncheckedIOException("Failed to read def of " + name, e1);
+				}
+			};
 			
 			for(var name : names){
 				ConfigDefs.CompLogLevel.SMALL.log("Checking validity of {}#blueBright", name);
@@ -668,7 +881,7 @@ public sealed interface IOTypeDB{
 							new BlacklistClassLoader(
 								false,
 								this.getClass().getClassLoader(),
-								List.of(names::contains, containedKeys::contains)
+								List.of(names::contains, isStored)
 							)
 						));
 					if(fieldMap.containsKey(name) && IOInstance.isManaged(cls)){
@@ -726,7 +939,7 @@ public sealed interface IOTypeDB{
 			var typeName = new TypeName(type.getTypeName());
 			
 			var added   = newDefs.containsKey(typeName);
-			var defined = defsLock.read(() -> defs.containsKey(typeName));
+			var defined = readDef(typeName.typeName) != null;
 			
 			if(added || defined) return;
 			
@@ -791,7 +1004,7 @@ public sealed interface IOTypeDB{
 				return builtIn.fromID(id);
 			}
 			
-			var cached = dataCache.get(id);
+			var cached = ids.getType(id);
 			if(cached != null){
 				return cached;
 			}
@@ -801,18 +1014,75 @@ public sealed interface IOTypeDB{
 				throw new RuntimeException("Unknown type from ID of " + id);
 			}
 			
-			if(dataCache.size()>64){
-				dataCache.remove(Iters.keys(dataCache).skip(Rand.i(dataCache.size() - 1)).getFirst());
-			}
-			dataCache.put(id, type);
-			
-			
+			//The type is only resolvable to the ID once toID has checked that its classes are not outdated
+			ids.putType(id, type);
 			return type;
 		}
 		
 		@IOValue
 		private HashIOMap<String, IOList<String>> sealedMultiverse;
 		
+		@IOValue
+		private IOList<String> strings;
+		
+		private final ReadWriteClosableLock stringsLock = ReadWriteClosableLock.reentrant();
+		private       List<String>          stringCache;
+		private       Map<String, Integer>  reverseStringCache;
+		
+		private void loadStrings() throws IOException{
+			if(stringCache != null) return;
+			var cache   = new ArrayList<String>(Math.toIntExact(strings.size()));
+			var reverse = HashMap.<String, Integer>newHashMap(cache.size());
+			for(var str : strings){
+				cache.add(str);
+				reverse.put(str, cache.size());
+			}
+			stringCache = cache;
+			reverseStringCache = reverse;
+		}
+		
+		@Override
+		public TypeID toStringID(String value, boolean recordNew) throws IOException{
+			if(value == null) return new TypeID(0, true);
+			try(var ignore = stringsLock.read()){
+				if(stringCache != null){
+					var id = reverseStringCache.get(value);
+					if(id != null) return new TypeID(id, true);
+					if(!recordNew) return new TypeID(stringCache.size() + 1, false);
+				}
+			}
+			try(var ignore = stringsLock.write()){
+				loadStrings();
+				var id = reverseStringCache.get(value);
+				if(id != null) return new TypeID(id, true);
+				
+				var newID = stringCache.size() + 1;
+				if(!recordNew) return new TypeID(newID, false);
+				
+				strings.add(value);
+				stringCache.add(value);
+				reverseStringCache.put(value, newID);
+				return new TypeID(newID, true);
+			}
+		}
+		
+		@Override
+		public String fromStringID(int id) throws IOException{
+			if(id == 0) return null;
+			try(var ignore = stringsLock.read()){
+				if(stringCache != null && id>0 && id<=stringCache.size()){
+					return stringCache.get(id - 1);
+				}
+			}
+			try(var ignore = stringsLock.write()){
+				loadStrings();
+				if(id<0 || id>stringCache.size()){
+					throw new RuntimeException("Unknown string from ID of " + id);
+				}
+				return stringCache.get(id - 1);
+			}
+		}
+		
 		private final Map<Class<?>, MemoryOnlyDB.Basic.MemUniverse<?>> sealedMultiverseTouch = new HashMap<>();
 		
 		@Override
@@ -949,7 +1219,7 @@ public sealed interface IOTypeDB{
 		public OptionalPP<TypeDef> getDefinitionFromClassName(String className) throws IOException{
 			if(className == null || className.isEmpty()) return OptionalPP.empty();
 			return getBuiltIn().getDefinitionFromClassName(className).or(() -> {
-				return OptionalPP.ofNullable(defsLock.read(() -> defs.get(new TypeName(className))));
+				return OptionalPP.ofNullable(readDef(className));
 			});
 		}
 		
@@ -1108,6 +1378,123 @@ public sealed interface IOTypeDB{
 		}
 	}
 	
+	/**
+	 * A lookup between type IDs and types that is read without locking. Reading dynamically typed values resolves a type for
+	 * every value, often from many threads at once.<br>
+	 * A lookup that misses does not mean that the type is unknown, only that it was not put in to the lookup yet or that it was
+	 * evicted from it.
+	 */
+	sealed interface IDLookup{
+		
+		/**
+		 * Holds every type that was put in to it. Types are found in an array indexed by their ID that is only copied when it
+		 * needs to grow, and IDs are found in a concurrent map.
+		 */
+		final class Complete implements IDLookup{
+			
+			private volatile AtomicReferenceArray<IOType> byID   = new AtomicReferenceArray<>(16);
+			private final    Map<IOType, Integer>         byType = new ConcurrentHashMap<>();
+			
+			@Override
+			public IOType getType(int id){
+				var arr = byID;
+				if(id<0 || id>=arr.length()) return null;
+				return arr.get(id);
+			}
+			@Override
+			public Integer getID(IOType type){
+				return byType.get(type);
+			}
+			
+			@Override
+			public synchronized void put(int id, IOType type){
+				putType(id, type);
+				//The type is set first so that an ID that was found can always be resolved back to its type
+				byType.put(type, id);
+			}
+			
+			@Override
+			public synchronized void putType(int id, IOType type){
+				var arr = byID;
+				if(id>=arr.length()){
+					var grown = new AtomicReferenceArray<IOType>(Math.max(id + 1, arr.length()*2));
+					for(int i = 0; i<arr.length(); i++){
+						grown.setPlain(i, arr.getPlain(i));
+					}
+					grown.setPlain(id, type);
+					byID = grown;
+				}else{
+					arr.set(id, type);
+				}
+			}
+			
+			public int size(){
+				return byType.size();
+			}
+			
+			public Map<Integer, IOType> toMap(){
+				return Iters.entries(byType).toMap(Map.Entry::getValue, Map.Entry::getKey);
+			}
+		}
+		
+		/**
+		 * Holds at most a fixed number of types, so that its size does not grow with every type a database has ever stored. Both
+		 * directions are direct mapped tables, a type replaces any other type that maps to the same slot. Types that collide
+		 * are read from the database again, which is the cost of not keeping every type or locking on reads.
+		 */
+		final class Cached implements IDLookup{
+			
+			private record Entry(int id, IOType type){ }
+			
+			private final AtomicReferenceArray<Entry> byID;
+			private final AtomicReferenceArray<Entry> byType;
+			private final int                         mask;
+			
+			public Cached(int size){
+				var slots = Integer.highestOneBit(Math.max(size, 1)*2 - 1);
+				byID = new AtomicReferenceArray<>(slots);
+				byType = new AtomicReferenceArray<>(slots);
+				mask = slots - 1;
+			}
+			
+			private int typeSlot(IOType type){
+				var h = type.hashCode();
+				return (h^(h>>>16))&mask;
+			}
+			
+			@Override
+			public IOType getType(int id){
+				var e = byID.get(id&mask);
+				return e != null && e.id == id? e.type : null;
+			}
+			@Override
+			public Integer getID(IOType type){
+				var e = byType.get(typeSlot(type));
+				return e != null && e.type.equals(type)? e.id : null;
+			}
+			
+			@Override
+			public void put(int id, IOType type){
+				var e = new Entry(id, type);
+				byID.set(id&mask, e);
+				byType.set(typeSlot(type), e);
+			}
+			@Override
+			public void putType(int id, IOType type){
+				byID.set(id&mask, new Entry(id, type));
+			}
+		}
+		
+		IOType getType(int id);
+		Integer getID(IOType type);
+		
+		void put(int id, IOType type);
+		/**
+		 * Makes an ID resolvable to its type without making the type resolvable to the ID.
+		 */
+		void putType(int id, IOType type);
+	}
+	
 	long typeLinkCount();
 	long definitionCount();
 	
@@ -1118,6 +1505,14 @@ public sealed interface IOTypeDB{
 	<T> Class<T> fromID(Class<T> rootType, int id) throws IOException;
 	<T> int toID(Class<T> rootType, Class<T> type, boolean record) throws IOException;
 	
+	/**
+	 * Maps a string to an ID in a dictionary that is shared by the whole database. IDs start at 1 as 0 is reserved for null.<br>
+	 * This is intended for a small set of values that are repeated many times, such as tags or status names. Every recorded string
+	 * is kept in memory for as long as the database is open.
+	 */
+	TypeID toStringID(String value, boolean recordNew) throws IOException;
+	String fromStringID(int id) throws IOException;
+	
 	OptionalPP<TypeDef> getDefinitionFromClassName(String className) throws IOException;
 	
 	ClassLoader getTemplateLoader();
@@ -0,0 +1,134 @@
+package com.lapissea.dfs.type;
+
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.internal.Access;
+import com.lapissea.dfs.io.instancepipe.ObjectPipe;
+import com.lapissea.dfs.objects.Reference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Stands in for a referenced {@link IOInstance.Def} value that has not been read yet. The value is read from its reference on
+ * the first method call and every call is then forwarded to it. The reference is resolved when the value is read, so a
+ * reference that was changed on the holding instance in the meantime is followed.<br>
+ * A lazy instance belongs to the instance that holds it. When it is assigned to another holder, it is read and written there.<br>
+ * {@code toString} and {@code toShortString} do not read the value.
+ */
+public final class LazyInstance<T extends IOInstance.Def<T>> implements InvocationHandler{
+	
+	private static final Object[]                 NO_ARGS = new Object[0];
+	private static final Map<Method, MethodHandle> HANDLES = new ConcurrentHashMap<>();
+	
+	private static MethodHandle handle(Method method){
+		return HANDLES.computeIfAbsent(method, m -> {
+			try{
+				return Access.makeMethodHandle(m)
+				             .asSpreader(Object[].class, m.getParameterCount())
+				             .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+			}catch(IllegalAccessException e){
+				throw new RuntimeException("Failed to access " + m, e);
+			}
+		});
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static <T extends IOInstance.Def<T>> T of(Class<T> type, Object owner, DataProvider provider, Supplier<Reference> reference, ObjectPipe<T, ?> pipe, GenericContext genericContext){
+		if(!IOInstance.Def.isDefinition(type)){
+			throw new IllegalArgumentException(type.getName() + " is not a definition interface");
+		}
+		var handler = new LazyInstance<>(type, owner, provider, reference, pipe, genericContext);
+		return (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+	}
+	
+	private static LazyInstance<?> handler(Object obj){
+		if(obj == null || !Proxy.isProxyClass(obj.getClass())) return null;
+		return Proxy.getInvocationHandler(obj) instanceof LazyInstance<?> lazy? lazy : null;
+	}
+	
+	public static boolean isLazy(Object obj){
+		return handler(obj) != null;
+	}
+	/**
+	 * @return false only if the object is a lazy instance that was never accessed
+	 */
+	public static boolean isLoaded(Object obj){
+		var lazy = handler(obj);
+		return lazy == null || lazy.value != null;
+	}
+	/**
+	 * @return true only if the object is a lazy instance of the owner that was never accessed. The value stored for the owner
+	 * is then known to be unchanged.
+	 */
+	public static boolean isUnloadedOf(Object obj, Object owner){
+		var lazy = handler(obj);
+		return lazy != null && lazy.owner == owner && lazy.value == null;
+	}
+	/**
+	 * @return the actual value behind a lazy instance, reading it if needed. Any other object is returned as is.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T unwrap(T obj){
+		var lazy = handler(obj);
+		return lazy == null? obj : (T)lazy.get();
+	}
+	
+	private final Class<T>            type;
+	private final Object              owner;
+	private final DataProvider        provider;
+	private final Supplier<Reference> reference;
+	private final ObjectPipe<T, ?>    pipe;
+	private final GenericContext      genericContext;
+	
+	private volatile T value;
+	
+	private LazyInstance(Class<T> type, Object owner, DataProvider provider, Supplier<Reference> reference, ObjectPipe<T, ?> pipe, GenericContext genericContext){
+		this.type = type;
+		this.owner = Objects.requireNonNull(owner);
+		this.provider = Objects.requireNonNull(provider);
+		this.reference = Objects.requireNonNull(reference);
+		this.pipe = Objects.requireNonNull(pipe);
+		this.genericContext = genericContext;
+	}
+	
+	private T get(){
+		var v = value;
+		if(v != null) return v;
+		synchronized(this){
+			if(value == null){
+				var ref = reference.get();
+				if(ref == null || ref.isNull()){
+					throw new IllegalStateException("The reference of a lazy " + type.getName() + " was removed before it was read");
+				}
+				try{
+					value = ref.readNew(provider, pipe, genericContext);
+				}catch(IOException e){
+					throw new UncheckedIOException("Failed to lazily read " + ref, e);
+				}
+			}
+			return value;
+		}
+	}
+	
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable{
+		if(value == null && args == null && (method.getName().equals("toString") || method.getName().equals("toShortString"))){
+			return type.getSimpleName() + "{lazy @ " + reference.get() + "}";
+		}
+		var val = get();
+		if(method.getName().equals("equals") && method.getParameterCount() == 1 && method.getParameterTypes()[0] == Object.class){
+			return val.equals(unwrap(args[0]));
+		}
+		Object[] a = args == null? NO_ARGS : args;
+		return handle(method).invokeExact((Object)val, a);
+	}
+}
@@ -78,9 +78,13 @@ public class MemoryWalker{
 	public static final  int SAVE        = 0b000001;
 	public static final  int HOLDER_COPY = 0b000010;
 	/**/
-	private static final int FLOW_MASK   = 0b001100;
+	private static final int FLOW_MASK   = 0b011100;
 	public static final  int CONTINUE    = 0b000100;
 	public static final  int END         = 0b001000;
+	/**
+	 * Continues without walking the referenced value. Only valid when logging a {@link RefField}
+	 */
+	public static final  int SKIP        = 0b010000;
 	
 	private static final int INTERNAL_MASK = 0b1000000000000000000000000000000;
 	private static final int NO_RESULT     = 0b1000000000000000000000000000000;
@@ -289,6 +293,7 @@ public class MemoryWalker{
 								
 								if(ref.isNull()) continue;
 								
+								boolean skip;
 								{
 									if(timer != null) timer.ignoreStart();
 									var res = pointerRecord.log(reference, instance, refField, ref, holder);
@@ -302,7 +307,8 @@ public class MemoryWalker{
 									}
 									
 									checkResult(res);
-									if(shouldSave(res) && getFlow(res) == CONTINUE && inlinedParent && field.getSizeDescriptor().hasFixed()){
+									skip = getFlow(res) == SKIP;
+									if(shouldSave(res) && getFlow(res) != END && inlinedParent && field.getSizeDescriptor().hasFixed()){
 										inlineDirtyButContinue = true;
 									}else{
 										if(shouldSave(res)){
@@ -311,12 +317,13 @@ public class MemoryWalker{
 											reference.write(provider, false, pipe, instance);
 										}
 										switch(getFlow(res)){
-											case CONTINUE -> { }
+											case CONTINUE, SKIP -> { }
 											case END -> { return END; }
 											default -> throw failFlow(res);
 										}
 									}
 								}
+								if(skip) continue;
 								if(ref.getOffset() == 0){
 									var ch   = ref.getPtr().dereference(provider);
 									var flow = walkChunk(ch);
@@ -744,7 +751,7 @@ public class MemoryWalker{
 		
 		if(DEBUG_VALIDATION){
 			var data = res&FLOW_MASK;
-			if(data != CONTINUE && data != END){
+			if(data != CONTINUE && data != END && data != SKIP){
 				throw new IllegalStateException("no flow flag provided");
 			}
 		}
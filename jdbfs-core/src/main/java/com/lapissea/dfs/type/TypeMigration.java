@@ -0,0 +1,153 @@
+package com.lapissea.dfs.type;
+
+import com.lapissea.dfs.objects.collections.IOList;
+import com.lapissea.dfs.objects.collections.IOMap;
+import com.lapissea.dfs.type.compilation.TemplateClassLoader;
+import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.StoragePool;
+import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.iterableplus.Iters;
+
+import java.util.Objects;
+
+/**
+ * When a stored class no longer matches its current version, the stored definition is kept under a versioned name and any
+ * data written with it is read as a template class of that name. This maps such old instances to the current class.
+ * <ul>
+ *     <li>Fields with the same name and a compatible type are copied</li>
+ *     <li>Fields that only exist in the current class keep the value the class constructor gives them</li>
+ *     <li>Fields that only exist in the stored class are ignored</li>
+ * </ul>
+ * The migrated instance is written in the current layout when it is stored again.
+ */
+public final class TypeMigration{
+	
+	private static final String VERSION_MARK = "€v";
+	
+	/**
+	 * @return the name an outdated definition of a class is stored as
+	 */
+	public static String versionedName(String className, int version){
+		return className + VERSION_MARK + version;
+	}
+	
+	/**
+	 * @return the name of the current class of a (possibly) versioned class name
+	 */
+	public static String currentName(String className){
+		var idx = className.lastIndexOf(VERSION_MARK);
+		if(idx == -1) return className;
+		for(int i = idx + VERSION_MARK.length(); i<className.length(); i++){
+			if(!Character.isDigit(className.charAt(i))) return className;
+		}
+		return className.substring(0, idx);
+	}
+	
+	/**
+	 * @return true if the stored class is an old version of the current class
+	 */
+	public static boolean isVersionOf(Class<?> stored, Class<?> current){
+		return stored != current && currentName(stored.getName()).equals(current.getName());
+	}
+	
+	/**
+	 * Converts a value to the current class if it is an old version of it. Any other value is returned as is.
+	 */
+	public static Object migrateValue(Object value, Class<?> current){
+		if(value == null || current.isInstance(value) || !isVersionOf(value.getClass(), current)) return value;
+		return convert(value, current);
+	}
+	
+	/**
+	 * Wraps a list or map that holds old versions of a class in a view of the current class. Elements are migrated when they
+	 * are read and converted back to the stored version when they are written, so fields that only the current class has are
+	 * not stored. Any other value is returned as is.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static Object migrateElements(Object value){
+		return switch(value){
+			case IOList list -> {
+				var stored  = list.elementType();
+				var current = currentClass(stored);
+				if(current == null) yield value;
+				yield list.mappedView(current, v -> convert(v, current), v -> convert(v, stored));
+			}
+			case IOMap map when map instanceof IOInstance.Unmanaged<?> u -> {
+				var args = IOType.getArgs(u.getTypeDef());
+				if(args.size() != 2) yield value;
+				var db = u.getDataProvider().getTypeDb();
+				
+				Class<?> storedK = args.get(0).getTypeClass(db), storedV = args.get(1).getTypeClass(db);
+				Class<?> currentK = currentClass(storedK), currentV = currentClass(storedV);
+				if(currentK == null && currentV == null) yield value;
+				
+				Class<?> k = currentK == null? storedK : currentK, v = currentV == null? storedV : currentV;
+				yield map.mappedView(e -> convert(e, k), e -> convert(e, storedK), e -> convert(e, v), e -> convert(e, storedV));
+			}
+			case null, default -> value;
+		};
+	}
+	
+	/**
+	 * @return the current class of a template class that was generated for stored data, or null if there is none
+	 */
+	private static Class<?> currentClass(Class<?> stored){
+		if(!(stored.getClassLoader() instanceof TemplateClassLoader loader)) return null;
+		try{
+			return Class.forName(currentName(stored.getName()), false, loader.getParent());
+		}catch(ClassNotFoundException e){
+			return null;
+		}
+	}
+	
+	private static Object convert(Object value, Class<?> target){
+		if(value == null || target.isInstance(value)) return value;
+		
+		if(value instanceof IOInstance<?> inst && IOInstance.isManaged(target)){
+			//noinspection unchecked,rawtypes
+			return migrate(inst, Struct.of((Class)target));
+		}
+		if(value instanceof Enum<?> e && target.isEnum()){
+			return Iters.from(target.getEnumConstants()).firstMatching(c -> ((Enum<?>)c).name().equals(e.name())).orElse(null);
+		}
+		return value;
+	}
+	
+	/**
+	 * Creates a new instance of the current class with all the values of the stored instance that it can hold.
+	 */
+	public static <T extends IOInstance<T>> T migrate(IOInstance<?> stored, Struct<T> current){
+		Objects.requireNonNull(stored);
+		var result = current.make();
+		copyFields(stored, result);
+		return result;
+	}
+	
+	private static <F extends IOInstance<F>, T extends IOInstance<T>> void copyFields(IOInstance<F> stored, T result){
+		var storedFields = stored.getThisStruct().getFields();
+		
+		//noinspection unchecked
+		var src = (F)stored;
+		for(var field : result.getThisStruct().getFields()){
+			if(field.isVirtual(StoragePool.IO) || field.isReadOnly()) continue;
+			
+			var storedField = storedFields.byName(field.getName()).filter(f -> !f.isVirtual(StoragePool.IO));
+			if(storedField.isEmpty()) continue;
+			
+			var value = migrateValue(storedField.get().get(null, src), field.getType());
+			if(value == null){
+				if(field.getNullability() != IONullability.Mode.NULLABLE) continue;
+			}else if(!wrap(field.getType()).isInstance(value)){
+				continue;
+			}
+			
+			//noinspection unchecked
+			((IOField<T, Object>)field).set(null, result, value);
+		}
+	}
+	
+	private static Class<?> wrap(Class<?> type){
+		var prim = SupportedPrimitive.get(type);
+		return prim.isPresent()? prim.get().wrapper : type;
+	}
+}
@@ -8,6 +8,7 @@ import com.lapissea.dfs.type.field.access.VirtualAccessor.TypeOff.Primitive;
 import com.lapissea.iterableplus.Iters;
 import com.lapissea.util.NotImplementedException;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 import static com.lapissea.dfs.config.GlobalConfig.DEBUG_VALIDATION;
@@ -193,6 +194,13 @@ public interface VarPool<T extends IOInstance<T>>{
 			primitives[off.offset] = value;
 		}
 		
+		/**
+		 * Resets all values to their defaults while keeping the allocated storage so the pool can be reused.
+		 */
+		public void clear(){
+			if(pool != null) Arrays.fill(pool, null);
+			if(primitives != null) Arrays.fill(primitives, (byte)0);
+		}
 		
 		@Override
 		public String toString(){
@@ -3,20 +3,242 @@ package com.lapissea.dfs.type.compilation;
 import com.lapissea.dfs.Utils;
 import com.lapissea.dfs.config.ConfigDefs;
 import com.lapissea.dfs.logging.Log;
+import com.lapissea.jorth.Jorth;
+import com.lapissea.util.ShouldNeverHappenError;
 import com.lapissea.util.UtilL;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 public final class ClassGenerationCommons{
 	
 	private static final Optional<File> DUMP_LOCATION = ConfigDefs.CLASSGEN_DUMP_LOCATION.resolveLocking().map(File::new);
 	private static final int            CHUNK_SIZE    = DUMP_LOCATION.map(File::toPath).flatMap(Utils::findPathBlockSize).orElse(1024);
 	
+	private static final Optional<File> CACHE_LOCATION = ConfigDefs.CLASSGEN_CACHE_LOCATION.resolveLocking().map(File::new);
+	
+	/**
+	 * Class files of the code that generates classes. A different library version generates different bytecode so these, along
+	 * with the version and the jar of each generator, are a part of every cache key.
+	 */
+	private static final List<Class<?>> GENERATORS = List.of(
+		ClassGenerationCommons.class, TemplateClassLoader.class, DefInstanceCompiler.class, Jorth.class
+	);
+	
+	private static byte[] generatorsHash;
+	
+	/**
+	 * Classpath folder with classes that were generated at build time. See {@link PregenerateClasses}
+	 */
+	public static final String PREGENERATED_LOCATION = "META-INF/dfs-classgen/";
+	/**
+	 * Classpath resource that lists the binary names of all {@link com.lapissea.dfs.type.IOInstance.Def} types in a
+	 * compilation unit. It is written by the JDatablockFS annotation processor.
+	 */
+	public static final String TYPE_INDEX            = PREGENERATED_LOCATION + "types";
+	
+	private static final Map<ClassLoader, Boolean> HAS_PREGENERATED = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	/**
+	 * Identifies a generated class in the persistent class cache. Cached classes are stored as files named after the class and the
+	 * hash of everything the class was generated from.
+	 *
+	 * @param loader the class loader that may contain a pregenerated version of the class. May be null
+	 */
+	public record CacheKey(String className, String hash, ClassLoader loader){
+		
+		private String fileName(){
+			//Generated names may contain characters that the file system can not represent. The hash keeps the name unique.
+			var name = className.replace('.', '/').replaceAll("[^A-Za-z0-9_$/-]", "_");
+			return name + "-" + hash + ".class";
+		}
+		
+		public Optional<byte[]> read(){
+			return readCached().or(this::readPregenerated);
+		}
+		
+		private Optional<byte[]> readCached(){
+			return CACHE_LOCATION.map(l -> new File(l, fileName())).filter(File::isFile).flatMap(file -> {
+				try{
+					return checkMagic(Files.readAllBytes(file.toPath()), file);
+				}catch(IOException e){
+					Log.warn("Failed to read cached class {} because {}", file, e);
+					return Optional.empty();
+				}
+			});
+		}
+		
+		private Optional<byte[]> readPregenerated(){
+			if(loader == null) return Optional.empty();
+			var path = PREGENERATED_LOCATION + fileName();
+			try(var in = loader.getResourceAsStream(path)){
+				if(in == null) return Optional.empty();
+				return checkMagic(in.readAllBytes(), path);
+			}catch(IOException e){
+				Log.warn("Failed to read pregenerated class {} because {}", path, e);
+				return Optional.empty();
+			}
+		}
+		
+		private static Optional<byte[]> checkMagic(byte[] data, Object source){
+			if(data.length<4 || (data[0]&0xFF) != 0xCA || (data[1]&0xFF) != 0xFE || (data[2]&0xFF) != 0xBA || (data[3]&0xFF) != 0xBE){
+				Log.warn("Ignoring corrupted cached class {}", source);
+				return Optional.empty();
+			}
+			return Optional.of(data);
+		}
+		
+		public void write(byte[] data){
+			CACHE_LOCATION.ifPresent(location -> {
+				var file   = new File(location, fileName());
+				var folder = file.getParentFile();
+				try{
+					Files.createDirectories(folder.toPath());
+					//Another process may read the cache at the same time so the file is only moved in place once complete
+					var tmp = Files.createTempFile(folder.toPath(), file.getName(), ".tmp");
+					Files.write(tmp, data);
+					Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}catch(IOException|InvalidPathException e){
+					Log.warn("Failed to cache class {} because {}", className, e);
+				}
+			});
+		}
+	}
+	
+	public static boolean isCacheEnabled(){
+		return CACHE_LOCATION.isPresent();
+	}
+	
+	/**
+	 * @return true if the class loader has access to a {@link #TYPE_INDEX}, so classes may have been generated at build time
+	 */
+	public static boolean hasPregenerated(ClassLoader loader){
+		if(loader == null) return false;
+		return HAS_PREGENERATED.computeIfAbsent(loader, l -> l.getResource(TYPE_INDEX) != null);
+	}
+	
+	/**
+	 * @param sources all data that the generated class depends on
+	 * @return a key for the class or empty if the persistent cache is disabled
+	 */
+	public static Optional<CacheKey> cacheKey(String className, byte[]... sources){
+		if(!isCacheEnabled()) return Optional.empty();
+		return Optional.of(makeKey(className, null, sources));
+	}
+	
+	/**
+	 * Creates a key from the class files of the source type and all of its super types. Types without an accessible class file
+	 * (such as other generated classes) can not be tracked so they are not cached.
+	 */
+	public static Optional<CacheKey> cacheKey(String className, Class<?> source){
+		var loader = source.getClassLoader();
+		if(!isCacheEnabled() && !hasPregenerated(loader)) return Optional.empty();
+		var types = new LinkedHashSet<Class<?>>();
+		collectTypes(source, types);
+		
+		var files = new ArrayList<byte[]>(types.size());
+		for(var type : types){
+			var file = classFile(type);
+			if(file.isEmpty()) return Optional.empty();
+			files.add(file.get());
+		}
+		return Optional.of(makeKey(className, loader, files.toArray(byte[][]::new)));
+	}
+	
+	private static CacheKey makeKey(String className, ClassLoader loader, byte[][] sources){
+		var digest = sha256();
+		digest.update(generatorsHash());
+		digest.update(className.getBytes(StandardCharsets.UTF_8));
+		for(var source : sources){
+			digest.update(ByteBuffer.allocate(4).putInt(0, source.length));
+			digest.update(source);
+		}
+		return new CacheKey(className, HexFormat.of().formatHex(digest.digest(), 0, 16), loader);
+	}
+	
+	private static void collectTypes(Class<?> type, Set<Class<?>> dest){
+		if(type == null || type.getName().startsWith("java.") || !dest.add(type)) return;
+		collectTypes(type.getSuperclass(), dest);
+		for(var interf : type.getInterfaces()){
+			collectTypes(interf, dest);
+		}
+	}
+	
+	private static Optional<byte[]> classFile(Class<?> type){
+		try(var in = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class")){
+			if(in == null) return Optional.empty();
+			return Optional.of(in.readAllBytes());
+		}catch(IOException e){
+			return Optional.empty();
+		}
+	}
+	
+	private static synchronized byte[] generatorsHash(){
+		if(generatorsHash != null) return generatorsHash;
+		var digest = sha256();
+		var jars = new LinkedHashSet<Path>();
+		for(var gen : GENERATORS){
+			digest.update(gen.getName().getBytes(StandardCharsets.UTF_8));
+			classFile(gen).ifPresent(digest::update);
+			var version = gen.getPackage().getImplementationVersion();
+			if(version != null) digest.update(version.getBytes(StandardCharsets.UTF_8));
+			codeSourceJar(gen).ifPresent(jars::add);
+		}
+		//Generated code also depends on classes that are not listed. Snapshot builds may share a version so the jar is hashed too
+		for(var jar : jars){
+			try(var in = Files.newInputStream(jar)){
+				var buff = new byte[8192];
+				int read;
+				while((read = in.read(buff)) != -1){
+					digest.update(buff, 0, read);
+				}
+			}catch(IOException e){
+				Log.warn("Failed to hash {} for the class cache because {}", jar, e);
+			}
+		}
+		return generatorsHash = digest.digest();
+	}
+	
+	private static Optional<Path> codeSourceJar(Class<?> type){
+		var source = type.getProtectionDomain().getCodeSource();
+		if(source == null || source.getLocation() == null) return Optional.empty();
+		try{
+			var path = Path.of(source.getLocation().toURI());
+			return Files.isRegularFile(path)? Optional.of(path) : Optional.empty();
+		}catch(URISyntaxException|IllegalArgumentException|FileSystemNotFoundException e){
+			return Optional.empty();
+		}
+	}
+	
+	private static MessageDigest sha256(){
+		try{
+			return MessageDigest.getInstance("SHA-256");
+		}catch(NoSuchAlgorithmException e){
+			throw new ShouldNeverHappenError(e);
+		}
+	}
+	
 	public static void dumpClassName(String className, byte[] data){
 		DUMP_LOCATION.ifPresent(location -> Thread.startVirtualThread(() -> {
 			var classPath = new File(location, className.replace('.', '/') + ".class");
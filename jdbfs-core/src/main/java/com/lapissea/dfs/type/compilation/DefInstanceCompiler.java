@@ -206,6 +206,18 @@ public final class DefInstanceCompiler{
 			
 			var completionName = interf.getName() + IMPL_COMPLETION_POSTFIX;
 			
+			var cacheKey = ClassGenerationCommons.cacheKey(completionName, interf);
+			var cached   = cacheKey.flatMap(ClassGenerationCommons.CacheKey::read);
+			if(cached.isPresent()){
+				try{
+					//noinspection unchecked
+					var completed = (Class<T>)interfAccess.defineClass(interf, cached.get());
+					return new CompletionInfo<>(interf, completed, Set.copyOf(missingGetters));
+				}catch(AccessProvider.Defunct e){
+					throw new ShouldNeverHappenError(e);
+				}
+			}
+			
 			var log   = JorthLogger.make();
 			var jorth = new Jorth(interf.getClassLoader(), log == null? null : log::log);
 			try{
@@ -249,6 +261,7 @@ public final class DefInstanceCompiler{
 				var file = jorth.getClassFile(completionName);
 				
 				ClassGenerationCommons.dumpClassName(completionName, file);
+				cacheKey.ifPresent(k -> k.write(file));
 				if(log != null){
 					Log.log("Generated jorth:\n" + log.output());
 					BytecodeUtils.printClass(file);
@@ -350,6 +363,7 @@ public final class DefInstanceCompiler{
 	private static final ConcurrentHashMap<Key<?>, ImplNode<?>> CACHE = new ConcurrentHashMap<>();
 	
 	private static final String GET_UNMAPPED_CLASS_FN = "$$fetchUnmappedClass";
+	private static final String MODIFIED_FIELDS_NAMES = "$$modifiedFieldNames";
 	
 	/// ///////////////////////////// API /////////////////////////////////
 	
@@ -362,6 +376,21 @@ public final class DefInstanceCompiler{
 		return CompletionInfo.findSourceInterface(impl);
 	}
 	
+	/**
+	 * Lists the fields of a generated implementation in the order of the indices its setters pass to
+	 * {@link IOInstance.Managed#markModified}. Empty if the class is not a generated implementation or has no setters.
+	 */
+	public static List<String> modifiedFieldNames(Class<?> impl){
+		try{
+			var names = (String)impl.getDeclaredMethod(MODIFIED_FIELDS_NAMES).invoke(null);
+			return List.of(names.split(" "));
+		}catch(NoSuchMethodException e){
+			return List.of();
+		}catch(InvocationTargetException|IllegalAccessException e){
+			throw new ShouldNeverHappenError(e);
+		}
+	}
+	
 	public static <T extends IOInstance<T>> MethodHandle dataConstructor(Class<T> interf){
 		var key = new Key<>(interf);
 		return dataConstructor(key, true);
@@ -570,6 +599,17 @@ public final class DefInstanceCompiler{
 		               IOInstance.Def.IMPL_NAME_POSTFIX + (numAddon != 0? "~" + numAddon : "") +
 		               includeNames.map(n -> Iters.from(n).joinAsStr("_", IOInstance.Def.IMPL_FIELDS_MARK, "")).orElse("");
 		
+		var cacheKey = ClassGenerationCommons.cacheKey(implName, completion.base);
+		var cached   = cacheKey.flatMap(ClassGenerationCommons.CacheKey::read);
+		if(cached.isPresent()){
+			try{
+				//noinspection unchecked
+				return (Class<T>)interfAccess.defineClass(interf, cached.get());
+			}catch(IllegalAccessException|AccessProvider.Defunct e){
+				throw new ShouldNeverHappenError(e);
+			}
+		}
+		
 		var log = JorthLogger.make();
 		try{
 			var jorth = new Jorth(interf.getClassLoader(), log == null? null : log::log);
@@ -607,10 +647,15 @@ public final class DefInstanceCompiler{
 				
 				defineStatics(writer, completion.base);
 				
+				var modifiable = Iters.from(fieldInfo).filter(f -> f.setter.isPresent() && isFieldIncluded(includeNames, f.name)).toList(FieldInfo::name);
+				if(!modifiable.isEmpty()){
+					modifiedNamesFn(writer, modifiable);
+				}
+				
 				for(var info : fieldInfo){
 					if(isFieldIncluded(includeNames, info.name)){
 						defineField(writer, info);
-						implementUserAccess(writer, info, humanName);
+						implementUserAccess(writer, info, humanName, modifiable.indexOf(info.name));
 					}else{
 						defineNoField(writer, info);
 					}
@@ -667,6 +712,7 @@ public final class DefInstanceCompiler{
 					}
 					
 					writer.write("public function {} start", setFn.getName());
+					writer.write("get this this call markAllModified");
 					
 					for(FieldInfo info : includedOrdered.orElseThrow()){
 						writer.write("get #arg {!}", info.name);
@@ -685,6 +731,7 @@ public final class DefInstanceCompiler{
 			
 			var file = jorth.getClassFile(implName);
 			ClassGenerationCommons.dumpClassName(implName, file);
+			cacheKey.ifPresent(k -> k.write(file));
 			if(log != null){
 				Log.log(log.output());
 				BytecodeUtils.printClass(file);
@@ -714,6 +761,19 @@ public final class DefInstanceCompiler{
 		);
 	}
 	
+	private static void modifiedNamesFn(CodeStream writer, List<String> names) throws MalformedJorth{
+		writer.write(
+			"""
+				public static function {}
+					returns #String
+				start
+					'{}'
+				end
+				""",
+			MODIFIED_FIELDS_NAMES, String.join(" ", names)
+		);
+	}
+	
 	private static boolean isFieldIncluded(Match<Set<String>> includeNames, String name){
 		return switch(includeNames){
 			case Match.None<?> ignored -> true;
@@ -889,7 +949,7 @@ public final class DefInstanceCompiler{
 		unmappedClassFn(writer, baseClazz);
 	}
 	
-	private static void implementUserAccess(CodeStream writer, FieldInfo info, String classHumanName) throws MalformedJorth{
+	private static void implementUserAccess(CodeStream writer, FieldInfo info, String classHumanName, int modifiedIndex) throws MalformedJorth{
 		
 		var getterName = info.getter.map(s -> s.method().getName()).orElseGet(() -> {
 			var setter = info.setter.orElseThrow();
@@ -922,11 +982,14 @@ public final class DefInstanceCompiler{
 					public function {!0}
 						arg arg1 {1}
 					start
+						get this this
+						call markModified start {3} end
 						get #arg arg1
 					""",
 				setterName.get(),
 				info.type,
-				info.name
+				info.name,
+				modifiedIndex
 			);
 			
 			if(info.type == ChunkPointer.class || Utils.typeToRaw(info.type) == Optional.class){
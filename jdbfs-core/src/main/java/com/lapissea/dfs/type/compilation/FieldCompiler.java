@@ -23,6 +23,7 @@ import com.lapissea.dfs.type.field.VirtualFieldDefinition;
 import com.lapissea.dfs.type.field.access.FieldAccessor;
 import com.lapissea.dfs.type.field.access.FunctionalReflectionAccessor;
 import com.lapissea.dfs.type.field.access.FunctionalVarHandleAccessor;
+import com.lapissea.dfs.type.field.access.GeneratedAccessor;
 import com.lapissea.dfs.type.field.access.ReflectionAccessor;
 import com.lapissea.dfs.type.field.access.UnsafeAccessor;
 import com.lapissea.dfs.type.field.access.VarHandleAccessor;
@@ -30,6 +31,7 @@ import com.lapissea.dfs.type.field.access.VirtualAccessor;
 import com.lapissea.dfs.type.field.annotations.IOCompression;
 import com.lapissea.dfs.type.field.annotations.IODependency;
 import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IONumberCoding;
 import com.lapissea.dfs.type.field.annotations.IOUnmanagedValueInfo;
 import com.lapissea.dfs.type.field.annotations.IOUnsafeValue;
 import com.lapissea.dfs.type.field.annotations.IOValue;
@@ -68,7 +70,11 @@ public final class FieldCompiler{
 	public enum AccessType{
 		UNSAFE,
 		VAR_HANDLE,
-		REFLECTION
+		REFLECTION,
+		/**
+		 * A hidden class per field with constant method handles. See {@link GeneratedAccessor}
+		 */
+		GENERATED
 	}
 	
 	private static final AccessType FIELD_ACCESS;
@@ -328,7 +334,7 @@ public final class FieldCompiler{
 			}
 			
 			fields.add(switch(FIELD_ACCESS){
-				case UNSAFE, VAR_HANDLE -> {
+				case UNSAFE, VAR_HANDLE, GENERATED -> {
 					try{
 						yield new FunctionalVarHandleAccessor<>(struct, annotations, getter, Match.ofNullable(setter), name, type);
 					}catch(IllegalAccessException ex){
@@ -387,6 +393,7 @@ public final class FieldCompiler{
 					case UNSAFE -> UnsafeAccessor.make(struct, field, getter, setter, fieldName, type);
 					case VAR_HANDLE -> VarHandleAccessor.make(struct, field, getter, setter, fieldName, type);
 					case REFLECTION -> ReflectionAccessor.make(struct, field, getter, setter, fieldName, type);
+					case GENERATED -> GeneratedAccessor.make(struct, field, getter, setter, fieldName, type);
 				});
 			}catch(Throwable e){
 				throw new MalformedStruct("fmt", e, "Failed to scan field {}#red on {}#yellow", field.getName(), struct.cleanFullName());
@@ -480,6 +487,7 @@ public final class FieldCompiler{
 			IODependency.class,
 			IONullability.class,
 			IOCompression.class,
+			IONumberCoding.class,
 			IOUnsafeValue.class
 		);
 	}
@@ -0,0 +1,88 @@
+package com.lapissea.dfs.type.compilation;
+
+import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.logging.Log;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.Struct;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
+
+/**
+ * Generates the implementations of {@link IOInstance.Def} types ahead of time so that they do not need to be generated when the
+ * application starts. This is meant to be ran as a build step after compilation and before packaging:
+ * <pre>
+ * java -cp &lt;classpath&gt; com.lapissea.dfs.type.compilation.PregenerateClasses target/classes [type names...]
+ * </pre>
+ * If no type names are given, all types from the {@link ClassGenerationCommons#TYPE_INDEX} resources on the classpath are used.
+ * The index is written by the {@code jdbfs-processor} annotation processor. The README shows how to run both with Maven.<br>
+ * The generated classes are placed in {@link ClassGenerationCommons#PREGENERATED_LOCATION} of the output folder. At runtime they are
+ * used in place of generating the class as long as the type and the library are the same as the ones the class was generated from.
+ * <p>
+ * This has to run in its own process as the persistent class cache can only be configured before any class is generated.
+ */
+public final class PregenerateClasses{
+	
+	public static void main(String[] args) throws IOException{
+		if(args.length == 0){
+			throw new IllegalArgumentException("Usage: <output class folder> [type names...]");
+		}
+		
+		var output = Path.of(args[0]).resolve(ClassGenerationCommons.PREGENERATED_LOCATION);
+		System.setProperty(ConfigDefs.CLASSGEN_CACHE_LOCATION.name(), output.toString());
+		if(!ClassGenerationCommons.isCacheEnabled()){
+			throw new IllegalStateException("Class cache was configured before pregeneration started");
+		}
+		
+		var loader = Thread.currentThread().getContextClassLoader();
+		var names  = args.length>1? new LinkedHashSet<>(Arrays.asList(args).subList(1, args.length)) : readIndex(loader);
+		
+		int count = 0;
+		for(var name : names){
+			try{
+				var type = Class.forName(name, false, loader);
+				if(!IOInstance.Def.isDefinition(type)){
+					Log.warn("Skipping {} as it is not an IOInstance.Def", name);
+					continue;
+				}
+				//Access to the type is usually granted in a static initializer of the type or a class around it
+				for(var c = type; c != null; c = c.getDeclaringClass()){
+					Class.forName(c.getName(), true, loader);
+				}
+				Struct.ofUnknown(type, STATE_DONE);
+				count++;
+			}catch(Throwable e){
+				Log.warn("Failed to pregenerate {} because {}", name, e);
+			}
+		}
+		
+		//Pregenerated classes are only looked up if there is an index next to them
+		var index = Path.of(args[0]).resolve(ClassGenerationCommons.TYPE_INDEX);
+		if(Files.notExists(index)){
+			Files.createDirectories(index.getParent());
+			Files.write(index, names);
+		}
+		
+		Log.info("Pregenerated {} of {} types in to {}", count, names.size(), output);
+	}
+	
+	private static Set<String> readIndex(ClassLoader loader) throws IOException{
+		var names = new LinkedHashSet<String>();
+		for(var url : Collections.list(loader.getResources(ClassGenerationCommons.TYPE_INDEX))){
+			try(var in = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))){
+				in.lines().map(String::trim).filter(l -> !l.isEmpty()).forEach(names::add);
+			}
+		}
+		return names;
+	}
+}
@@ -0,0 +1,199 @@
+package com.lapissea.dfs.type.compilation;
+
+import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.utils.ClosableLock;
+import com.lapissea.iterableplus.Iters;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+
+import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
+
+/**
+ * Compiles a group of structs on a bounded pool of threads. The dependencies between the structs are known before any compilation
+ * starts, so a struct is only started once all the structs it depends on are done and structs that do not depend on each other
+ * are compiled at the same time.<br>
+ * Structs that depend on each other in a cycle can not be ordered. When no other struct can be started, the one with the least
+ * unfinished dependencies is started and the struct compilation resolves the cycle the same way as it would without the
+ * scheduler.
+ */
+public final class StructCompileScheduler{
+	
+	/**
+	 * @param waited  time from the start of the scheduling until the struct was started
+	 * @param compile time spent compiling the struct
+	 */
+	public record Timing(Class<?> type, Duration waited, Duration compile){ }
+	
+	/**
+	 * @param timings timing of every struct, in the order they were completed
+	 * @param total   time from the start of the scheduling until all structs were done
+	 */
+	public record Report(List<Timing> timings, Duration total, int threads){
+		public Duration compileSum(){
+			return Iters.from(timings).map(Timing::compile).reduce(Duration.ZERO, Duration::plus);
+		}
+	}
+	
+	public interface Progress{
+		/**
+		 * Called from the compiling thread when a struct is done.
+		 */
+		void onCompiled(Timing timing, int done, int total);
+	}
+	
+	public static final class CompilationFailed extends RuntimeException{
+		public final Class<?> type;
+		
+		private CompilationFailed(Class<?> type, Throwable cause){
+			super("Failed to compile " + type.getName(), cause);
+			this.type = type;
+		}
+	}
+	
+	private static final class Node{
+		private final Class<?>   type;
+		private final List<Node> dependents = new ArrayList<>();
+		private       int        remaining;
+		private       boolean    started;
+		
+		private Node(Class<?> type){ this.type = type; }
+	}
+	
+	private final Map<Class<?>, Set<Class<?>>> dependencies = new LinkedHashMap<>();
+	
+	private int      threads = ConfigDefs.LOADING_COMPILE_THREADS.resolveVal();
+	private Progress progress;
+	
+	private final ClosableLock lock   = ClosableLock.reentrant();
+	private final Condition    change = lock.newCondition();
+	
+	private final ArrayDeque<Node>  ready = new ArrayDeque<>();
+	private final List<Timing>      done  = new ArrayList<>();
+	private       int               running;
+	private       CompilationFailed error;
+	
+	/**
+	 * Adds a struct type to be compiled. Dependencies that are not added to the scheduler are not waited on.
+	 */
+	public StructCompileScheduler add(Class<?> type, Collection<? extends Class<?>> dependsOn){
+		dependencies.computeIfAbsent(Objects.requireNonNull(type), t -> new LinkedHashSet<>()).addAll(dependsOn);
+		return this;
+	}
+	
+	public StructCompileScheduler threads(int threads){
+		if(threads<=0) throw new IllegalArgumentException("threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+	
+	public StructCompileScheduler onProgress(Progress progress){
+		this.progress = progress;
+		return this;
+	}
+	
+	/**
+	 * Compiles all added structs to {@link com.lapissea.dfs.type.StagedInit#STATE_DONE} and waits for them.
+	 *
+	 * @throws CompilationFailed with the first struct that has failed to compile. Structs that have not started yet are not started.
+	 */
+	public Report compile(){
+		var nodes = buildGraph();
+		if(nodes.isEmpty()) return new Report(List.of(), Duration.ZERO, 0);
+		
+		var poolSize = Math.min(threads, nodes.size());
+		var start    = System.nanoTime();
+		
+		try(var pool = Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name("StructCompile", 0).daemon(true).factory());
+		    var ignored = lock.open()){
+			for(var node : nodes){
+				if(node.remaining == 0) ready.add(node);
+			}
+			
+			while(done.size()<nodes.size() && error == null){
+				if(ready.isEmpty() && running == 0){
+					ready.add(breakCycle(nodes));
+				}
+				Node node;
+				while((node = ready.poll()) != null){
+					node.started = true;
+					running++;
+					submit(pool, node, start, nodes.size());
+				}
+				change.awaitUninterruptibly();
+			}
+			
+			if(error != null){
+				pool.shutdownNow();
+				throw error;
+			}
+		}
+		
+		return new Report(List.copyOf(done), Duration.ofNanos(System.nanoTime() - start), poolSize);
+	}
+	
+	private List<Node> buildGraph(){
+		var nodes = new LinkedHashMap<Class<?>, Node>();
+		for(var type : dependencies.keySet()){
+			nodes.put(type, new Node(type));
+		}
+		for(var e : dependencies.entrySet()){
+			var node = nodes.get(e.getKey());
+			for(var dep : e.getValue()){
+				var depNode = nodes.get(dep);
+				if(depNode == null || depNode == node) continue;
+				depNode.dependents.add(node);
+				node.remaining++;
+			}
+		}
+		return new ArrayList<>(nodes.values());
+	}
+	
+	private static Node breakCycle(List<Node> nodes){
+		return Iters.from(nodes).filter(n -> !n.started).minByI(n -> n.remaining).orElseThrow();
+	}
+	
+	private void submit(ExecutorService pool, Node node, long scheduleStart, int total){
+		pool.execute(() -> {
+			var t1 = System.nanoTime();
+			try{
+				Struct.ofUnknown(node.type, STATE_DONE);
+			}catch(Throwable e){
+				try(var ignored = lock.open()){
+					if(error == null) error = new CompilationFailed(node.type, e);
+					running--;
+					change.signalAll();
+				}
+				return;
+			}
+			var t2 = System.nanoTime();
+			
+			var timing = new Timing(node.type, Duration.ofNanos(t1 - scheduleStart), Duration.ofNanos(t2 - t1));
+			int count;
+			try(var ignored = lock.open()){
+				done.add(timing);
+				count = done.size();
+				running--;
+				for(var dependent : node.dependents){
+					if(--dependent.remaining == 0 && !dependent.started){
+						ready.add(dependent);
+					}
+				}
+				change.signalAll();
+			}
+			if(progress != null) progress.onCompiled(timing, count, total);
+		});
+	}
+}
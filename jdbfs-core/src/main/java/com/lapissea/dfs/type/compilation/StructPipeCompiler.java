@@ -0,0 +1,239 @@
+package com.lapissea.dfs.type.compilation;
+
+import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.io.content.ContentReader;
+import com.lapissea.dfs.io.content.ContentWriter;
+import com.lapissea.dfs.logging.Log;
+import com.lapissea.dfs.type.GenericContext;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.VarPool;
+import com.lapissea.dfs.type.WordSpace;
+import com.lapissea.dfs.type.field.FieldSet;
+import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.access.FieldAccessor;
+import com.lapissea.dfs.type.field.fields.reflection.IOFieldPrimitive;
+import com.lapissea.iterableplus.Iters;
+import com.lapissea.jorth.BytecodeUtils;
+import com.lapissea.jorth.CodeStream;
+import com.lapissea.jorth.Jorth;
+import com.lapissea.jorth.exceptions.MalformedJorth;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.lapissea.dfs.config.GlobalConfig.DEBUG_VALIDATION;
+
+/**
+ * Generates a class that reads and writes a list of fields as straight line code. Every field gets its own call site
+ * so the JIT sees exactly one field implementation per call instead of the megamorphic loop in the generic pipe.
+ * Primitives that are always stored at their full width are encoded in place with their accessor.
+ * <p>
+ * Other fields are read and written with the same reporting and debug validation as the generic pipe. With debug
+ * validation, no field is encoded in place.
+ */
+public final class StructPipeCompiler{
+	
+	public interface FieldIO<T extends IOInstance<T>>{
+		void write(VarPool<T> ioPool, DataProvider provider, ContentWriter dest, T instance) throws IOException;
+		void read(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException;
+	}
+	
+	private enum Inline{
+		LONG(IOFieldPrimitive.FLong.class, 8, "Long", "Int8"),
+		INT(IOFieldPrimitive.FInt.class, 4, "Int", "Int4"),
+		DOUBLE(IOFieldPrimitive.FDouble.class, 8, "Double", "Float8"),
+		FLOAT(IOFieldPrimitive.FFloat.class, 4, "Float", "Float4");
+		
+		private final Class<?> fieldType;
+		private final long     bytes;
+		private final String   accessName;
+		private final String   ioName;
+		
+		Inline(Class<?> fieldType, long bytes, String accessName, String ioName){
+			this.fieldType = fieldType;
+			this.bytes = bytes;
+			this.accessName = accessName;
+			this.ioName = ioName;
+		}
+		
+		/**
+		 * A primitive can be inlined only if it is always stored with all of its bytes. Anything smaller may be dynamically sized or need range checks.
+		 */
+		static Optional<Inline> of(IOField<?, ?> field){
+			for(var inline : values()){
+				if(field.getClass() != inline.fieldType) continue;
+				var fixed = field.getSizeDescriptor().getFixed(WordSpace.BYTE);
+				if(fixed.isPresent() && fixed.getAsLong() == inline.bytes){
+					return Optional.of(inline);
+				}
+			}
+			return Optional.empty();
+		}
+	}
+	
+	public static <T extends IOInstance<T>> FieldIO<T> compile(Struct<T> struct, FieldSet<T> fields){
+		var inlines = Iters.from(fields).map(f -> DEBUG_VALIDATION? Optional.<Inline>empty() : Inline.of(f)).toList();
+		
+		var className = StructPipeCompiler.class.getPackageName() + "." + struct.getType().getSimpleName() + "€FieldIO";
+		
+		ConfigDefs.CompLogLevel.SMALL.log("Generating field IO for: {}#yellow", struct.cleanFullName());
+		
+		byte[] bytes;
+		try{
+			var log = JorthLogger.make();
+			bytes = Jorth.generateClass(StructPipeCompiler.class.getClassLoader(), className, writer -> {
+				writer.write(
+					"""
+						implements {!0}
+						public final class {!1} start
+						""",
+					FieldIO.class.getName(), className);
+					
+				for(int i = 0; i<inlines.size(); i++){
+					writer.write("private final field f{!} {}", i, inlines.get(i).isPresent()? FieldAccessor.class : IOField.class);
+				}
+				
+				writeConstructor(writer, inlines);
+				writeWrite(writer, inlines);
+				writeRead(writer, inlines);
+				
+				writer.wEnd();
+			}, log);
+			
+			ClassGenerationCommons.dumpClassName(className, bytes);
+			if(log != null){
+				Log.log("Generated jorth:\n" + log.output());
+				BytecodeUtils.printClass(bytes);
+			}
+		}catch(MalformedJorth e){
+			throw new RuntimeException("Failed to generate field IO for " + struct.cleanFullName(), e);
+		}
+		
+		var args     = new ArrayList<>(fields.size());
+		var argTypes = new ArrayList<Class<?>>(fields.size());
+		for(int i = 0; i<fields.size(); i++){
+			var field = fields.get(i);
+			if(inlines.get(i).isPresent()){
+				args.add(field.getAccessor());
+				argTypes.add(FieldAccessor.class);
+			}else{
+				args.add(field);
+				argTypes.add(IOField.class);
+			}
+		}
+		
+		try{
+			var lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+			var ctor   = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, argTypes));
+			//noinspection unchecked
+			return (FieldIO<T>)ctor.invokeWithArguments(args);
+		}catch(Throwable e){
+			throw new RuntimeException("Failed to instantiate field IO for " + struct.cleanFullName(), e);
+		}
+	}
+	
+	private static void writeConstructor(CodeStream writer, List<Optional<Inline>> inlines) throws MalformedJorth{
+		var header = new StringBuilder("public function <init>\n");
+		for(int i = 0; i<inlines.size(); i++){
+			var type = inlines.get(i).isPresent()? FieldAccessor.class : IOField.class;
+			header.append("arg f").append(i).append(' ').append(type.getName()).append('\n');
+		}
+		header.append("start super");
+		writer.write(header);
+		for(int i = 0; i<inlines.size(); i++){
+			writer.write("get #arg f{!0} set this f{!0}", i);
+		}
+		writer.write("end");
+	}
+	
+	private static void writeWrite(CodeStream writer, List<Optional<Inline>> inlines) throws MalformedJorth{
+		writer.write(
+			"""
+				public function write
+					arg ioPool {0}
+					arg provider {1}
+					arg dest {2}
+					arg instance {3}
+				start
+				""",
+			VarPool.class, DataProvider.class, ContentWriter.class, IOInstance.class);
+		for(int i = 0; i<inlines.size(); i++){
+			if(inlines.get(i).orElse(null) instanceof Inline inline){
+				writer.write(
+					"""
+						get #arg dest
+						call write{!2} start
+							get this f{!0}
+							call get{!1} start
+								get #arg ioPool
+								get #arg instance
+							end
+						end
+						""",
+					i, inline.accessName, inline.ioName);
+			}else{
+				writer.write(
+					"""
+						get this f{!0}
+						call {!1} start
+							get #arg ioPool
+							get #arg provider
+							get #arg dest
+							get #arg instance
+						end
+						""",
+					i, DEBUG_VALIDATION? "writeKnownSize" : "writeReported");
+			}
+		}
+		writer.write("end");
+	}
+	
+	private static void writeRead(CodeStream writer, List<Optional<Inline>> inlines) throws MalformedJorth{
+		writer.write(
+			"""
+				public function read
+					arg ioPool {0}
+					arg provider {1}
+					arg src {2}
+					arg instance {3}
+					arg genericContext {4}
+				start
+				""",
+			VarPool.class, DataProvider.class, ContentReader.class, IOInstance.class, GenericContext.class);
+		for(int i = 0; i<inlines.size(); i++){
+			if(inlines.get(i).orElse(null) instanceof Inline inline){
+				writer.write(
+					"""
+						get this f{!0}
+						call set{!1} start
+							get #arg ioPool
+							get #arg instance
+							get #arg src
+							call read{!2}
+						end
+						""",
+					i, inline.accessName, inline.ioName);
+			}else{
+				writer.write(
+					"""
+						get this f{!0}
+						call readReported start
+							get #arg ioPool
+							get #arg provider
+							get #arg src
+							get #arg instance
+							get #arg genericContext
+						end
+						""",
+					i);
+			}
+		}
+		writer.write("end");
+	}
+}
@@ -0,0 +1,198 @@
+package com.lapissea.dfs.type.compilation;
+
+import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.internal.Access;
+import com.lapissea.dfs.io.instancepipe.BaseFixedStructPipe;
+import com.lapissea.dfs.io.instancepipe.StructView;
+import com.lapissea.dfs.logging.Log;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.WordSpace;
+import com.lapissea.dfs.type.compilation.CompilationTools.FieldStub;
+import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.fields.reflection.IOFieldPrimitive;
+import com.lapissea.iterableplus.Iters;
+import com.lapissea.iterableplus.Match.Some;
+import com.lapissea.jorth.BytecodeUtils;
+import com.lapissea.jorth.CodeStream;
+import com.lapissea.jorth.Jorth;
+import com.lapissea.jorth.exceptions.MalformedJorth;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Generates {@link StructView} implementations of {@link IOInstance.Def} interfaces. Every getter and setter is compiled to a
+ * single buffer access at the static offset of its field within a fixed pipe.
+ */
+public final class StructViewCompiler{
+	
+	private record Accessor(String name, int bytes){ }
+	
+	private record ViewField(FieldStub stub, int offset, Accessor accessor){ }
+	
+	private static final Map<Class<?>, Accessor> ACCESSORS = Map.of(
+		long.class, new Accessor("Long", Long.BYTES),
+		int.class, new Accessor("Int", Integer.BYTES),
+		short.class, new Accessor("Short", Short.BYTES),
+		char.class, new Accessor("Char", Character.BYTES),
+		byte.class, new Accessor("Byte", Byte.BYTES),
+		double.class, new Accessor("Double", Double.BYTES),
+		float.class, new Accessor("Float", Float.BYTES)
+	);
+	
+	private static final AtomicInteger VIEW_COUNT = new AtomicInteger();
+	
+	public static <T extends IOInstance<T>> StructView.Factory<T> compile(BaseFixedStructPipe<T> pipe){
+		var struct = pipe.getType();
+		var interf = viewedInterface(struct);
+		
+		var fields = collectFields(pipe, interf);
+		
+		var className = interf.getName() + "€View" + VIEW_COUNT.incrementAndGet();
+		
+		ConfigDefs.CompLogLevel.SMALL.log("Generating view for: {}#yellow", struct.cleanFullName());
+		
+		byte[] bytes;
+		try{
+			var log = JorthLogger.make();
+			bytes = Jorth.generateClass(interf.getClassLoader(), className, writer -> {
+				writer.write(
+					"""
+						extends {!0}
+						implements {!1}
+						public final class {!2} start
+						""",
+					StructView.class.getName(), interf.getName(), className);
+					
+				writer.write(
+					"""
+						public function <init>
+						start
+							super
+						end
+						""");
+						
+				for(var field : fields){
+					if(field.stub.isGetter()){
+						writeGetter(writer, field);
+					}else{
+						writeSetter(writer, field);
+					}
+				}
+				
+				writer.wEnd();
+			}, log);
+			
+			ClassGenerationCommons.dumpClassName(className, bytes);
+			if(log != null){
+				Log.log("Generated jorth:\n" + log.output());
+				BytecodeUtils.printClass(bytes);
+			}
+		}catch(MalformedJorth e){
+			throw new RuntimeException("Failed to generate view for " + struct.cleanFullName(), e);
+		}
+		
+		try{
+			var cls = Access.defineClass(interf, bytes);
+			//noinspection unchecked
+			Supplier<StructView<T>> ctor = Access.makeLambda(cls.getConstructor(), Supplier.class);
+			return new StructView.Factory<>(pipe, ctor);
+		}catch(ReflectiveOperationException e){
+			throw new RuntimeException("Failed to define view for " + struct.cleanFullName(), e);
+		}
+	}
+	
+	private static Class<?> viewedInterface(Struct<?> struct){
+		var type = struct.getType();
+		if(IOInstance.Def.isDefinition(type)) return type;
+		if(IOInstance.Def.isDefinitionImplementation(type) && DefInstanceCompiler.unmap(type).orElse(null) instanceof Class<?> interf){
+			return interf;
+		}
+		throw new IllegalArgumentException(struct.cleanFullName() + " is not a " + IOInstance.Def.class.getSimpleName() + " type and can not be viewed");
+	}
+	
+	private static <T extends IOInstance<T>> List<ViewField> collectFields(BaseFixedStructPipe<T> pipe, Class<?> interf){
+		var offsets = new HashMap<String, Integer>();
+		var invalid = new ArrayList<String>();
+		
+		long offset = 0;
+		for(var field : pipe.getSpecificFields()){
+			if(isViewable(field)){
+				offsets.put(field.getName(), Math.toIntExact(offset));
+			}
+			offset += field.getSizeDescriptor().requireFixed(WordSpace.BYTE);
+		}
+		
+		var result = new ArrayList<ViewField>();
+		for(Method method : interf.getMethods()){
+			if(Modifier.isStatic(method.getModifiers()) || !Modifier.isAbstract(method.getModifiers())) continue;
+			var owner = method.getDeclaringClass();
+			if(owner == Object.class || owner.isAssignableFrom(IOInstance.Def.class)) continue;
+			
+			if(!(CompilationTools.asStub(method) instanceof Some(var stub))){
+				invalid.add(method.getName());
+				continue;
+			}
+			var off = offsets.get(stub.varName());
+			if(off == null || !(stub.type() instanceof Class<?> type) || !ACCESSORS.containsKey(type)){
+				invalid.add(stub.varName());
+				continue;
+			}
+			result.add(new ViewField(stub, off, ACCESSORS.get(type)));
+		}
+		
+		if(!invalid.isEmpty()){
+			throw new IllegalArgumentException(
+				"Can not create a view for " + pipe.getType().cleanFullName() + " because of: " + Iters.from(invalid).distinct().joinAsStr(", ") +
+				". Only primitive numbers stored at full width can be viewed"
+			);
+		}
+		return result;
+	}
+	
+	private static boolean isViewable(IOField<?, ?> field){
+		if(!(field instanceof IOFieldPrimitive<?, ?>)) return false;
+		var accessor = ACCESSORS.get(field.getAccessor().getType());
+		if(accessor == null) return false;
+		var fixed = field.getSizeDescriptor().getFixed(WordSpace.BYTE);
+		return fixed.isPresent() && fixed.getAsLong() == accessor.bytes;
+	}
+	
+	private static void writeGetter(CodeStream writer, ViewField field) throws MalformedJorth{
+		writer.write(
+			"""
+				public function {!0}
+					returns {1}
+				start
+					static call {!4} get{!2} start
+						get this this
+						{3}
+					end
+				end
+				""",
+			field.stub.method().getName(), field.stub.type(), field.accessor.name, field.offset, StructView.class.getName());
+	}
+	
+	private static void writeSetter(CodeStream writer, ViewField field) throws MalformedJorth{
+		writer.write(
+			"""
+				public function {!0}
+					arg value {1}
+				start
+					static call {!4} set{!2} start
+						get this this
+						{3}
+						get #arg value
+					end
+				end
+				""",
+			field.stub.method().getName(), field.stub.type(), field.accessor.name, field.offset, StructView.class.getName());
+	}
+}
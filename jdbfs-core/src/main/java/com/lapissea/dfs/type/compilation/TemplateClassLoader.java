@@ -1,6 +1,9 @@
 package com.lapissea.dfs.type.compilation;
 
 import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.io.content.ContentOutputBuilder;
+import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
 import com.lapissea.dfs.logging.Log;
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.IOTypeDB;
@@ -10,6 +13,7 @@ import com.lapissea.dfs.type.def.FieldDef;
 import com.lapissea.dfs.type.def.TypeDef;
 import com.lapissea.dfs.type.field.annotations.IODependency;
 import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IONumberCoding;
 import com.lapissea.dfs.type.field.annotations.IOUnsafeValue;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.dfs.type.string.StringifySettings;
@@ -31,6 +35,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Supplier;
 
 import static com.lapissea.util.ConsoleColors.*;
@@ -112,16 +117,22 @@ public final class TemplateClassLoader extends ClassLoader{
 		var typ       = new TypeNamed(className, def);
 		var classData = CLASS_DATA_CACHE.get(typ);
 		if(classData == null){
-			var hash = hashCode();
-			ConfigDefs.CompLogLevel.JUST_START.log("Generating template: {} - {}", className, (Supplier<String>)() -> {
-				var cols = List.of(BLACK, RED, GREEN, YELLOW, BLUE, PURPLE, CYAN);
-				return cols.get((int)(Integer.toUnsignedLong(hash)%cols.size())) + Integer.toHexString(hash) + " " + RESET;
-			});
-			
-			try{
-				classData = jorthGenerate(typ);
-			}catch(Throwable e){
-				throw handleClassgenFail(e);
+			var cacheKey = persistentCacheKey(typ);
+			classData = cacheKey.flatMap(ClassGenerationCommons.CacheKey::read).orElse(null);
+			if(classData == null){
+				var hash = hashCode();
+				ConfigDefs.CompLogLevel.JUST_START.log("Generating template: {} - {}", className, (Supplier<String>)() -> {
+					var cols = List.of(BLACK, RED, GREEN, YELLOW, BLUE, PURPLE, CYAN);
+					return cols.get((int)(Integer.toUnsignedLong(hash)%cols.size())) + Integer.toHexString(hash) + " " + RESET;
+				});
+				
+				try{
+					classData = jorthGenerate(typ);
+				}catch(Throwable e){
+					throw handleClassgenFail(e);
+				}
+				var data = classData;
+				cacheKey.ifPresent(k -> k.write(data));
 			}
 			CLASS_DATA_CACHE.put(typ, classData);
 		}
@@ -132,6 +143,23 @@ public final class TemplateClassLoader extends ClassLoader{
 			throw handleClassgenFail(e);
 		}
 	}
+	/**
+	 * A template is fully described by its name and definition so the serialized definition is used as the key.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Optional<ClassGenerationCommons.CacheKey> persistentCacheKey(TypeNamed typ){
+		if(!ClassGenerationCommons.isCacheEnabled()) return Optional.empty();
+		try{
+			var pipe = StandardStructPipe.of((Struct)Struct.ofUnknown(typ.def.getClass()));
+			var buff = new ContentOutputBuilder();
+			pipe.write(DataProvider.newVerySimpleProvider(), buff, (IOInstance)typ.def);
+			return ClassGenerationCommons.cacheKey(typ.name, buff.toByteArray());
+		}catch(Throwable e){
+			Log.warn("Failed to make a cache key for {} because {}", typ.name, e);
+			return Optional.empty();
+		}
+	}
+	
 	private static RuntimeException handleClassgenFail(Throwable e){
 		e.printStackTrace();
 		if(ConfigDefs.CLASSGEN_EXIT_ON_FAIL.resolveVal()){
@@ -297,12 +325,18 @@ public final class TemplateClassLoader extends ClassLoader{
 					case FieldDef.IOAnnotation.AnReferenceType ann -> {
 						writer.write("@{} start dataPipeType {!} end", IOValue.Reference.class, ann.type);
 					}
+					case FieldDef.IOAnnotation.AnNumberCoding ann -> {
+						writer.write("@{} start value {!} end", IONumberCoding.class, ann.type);
+					}
 					case FieldDef.IOAnnotation.AnUnsafe ignore -> {
 						writer.write("@{}", IOUnsafeValue.class);
 					}
 					case FieldDef.IOAnnotation.AnUnsigned ignore -> {
 						writer.write("@{}", IOValue.Unsigned.class);
 					}
+					case FieldDef.IOAnnotation.AnDictionary ignore -> {
+						writer.write("@{}", IOValue.Dictionary.class);
+					}
 				}
 			}
 			
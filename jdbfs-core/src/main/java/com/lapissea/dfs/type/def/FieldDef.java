@@ -8,6 +8,7 @@ import com.lapissea.dfs.type.field.IOField;
 import com.lapissea.dfs.type.field.IOFieldTools;
 import com.lapissea.dfs.type.field.annotations.IODependency;
 import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IONumberCoding;
 import com.lapissea.dfs.type.field.annotations.IOUnsafeValue;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.iterableplus.Iters;
@@ -35,6 +36,12 @@ public final class FieldDef extends IOInstance.Managed<FieldDef>{
 			public AnReferenceType(IOValue.Reference.PipeType type){ this.type = Objects.requireNonNull(type); }
 		}
 		
+		@IOValue
+		final class AnNumberCoding extends Managed<AnNumberCoding> implements IOAnnotation{
+			public final IONumberCoding.Type type;
+			public AnNumberCoding(IONumberCoding.Type type){ this.type = Objects.requireNonNull(type); }
+		}
+		
 		sealed interface AnDependencies extends IOAnnotation{
 			@IOValue
 			final class Single extends Managed<Single> implements AnDependencies{
@@ -61,6 +68,8 @@ public final class FieldDef extends IOInstance.Managed<FieldDef>{
 		
 		final class AnUnsafe extends Managed<AnUnsafe> implements IOAnnotation{ }
 		
+		final class AnDictionary extends Managed<AnDictionary> implements IOAnnotation{ }
+		
 		@IOValue
 		final class AnNumberSize extends Managed<AnNumberSize> implements IOAnnotation{
 			public final String fieldName;
@@ -108,6 +117,10 @@ public final class FieldDef extends IOInstance.Managed<FieldDef>{
 			annotations.add(new IOAnnotation.AnReferenceType(ann.dataPipeType()));
 		}
 		
+		if(field.getAccessor().getAnnotation(IONumberCoding.class) instanceof Some(var ann)){
+			annotations.add(new IOAnnotation.AnNumberCoding(ann.value()));
+		}
+		
 		var depNames = field.getDependencies().iter().toModList(IOField::getName);
 		if(isDynamic) depNames.remove(FieldNames.genericID(field.getAccessor()));
 		switch(depNames.size()){
@@ -124,6 +137,7 @@ public final class FieldDef extends IOInstance.Managed<FieldDef>{
 		
 		if(field.getAccessor().hasAnnotation(IOValue.Unsigned.class)) annotations.add(new IOAnnotation.AnUnsigned());
 		if(field.getAccessor().hasAnnotation(IOUnsafeValue.class)) annotations.add(new IOAnnotation.AnUnsafe());
+		if(field.getAccessor().hasAnnotation(IOValue.Dictionary.class)) annotations.add(new IOAnnotation.AnDictionary());
 		
 		return new FieldDef(type, name, annotations);
 	}
@@ -4,7 +4,10 @@ import com.lapissea.dfs.Utils;
 import com.lapissea.dfs.core.DataProvider;
 import com.lapissea.dfs.exceptions.FieldIsNull;
 import com.lapissea.dfs.exceptions.FixedFormatNotSupported;
+import com.lapissea.dfs.exceptions.TypeIOFail;
 import com.lapissea.dfs.io.IO;
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentReader;
 import com.lapissea.dfs.io.content.ContentWriter;
 import com.lapissea.dfs.objects.Stringify;
 import com.lapissea.dfs.type.GenericContext;
@@ -12,6 +15,7 @@ import com.lapissea.dfs.type.GetAnnotation;
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.VarPool;
+import com.lapissea.dfs.type.WordSpace;
 import com.lapissea.dfs.type.field.access.AnnotatedType;
 import com.lapissea.dfs.type.field.access.FieldAccessor;
 import com.lapissea.dfs.type.field.access.VirtualAccessor;
@@ -24,6 +28,7 @@ import com.lapissea.dfs.type.field.fields.reflection.BitFieldMerger;
 import com.lapissea.dfs.type.field.fields.reflection.IOFieldChunkPointer;
 import com.lapissea.dfs.type.field.fields.reflection.IOFieldOptional;
 import com.lapissea.dfs.type.field.fields.reflection.IOFieldPrimitive;
+import com.lapissea.dfs.type.field.fields.reflection.wrappers.IOFieldDictionaryString;
 import com.lapissea.dfs.type.field.fields.reflection.wrappers.IOFieldFusedString;
 import com.lapissea.dfs.type.string.StringifySettings;
 import com.lapissea.iterableplus.IterablePP;
@@ -32,8 +37,10 @@ import com.lapissea.iterableplus.Match;
 import com.lapissea.util.LogUtil;
 import com.lapissea.util.NotNull;
 import com.lapissea.util.ShouldNeverHappenError;
+import com.lapissea.util.TextUtil;
 import com.lapissea.util.UtilL;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
@@ -60,7 +67,7 @@ import static com.lapissea.dfs.config.GlobalConfig.DEBUG_VALIDATION;
 import static com.lapissea.dfs.type.field.annotations.IONullability.Mode.DEFAULT_IF_NULL;
 
 public abstract sealed class IOField<T extends IOInstance<T>, ValueType> implements IO<T>, Stringify, AnnotatedType, FieldNames.Named
-	permits BitField, NoIOField, NullFlagCompanyField, RefField, BitFieldMerger, IOFieldChunkPointer, IOFieldOptional, IOFieldPrimitive, IOFieldFusedString{
+	permits BitField, NoIOField, NullFlagCompanyField, RefField, BitFieldMerger, IOFieldChunkPointer, IOFieldOptional, IOFieldPrimitive, IOFieldFusedString, IOFieldDictionaryString{
 	
 	public interface FieldUsage{
 		abstract class InstanceOf<Typ> implements FieldUsage{
@@ -463,6 +470,68 @@ public abstract sealed class IOField<T extends IOInstance<T>, ValueType> impleme
 		}
 	}
 	
+	/**
+	 * Writes the field with {@link #writeReported} and checks that exactly the size its descriptor reports was written.
+	 */
+	public final void writeKnownSize(VarPool<T> ioPool, DataProvider provider, ContentWriter dest, T instance) throws IOException{
+		var bytes    = getSizeDescriptor().calcUnknown(ioPool, provider, instance, WordSpace.BYTE);
+		var safeBuff = dest.writeTicket(bytes).requireExact().submit();
+		writeReported(ioPool, provider, safeBuff, instance);
+		
+		try{
+			safeBuff.close();
+		}catch(Exception e){
+			throw new IOException(TextUtil.toString(this) + " - " + getClass().getSimpleName() + " (" + Utils.toShortString(get(ioPool, instance)) + ") did not write correctly", e);
+		}
+	}
+	
+	/**
+	 * Reads the field and reports the field that failed. With debug validation, a field of a fixed
+	 * size is also checked to read exactly its size.
+	 */
+	public final void readReported(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException{
+		if(DEBUG_VALIDATION && getSizeDescriptor().hasFixed()){
+			readKnownSize(ioPool, provider, src, instance, genericContext);
+		}else{
+			try{
+				read(ioPool, provider, src, instance, genericContext);
+			}catch(TypeIOFail|EOFException e){
+				var typ = getAccessor() == null? null : getAccessor().getType();
+				throw new TypeIOFail("Failed reading " + this + "", typ, e);
+			}catch(IOException e){
+				e.addSuppressed(new IOException("Failed to read " + this));
+				throw e;
+			}
+		}
+	}
+	
+	private void readKnownSize(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException{
+		var bytes = getSizeDescriptor().requireFixed(WordSpace.BYTE);
+		
+		ContentInputStream buf;
+		try{
+			buf = src.readTicket(bytes).requireExact().submit();
+		}catch(Exception e){
+			throw readFail(e, "failed to prepare raw data");
+		}
+		
+		try{
+			read(ioPool, provider, buf, instance, genericContext);
+		}catch(Exception e){
+			throw readFail(e, "failed to read");
+		}
+		
+		try{
+			buf.close();
+		}catch(Exception e){
+			throw readFail(e, "did not read correctly");
+		}
+	}
+	private IOException readFail(Exception e, String msg){
+		var typ = getAccessor() == null? null : getAccessor().getType();
+		return new TypeIOFail(this + " " + msg, typ, e);
+	}
+	
 	/**
 	 * @return string of the resolved value or no value if string has no substance
 	 */
@@ -22,6 +22,7 @@ import com.lapissea.dfs.type.field.annotations.IONullability;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.dfs.type.field.fields.BitField;
 import com.lapissea.dfs.type.field.fields.reflection.BitFieldMerger;
+import com.lapissea.iterableplus.IterableIntPP;
 import com.lapissea.iterableplus.IterablePP;
 import com.lapissea.iterableplus.Iters;
 import com.lapissea.iterableplus.Match;
@@ -44,7 +45,9 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -119,37 +122,79 @@ public final class IOFieldTools{
 			case 0 -> { return new Index(new int[]{}); }
 			case 1 -> { return new Index(new int[]{0}); }
 		}
+		Comparator<IOField<T, ?>> order = defaultOrder();
 		{
 			var struct       = Iters.from(fields).map(IOField::getAccessor).firstNonNull().orElseThrow().getDeclaringStruct();
 			var structType   = struct.getType();
 			var dataOrderAnn = structType.getAnnotation(InternalDataOrder.class);
 			if(dataOrderAnn != null) return predefinedOrder(fields, structType, dataOrderAnn);
+			if(structType.isAnnotationPresent(IOInstance.OptimizedLayout.class)){
+				order = fixedPrefixOrder(fields).thenComparing(order);
+			}
 		}
 		try{
-			return new DepSort<>(fields, f -> f.getDependencies()
-			                                   .mappedToInt(o -> Iters.range(0, fields.size())
-			                                                          .firstMatching(i -> fields.get(i).getAccessor() == o.getAccessor())
-			                                                          .orElseThrow())
-			).sort(Comparator.comparingInt((IOField<T, ?> f) -> {//Pull fixed fields back and enforce word space sort order
-				                 var order = f.sizeDescriptorSafe().getWordSpace().sortOrder;
-				                 if(!f.getSizeDescriptor().hasFixed()){
-					                 order += 100000;
-				                 }
-				                 return order;
-			                 })
-			                 //Pull any temporary fields back to reduce unessecary field skipping when re-reading them
-			                 .thenComparingInt(f -> f.isVirtual(StoragePool.IO)? 0 : 1)
-			                 //pull any cheap to read/write fields back
-			                 .thenComparingInt(f -> f.getType().isEnum() || SupportedPrimitive.isAny(f.getType())? 0 : 1)
-			                 //Encourage fields with similar dependencies to be next to each other
-			                 .thenComparing(f -> f.getDependencies().iter().joinAsStr(" / ", IOField::getName))
-			                 //Eliminate JVM entropy. Make initial field order irrelevant
-			                 .thenComparing(IOField::getName)
-			);
+			return new DepSort<>(fields, f -> dependencyIndices(fields, f)).sort(order);
 		}catch(DepSort.CycleException e){
 			throw new MalformedStruct("Field dependency cycle detected:\n" + TextUtil.toTable(e.cycle.mapData(fields)), e);
 		}
 	}
+	
+	private static <T extends IOInstance<T>> IterableIntPP dependencyIndices(List<IOField<T, ?>> fields, IOField<T, ?> field){
+		return field.getDependencies()
+		            .mappedToInt(o -> Iters.range(0, fields.size())
+		                                   .firstMatching(i -> fields.get(i).getAccessor() == o.getAccessor())
+		                                   .orElseThrow());
+	}
+	
+	private static <T extends IOInstance<T>> Comparator<IOField<T, ?>> defaultOrder(){
+		return Comparator.comparingInt((IOField<T, ?> f) -> {//Pull fixed fields back and enforce word space sort order
+			                 var order = f.sizeDescriptorSafe().getWordSpace().sortOrder;
+			                 if(!f.getSizeDescriptor().hasFixed()){
+				                 order += 100000;
+			                 }
+			                 return order;
+		                 })
+		                 //Pull any temporary fields back to reduce unessecary field skipping when re-reading them
+		                 .thenComparingInt(f -> f.isVirtual(StoragePool.IO)? 0 : 1)
+		                 //pull any cheap to read/write fields back
+		                 .thenComparingInt(f -> f.getType().isEnum() || SupportedPrimitive.isAny(f.getType())? 0 : 1)
+		                 //Encourage fields with similar dependencies to be next to each other
+		                 .thenComparing(f -> f.getDependencies().iter().joinAsStr(" / ", IOField::getName))
+		                 //Eliminate JVM entropy. Make initial field order irrelevant
+		                 .thenComparing(IOField::getName);
+	}
+	
+	/**
+	 * Order of {@link IOInstance.OptimizedLayout}. A fixed size field is only a part of the prefix if nothing it depends on has a
+	 * variable size, as a dependency is always placed before its dependant.
+	 */
+	private static <T extends IOInstance<T>> Comparator<IOField<T, ?>> fixedPrefixOrder(List<IOField<T, ?>> fields){
+		var variable = new boolean[fields.size()];
+		for(int i = 0; i<fields.size(); i++){
+			variable[i] = !fields.get(i).sizeDescriptorSafe().hasFixed();
+		}
+		boolean change;
+		do{
+			change = false;
+			for(int i = 0; i<fields.size(); i++){
+				if(variable[i]) continue;
+				if(dependencyIndices(fields, fields.get(i)).anyMatch(d -> variable[d])){
+					variable[i] = change = true;
+				}
+			}
+		}while(change);
+		
+		var prefix = Collections.newSetFromMap(new IdentityHashMap<IOField<T, ?>, Boolean>());
+		for(int i = 0; i<fields.size(); i++){
+			if(!variable[i]) prefix.add(fields.get(i));
+		}
+		
+		return Comparator.comparingInt((IOField<T, ?> f) -> prefix.contains(f)? 0 : 1)
+		                 //Bit fields are packed together after the byte fields so they are merged in to one
+		                 .thenComparingInt(f -> f.sizeDescriptorSafe().getWordSpace() == WordSpace.BIT? 1 : 0)
+		                 //Largest first, so that every byte field starts on a multiple of its size
+		                 .thenComparingLong(f -> -f.sizeDescriptorSafe().getFixed(WordSpace.BYTE).orElse(0));
+	}
 	@SuppressWarnings("deprecation")
 	private static <T extends IOInstance<T>> Index predefinedOrder(List<IOField<T, ?>> fields, Class<T> structType, InternalDataOrder dataOrderAnn){
 		if((!(structType.getClassLoader() instanceof TemplateClassLoader))){
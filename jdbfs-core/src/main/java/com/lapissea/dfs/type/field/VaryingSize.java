@@ -179,15 +179,15 @@ public final class VaryingSize implements Stringify{
 			
 			private record Mark(int counter, Map<String, UIDInfo> uidMap){ }
 			
-			private final List<NumberSize> data;
-			private       int              counter;
+			private final List<VaryingSize> data;
+			private       int               counter;
 			
 			private final Map<Integer, Mark> marks = new HashMap<>();
 			private       int                markIdCount;
 			
 			private final Map<String, UIDInfo> uidMap = new HashMap<>();
 			
-			public Repeater(List<NumberSize> data){
+			public Repeater(List<VaryingSize> data){
 				this.data = List.copyOf(data);
 			}
 			
@@ -199,7 +199,7 @@ public final class VaryingSize implements Stringify{
 					return repeat.val;
 				}
 				
-				var result = new VaryingSize(data.get(counter), counter);
+				var result = data.get(counter);
 				
 				if(uid != null) uidMap.put(uid, new UIDInfo(result, max, ptr));
 				counter++;
@@ -237,6 +237,17 @@ public final class VaryingSize implements Stringify{
 			return new Recorder(mapper);
 		}
 		static Provider repeat(List<NumberSize> data){
+			var sizes = new ArrayList<VaryingSize>(data.size());
+			for(int i = 0; i<data.size(); i++){
+				sizes.add(new VaryingSize(data.get(i), i));
+			}
+			return new Repeater(sizes);
+		}
+		/**
+		 * Provides the same sizes with the same IDs in order. Unlike {@link #repeat(List)} the IDs are kept, so a pipe that is
+		 * nested in another one reports the sizes that are too small with the IDs of the outer provider.
+		 */
+		static Provider replay(List<VaryingSize> data){
 			return new Repeater(data);
 		}
 		
@@ -0,0 +1,179 @@
+package com.lapissea.dfs.type.field.access;
+
+import com.lapissea.dfs.internal.Access;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.VarPool;
+import com.lapissea.dfs.type.field.IOFieldTools;
+import com.lapissea.util.ShouldNeverHappenError;
+import com.lapissea.util.UtilL;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every field gets its own hidden class that is a copy of {@link Template}. The getter and setter are held in static final
+ * {@link MethodHandle}s of that class, so the JIT treats them as constants and reduces them to a direct field access or call.
+ * A call site that only ever sees one accessor is monomorphic and can be fully inlined, as it is in generated struct pipes.
+ */
+public abstract class GeneratedAccessor<CTyp extends IOInstance<CTyp>> extends ExactFieldAccessor<CTyp>{
+	
+	private static final class Template<CTyp extends IOInstance<CTyp>> extends GeneratedAccessor<CTyp>{
+		
+		private static final MethodHandle GET = handle(0);
+		private static final MethodHandle SET = handle(1);
+		
+		private static MethodHandle handle(int index){
+			try{
+				return MethodHandles.classDataAt(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, MethodHandle.class, index);
+			}catch(IllegalAccessException e){
+				throw new ShouldNeverHappenError(e);
+			}
+		}
+		
+		private Template(Struct<CTyp> struct, String name, Type genericType, Map<Class<? extends Annotation>, ? extends Annotation> annotations, boolean readOnlyField){
+			super(struct, name, genericType, annotations, readOnlyField);
+		}
+		
+		@Override
+		protected short getExactShort(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (short)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactShort(VarPool<CTyp> ioPool, CTyp instance, short value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected char getExactChar(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (char)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactChar(VarPool<CTyp> ioPool, CTyp instance, char value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected long getExactLong(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (long)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactLong(VarPool<CTyp> ioPool, CTyp instance, long value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected byte getExactByte(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (byte)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactByte(VarPool<CTyp> ioPool, CTyp instance, byte value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected int getExactInt(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (int)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactInt(VarPool<CTyp> ioPool, CTyp instance, int value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected double getExactDouble(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (double)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactDouble(VarPool<CTyp> ioPool, CTyp instance, double value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected float getExactFloat(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (float)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactFloat(VarPool<CTyp> ioPool, CTyp instance, float value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected boolean getExactBoolean(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (boolean)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactBoolean(VarPool<CTyp> ioPool, CTyp instance, boolean value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		
+		@Override
+		protected Object getExactObject(VarPool<CTyp> ioPool, CTyp instance){
+			try{ return (Object)GET.invokeExact(instance); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+		@Override
+		protected void setExactObject(VarPool<CTyp> ioPool, CTyp instance, Object value){
+			try{ SET.invokeExact(instance, value); }catch(Throwable e){ throw UtilL.uncheckedThrow(e); }
+		}
+	}
+	
+	private static final MethodType CONSTRUCTOR = MethodType.methodType(void.class, Struct.class, String.class, Type.class, Map.class, boolean.class);
+	
+	private static byte[] templateBytes;
+	
+	private static synchronized byte[] templateBytes(){
+		if(templateBytes == null){
+			var name = Template.class.getName();
+			try(var in = Template.class.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")){
+				if(in == null) throw new ShouldNeverHappenError("Missing class file of " + name);
+				templateBytes = in.readAllBytes();
+			}catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+		}
+		return templateBytes;
+	}
+	
+	public static <T extends IOInstance<T>> FieldAccessor<T> make(Struct<T> struct, Field field, Method getter, Method setter, String name, Type genericType) throws IllegalAccessException{
+		if(getter != null) validateGetter(genericType, getter);
+		if(setter != null) validateSetter(genericType, setter);
+		
+		VarHandle handle = Access.makeVarHandle(field);
+		
+		var get = getter != null? Access.makeMethodHandle(findParent(getter)) : handle.toMethodHandle(VarHandle.AccessMode.GET);
+		var set = setter != null? Access.makeMethodHandle(findParent(setter)) : handle.toMethodHandle(VarHandle.AccessMode.SET);
+		
+		var valueType = field.getType().isPrimitive()? field.getType() : Object.class;
+		get = get.asType(MethodType.methodType(valueType, IOInstance.class));
+		set = set.asType(MethodType.methodType(void.class, IOInstance.class, valueType));
+		
+		var annotations = IOFieldTools.computeAnnotations(field);
+		var readOnly    = Modifier.isFinal(field.getModifiers());
+		
+		try{
+			var lookup = MethodHandles.lookup().defineHiddenClassWithClassData(templateBytes(), List.of(get, set), true);
+			var ctor   = lookup.findConstructor(lookup.lookupClass(), CONSTRUCTOR);
+			//noinspection unchecked
+			return (FieldAccessor<T>)ctor.invoke(struct, name, genericType, annotations, readOnly);
+		}catch(Throwable e){
+			throw new RuntimeException("Failed to generate accessor for " + field, e);
+		}
+	}
+	
+	//Not private as the hidden copies of the template are not nest mates of this class
+	GeneratedAccessor(Struct<CTyp> struct, String name, Type genericType, Map<Class<? extends Annotation>, ? extends Annotation> annotations, boolean readOnlyField){
+		super(struct, name, genericType, annotations, readOnlyField);
+	}
+}
@@ -0,0 +1,43 @@
+package com.lapissea.dfs.type.field.annotations;
+
+import com.lapissea.dfs.io.compress.NumberPacker;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Stores a numeric collection (int[], long[] or List&lt;Long&gt;) as a packed sequence instead of one width for all elements.
+ * This is worth it for sequences with a lot of structure such as timestamps, sorted ids or measurements that stay in a narrow range.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IONumberCoding{
+	enum Type{
+		/**
+		 * Values are bit packed as offsets from the smallest value in their block. Good for unsorted values that are close together.
+		 */
+		FRAME_OF_REFERENCE(0),
+		/**
+		 * Differences between consecutive values are stored. Good for sorted values such as ids.
+		 */
+		DELTA(1),
+		/**
+		 * Differences between consecutive deltas are stored. Good for values sampled at a (mostly) regular interval such as timestamps.
+		 */
+		DELTA_OF_DELTA(2);
+		
+		private final int order;
+		
+		Type(int order){
+			this.order = order;
+		}
+		
+		public byte[] pack(long[] data)                           { return NumberPacker.pack(data, order); }
+		public long[] unpack(byte[] packedData) throws IOException{ return NumberPacker.unpack(packedData, order); }
+	}
+	
+	Type value() default Type.DELTA;
+}
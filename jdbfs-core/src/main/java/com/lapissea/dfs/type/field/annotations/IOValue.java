@@ -39,11 +39,16 @@ public @interface IOValue{
 		
 		PipeType dataPipeType() default PipeType.FLEXIBLE;
 		
-		//TODO: implement lazy load
-//		/**
-//		 * Does not load type immediately but only once it is accessed. Can only be true on {@link IOInstance.Def} types.
-//		 */
-//		boolean lazyLoad() default false;
+		/**
+		 * Does not load type immediately but only once it is accessed. Can only be true on {@link IOInstance.Def} types.
+		 * <p>
+		 * The value is read from the reference that the holding instance has at the time of the access. Moving stored
+		 * data, like defragmentation or a {@link com.lapissea.dfs.core.RewriteJob}, only updates the instances it reads
+		 * itself. A lazy value of a holder that was read before such a move should be loaded before it, or the holder
+		 * should be read again after it, as the old reference may point to freed memory.
+		 * </p>
+		 */
+		boolean lazyLoad() default false;
 	}
 	
 	/**
@@ -103,4 +108,19 @@ public @interface IOValue{
 	@Retention(RetentionPolicy.RUNTIME)
 	@Target({ElementType.FIELD, ElementType.METHOD})
 	@interface Generic{ }
+	
+	/**
+	 * <p>
+	 * Stores a String as an ID in to a dictionary that is shared by the whole database. Every distinct value is stored only once
+	 * and each field only holds its ID. Fields with this annotation also compare IDs instead of the string contents in queries.
+	 * </p>
+	 * <p>
+	 * This is only worth it for a small set of values that are repeated many times, such as tags, status names or country codes.
+	 * The dictionary never forgets a value so a field that is likely to contain many unique values should not use this.
+	 * </p>
+	 */
+	@AnnotationUsage("Marks a String as dictionary encoded. Use only when the set of possible values is small")
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.FIELD, ElementType.METHOD})
+	@interface Dictionary{ }
 }
@@ -613,14 +613,14 @@ public abstract class DynamicCollectionSupport{
 			case DOUBLE -> dest.writeFloats8((double[])array);
 			case CHAR -> dest.writeChars2((char[])array);
 			case FLOAT -> dest.writeFloats4((float[])array);
-			case BOOLEAN -> {
-				try(var bitOut = new BitOutputStream(dest)){
-					bitOut.writeBits((boolean[])array);
-				}
-			}
+			case BOOLEAN -> dest.write(BitUtils.packBits((boolean[])array));
 			case LONG -> {
 				var siz = Iters.ofLongs((long[])array).bounds().map(NumberSize::bySizeSigned).orElse(NumberSize.VOID);
 				FlagWriter.writeSingle(dest, NumberSize.FLAG_INFO, siz);
+				if(siz == NumberSize.LONG){
+					dest.writeInts8((long[])array);
+					return;
+				}
 				
 				byte[] bb = new byte[siz.bytes*len];
 				try(var io = new ContentOutputStream.BA(bb)){
@@ -633,6 +633,10 @@ public abstract class DynamicCollectionSupport{
 			case INT -> {
 				var siz = Iters.ofInts((int[])array).bounds().map(NumberSize::bySizeSigned).orElse(NumberSize.VOID);
 				FlagWriter.writeSingle(dest, NumberSize.FLAG_INFO, siz);
+				if(siz == NumberSize.INT){
+					dest.writeInts4((int[])array);
+					return;
+				}
 				
 				byte[] bb = new byte[siz.bytes*len];
 				try(var io = new ContentOutputStream.BA(bb)){
@@ -642,15 +646,7 @@ public abstract class DynamicCollectionSupport{
 				}
 				dest.write(bb);
 			}
-			case SHORT -> {
-				byte[] bb = new byte[len*2];
-				try(var io = new ContentOutputStream.BA(bb)){
-					for(var l : (short[])array){
-						io.writeInt2(l&0xFFFF);
-					}
-				}
-				dest.write(bb);
-			}
+			case SHORT -> dest.writeInts2((short[])array);
 			case BYTE -> dest.writeInts1((byte[])array);
 		}
 	}
@@ -751,16 +747,12 @@ public abstract class DynamicCollectionSupport{
 		return switch(pTyp){
 			case DOUBLE -> src.readFloats8(len);
 			case FLOAT -> src.readFloats4(len);
-			case BOOLEAN -> {
-				if(len == 0) yield new boolean[0];
-				try(var bitIn = new BitInputStream(src, len)){
-					yield bitIn.readBits(new boolean[len]);
-				}
-			}
+			case BOOLEAN -> BitUtils.unpackBits(src.readInts1(BitUtils.bitsToBytes(len)), new boolean[len]);
 			case LONG -> {
 				var arr = new long[len];
 				if(len == 0) yield arr;
 				var siz = FlagReader.readSingle(src, NumberSize.FLAG_INFO);
+				if(siz == NumberSize.LONG) yield src.readInts8(len);
 				for(int i = 0; i<arr.length; i++){
 					arr[i] = siz.readSigned(src);
 				}
@@ -770,6 +762,7 @@ public abstract class DynamicCollectionSupport{
 				var arr = new int[len];
 				if(len == 0) yield arr;
 				var siz = FlagReader.readSingle(src, NumberSize.FLAG_INFO);
+				if(siz == NumberSize.INT) yield src.readInts4(len);
 				for(int i = 0; i<arr.length; i++){
 					arr[i] = siz.readIntSigned(src);
 				}
@@ -1,8 +1,6 @@
 package com.lapissea.dfs.type.field.fields.reflection;
 
 import com.lapissea.dfs.core.DataProvider;
-import com.lapissea.dfs.io.bit.BitInputStream;
-import com.lapissea.dfs.io.bit.BitOutputStream;
 import com.lapissea.dfs.io.bit.BitUtils;
 import com.lapissea.dfs.io.content.ContentReader;
 import com.lapissea.dfs.io.content.ContentWriter;
@@ -74,9 +72,7 @@ public final class IOFieldBooleanArray<T extends IOInstance<T>> extends NullFlag
 	public void write(VarPool<T> ioPool, DataProvider provider, ContentWriter dest, T instance) throws IOException{
 		var arr = get(ioPool, instance);
 		if(arr == null) return;
-		try(var b = new BitOutputStream(dest)){
-			b.writeBits(arr);
-		}
+		dest.write(BitUtils.packBits(arr));
 	}
 	@Override
 	public void read(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException{
@@ -84,10 +80,7 @@ public final class IOFieldBooleanArray<T extends IOInstance<T>> extends NullFlag
 		if(nullable() && getIsNull(ioPool, instance)) data = null;
 		else{
 			int size = arraySize.getValue(ioPool, instance);
-			data = new boolean[size];
-			try(var b = new BitInputStream(src, size)){
-				b.readBits(data);
-			}
+			data = BitUtils.unpackBits(src.readInts1(BitUtils.bitsToBytes(size)), new boolean[size]);
 		}
 		set(ioPool, instance, data);
 	}
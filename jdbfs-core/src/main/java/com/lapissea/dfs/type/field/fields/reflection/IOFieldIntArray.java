@@ -16,6 +16,7 @@ import com.lapissea.dfs.type.field.SizeDescriptor;
 import com.lapissea.dfs.type.field.VirtualFieldDefinition;
 import com.lapissea.dfs.type.field.access.FieldAccessor;
 import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IONumberCoding;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.dfs.type.field.fields.NullFlagCompanyField;
 
@@ -29,7 +30,7 @@ public final class IOFieldIntArray<T extends IOInstance<T>> extends NullFlagComp
 	
 	@SuppressWarnings("unused")
 	private static final class Usage extends FieldUsage.InstanceOf<int[]>{
-		public Usage(){ super(int[].class, Set.of(IOFieldIntArray.class)); }
+		public Usage(){ super(int[].class, Set.of(IOFieldIntArray.class), anns -> !anns.isPresent(IONumberCoding.class)); }
 		@Override
 		public <T extends IOInstance<T>> IOField<T, int[]> create(FieldAccessor<T> field){
 			return new IOFieldIntArray<>(field);
@@ -126,6 +127,10 @@ public final class IOFieldIntArray<T extends IOInstance<T>> extends NullFlagComp
 		var arr = get(ioPool, instance);
 		if(arr == null) return;
 		var nSiz = getNumSize(ioPool, instance);
+		if(nSiz == NumberSize.INT){
+			dest.writeInts4(arr);
+			return;
+		}
 		for(int i : arr){
 			nSiz.writeIntSigned(dest, i);
 		}
@@ -137,9 +142,12 @@ public final class IOFieldIntArray<T extends IOInstance<T>> extends NullFlagComp
 		else{
 			int size = getArrSize(ioPool, instance);
 			var nSiz = getNumSize(ioPool, instance);
-			data = new int[size];
-			for(int i = 0; i<data.length; i++){
-				data[i] = nSiz.readIntSigned(src);
+			if(nSiz == NumberSize.INT) data = src.readInts4(size);
+			else{
+				data = new int[size];
+				for(int i = 0; i<data.length; i++){
+					data[i] = nSiz.readIntSigned(src);
+				}
 			}
 		}
 		set(ioPool, instance, data);
@@ -3,6 +3,7 @@ package com.lapissea.dfs.type.field.fields.reflection;
 import com.lapissea.dfs.core.AllocateTicket;
 import com.lapissea.dfs.core.DataProvider;
 import com.lapissea.dfs.core.chunk.Chunk;
+import com.lapissea.dfs.exceptions.IllegalAnnotation;
 import com.lapissea.dfs.io.content.ContentReader;
 import com.lapissea.dfs.io.content.ContentWriter;
 import com.lapissea.dfs.io.instancepipe.FixedStructPipe;
@@ -11,6 +12,7 @@ import com.lapissea.dfs.io.instancepipe.StructPipe;
 import com.lapissea.dfs.objects.Reference;
 import com.lapissea.dfs.type.GenericContext;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.LazyInstance;
 import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.VarPool;
 import com.lapissea.dfs.type.field.SizeDescriptor;
@@ -31,14 +33,20 @@ public final class IOFieldObjectReference<T extends IOInstance<T>, ValueType ext
 	
 	private final Struct<ValueType>     struct;
 	private final StructPipe<ValueType> instancePipe;
+	private final boolean               lazy;
 	
 	@SuppressWarnings("unchecked")
 	public IOFieldObjectReference(FieldAccessor<T> accessor){
 		super(accessor, SizeDescriptor.Fixed.empty());
 		
+		var ann = accessor.getAnnotation(IOValue.Reference.class).orElseThrow();
+		lazy = ann.lazyLoad();
+		if(lazy && !IOInstance.Def.isDefinition(getType())){
+			throw new IllegalAnnotation("fmt", "{}#yellow can not be lazily loaded as {}#red is not an {}", accessor, getType().getName(), IOInstance.Def.class.getSimpleName());
+		}
+		
 		struct = (Struct<ValueType>)Struct.ofUnknown(getType());
-		var typ = accessor.getAnnotation(IOValue.Reference.class).orElseThrow().dataPipeType();
-		instancePipe = switch(typ){
+		instancePipe = switch(ann.dataPipeType()){
 			case FIXED -> FixedStructPipe.of(struct, STATE_IO_FIELD);
 			case FLEXIBLE -> StandardStructPipe.of(struct);
 		};
@@ -73,7 +81,7 @@ public final class IOFieldObjectReference<T extends IOInstance<T>, ValueType ext
 	
 	@Override
 	protected Reference allocNew(DataProvider provider, ValueType val) throws IOException{
-		Chunk chunk = AllocateTicket.withData(instancePipe, provider, val).submit(provider);
+		Chunk chunk = AllocateTicket.withData(instancePipe, provider, LazyInstance.unwrap(val)).submit(provider);
 		return chunk.getPtr().makeReference();
 	}
 	
@@ -91,12 +99,30 @@ public final class IOFieldObjectReference<T extends IOInstance<T>, ValueType ext
 		return isNullRawNullable(ioPool, instance);
 	}
 	
+	@Override
+	public boolean instancesEqual(VarPool<T> ioPool1, T inst1, VarPool<T> ioPool2, T inst2){
+		if(lazy){
+			var o1 = get(ioPool1, inst1);
+			var o2 = get(ioPool2, inst2);
+			if(o1 != null && o2 != null){
+				return LazyInstance.unwrap(o1).equals(LazyInstance.unwrap(o2));
+			}
+		}
+		return super.instancesEqual(ioPool1, inst1, ioPool2, inst2);
+	}
+	@Override
+	public int instanceHashCode(VarPool<T> ioPool, T instance){
+		//Hashing the holder should not read a lazy value. Leaving it out keeps the hash consistent with equality
+		if(lazy) return 0;
+		return super.instanceHashCode(ioPool, instance);
+	}
+	
 	@Override
 	public StructPipe<ValueType> getReferencedPipe(T instance){
 		return instancePipe;
 	}
 	
-	private ValueType readValue(DataProvider provider, Reference readNew, GenericContext genericContext) throws IOException{
+	private ValueType readValue(DataProvider provider, T instance, Reference readNew, GenericContext genericContext) throws IOException{
 		if(readNew.isNull()){
 			return switch(getNullability()){
 				case NULLABLE -> null;
@@ -104,9 +130,17 @@ public final class IOFieldObjectReference<T extends IOInstance<T>, ValueType ext
 				case DEFAULT_IF_NULL -> struct.make();
 			};
 		}
+		if(lazy){
+			return makeLazy(provider, instance, makeContext(genericContext));
+		}
 		return readNew.readNew(provider, instancePipe, makeContext(genericContext));
 	}
 	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private ValueType makeLazy(DataProvider provider, T instance, GenericContext genericContext){
+		return (ValueType)LazyInstance.of((Class)getType(), instance, provider, () -> getRef(instance), (StructPipe)instancePipe, genericContext);
+	}
+	
 	@Override
 	public void write(VarPool<T> ioPool, DataProvider provider, ContentWriter dest, T instance) throws IOException{
 		var val = get(ioPool, instance);
@@ -118,14 +152,15 @@ public final class IOFieldObjectReference<T extends IOInstance<T>, ValueType ext
 			throw new ShouldNeverHappenError();//Generators have not been called if this is true
 		}
 		
-		if(val != null){
-			ref.write(provider, false, instancePipe, val);
+		//A value of this instance that was never loaded can not have been modified. One of another instance has to be copied
+		if(val != null && !LazyInstance.isUnloadedOf(val, instance)){
+			ref.write(provider, false, instancePipe, LazyInstance.unwrap(val));
 		}
 	}
 	
 	@Override
 	public void read(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException{
-		set(ioPool, instance, readValue(provider, Objects.requireNonNull(getRef(instance)), genericContext));
+		set(ioPool, instance, readValue(provider, instance, Objects.requireNonNull(getRef(instance)), genericContext));
 	}
 	
 	@Override
@@ -0,0 +1,186 @@
+package com.lapissea.dfs.type.field.fields.reflection;
+
+import com.lapissea.dfs.Utils;
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.io.content.ContentReader;
+import com.lapissea.dfs.io.content.ContentWriter;
+import com.lapissea.dfs.type.GenericContext;
+import com.lapissea.dfs.type.GetAnnotation;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.VarPool;
+import com.lapissea.dfs.type.field.BehaviourSupport;
+import com.lapissea.dfs.type.field.FieldNames;
+import com.lapissea.dfs.type.field.FieldSet;
+import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.SizeDescriptor;
+import com.lapissea.dfs.type.field.access.FieldAccessor;
+import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IONumberCoding;
+import com.lapissea.dfs.type.field.fields.NullFlagCompanyField;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores an int[], long[] or List&lt;Long&gt; annotated with {@link IONumberCoding} as a packed companion byte array.
+ */
+public final class IOFieldPackedNumbers<T extends IOInstance<T>, Seq> extends NullFlagCompanyField<T, Seq>{
+	
+	@SuppressWarnings("unused")
+	private static final class Usage implements FieldUsage{
+		@Override
+		public boolean isCompatible(Type type, GetAnnotation annotations){
+			return annotations.isPresent(IONumberCoding.class) && Kind.of(type) != null;
+		}
+		@Override
+		public <T extends IOInstance<T>> IOField<T, ?> create(FieldAccessor<T> field){
+			return new IOFieldPackedNumbers<>(field, Kind.of(field.getGenericType(null)));
+		}
+		@Override
+		@SuppressWarnings("rawtypes")
+		public Set<Class<? extends IOField>> listFieldTypes(){ return Set.of(IOFieldPackedNumbers.class); }
+		@Override
+		public <T extends IOInstance<T>> List<Behaviour<?, T>> annotationBehaviour(Class<IOField<T, ?>> fieldType){
+			return List.of(
+				Behaviour.of(IONullability.class, BehaviourSupport::ioNullability),
+				Behaviour.of(IONumberCoding.class, BehaviourSupport::packCompanion)
+			);
+		}
+	}
+	
+	private enum Kind{
+		INT_ARRAY{
+			@Override
+			Object empty(){ return new int[0]; }
+			@Override
+			long[] toLongs(Object value){
+				var arr = (int[])value;
+				var res = new long[arr.length];
+				for(int i = 0; i<arr.length; i++){
+					res[i] = arr[i];
+				}
+				return res;
+			}
+			@Override
+			Object fromLongs(long[] values) throws IOException{
+				var res = new int[values.length];
+				for(int i = 0; i<values.length; i++){
+					var v = values[i];
+					if(v != (int)v) throw new IOException(v + " does not fit in to an int");
+					res[i] = (int)v;
+				}
+				return res;
+			}
+		},
+		LONG_ARRAY{
+			@Override
+			Object empty(){ return new long[0]; }
+			@Override
+			long[] toLongs(Object value){ return (long[])value; }
+			@Override
+			Object fromLongs(long[] values){ return values; }
+		},
+		LONG_LIST{
+			@Override
+			Object empty(){ return new ArrayList<Long>(); }
+			@Override
+			long[] toLongs(Object value){
+				var list = (List<?>)value;
+				var res  = new long[list.size()];
+				for(int i = 0; i<res.length; i++){
+					res[i] = (Long)list.get(i);
+				}
+				return res;
+			}
+			@Override
+			Object fromLongs(long[] values){
+				var res = new ArrayList<Long>(values.length);
+				for(var v : values){
+					res.add(v);
+				}
+				return res;
+			}
+		};
+		
+		abstract Object empty();
+		abstract long[] toLongs(Object value);
+		abstract Object fromLongs(long[] values) throws IOException;
+		
+		private static Kind of(Type type){
+			if(type == int[].class) return INT_ARRAY;
+			if(type == long[].class) return LONG_ARRAY;
+			if(type instanceof ParameterizedType parmType &&
+			   (parmType.getRawType() == List.class || parmType.getRawType() == ArrayList.class) &&
+			   parmType.getActualTypeArguments()[0] == Long.class){
+				return LONG_LIST;
+			}
+			return null;
+		}
+	}
+	
+	private final Kind                kind;
+	private final IONumberCoding.Type coding;
+	private       IOField<T, byte[]>  packed;
+	
+	private IOFieldPackedNumbers(FieldAccessor<T> accessor, Kind kind){
+		super(accessor);
+		this.kind = kind;
+		coding = accessor.getAnnotation(IONumberCoding.class).map(IONumberCoding::value).orElseThrow();
+		
+		initSizeDescriptor(SizeDescriptor.Unknown.of((ioPool, prov, inst) -> 0));
+	}
+	@Override
+	protected Set<TypeFlag> computeTypeFlags(){
+		return Set.of(TypeFlag.HAS_NO_POINTERS);
+	}
+	
+	@Override
+	public void init(FieldSet<T> fields){
+		super.init(fields);
+		packed = fields.requireExact(byte[].class, FieldNames.pack(getAccessor()));
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public Seq get(VarPool<T> ioPool, T instance){
+		return getNullable(ioPool, instance, () -> (Seq)kind.empty());
+	}
+	
+	@Override
+	public List<ValueGeneratorInfo<T, ?>> getGenerators(){
+		return Utils.concat(super.getGenerators(), new ValueGeneratorInfo<>(packed, new ValueGenerator<T, byte[]>(){
+			@Override
+			public boolean shouldGenerate(VarPool<T> ioPool, DataProvider provider, T instance){
+				return packed.isNull(ioPool, instance);
+			}
+			@Override
+			public byte[] generate(VarPool<T> ioPool, DataProvider provider, T instance, boolean allowExternalMod){
+				var val = get(ioPool, instance);
+				return val == null? new byte[0] : coding.pack(kind.toLongs(val));
+			}
+		}));
+	}
+	
+	@Override
+	public void write(VarPool<T> ioPool, DataProvider provider, ContentWriter dest, T instance){ }
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext) throws IOException{
+		Seq data;
+		if(nullable() && getIsNull(ioPool, instance)) data = null;
+		else{
+			try{
+				data = (Seq)kind.fromLongs(coding.unpack(packed.get(ioPool, instance)));
+			}catch(IOException e){
+				throw new IOException(this + " has invalid data", e);
+			}
+		}
+		set(ioPool, instance, data);
+	}
+	@Override
+	public void skip(VarPool<T> ioPool, DataProvider provider, ContentReader src, T instance, GenericContext genericContext){ }
+}
@@ -0,0 +1,138 @@
+package com.lapissea.dfs.type.field.fields.reflection.wrappers;
+
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.io.content.ContentReader;
+import com.lapissea.dfs.io.content.ContentWriter;
+import com.lapissea.dfs.type.GenericContext;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.VarPool;
+import com.lapissea.dfs.type.field.Annotations;
+import com.lapissea.dfs.type.field.FieldNames;
+import com.lapissea.dfs.type.field.FieldSet;
+import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.SizeDescriptor;
+import com.lapissea.dfs.type.field.StoragePool;
+import com.lapissea.dfs.type.field.VirtualFieldDefinition;
+import com.lapissea.dfs.type.field.access.FieldAccessor;
+import com.lapissea.dfs.type.field.annotations.IODependency;
+import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.type.field.fields.reflection.IOFieldPrimitive;
+import com.lapissea.dfs.type.string.StringifySettings;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A String field annotated with {@link IOValue.Dictionary}. The value is stored in the dictionary of the type database and only
+ * its ID is kept in the instance.
+ */
+public final class IOFieldDictionaryString<CTyp extends IOInstance<CTyp>> extends IOField<CTyp, String>{
+	
+	@SuppressWarnings("unused")
+	private static final class Usage extends FieldUsage.InstanceOf<String>{
+		public Usage(){ super(String.class, Set.of(IOFieldDictionaryString.class), anns -> anns.isPresent(IOValue.Dictionary.class)); }
+		@Override
+		public <T extends IOInstance<T>> IOField<T, String> create(FieldAccessor<T> field){
+			return new IOFieldDictionaryString<>(field);
+		}
+		@Override
+		public <T extends IOInstance<T>> List<Behaviour<?, T>> annotationBehaviour(Class<IOField<T, ?>> fieldType){
+			return List.of(
+				//Null is stored as the ID 0 so no null flag is needed
+				Behaviour.noop(IONullability.class),
+				Behaviour.of(IOValue.Dictionary.class, field -> {
+					return new BehaviourRes<>(new VirtualFieldDefinition<T, Integer>(
+						StoragePool.INSTANCE,
+						FieldNames.ID(field),
+						int.class,
+						List.of(Annotations.make(IODependency.VirtualNumSize.class), IOValue.Unsigned.INSTANCE)
+					));
+				})
+			);
+		}
+	}
+	
+	private IOFieldPrimitive.FInt<CTyp> idField;
+	
+	public IOFieldDictionaryString(FieldAccessor<CTyp> accessor){
+		super(accessor);
+		initSizeDescriptor(SizeDescriptor.Fixed.empty());
+	}
+	@Override
+	protected Set<TypeFlag> computeTypeFlags(){
+		return Set.of(TypeFlag.HAS_NO_POINTERS);
+	}
+	
+	@Override
+	public void init(FieldSet<CTyp> ioFields){
+		super.init(ioFields);
+		idField = ioFields.requireExactInt(FieldNames.ID(getAccessor()));
+	}
+	
+	/**
+	 * @return the field that holds the dictionary ID of the value. 0 means null.
+	 */
+	public IOFieldPrimitive.FInt<CTyp> getIdField(){
+		return idField;
+	}
+	
+	@Override
+	public List<ValueGeneratorInfo<CTyp, ?>> getGenerators(){
+		return List.of(new ValueGeneratorInfo<>(idField, new ValueGenerator<CTyp, Integer>(){
+			@Override
+			public Strictness strictDetermineLevel(){
+				return Strictness.ON_EXTERNAL_ALWAYS;
+			}
+			@Override
+			public boolean shouldGenerate(VarPool<CTyp> ioPool, DataProvider provider, CTyp instance) throws IOException{
+				var id        = provider.getTypeDb().toStringID(get(ioPool, instance), false);
+				var writtenId = idField.getValue(ioPool, instance);
+				//An ID that is not yet stored is only a placeholder and has to be generated again once recording is allowed
+				return !id.stored() || id.val() != writtenId;
+			}
+			@Override
+			public Integer generate(VarPool<CTyp> ioPool, DataProvider provider, CTyp instance, boolean allowExternalMod) throws IOException{
+				var val = get(ioPool, instance);
+				return provider.getTypeDb().toStringID(val, allowExternalMod).val();
+			}
+		}));
+	}
+	
+	@Override
+	public String get(VarPool<CTyp> ioPool, CTyp instance){
+		return getNullable(ioPool, instance, () -> "");
+	}
+	@Override
+	public boolean isNull(VarPool<CTyp> ioPool, CTyp instance){
+		return isNullRawNullable(ioPool, instance);
+	}
+	
+	@Override
+	public void set(VarPool<CTyp> ioPool, CTyp instance, String value){
+		super.set(ioPool, instance, switch(getNullability()){
+			case DEFAULT_IF_NULL, NULLABLE -> value;
+			case NOT_NULL -> Objects.requireNonNull(value);
+		});
+	}
+	
+	@Override
+	public void write(VarPool<CTyp> ioPool, DataProvider provider, ContentWriter dest, CTyp instance){ }
+	@Override
+	public void read(VarPool<CTyp> ioPool, DataProvider provider, ContentReader src, CTyp instance, GenericContext genericContext) throws IOException{
+		var id = idField.getValue(ioPool, instance);
+		set(ioPool, instance, provider.getTypeDb().fromStringID(id));
+	}
+	@Override
+	public void skip(VarPool<CTyp> ioPool, DataProvider provider, ContentReader src, CTyp instance, GenericContext genericContext){ }
+	
+	@Override
+	public Optional<String> instanceToString(VarPool<CTyp> ioPool, CTyp instance, StringifySettings settings){
+		var val = get(ioPool, instance);
+		if(val == null || val.isEmpty()) return Optional.empty();
+		return Optional.of('"' + val + '"');
+	}
+}
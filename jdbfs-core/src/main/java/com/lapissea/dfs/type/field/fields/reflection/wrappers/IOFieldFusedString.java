@@ -1,7 +1,6 @@
 package com.lapissea.dfs.type.field.fields.reflection.wrappers;
 
 import com.lapissea.dfs.core.DataProvider;
-import com.lapissea.dfs.io.LimitedContentReader;
 import com.lapissea.dfs.io.RandomIO;
 import com.lapissea.dfs.io.content.ContentReader;
 import com.lapissea.dfs.io.content.ContentWriter;
@@ -26,7 +25,6 @@ import com.lapissea.dfs.type.field.fields.reflection.IOFieldPrimitive;
 import com.lapissea.dfs.type.string.StringifySettings;
 
 import java.io.IOException;
-import java.nio.CharBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -37,7 +35,7 @@ public final class IOFieldFusedString<CTyp extends IOInstance<CTyp>> extends IOF
 	
 	@SuppressWarnings("unused")
 	private static final class Usage extends FieldUsage.InstanceOf<String>{
-		public Usage(){ super(String.class, Set.of(IOFieldFusedString.class), anns -> !IOFieldTools.isNullable(anns)); }
+		public Usage(){ super(String.class, Set.of(IOFieldFusedString.class), anns -> !IOFieldTools.isNullable(anns) && !anns.isPresent(IOValue.Dictionary.class)); }
 		@Override
 		public <T extends IOInstance<T>> IOField<T, String> create(FieldAccessor<T> field){
 			return new IOFieldFusedString<>(field);
@@ -163,11 +161,7 @@ public final class IOFieldFusedString<CTyp extends IOInstance<CTyp>> extends IOF
 			throw new IOException("Illegal size: " + cc);
 		}
 		
-		var buff = CharBuffer.allocate(cc);
-		enc.read(new LimitedContentReader(src, bytes), buff);
-		var data = buff.flip().toString();
-		
-		set(ioPool, instance, data);
+		set(ioPool, instance, enc.decode(src.readInts1(bytes), cc));
 	}
 	
 	@Override
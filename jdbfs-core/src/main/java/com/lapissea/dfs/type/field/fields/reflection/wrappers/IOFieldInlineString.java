@@ -13,6 +13,7 @@ import com.lapissea.dfs.type.field.IOFieldTools;
 import com.lapissea.dfs.type.field.SizeDescriptor;
 import com.lapissea.dfs.type.field.access.FieldAccessor;
 import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.dfs.type.field.fields.reflection.IOFieldWrapper;
 import com.lapissea.dfs.type.string.StringifySettings;
 
@@ -26,7 +27,7 @@ public final class IOFieldInlineString<CTyp extends IOInstance<CTyp>> extends IO
 	@SuppressWarnings("unused")
 	private static final class Usage extends FieldUsage.InstanceOf<String>{
 		public Usage(){
-			super(String.class, Set.of(IOFieldInlineString.class), IOFieldTools::isNullable);
+			super(String.class, Set.of(IOFieldInlineString.class), anns -> IOFieldTools.isNullable(anns) && !anns.isPresent(IOValue.Dictionary.class));
 		}
 		@Override
 		public <T extends IOInstance<T>> IOField<T, String> create(FieldAccessor<T> field){
@@ -0,0 +1,112 @@
+package com.lapissea.dfs.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Lists every {@code IOInstance.Def} interface in the compiled sources in to the {@value #TYPE_INDEX} resource. The index is what
+ * {@code com.lapissea.dfs.type.compilation.PregenerateClasses} uses to generate the implementations of these types at build
+ * time instead of when the application starts.
+ * <p>
+ * The processor does not depend on the library so it works on type names only. It does nothing if the library is not on the
+ * class path of the compilation.
+ */
+@SupportedAnnotationTypes("*")
+public final class DefIndexProcessor extends AbstractProcessor{
+	
+	public static final String TYPE_INDEX = "META-INF/dfs-classgen/types";
+	
+	private static final String DEF_NAME = "com.lapissea.dfs.type.IOInstance.Def";
+	
+	private final Set<String> names = new TreeSet<>();
+	private       boolean     loadedOld;
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion(){
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv){
+		var def = processingEnv.getElementUtils().getTypeElement(DEF_NAME);
+		if(def == null) return false;
+		
+		if(!loadedOld){
+			loadedOld = true;
+			loadOldIndex();
+		}
+		
+		if(roundEnv.processingOver()){
+			writeIndex();
+			return false;
+		}
+		
+		var defType = processingEnv.getTypeUtils().erasure(def.asType());
+		for(var element : roundEnv.getRootElements()){
+			collect(element, defType);
+		}
+		return false;
+	}
+	
+	private void collect(Element element, TypeMirror defType){
+		if(!(element instanceof TypeElement type)) return;
+		
+		if(type.getKind() == ElementKind.INTERFACE && !type.getQualifiedName().contentEquals(DEF_NAME)){
+			var types = processingEnv.getTypeUtils();
+			if(types.isAssignable(types.erasure(type.asType()), defType)){
+				names.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+			}
+		}
+		
+		for(var enclosed : type.getEnclosedElements()){
+			collect(enclosed, defType);
+		}
+	}
+	
+	/**
+	 * An incremental compilation only processes the changed sources. Types from the previous index that still exist are kept.
+	 */
+	private void loadOldIndex(){
+		var elements = processingEnv.getElementUtils();
+		try{
+			var old = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", TYPE_INDEX);
+			try(var in = new BufferedReader(new InputStreamReader(old.openInputStream(), StandardCharsets.UTF_8))){
+				in.lines().map(String::trim).filter(l -> !l.isEmpty())
+				  .filter(name -> elements.getTypeElement(name.replace('$', '.')) != null)
+				  .forEach(names::add);
+			}
+		}catch(IOException|IllegalArgumentException ignored){
+			//No previous index
+		}
+	}
+	
+	private void writeIndex(){
+		if(names.isEmpty()) return;
+		try{
+			var file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", TYPE_INDEX);
+			try(var out = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)){
+				for(var name : names){
+					out.write(name);
+					out.write('\n');
+				}
+			}
+		}catch(IOException e){
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + TYPE_INDEX + ": " + e);
+		}
+	}
+}
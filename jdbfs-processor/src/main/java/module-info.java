@@ -0,0 +1,5 @@
+module JDatablockFS.processor {
+	requires java.compiler;
+	
+	provides javax.annotation.processing.Processor with com.lapissea.dfs.processor.DefIndexProcessor;
+}
@@ -2,17 +2,25 @@ package com.lapissea.dfs.benchmark;
 
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.compilation.FieldCompiler.AccessType;
 import com.lapissea.dfs.type.field.access.FieldAccessor;
+import com.lapissea.dfs.type.field.access.GeneratedAccessor;
+import com.lapissea.dfs.type.field.access.ReflectionAccessor;
+import com.lapissea.dfs.type.field.access.UnsafeAccessor;
+import com.lapissea.dfs.type.field.access.VarHandleAccessor;
 import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.util.TextUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
 
 import java.util.concurrent.TimeUnit;
 
@@ -22,7 +30,7 @@ import java.util.concurrent.TimeUnit;
 @State(Scope.Benchmark)
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
 public class FieldAccessorBenchmark{
-
+	
 //	public static void main(String[] args){
 //		var    f     = new FieldAccessorBenchmark();
 //		var    dummy = new Dummy();
@@ -63,11 +71,40 @@ public class FieldAccessorBenchmark{
 		}
 	}
 	
-	private static final Struct<Dummy>        STRUCT = Struct.of(Dummy.class, Struct.STATE_DONE);
-	private static final FieldAccessor<Dummy> obj    = STRUCT.getFields().requireExact(Object.class, "obj").getAccessor();
-	private static final FieldAccessor<Dummy> l      = STRUCT.getFields().requireExact(long.class, "l").getAccessor();
-	private static final FieldAccessor<Dummy> i      = STRUCT.getFields().requireExact(int.class, "i").getAccessor();
-	private static final FieldAccessor<Dummy> s      = STRUCT.getFields().requireExact(short.class, "s").getAccessor();
+	private static final Struct<Dummy> STRUCT = Struct.of(Dummy.class, Struct.STATE_DONE);
+	
+	@Param
+	public AccessType accessType;
+	@Param({"false", "true"})
+	public boolean    useGetter;
+	
+	private FieldAccessor<Dummy>   obj;
+	private FieldAccessor<Dummy>   l;
+	private FieldAccessor<Dummy>   i;
+	private FieldAccessor<Dummy>   s;
+	private FieldAccessor<Dummy>[] all;
+	
+	@Setup
+	public void init() throws ReflectiveOperationException{
+		obj = make("obj");
+		l = make("l");
+		i = make("i");
+		s = make("s");
+		//noinspection unchecked
+		all = new FieldAccessor[]{obj, l, i, s};
+	}
+	
+	private FieldAccessor<Dummy> make(String name) throws ReflectiveOperationException{
+		var field  = Dummy.class.getDeclaredField(name);
+		var getter = useGetter? Dummy.class.getMethod("get" + TextUtil.firstToUpperCase(name)) : null;
+		var type   = field.getGenericType();
+		return switch(accessType){
+			case UNSAFE -> UnsafeAccessor.make(STRUCT, field, getter, null, name, type);
+			case VAR_HANDLE -> VarHandleAccessor.make(STRUCT, field, getter, null, name, type);
+			case REFLECTION -> ReflectionAccessor.make(STRUCT, field, getter, null, name, type);
+			case GENERATED -> GeneratedAccessor.make(STRUCT, field, getter, null, name, type);
+		};
+	}
 	
 	@Benchmark
 	public Object obj(Dummy dummy){
@@ -85,4 +122,14 @@ public class FieldAccessorBenchmark{
 	public short s(Dummy dummy){
 		return s.getShort(null, dummy);
 	}
+	
+	/**
+	 * All accessors are called from the same call site, like the field loop of a struct pipe.
+	 */
+	@Benchmark
+	public void allFields(Dummy dummy, Blackhole bh){
+		for(var acc : all){
+			bh.consume(acc.get(null, dummy));
+		}
+	}
 }
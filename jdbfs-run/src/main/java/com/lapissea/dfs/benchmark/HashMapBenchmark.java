@@ -64,11 +64,13 @@ public class HashMapBenchmark{
 		}
 		
 		@Param({"5", "50", "300"})
-		public int    initSize;
+		public int     initSize;
 		@Param({"2", "5"})
-		public int    rangeMul;
+		public int     rangeMul;
 		@Param
-		public KeySet keySet;
+		public KeySet  keySet;
+		@Param({"false", "true"})
+		public boolean bloomFilter;
 		
 		private int range;
 		
@@ -94,8 +96,9 @@ public class HashMapBenchmark{
 			}
 		}
 		private Inst make() throws IOException{
-			var                     provider = Cluster.emptyMem();
-			IOMap<Integer, Integer> map      = provider.roots().request(1, HashIOMap.class, Integer.class, Integer.class);
+			var                         provider = Cluster.emptyMem();
+			HashIOMap<Integer, Integer> map      = provider.roots().request(1, HashIOMap.class, Integer.class, Integer.class);
+			map.setBloomFilter(bloomFilter);
 			
 			var rand = new RawRandom();
 			var vals = rand.ints(0, range).distinct().limit(initSize).boxed()
@@ -0,0 +1,122 @@
+package com.lapissea.dfs.benchmark;
+
+import com.lapissea.dfs.core.Cluster;
+import com.lapissea.dfs.io.IOInterfaces;
+import com.lapissea.dfs.io.impl.ClosableIOData;
+import com.lapissea.dfs.objects.collections.ContiguousIOList;
+import com.lapissea.dfs.objects.collections.IOList;
+import com.lapissea.dfs.type.IOInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets an element with one changed field in a {@link ContiguousIOList}, in memory and in a file. A tracked element is set
+ * back where it was read from, so only the changed field is written. An untracked one is set at the next index and is
+ * written in full.
+ */
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListUpdateBench{
+	
+	public static void main(String[] args) throws Exception{
+		new Runner(new OptionsBuilder().include(ListUpdateBench.class.getSimpleName()).build()).run();
+	}
+	
+	public interface Small extends IOInstance.Def<Small>{
+		int a();
+		void a(int a);
+		int b();
+		void b(int b);
+	}
+	
+	public interface Wide extends IOInstance.Def<Wide>{
+		long a();
+		void a(long a);
+		long b();
+		void b(long b);
+		long c();
+		void c(long c);
+		long d();
+		void d(long d);
+		long e();
+		void e(long e);
+		long f();
+		void f(long f);
+		long g();
+		void g(long g);
+		long h();
+		void h(long h);
+	}
+	
+	@Param({"false", "true"})
+	public boolean tracked;
+	@Param({"false", "true"})
+	public boolean wide;
+	@Param({"false", "true"})
+	public boolean file;
+	
+	private IOList<Small>  smallList;
+	private IOList<Wide>   wideList;
+	private ClosableIOData data;
+	private File           dataFile;
+	
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void init() throws IOException{
+		Cluster c;
+		if(file){
+			dataFile = File.createTempFile("dfs-update", ".dfs");
+			data = IOInterfaces.ofFile(dataFile);
+			c = Cluster.init(data);
+		}else{
+			c = Cluster.emptyMem();
+		}
+		smallList = c.roots().request("small", ContiguousIOList.class, Small.class);
+		wideList = c.roots().request("wide", ContiguousIOList.class, Wide.class);
+		for(int i = 0; i<1000; i++){
+			smallList.add(IOInstance.Def.of(Small.class));
+			wideList.add(IOInstance.Def.of(Wide.class));
+		}
+	}
+	
+	@TearDown
+	public void close() throws IOException{
+		if(data != null) data.close();
+		if(dataFile != null) Files.deleteIfExists(dataFile.toPath());
+	}
+	
+	@Benchmark
+	public void set() throws IOException{
+		var r     = ThreadLocalRandom.current();
+		var index = r.nextLong(1000);
+		var dest  = tracked? index : (index + 1)%1000;
+		if(wide){
+			var val = wideList.get(index);
+			val.c(r.nextLong());
+			wideList.set(dest, val);
+		}else{
+			var val = smallList.get(index);
+			val.b(r.nextInt());
+			smallList.set(dest, val);
+		}
+	}
+}
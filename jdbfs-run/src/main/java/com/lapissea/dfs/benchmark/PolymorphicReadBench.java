@@ -0,0 +1,113 @@
+package com.lapissea.dfs.benchmark;
+
+import com.lapissea.dfs.core.Cluster;
+import com.lapissea.dfs.io.impl.MemoryData;
+import com.lapissea.dfs.objects.collections.IOList;
+import com.lapissea.dfs.run.GenericContainer;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads random elements of an {@code IOList<Object>} from one and from many threads. Every element has its type stored by ID,
+ * so every read resolves a type from the type database.
+ */
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PolymorphicReadBench{
+	
+	public static void main(String[] args) throws Exception{
+		new Runner(new OptionsBuilder().include(PolymorphicReadBench.class.getSimpleName()).build()).run();
+	}
+	
+	@IOValue
+	public static class Point extends IOInstance.Managed<Point>{
+		public int x;
+		public int y;
+		public Point(){ }
+		public Point(int x, int y){
+			this.x = x;
+			this.y = y;
+		}
+	}
+	
+	@IOValue
+	public static class Named extends IOInstance.Managed<Named>{
+		public String name;
+		public Point  pos;
+		public Named(){ }
+		public Named(String name, Point pos){
+			this.name = name;
+			this.pos = pos;
+		}
+	}
+	
+	@Param({"1000"})
+	public int     size;
+	@Param({"false", "true"})
+	public boolean readOnly;
+	
+	private IOList<Object> list;
+	
+	@Setup
+	public void init() throws IOException{
+		var c = Cluster.emptyMem();
+		
+		IOList<Object> values = c.roots().request("values", IOList.class, Object.class);
+		
+		for(int i = 0; i<size; i++){
+			values.add(switch(i%6){
+				case 0 -> "str" + i;
+				case 1 -> (long)i;
+				case 2 -> new Point(i, -i);
+				case 3 -> new Named("n" + i, new Point(i, i));
+				case 4 -> new GenericContainer<>(new Point(i, 0));
+				default -> new GenericContainer<>("gen" + i);
+			});
+		}
+		
+		var mem = MemoryData.of(c.getSource().readAll());
+		list = new Cluster(readOnly? mem.asReadOnly() : mem).roots().require("values", IOList.class);
+	}
+	
+	private void read(Blackhole bh) throws IOException{
+		bh.consume(list.get(ThreadLocalRandom.current().nextLong(list.size())));
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public void read1(Blackhole bh) throws IOException{
+		read(bh);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public void read4(Blackhole bh) throws IOException{
+		read(bh);
+	}
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void readMax(Blackhole bh) throws IOException{
+		read(bh);
+	}
+}
@@ -0,0 +1,111 @@
+package com.lapissea.dfs.benchmark;
+
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.io.content.BBView;
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentOutputBuilder;
+import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.utils.RawRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
+
+/**
+ * Measures the throughput of large primitive array fields. {@link #elementLoop} encodes the same floats one element at a time
+ * and is the baseline for {@link #bulk}, the difference grows with the array size.
+ */
+@Warmup(iterations = 6, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 8, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(3)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrimitiveArrayBenchmark{
+	
+	public static void main(String[] args) throws Exception{
+		new Runner(new OptionsBuilder().include(PrimitiveArrayBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+	}
+	
+	public static class Series extends IOInstance.Managed<Series>{
+		@IOValue
+		public int[]     ints;
+		@IOValue
+		public float[]   floats;
+		@IOValue
+		public boolean[] flags;
+	}
+	
+	@Param({"1000", "100000"})
+	public int size;
+	
+	private DataProvider               provider;
+	private StandardStructPipe<Series> pipe;
+	private Series                     series;
+	private byte[]                     data;
+	private ContentOutputBuilder       buff;
+	
+	@Setup
+	public void setup() throws IOException{
+		var rand = new RawRandom(42);
+		series = new Series();
+		series.ints = new int[size];
+		series.floats = new float[size];
+		series.flags = new boolean[size];
+		for(int i = 0; i<size; i++){
+			series.ints[i] = rand.nextInt();
+			series.floats[i] = rand.nextFloat();
+			series.flags[i] = rand.nextBoolean();
+		}
+		
+		pipe = StandardStructPipe.of(Series.class, STATE_DONE);
+		provider = DataProvider.newVerySimpleProvider();
+		buff = new ContentOutputBuilder(size*9 + 64);
+		pipe.write(provider, buff, series);
+		data = buff.toByteArray();
+	}
+	
+	@Benchmark
+	public int write() throws IOException{
+		buff.reset();
+		pipe.write(provider, buff, series);
+		return buff.size();
+	}
+	
+	@Benchmark
+	public Series read() throws IOException{
+		return pipe.readNew(provider, new ContentInputStream.BA(data), null);
+	}
+	
+	@Benchmark
+	public byte[] elementLoop(){
+		var f  = series.floats;
+		var bb = new byte[f.length*4];
+		for(int i = 0; i<f.length; i++){
+			BBView.writeFloat4(bb, i*4, f[i]);
+		}
+		return bb;
+	}
+	
+	@Benchmark
+	public byte[] bulk(){
+		var f  = series.floats;
+		var bb = new byte[f.length*4];
+		BBView.writeFloats4(bb, 0, f, 0, f.length);
+		return bb;
+	}
+}
@@ -1,8 +1,10 @@
 package com.lapissea.dfs.benchmark;
 
+import com.lapissea.dfs.config.ConfigDefs;
 import com.lapissea.dfs.core.Cluster;
 import com.lapissea.dfs.objects.Reference;
 import com.lapissea.dfs.run.Sampling;
+import com.lapissea.dfs.type.IOInstance;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -10,17 +12,24 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.Scanner;
 import java.util.concurrent.TimeUnit;
 
@@ -28,6 +37,7 @@ import java.util.concurrent.TimeUnit;
 @State(Scope.Benchmark)
 public class StartingBench{
 	
+	static{ IOInstance.allowFullAccessI(MethodHandles.lookup()); }
 	
 	public static void main(String[] args) throws Exception{
 		if(args.length == 0){
@@ -45,10 +55,31 @@ public class StartingBench{
 		new Runner(opt.build()).run();
 	}
 	
+	/**
+	 * none: no persistent class cache<br>
+	 * cold: an empty class cache that is filled during the run<br>
+	 * warm: a class cache shared by all forks, filled by the warmup forks. It is kept between runs
+	 */
+	@Param({"none", "cold", "warm"})
+	public String classCache;
+	
 	static Sampling.Exec exec;
 	
+	private Path coldCache;
+	
 	@Setup(Level.Trial)
-	public void start(){
+	public void start() throws IOException{
+		var cacheFlag = ConfigDefs.CLASSGEN_CACHE_LOCATION.name();
+		switch(classCache){
+			case "none" -> { }
+			case "cold" -> {
+				coldCache = Files.createTempDirectory("dfs-class-cache");
+				System.setProperty(cacheFlag, coldCache.toString());
+			}
+			case "warm" -> System.setProperty(cacheFlag, Path.of(System.getProperty("java.io.tmpdir"), "dfs-warm-class-cache").toString());
+			default -> throw new IllegalArgumentException(classCache);
+		}
+		
 		if(System.getProperty("mode").equals("sample")){
 			exec = Sampling.sampleThread("samples.json", false, null, false);
 			exec.waitStarted();
@@ -56,8 +87,15 @@ public class StartingBench{
 		}
 	}
 	@TearDown(Level.Trial)
-	public void end(){
+	public void end() throws IOException{
 		if(exec != null) exec.waitEnded();
+		if(coldCache != null){
+			try(var files = Files.walk(coldCache)){
+				for(var file : files.sorted(Comparator.reverseOrder()).toList()){
+					Files.delete(file);
+				}
+			}
+		}
 	}
 	
 	@Benchmark
@@ -75,4 +113,45 @@ public class StartingBench{
 		if(exec != null) exec.end();
 	}
 	
+	interface Def0 extends IOInstance.Def<Def0>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	interface Def1 extends IOInstance.Def<Def1>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	interface Def2 extends IOInstance.Def<Def2>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	interface Def3 extends IOInstance.Def<Def3>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	interface Def4 extends IOInstance.Def<Def4>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	interface Def5 extends IOInstance.Def<Def5>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	interface Def6 extends IOInstance.Def<Def6>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	interface Def7 extends IOInstance.Def<Def7>{ int a(); long b(); String c(); boolean d(); double e(); byte[] f(); }
+	
+	/**
+	 * Opens a cluster so that the code shared by all types is loaded before {@link #defTypes} is measured.
+	 */
+	@State(Scope.Benchmark)
+	public static class Opened{
+		@Setup(Level.Trial)
+		public void open(StartingBench bench) throws IOException{
+			Cluster.emptyMem().roots().request("benchy", Reference.class);
+		}
+	}
+	
+	/**
+	 * Creates instances of a few {@link IOInstance.Def} types in an opened cluster. Each one needs a generated implementation,
+	 * which is what the class cache stores.
+	 */
+	@Benchmark
+	@Fork(value = 100, warmups = 5)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	@BenchmarkMode(Mode.SingleShotTime)
+	public void defTypes(Opened opened, Blackhole bh){
+		bh.consume(IOInstance.Def.of(Def0.class));
+		bh.consume(IOInstance.Def.of(Def1.class));
+		bh.consume(IOInstance.Def.of(Def2.class));
+		bh.consume(IOInstance.Def.of(Def3.class));
+		bh.consume(IOInstance.Def.of(Def4.class));
+		bh.consume(IOInstance.Def.of(Def5.class));
+		bh.consume(IOInstance.Def.of(Def6.class));
+		bh.consume(IOInstance.Def.of(Def7.class));
+		if(exec != null) exec.end();
+	}
+	
 }
@@ -0,0 +1,110 @@
+package com.lapissea.dfs.benchmark;
+
+import com.lapissea.dfs.core.Cluster;
+import com.lapissea.dfs.io.IOInterfaces;
+import com.lapissea.dfs.objects.collections.IOList;
+import com.lapissea.dfs.objects.collections.IOMap;
+import com.lapissea.dfs.run.StartupTraining;
+import com.lapissea.util.LogUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a new JVM takes to open a database file with {@link Cluster#initOrOpen} and read from it.
+ * <ul>
+ *     <li>plain: class data sharing is turned off</li>
+ *     <li>cds: the default archive of the JDK is used</li>
+ *     <li>trained: an archive made by {@link StartupTraining} on the same database is used</li>
+ * </ul>
+ * This is not a JMH benchmark as every sample is a new process with different JVM flags. Run it from the jar with dependencies
+ * as class data sharing ignores classes in folders.
+ */
+public final class StartupCdsBench{
+	
+	public static final class Open{
+		public static void main(String[] args) throws IOException{
+			try(var data = IOInterfaces.ofFile(new File(args[0]), true)){
+				var roots = Cluster.initOrOpen(data).roots();
+				
+				IOList<String>      names  = roots.require("names", IOList.class);
+				IOMap<String, Long> counts = roots.require("counts", IOMap.class);
+				if(counts.get(names.get(0)) == null) throw new IllegalStateException("Bad data");
+			}
+		}
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException{
+		int runs = args.length>0? Integer.parseInt(args[0]) : 10;
+		
+		for(var path : System.getProperty("java.class.path").split(File.pathSeparator)){
+			if(new File(path).isDirectory()){
+				LogUtil.println("Warning: class folder", path, "can not be archived, the trained archive will not be used in full");
+			}
+		}
+		
+		var dir      = Files.createTempDirectory("dfs-cds-bench");
+		var database = dir.resolve("bench.dfs").toFile();
+		var archive  = dir.resolve("trained.jsa").toFile();
+		//Files are deleted on exit in reverse order of registration, so the folder is empty once it is deleted
+		dir.toFile().deleteOnExit();
+		database.deleteOnExit();
+		archive.deleteOnExit();
+		makeDatabase(database);
+		if(StartupTraining.dumpArchive(database, archive) != 0){
+			throw new IllegalStateException("Training run failed");
+		}
+		
+		var configs = new LinkedHashMap<String, List<String>>();
+		configs.put("plain", List.of("-Xshare:off"));
+		configs.put("cds", List.of());
+		configs.put("trained", List.of("-XX:SharedArchiveFile=" + archive.getAbsolutePath()));
+		
+		var times = new LinkedHashMap<String, List<Long>>();
+		configs.keySet().forEach(k -> times.put(k, new ArrayList<>()));
+		
+		//Configurations are interleaved so that noise from the rest of the system is spread over all of them
+		for(int i = 0; i<runs; i++){
+			for(var e : configs.entrySet()){
+				var cmd     = StartupTraining.javaCommand(e.getValue(), Open.class, database.getPath());
+				var start   = System.nanoTime();
+				var process = new ProcessBuilder(cmd).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				                                     .redirectError(ProcessBuilder.Redirect.INHERIT)
+				                                     .start();
+				if(!process.waitFor(1, TimeUnit.MINUTES)){
+					process.destroyForcibly();
+					LogUtil.println("Warning:", e.getKey(), "run timed out, ignoring it");
+					continue;
+				}
+				var end = System.nanoTime();
+				if(process.exitValue() != 0) throw new IllegalStateException(e.getKey() + " run failed with " + process.exitValue());
+				times.get(e.getKey()).add(end - start);
+			}
+		}
+		
+		for(var e : times.entrySet()){
+			var t = e.getValue().stream().mapToLong(l -> l).sorted().toArray();
+			if(t.length == 0) continue;
+			LogUtil.println(e.getKey(), "min:", t[0]/1000_000 + "ms", "median:", t[t.length/2]/1000_000 + "ms", "runs:", t.length);
+		}
+	}
+	
+	private static void makeDatabase(File file) throws IOException{
+		try(var data = IOInterfaces.ofFile(file)){
+			var roots = Cluster.initOrOpen(data).roots();
+			
+			IOList<String>      names  = roots.request("names", IOList.class, String.class);
+			IOMap<String, Long> counts = roots.request("counts", IOMap.class, String.class, Long.class);
+			for(int i = 0; i<200; i++){
+				var name = "name" + i;
+				names.add(name);
+				counts.put(name, (long)i*i);
+			}
+		}
+	}
+}
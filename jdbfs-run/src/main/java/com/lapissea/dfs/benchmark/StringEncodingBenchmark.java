@@ -0,0 +1,108 @@
+package com.lapissea.dfs.benchmark;
+
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentOutputBuilder;
+import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
+import com.lapissea.dfs.objects.text.Encoding;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.utils.RawRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
+
+/**
+ * Measures picking an {@link Encoding} and writing/reading strings through a struct pipe. Identifiers are short and fit in to a
+ * table coding while text is long and ends up as Latin-1 or UTF-8.
+ */
+@Warmup(iterations = 6, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 8, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(3)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StringEncodingBenchmark{
+	
+	public static void main(String[] args) throws Exception{
+		new Runner(new OptionsBuilder().include(StringEncodingBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+	}
+	
+	public static class Text extends IOInstance.Managed<Text>{
+		@IOValue
+		public String[] values;
+	}
+	
+	private static final String IDENTIFIER_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_$";
+	private static final String WORDS            = "the quick brown fox jumps over a lazy dog while storing, reading and writing some data. ";
+	
+	@Param({"identifier", "latin1Text", "utf8Text"})
+	public String kind;
+	
+	private DataProvider             provider;
+	private StandardStructPipe<Text> pipe;
+	private Text                     text;
+	private byte[]                   data;
+	private ContentOutputBuilder     buff;
+	
+	@Setup
+	public void setup() throws IOException{
+		var rand = new RawRandom(42);
+		text = new Text();
+		text.values = new String[64];
+		for(int i = 0; i<text.values.length; i++){
+			text.values[i] = switch(kind){
+				case "identifier" -> {
+					var sb = new StringBuilder();
+					for(int j = 0, l = 6 + rand.nextInt(14); j<l; j++){
+						sb.append(IDENTIFIER_CHARS.charAt(rand.nextInt(IDENTIFIER_CHARS.length())));
+					}
+					yield sb.toString();
+				}
+				case "latin1Text" -> WORDS.repeat(20) + "é";
+				case "utf8Text" -> WORDS.repeat(20) + "λ→😀";
+				default -> throw new IllegalArgumentException(kind);
+			};
+		}
+		
+		pipe = StandardStructPipe.of(Text.class, STATE_DONE);
+		provider = DataProvider.newVerySimpleProvider();
+		buff = new ContentOutputBuilder();
+		pipe.write(provider, buff, text);
+		data = buff.toByteArray();
+	}
+	
+	@Benchmark
+	public int findBest(){
+		int sum = 0;
+		for(var value : text.values){
+			sum += Encoding.findBest(value).ordinal();
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	public int write() throws IOException{
+		buff.reset();
+		pipe.write(provider, buff, text);
+		return buff.size();
+	}
+	
+	@Benchmark
+	public Text read() throws IOException{
+		return pipe.readNew(provider, new ContentInputStream.BA(data), null);
+	}
+}
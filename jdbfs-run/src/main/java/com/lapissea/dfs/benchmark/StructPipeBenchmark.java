@@ -0,0 +1,193 @@
+package com.lapissea.dfs.benchmark;
+
+import com.lapissea.dfs.config.ConfigDefs;
+import com.lapissea.dfs.core.DataProvider;
+import com.lapissea.dfs.exceptions.LockedFlagSet;
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentOutputBuilder;
+import com.lapissea.dfs.io.instancepipe.FixedStructPipe;
+import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
+import com.lapissea.dfs.io.instancepipe.StructPipe;
+import com.lapissea.dfs.objects.ChunkPointer;
+import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.field.annotations.IODependency;
+import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.utils.RawRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
+
+/**
+ * Compares the generic field loop of the struct pipes with the generated field IO enabled by {@link ConfigDefs#GENERATED_PIPE}.
+ * The gc profiler reports the allocation rate, which should be close to zero for write and one instance per read.
+ */
+@Warmup(iterations = 6, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 8, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(3)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StructPipeBenchmark{
+	
+	public static void main(String[] args) throws Exception{
+		new Runner(new OptionsBuilder().include(StructPipeBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+	}
+	
+	public static class Primitives extends IOInstance.Managed<Primitives>{
+		@IOValue
+		public long   l1;
+		@IOValue
+		public long   l2;
+		@IOValue
+		public int    i1;
+		@IOValue
+		public int    i2;
+		@IOValue
+		public double d;
+		@IOValue
+		public float  f;
+	}
+	
+	public static class Numbers extends IOInstance.Managed<Numbers>{
+		@IOValue
+		@IODependency.VirtualNumSize
+		@IOValue.Unsigned
+		public long         size;
+		@IOValue
+		@IODependency.VirtualNumSize
+		@IOValue.Unsigned
+		public long         capacity;
+		@IOValue
+		@IODependency.VirtualNumSize
+		public int          offset;
+		@IOValue
+		public ChunkPointer next = ChunkPointer.NULL;
+	}
+	
+	public enum Kind{
+		A, B, C, D
+	}
+	
+	public static class Mixed extends IOInstance.Managed<Mixed>{
+		@IOValue
+		public boolean  flag1;
+		@IOValue
+		public boolean  flag2;
+		@IOValue
+		public Kind     kind = Kind.A;
+		@IOValue
+		public long     id;
+		@IOValue
+		public int      count;
+		@IOValue
+		public short    small;
+		@IOValue
+		public byte     tiny;
+		@IOValue
+		public char     letter;
+		@IOValue
+		public Duration time = Duration.ZERO;
+	}
+	
+	@Param({"Primitives", "Numbers", "Mixed"})
+	public String  shape;
+	@Param({"Standard", "Fixed"})
+	public String  pipeType;
+	@Param({"false", "true"})
+	public boolean generated;
+	
+	private       DataProvider         provider;
+	@SuppressWarnings("rawtypes")
+	private       StructPipe           pipe;
+	@SuppressWarnings("rawtypes")
+	private       IOInstance           instance;
+	private       byte[]               data;
+	private final ContentOutputBuilder buff = new ContentOutputBuilder(256);
+	
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setup() throws IOException, LockedFlagSet{
+		var rand = new RawRandom(42);
+		instance = switch(shape){
+			case "Primitives" -> {
+				var p = new Primitives();
+				p.l1 = rand.nextLong();
+				p.l2 = rand.nextLong();
+				p.i1 = rand.nextInt();
+				p.i2 = rand.nextInt();
+				p.d = rand.nextDouble();
+				p.f = rand.nextFloat();
+				yield p;
+			}
+			case "Numbers" -> {
+				var n = new Numbers();
+				n.size = rand.nextInt(1000);
+				n.capacity = n.size + rand.nextInt(100000);
+				n.offset = rand.nextInt(200);
+				n.next = ChunkPointer.of(rand.nextInt(1<<20));
+				yield n;
+			}
+			case "Mixed" -> {
+				var m = new Mixed();
+				m.flag1 = rand.nextBoolean();
+				m.flag2 = rand.nextBoolean();
+				m.kind = Kind.values()[rand.nextInt(Kind.values().length)];
+				m.id = rand.nextLong();
+				m.count = rand.nextInt();
+				m.small = (short)rand.nextInt();
+				m.tiny = (byte)rand.nextInt();
+				m.letter = (char)('a' + rand.nextInt(26));
+				m.time = Duration.ofMillis(rand.nextInt(100000));
+				yield m;
+			}
+			default -> throw new IllegalArgumentException(shape);
+		};
+		
+		pipe = makePipe(instance.getThisStruct());
+		if(pipe.hasGeneratedIO() != generated){
+			throw new IllegalStateException("Generated IO was not " + (generated? "created" : "disabled") + " for " + pipe);
+		}
+		
+		provider = DataProvider.newVerySimpleProvider();
+		pipe.write(provider, buff, instance);
+		data = buff.toByteArray();
+	}
+	
+	private <T extends IOInstance<T>> StructPipe<T> makePipe(Struct<T> struct) throws LockedFlagSet{
+		try(var ignore = ConfigDefs.GENERATED_PIPE.temporarySet(generated)){
+			return switch(pipeType){
+				case "Standard" -> new StandardStructPipe<>(struct, STATE_DONE);
+				case "Fixed" -> new FixedStructPipe<>(struct, STATE_DONE);
+				default -> throw new IllegalArgumentException(pipeType);
+			};
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Benchmark
+	public int write() throws IOException{
+		buff.reset();
+		pipe.write(provider, buff, instance);
+		return buff.size();
+	}
+	
+	@Benchmark
+	public Object read() throws IOException{
+		return pipe.readNew(provider, new ContentInputStream.BA(data), null);
+	}
+}
@@ -0,0 +1,120 @@
+package com.lapissea.dfs.run;
+
+import com.lapissea.dfs.core.Cluster;
+import com.lapissea.dfs.io.IOInterfaces;
+import com.lapissea.dfs.logging.Log;
+import com.lapissea.dfs.type.IOTypeDB;
+import com.lapissea.dfs.type.MemoryWalker;
+import com.lapissea.dfs.type.compilation.StructCompileScheduler;
+import com.lapissea.dfs.type.def.TypeDef;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A training run for class data sharing. It opens a database, compiles every stored type and walks every object in it, so every
+ * struct, pipe and field that the database needs is created. Running it with {@code -XX:ArchiveClassesAtExit} records all classes that were loaded in to an
+ * archive that later runs can start from:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=dfs.jsa -cp app.jar com.lapissea.dfs.run.StartupTraining data.dfs
+ * java -XX:SharedArchiveFile=dfs.jsa -cp app.jar my.app.Main
+ * </pre>
+ * Passing the archive as a second argument launches the first command in a new process.
+ * <p>
+ * The class path must only contain jar files, the JVM does not archive classes from folders. Classes that are generated at runtime
+ * can not be archived. Set {@code dfs.classGen.cacheLocation} for both runs, so they are loaded from the class cache instead. All
+ * {@code dfs.} properties are passed on to the training process.
+ */
+public final class StartupTraining{
+	
+	public static void main(String[] args) throws IOException, InterruptedException{
+		if(args.length == 0 || args.length>2){
+			throw new IllegalArgumentException("Usage: <database file> [archive file]");
+		}
+		var file = new File(args[0]);
+		if(args.length == 2){
+			var code = dumpArchive(file, new File(args[1]));
+			if(code != 0) System.exit(code);
+			return;
+		}
+		train(file);
+	}
+	
+	/**
+	 * Opens the database as read only, compiles the structs of all stored types and walks all of its objects. Types that are
+	 * stored but have no reachable instance are compiled as well.
+	 */
+	public static void train(File database) throws IOException{
+		if(!database.isFile()){
+			throw new FileNotFoundException(database.toString());
+		}
+		try(var data = IOInterfaces.ofFile(database, true)){
+			var cluster = Cluster.initOrOpen(data);
+			compileStoredTypes(cluster.getTypeDb());
+			cluster.rootWalker(MemoryWalker.PointerRecord.NOOP, false).walk();
+		}
+		Log.info("Training run on {} done", database);
+	}
+	
+	private static void compileStoredTypes(IOTypeDB.PersistentDB db) throws IOException{
+		var scheduler = new StructCompileScheduler();
+		for(var name : db.listStoredTypeDefinitionNames()){
+			if(name.isEmpty()) continue;
+			if(!(db.getDefinitionFromClassName(name).orElse(null) instanceof TypeDef.DInstance)) continue;
+			try{
+				scheduler.add(db.loadClass(name), List.of());
+			}catch(Throwable e){
+				Log.warn("Skipping stored type {} because {}", name, e);
+			}
+		}
+		
+		try{
+			var report = scheduler.compile();
+			Log.info("Compiled {} stored types in {}ms", report.timings().size(), report.total().toMillis());
+		}catch(StructCompileScheduler.CompilationFailed e){
+			Log.warn("Failed to compile stored type {} because {}", e.type.getName(), e.getCause());
+		}
+	}
+	
+	/**
+	 * Runs the training in a new JVM that writes a dynamic class data sharing archive on exit.
+	 *
+	 * @return the exit code of the training process
+	 */
+	public static int dumpArchive(File database, File archive) throws IOException, InterruptedException{
+		var cmd  = javaCommand(List.of("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath()), StartupTraining.class, database.getPath());
+		var code = new ProcessBuilder(cmd).inheritIO().start().waitFor();
+		if(code == 0){
+			Log.info("Archive written to {}. Start the application with -XX:SharedArchiveFile={}", archive, archive.getAbsolutePath());
+		}
+		return code;
+	}
+	
+	/**
+	 * Makes a command that starts a main class in a new JVM with the same class or module path and the same {@code dfs.}
+	 * properties as this one.
+	 */
+	public static List<String> javaCommand(List<String> jvmArgs, Class<?> main, String... args){
+		var cmd = new ArrayList<String>();
+		cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		cmd.addAll(jvmArgs);
+		for(var name : System.getProperties().stringPropertyNames()){
+			if(name.startsWith("dfs.")){
+				cmd.add("-D" + name + "=" + System.getProperty(name));
+			}
+		}
+		
+		var modulePath = System.getProperty("jdk.module.path");
+		if(modulePath != null && main.getModule().isNamed()){
+			cmd.addAll(List.of("-p", modulePath, "-m", main.getModule().getName() + "/" + main.getName()));
+		}else{
+			cmd.addAll(List.of("-cp", System.getProperty("java.class.path"), main.getName()));
+		}
+		cmd.addAll(List.of(args));
+		return cmd;
+	}
+}
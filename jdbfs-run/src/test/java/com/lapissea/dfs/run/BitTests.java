@@ -1,5 +1,6 @@
 package com.lapissea.dfs.run;
 
+import com.lapissea.dfs.exceptions.IllegalBitValue;
 import com.lapissea.dfs.io.bit.BitInputStream;
 import com.lapissea.dfs.io.bit.BitOutputStream;
 import com.lapissea.dfs.io.bit.BitUtils;
@@ -14,6 +15,7 @@ import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class BitTests{
 	
@@ -52,6 +54,29 @@ public class BitTests{
 		});
 	}
 	
+	@Test
+	void packedBitsMatchStream(){
+		TestUtils.randomBatch(2000, (r, actionIndex) -> {
+			var bs = new boolean[Math.toIntExact(actionIndex)];
+			for(int j = 0; j<bs.length; j++){
+				bs[j] = r.nextBoolean();
+			}
+			
+			var buff = new byte[BitUtils.bitsToBytes(bs.length)];
+			try(var out = new BitOutputStream(new ContentOutputStream.BA(buff))){
+				out.writeBits(bs);
+			}
+			var packed = BitUtils.packBits(bs);
+			assertThat(packed).containsExactly(buff);
+			assertThat(BitUtils.unpackBits(packed, new boolean[bs.length])).containsExactly(bs);
+			
+			if(bs.length%8 != 0){
+				packed[packed.length - 1] &= (byte)~0x80;
+				assertThatThrownBy(() -> BitUtils.unpackBits(packed, new boolean[bs.length])).isInstanceOf(IllegalBitValue.class);
+			}
+		});
+	}
+	
 	@Test
 	void bitFlagIntegrity(){
 		TestUtils.randomBatch(10000, (r, actionIndex) -> {
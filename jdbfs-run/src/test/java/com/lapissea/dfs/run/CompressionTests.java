@@ -1,21 +1,38 @@
 package com.lapissea.dfs.run;
 
+import com.lapissea.dfs.core.AllocateTicket;
+import com.lapissea.dfs.core.Cluster;
+import com.lapissea.dfs.core.DefragmentManager;
+import com.lapissea.dfs.core.RewriteJob;
 import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
+import com.lapissea.dfs.objects.collections.IOList;
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.Struct;
 import com.lapissea.dfs.type.field.annotations.IOCompression;
+import com.lapissea.dfs.type.field.annotations.IONullability;
+import com.lapissea.dfs.type.field.annotations.IONumberCoding;
 import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.type.field.fields.RefField;
 import com.lapissea.fuzz.FuzzingRunner;
 import com.lapissea.fuzz.FuzzingStateEnv;
+import com.lapissea.iterableplus.Iters;
 import com.lapissea.jorth.Jorth;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static com.lapissea.dfs.run.TestUtils.randomBatch;
+import static com.lapissea.dfs.type.field.annotations.IONullability.Mode.NULLABLE;
+import static com.lapissea.dfs.type.field.annotations.IONumberCoding.Type.DELTA;
+import static com.lapissea.dfs.type.field.annotations.IONumberCoding.Type.DELTA_OF_DELTA;
+import static com.lapissea.dfs.type.field.annotations.IONumberCoding.Type.FRAME_OF_REFERENCE;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class CompressionTests{
 	
@@ -105,4 +122,183 @@ public class CompressionTests{
 		
 		fuz.runAndAssert(69, 500, 50);
 	}
+	
+	@DataProvider(name = "numberCodings")
+	Object[][] numberCodings(){
+		return Arrays.stream(IONumberCoding.Type.values()).map(t -> new Object[]{t}).toArray(Object[][]::new);
+	}
+	
+	@Test(dataProvider = "numberCodings")
+	void numberCodingIntegrity(IONumberCoding.Type type){
+		randomBatch(500, (r, iter) -> {
+			long[] raw = switch((int)iter){
+				case 0 -> new long[0];
+				case 1 -> new long[]{Long.MIN_VALUE};
+				case 2 -> new long[]{Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE};
+				default -> {
+					var arr  = new long[r.nextInt(1000)];
+					var step = r.nextInt(1000);
+					var val  = r.nextLong();
+					for(int i = 0; i<arr.length; i++){
+						arr[i] = val;
+						val += step + (r.nextFloat()<0.1? r.nextLong() : r.nextInt(10));
+					}
+					yield arr;
+				}
+			};
+			
+			var packed = type.pack(raw);
+			assertThat(type.unpack(packed)).as(() -> "Equality on iteration " + iter).containsExactly(raw);
+		});
+	}
+	
+	@Test
+	void timestampsShrink(){
+		var timestamps = new long[1000];
+		for(int i = 0; i<timestamps.length; i++){
+			timestamps[i] = 1700000000000L + i*1000L + (i%3);
+		}
+		assertThat(DELTA_OF_DELTA.pack(timestamps)).hasSizeLessThan(timestamps.length*Long.BYTES/16);
+		assertThat(DELTA.pack(timestamps)).hasSizeLessThan(timestamps.length*Long.BYTES/4);
+	}
+	
+	public static class NumberSeries extends IOInstance.Managed<NumberSeries>{
+		@IOValue
+		@IONumberCoding(FRAME_OF_REFERENCE)
+		public int[]      values;
+		@IOValue
+		@IONumberCoding(DELTA)
+		public long[]     ids;
+		@IOValue
+		@IONumberCoding(DELTA_OF_DELTA)
+		public List<Long> timestamps;
+	}
+	
+	@Test
+	void numberCodingTypeIntegrity(){
+		var pipe = StandardStructPipe.of(NumberSeries.class);
+		randomBatch(200, (r, iter) -> {
+			var series = new NumberSeries();
+			var size   = r.nextInt(300);
+			series.values = new int[size];
+			series.ids = new long[size];
+			series.timestamps = new ArrayList<>(size);
+			long id = r.nextLong(), time = r.nextLong(1L<<50);
+			for(int i = 0; i<size; i++){
+				series.values[i] = 1000 + r.nextInt(100);
+				series.ids[i] = id += r.nextInt(5) + 1;
+				series.timestamps.add(time += 1000 + r.nextInt(3));
+			}
+			TestUtils.checkPipeInOutEquality(pipe, series);
+		});
+	}
+	
+	@Test
+	void numberCodingStored() throws IOException{
+		var series = new NumberSeries();
+		series.values = new int[]{1003, 1001, 1002};
+		series.ids = new long[]{10, 12, 13};
+		series.timestamps = new ArrayList<>(List.of(1000L, 2000L, 3001L));
+		
+		var cluster = Cluster.emptyMem();
+		cluster.roots().provide("series", series);
+		
+		var read = new Cluster(cluster.getSource()).roots().require("series", NumberSeries.class);
+		assertThat(read).isEqualTo(series);
+	}
+	
+	@IOValue
+	public static class Blob extends IOInstance.Managed<Blob>{
+		@IOCompression(IOCompression.Type.RLE)
+		public byte[] data;
+		public Blob(){ }
+		public Blob(byte[] data){ this.data = data; }
+	}
+	
+	@Test
+	void rewriteStored() throws IOException{
+		var cluster = Cluster.emptyMem();
+		var blobs   = new ArrayList<Blob>();
+		
+		IOList<Blob> stored = cluster.roots().request("blobs", IOList.class, Blob.class);
+		for(int i = 0; i<10; i++){
+			var blob = new Blob(new byte[50 + i]);
+			blobs.add(blob);
+			stored.add(blob);
+		}
+		
+		var progress = new ArrayList<RewriteJob.Progress>();
+		var job      = RewriteJob.of(Blob.class).withBatchSize(3).withCheckpoint("rewrite");
+		
+		var interrupted = job.withProgress(p -> { throw new IOException("stop"); });
+		assertThatThrownBy(() -> interrupted.run(cluster)).hasMessage("stop");
+		assertThat(cluster.roots().require("rewrite", RewriteJob.Checkpoint.class).readCounters(cluster).rewritten).isEqualTo(3);
+		
+		var result = job.withProgress(progress::add).start(cluster).join();
+		assertThat(result).isEqualTo(new RewriteJob.Progress(10, result.bytesRead(), result.bytesWritten(), true));
+		assertThat(progress).extracting(RewriteJob.Progress::rewritten).containsExactly(6L, 9L, 10L, 10L);
+		assertThat(cluster.roots().listAll().map(e -> e.getKey().toString()).toList()).noneMatch(n -> n.contains("rewrite"));
+		
+		var reopened = new Cluster(cluster.getSource());
+		assertThat(reopened.roots().require("blobs", IOList.class)).containsExactlyElementsOf(blobs);
+		reopened.scanGarbage(DefragmentManager.FreeFoundAction.ERROR);
+		
+		var again = RewriteJob.of(Blob.class).withRateLimit(1000_000).run(reopened);
+		assertThat(again.rewritten()).isEqualTo(10);
+	}
+	
+	@IOValue
+	public static class ChainLink extends IOInstance.Managed<ChainLink>{
+		public int       data;
+		@IOValue.Reference
+		@IONullability(NULLABLE)
+		public ChainLink next;
+		public ChainLink(){ }
+		public ChainLink(int data, ChainLink next){
+			this.data = data;
+			this.next = next;
+		}
+	}
+	
+	/**
+	 * Allocates the chain from its end, a list can not allocate the references of the element it adds
+	 */
+	@SuppressWarnings("unchecked")
+	private static ChainLink storedChain(Cluster cluster, int length) throws IOException{
+		var next = (RefField<ChainLink, ChainLink>)StandardStructPipe.of(ChainLink.class).getSpecificFields().requireByName("next");
+		
+		ChainLink chain = null;
+		for(int i = 0; i<length; i++){
+			var node = new ChainLink(20 + i, chain);
+			if(chain != null){
+				var ch = AllocateTicket.withData(next.getReferencedPipe(node), cluster, chain).submit(cluster);
+				next.setReference(node, ch.getPtr().makeReference());
+			}
+			chain = node;
+		}
+		return chain;
+	}
+	
+	@Test
+	void rewriteNested() throws IOException{
+		var cluster = Cluster.emptyMem();
+		
+		var chains = new ArrayList<ChainLink>();
+		
+		IOList<ChainLink> stored = cluster.roots().request("chains", IOList.class, ChainLink.class);
+		for(int c = 0; c<2; c++){
+			var chain = storedChain(cluster, 5);
+			chains.add(chain);
+			stored.add(chain);
+		}
+		
+		var result = RewriteJob.of(ChainLink.class).withBatchSize(3).run(cluster);
+		assertThat(result.rewritten()).as("every instance is rewritten once").isEqualTo(10);
+		
+		var reopened = new Cluster(cluster.getSource());
+		//The references of the links differ, so they are compared by their values
+		assertThat(reopened.roots().require("chains", IOList.class)).extracting(Object::toString)
+		                                                             .containsExactlyElementsOf(Iters.from(chains).toList(Object::toString));
+		reopened.scanGarbage(DefragmentManager.FreeFoundAction.ERROR);
+	}
 }
@@ -9,19 +9,28 @@ import com.lapissea.dfs.exceptions.IllegalField;
 import com.lapissea.dfs.exceptions.LockedFlagSet;
 import com.lapissea.dfs.exceptions.OutOfBitDepth;
 import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentOutputBuilder;
 import com.lapissea.dfs.io.content.ContentOutputStream;
 import com.lapissea.dfs.io.impl.MemoryData;
 import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
 import com.lapissea.dfs.objects.ChunkPointer;
 import com.lapissea.dfs.objects.NumberSize;
+import com.lapissea.dfs.objects.collections.BPlusTreeMap;
 import com.lapissea.dfs.objects.collections.ContiguousIOList;
 import com.lapissea.dfs.objects.collections.HashIOMap;
+import com.lapissea.dfs.objects.collections.IOMap;
 import com.lapissea.dfs.objects.collections.IOList;
 import com.lapissea.dfs.objects.collections.LinkedIOList;
 import com.lapissea.dfs.objects.text.AutoText;
+import com.lapissea.dfs.objects.text.Encoding;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.IOTypeDB;
 import com.lapissea.dfs.type.IOType;
 import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.def.FieldDef;
+import com.lapissea.dfs.type.def.TypeDef;
+import com.lapissea.dfs.type.field.IOField;
+import com.lapissea.dfs.type.field.access.GeneratedAccessor;
 import com.lapissea.dfs.type.field.annotations.IONullability;
 import com.lapissea.dfs.type.field.annotations.IOUnsafeValue;
 import com.lapissea.dfs.type.field.annotations.IOValue;
@@ -37,16 +46,25 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Type;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
 import static com.lapissea.dfs.type.field.annotations.IONullability.Mode.NULLABLE;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class GeneralTests{
 	static{ IOInstance.allowFullAccessI(MethodHandles.lookup()); }
@@ -213,6 +231,129 @@ public class GeneralTests{
 		}, false);
 	}
 	
+	@Test(dataProvider = "lists", groups = "lists")
+	<L extends IOInstance.Unmanaged<L> & IOList<Dummy>> void listForEachReusing(Class<L> listType) throws IOException{
+		var cl = Cluster.init(MemoryData.empty());
+		
+		IOList<Dummy> list = cl.roots().request("list", listType, Dummy.class);
+		for(int i = 0; i<100; i++){
+			list.add(new Dummy(i*3));
+		}
+		
+		var values = new ArrayList<Integer>();
+		var seen   = Collections.newSetFromMap(new IdentityHashMap<>());
+		list.forEachReusing(d -> {
+			values.add(d.val);
+			seen.add(d);
+		});
+		assertThat(values).isEqualTo(IntStream.range(0, 100).mapToObj(i -> i*3).toList());
+		if(list instanceof ContiguousIOList){
+			assertThat(seen).hasSize(1);
+		}
+	}
+	
+	public interface WideRecord extends IOInstance.Def<WideRecord>{
+		long a();
+		void a(long a);
+		long b();
+		void b(long b);
+		long c();
+		void c(long c);
+		long d();
+		void d(long d);
+		boolean flag();
+		void flag(boolean flag);
+		
+		static WideRecord of(long i){
+			var rec = IOInstance.Def.of(WideRecord.class);
+			rec.a(i*Long.MAX_VALUE/10);
+			rec.b(i*Long.MAX_VALUE/10);
+			rec.c(-i*Long.MAX_VALUE/10);
+			rec.d(-i*Long.MAX_VALUE/10);
+			return rec;
+		}
+	}
+	
+	private static Cluster writeCountingCluster(long[] written) throws IOException{
+		return Cluster.init(new MemoryData.Builder().withOnWrite((data, ids) -> written[0] += ids.count()).build());
+	}
+	private static IOList<WideRecord> wideRecordList(long[] written) throws IOException{
+		IOList<WideRecord> list = writeCountingCluster(written).roots().request("list", ContiguousIOList.class, WideRecord.class);
+		for(int i = 0; i<10; i++){
+			list.add(WideRecord.of(i));
+		}
+		return list;
+	}
+	
+	@Test
+	void listSetWritesModifiedFields() throws IOException{
+		var written = new long[1];
+		var list    = wideRecordList(written);
+		
+		var rec = list.get(4);
+		rec.c(1234);
+		rec.flag(true);
+		written[0] = 0;
+		list.set(4, rec);
+		assertThat(written[0]).isLessThan(16);
+		assertThat(list.get(4)).isEqualTo(rec);
+		assertThat(list.get(5)).isEqualTo(WideRecord.of(5));
+		
+		written[0] = 0;
+		list.set(4, rec);
+		assertThat(written[0]).isZero();
+	}
+	
+	@Test
+	void listSetWritesFullWhenUntracked() throws IOException{
+		var written = new long[1];
+		var list    = wideRecordList(written);
+		
+		var rec = list.get(4);
+		rec.c(1234);
+		written[0] = 0;
+		list.set(5, rec);
+		assertThat(written[0]).isGreaterThanOrEqualTo(32);
+		assertThat(list.get(5)).isEqualTo(rec);
+		
+		var moved = list.get(4);
+		list.remove(0);
+		moved.c(4321);
+		list.set(3, moved);
+		assertThat(list.get(3)).isEqualTo(moved);
+		
+		var fresh = WideRecord.of(100);
+		list.set(1, fresh);
+		assertThat(list.get(1)).isEqualTo(fresh);
+	}
+	
+	@Test
+	void hashMapPutWritesModifiedFields() throws IOException{
+		var written = new long[1];
+		
+		IOMap<Integer, WideRecord> map = writeCountingCluster(written).roots().request("map", HashIOMap.class, Integer.class, WideRecord.class);
+		for(int i = 0; i<10; i++){
+			map.put(i, WideRecord.of(i));
+		}
+		
+		var rec = map.get(4);
+		rec.c(1234);
+		written[0] = 0;
+		map.put(4, rec);
+		assertThat(written[0]).isLessThan(16);
+		assertThat(map.get(4)).isEqualTo(rec);
+		assertThat(map.get(5)).isEqualTo(WideRecord.of(5));
+		
+		written[0] = 0;
+		map.put(4, rec);
+		assertThat(written[0]).isZero();
+		
+		rec.d(1);
+		map.put(6, rec);
+		assertThat(map.get(6)).isEqualTo(rec);
+		assertThat(map.get(4).d()).isEqualTo(WideRecord.of(4).d());
+	}
+	
 	@Test(groups = {"hashMap", "rootProvider"})
 	void testHashIOMap() throws IOException{
 		TestUtils.ioMapComplianceSequence(
@@ -234,6 +375,52 @@ public class GeneralTests{
 		);
 	}
 	
+	@Test(groups = {"hashMap"})
+	void testHashIOMapCollidingKeys() throws IOException{
+		TestUtils.ioMapComplianceSequence(
+			TestInfo.of(),
+			HashIOMap<String, Integer>::new,
+			IOType.of(HashIOMap.class, String.class, Integer.class),
+			map -> {
+				//"Aa" and "BB" have the same hash code
+				map.put("Aa", 1);
+				map.put("BB", 2);
+				map.put("AaAa", 3);
+				map.put("BBBB", 4);
+				map.put("AaBB", 5);
+				map.remove("Aa");
+				map.put("BB", 6);
+				for(int i = 0; i<20; i++){
+					map.put("k" + i, i);
+				}
+				map.remove("AaBB");
+			}
+		);
+	}
+	
+	@Test
+	void testBPlusTreeMap() throws IOException{
+		TestUtils.ioMapComplianceSequence(
+			TestInfo.of(),
+			BPlusTreeMap<Integer, Integer>::new,
+			IOType.of(BPlusTreeMap.class, Integer.class, Integer.class),
+			map -> {
+				for(int i = 0; i<300; i++){
+					map.put((i*37)%101, i);
+				}
+				map.remove(5);
+				map.remove(6);
+				map.put(5, 55);
+			}
+		);
+	}
+	
+	@Test
+	void bPlusTreePageSizeFlagRejectsSmallPages(){
+		assertThatThrownBy(() -> ConfigDefs.BTREE_PAGE_SIZE.set(BPlusTreeMap.MIN_PAGE_SIZE - 1))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+	
 	@Test(groups = {"rootProvider"})
 	void rootIntProvide() throws IOException{
 		var cl = Cluster.init(MemoryData.empty());
@@ -306,6 +493,29 @@ public class GeneralTests{
 		                .isEqualTo(text);
 	}
 	
+	@Test(dataProvider = "strings")
+	void encodingFastPaths(String text) throws IOException{
+		var best = Encoding.findBest(text);
+		assertThat(best.canEncode(text)).isTrue();
+		
+		for(var enc : Encoding.values()){
+			if(!enc.canEncode(text)) continue;
+			assertThat(enc.calcSize(text)).as(enc::name).isGreaterThanOrEqualTo(best.calcSize(text));
+			
+			var bytes = enc.encode(text);
+			assertThat(bytes).as(enc::name).hasSize(enc.calcSize(text));
+			assertThat(enc.decode(bytes, text.length())).as(enc::name).isEqualTo(text);
+			
+			var written = new ContentOutputBuilder();
+			enc.write(written, text);
+			assertThat(written.toByteArray()).as(enc::name).isEqualTo(bytes);
+			
+			var read = CharBuffer.allocate(text.length());
+			enc.read(new ContentInputStream.BA(bytes), read);
+			assertThat(read.flip().toString()).as(enc::name).isEqualTo(text);
+		}
+	}
+	
 	@Test(dataProvider = "strings")
 	void ioUTF(String text) throws IOException{
 		var mem = MemoryData.empty();
@@ -546,5 +756,216 @@ public class GeneralTests{
 		assertThat(new Custom2().toString()).isEqualTo("{123}");
 	}
 	
+	@IOValue
+	static class AllAccess extends IOInstance.Managed<AllAccess>{
+		boolean bo;
+		byte    by;
+		short   sh;
+		char    ch;
+		int     in;
+		long    lo;
+		float   fl;
+		double  db;
+		String  str;
+		
+		final int fin = 4;
+		
+		int hidden;
+		@IOValue
+		public int getHidden(){ return hidden + 1; }
+		@IOValue
+		public void setHidden(int hidden){ this.hidden = hidden - 1; }
+		
+		public AllAccess(){ }
+	}
+	
+	@Test
+	void generatedAccessors() throws Exception{
+		var struct = Struct.of(AllAccess.class);
+		var values = Map.<String, Object>of(
+			"bo", true, "by", (byte)3, "sh", (short)-300, "ch", 'č', "in", 123456, "lo", 1L<<40, "fl", 1.5F, "db", -2.25, "str", "text"
+		);
+		
+		var inst = new AllAccess();
+		for(var e : values.entrySet()){
+			var field = AllAccess.class.getDeclaredField(e.getKey());
+			var acc   = GeneratedAccessor.make(struct, field, null, null, field.getName(), field.getGenericType());
+			acc.set(null, inst, e.getValue());
+			assertThat(acc.get(null, inst)).as(field.getName()).isEqualTo(e.getValue());
+			assertThat(field.get(inst)).as(field.getName()).isEqualTo(e.getValue());
+		}
+		
+		var fin = AllAccess.class.getDeclaredField("fin");
+		var acc = GeneratedAccessor.make(struct, fin, null, null, fin.getName(), fin.getGenericType());
+		assertThat(acc.getInt(null, inst)).isEqualTo(4);
+		assertThat(acc.isReadOnly()).isTrue();
+		
+		var hidden = AllAccess.class.getDeclaredField("hidden");
+		var hAcc = GeneratedAccessor.make(
+			struct, hidden, AllAccess.class.getMethod("getHidden"), AllAccess.class.getMethod("setHidden", int.class), "hidden", int.class
+		);
+		hAcc.setInt(null, inst, 10);
+		assertThat(inst.hidden).isEqualTo(9);
+		assertThat(hAcc.getInt(null, inst)).isEqualTo(10);
+	}
+	
+	@IOValue
+	@IOInstance.OptimizedLayout
+	public static class Layout extends IOInstance.Managed<Layout>{
+		public String  name;
+		public boolean flag1;
+		public byte    by;
+		public String  text;
+		public int     in;
+		public boolean flag2;
+		public long    lo;
+		public short   sh;
+		
+		public Layout(){ }
+		public Layout(String name, int i){
+			this.name = name;
+			flag1 = i%2 == 0;
+			by = (byte)i;
+			text = name + "!";
+			in = i*1000;
+			flag2 = i%3 == 0;
+			lo = (long)i<<40;
+			sh = (short)-i;
+		}
+	}
+	
+	@Test
+	void optimizedLayout() throws IOException{
+		var pipe   = StandardStructPipe.of(Layout.class, STATE_DONE);
+		var fields = pipe.getSpecificFields();
+		
+		var prefix = fields.iter().takeWhile(f -> f.getSizeDescriptor().hasFixed()).toList();
+		assertThat(fields.iter().skip(prefix.size()).filter(f -> f.getSizeDescriptor().hasFixed()).toList())
+			.as("Fixed fields after variable data").isEmpty();
+		assertThat(prefix).hasSize(5);
+		assertThat(Iters.from(prefix).limit(4).toList(IOField::getName)).as("Largest first").containsExactly("lo", "in", "sh", "by");
+		assertThat(prefix.getLast().iterUnpackedFields().toList(IOField::getName)).as("Merged bit fields").contains("flag1", "flag2");
+		
+		var def = (TypeDef.DInstance)TypeDef.of(Layout.class);
+		assertThat(Iters.from(def.fieldOrder).map(def.fields::get).toList(FieldDef::getName))
+			.isEqualTo(fields.unpackedStream().filter(f -> f != prefix.getLast()).toList(IOField::getName));
+		
+		TestUtils.checkPipeInOutEquality(pipe, new Layout("abc", 7));
+		
+		var cluster = Cluster.emptyMem();
+		cluster.roots().provide("layout", new Layout("stored", 12));
+		var read = new Cluster(MemoryData.of(cluster.getSource().readAll())).roots().require("layout", Layout.class);
+		assertThat(read).isEqualTo(new Layout("stored", 12));
+	}
+	
+	@Test
+	void objectListGrowsNestedReference() throws IOException{
+		//The values are stored behind a reference nested in the element, its pointers do not fit in a byte
+		var c = Cluster.emptyMem();
+		
+		IOList<Object> list = c.roots().request("list", IOList.class, Object.class);
+		var            vals = new ArrayList<>();
+		for(int i = 0; i<20; i++){
+			var val = "str" + i;
+			list.add(val);
+			vals.add(val);
+		}
+		assertThat(list).containsExactlyElementsOf(vals);
+		
+		IOList<Object> read = new Cluster(c.getSource()).roots().require("list", IOList.class);
+		assertThat(read).containsExactlyElementsOf(vals);
+	}
+	
+	@Test
+	void concurrentTypeIDs() throws Exception{
+		var db    = new IOTypeDB.MemoryOnlyDB.Synchronized();
+		var types = Iters.of(String.class, Integer.class, Long.class, Custom1.class, Custom2.class)
+		                 .flatMap(c -> List.of(IOType.of(c), IOType.of(GenericContainer.class, c)))
+		                 .toList();
+		
+		var results = new ArrayList<Future<List<Integer>>>();
+		try(var pool = Executors.newFixedThreadPool(8)){
+			for(int t = 0; t<8; t++){
+				var seed = t;
+				results.add(pool.submit(() -> {
+					var order = new ArrayList<>(types);
+					Collections.shuffle(order, new Random(seed));
+					for(var type : order) db.toID(type);
+					return Iters.from(types).toList(db::toID);
+				}));
+			}
+		}
+		
+		var ids = results.getFirst().get();
+		for(var r : results){
+			assertThat(r.get()).isEqualTo(ids);
+		}
+		assertThat(Iters.from(ids).distinct().count()).isEqualTo(types.size());
+		for(int i = 0; i<types.size(); i++){
+			assertThat(db.fromID(ids.get(i))).isEqualTo(types.get(i));
+		}
+	}
+	
+	@Test
+	void concurrentPolymorphicRead() throws Exception{
+		var c = Cluster.emptyMem();
+		
+		IOList<Object> list = c.roots().request("list", IOList.class, Object.class);
+		var            vals = new ArrayList<>();
+		for(int i = 0; i<200; i++){
+			var val = switch(i%4){
+				case 0 -> "str" + i;
+				case 1 -> (long)i;
+				case 2 -> i%3 == 0? new Custom1() : new Custom2();
+				default -> new GenericContainer<>(i%3 == 0? (Object)("gen" + i) : (Object)i);
+			};
+			list.add(val);
+			vals.add(val);
+		}
+		
+		var read = new Cluster(MemoryData.of(c.getSource().readAll()).asReadOnly());
+		
+		IOList<Object> readList = read.roots().require("list", IOList.class);
+		
+		var results = new ArrayList<Future<List<Object>>>();
+		try(var pool = Executors.newFixedThreadPool(8)){
+			for(int t = 0; t<8; t++){
+				results.add(pool.submit(() -> {
+					var res = new ArrayList<>();
+					for(long i = 0; i<readList.size(); i++){
+						res.add(readList.get(i));
+					}
+					return res;
+				}));
+			}
+		}
+		for(var r : results){
+			assertThat(r.get()).isEqualTo(vals);
+		}
+	}
+	
+	@Test
+	void cachedTypeIDsStayBounded(){
+		var lookup = new IOTypeDB.IDLookup.Cached(4);
+		var types  = Iters.of(String.class, Integer.class, Long.class, Custom1.class, Custom2.class, Boolean.class, Double.class)
+		                  .map(IOType::of).toList();
+		for(int i = 0; i<types.size(); i++){
+			lookup.put(i + 1, types.get(i));
+		}
+		
+		int found = 0;
+		for(int i = 0; i<types.size(); i++){
+			var id   = lookup.getID(types.get(i));
+			var type = lookup.getType(i + 1);
+			if(id != null){
+				assertThat(id).isEqualTo(i + 1);
+				found++;
+			}
+			if(type != null) assertThat(type).isEqualTo(types.get(i));
+		}
+		assertThat(found).isBetween(1, 4);
+		assertThat(lookup.getType(types.size())).isEqualTo(types.getLast());
+	}
+	
 	
 }
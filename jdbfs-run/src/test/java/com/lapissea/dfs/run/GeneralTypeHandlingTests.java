@@ -619,6 +619,34 @@ public class GeneralTypeHandlingTests{
 		TestUtils.checkPipeInOutEquality(pipe, instance);
 	}
 	
+	@DataProvider
+	Object[][] bulkArrays(){
+		var r = new Random(42);
+		int n = 5000;
+		
+		var ints   = new int[n];
+		var floats = new float[n];
+		var bools  = new boolean[n + 3];
+		for(int i = 0; i<n; i++){
+			ints[i] = r.nextInt();
+			floats[i] = r.nextFloat();
+		}
+		for(int i = 0; i<bools.length; i++){
+			bools[i] = r.nextBoolean();
+		}
+		return new Object[][]{
+			{int[].class, ints},
+			{float[].class, floats},
+			{boolean[].class, bools},
+			{boolean[].class, Arrays.copyOf(bools, 8)},
+			};
+	}
+	
+	@Test(dataProvider = "bulkArrays")
+	<T extends IOInstance<T>> void bulkArrays(Type typ, Object val) throws IOException{
+		intCollections(typ, val);
+	}
+	
 	@Test
 	void classUnload(){
 		var unloadedStatus = loadTestClass();
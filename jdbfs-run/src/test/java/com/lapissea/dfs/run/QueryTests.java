@@ -7,6 +7,7 @@ import com.lapissea.dfs.objects.collections.IOList;
 import com.lapissea.dfs.objects.collections.LinkedIOList;
 import com.lapissea.dfs.query.Query;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.field.annotations.IONullability;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -17,7 +18,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static com.lapissea.dfs.query.Query.Test.*;
+import static com.lapissea.dfs.type.field.annotations.IONullability.Mode.NULLABLE;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 public class QueryTests{
 	static{ IOInstance.allowFullAccessI(MethodHandles.lookup()); }
@@ -47,6 +50,22 @@ public class QueryTests{
 		public String val(){ return val; }
 	}
 	
+	@IOValue
+	static class Tagged extends IOInstance.Managed<Tagged>{
+		@IOValue.Dictionary
+		private String status;
+		@IOValue.Dictionary
+		@IONullability(NULLABLE)
+		private String note;
+		public Tagged(){ }
+		public Tagged(String status, String note){
+			this.status = status;
+			this.note = note;
+		}
+		public String status(){ return status; }
+		public String note()  { return note; }
+	}
+	
 	<T extends IOInstance<T>> Object[][] lists(Class<T> el) throws IOException{
 		var cl = Cluster.init(MemoryData.empty());
 		return new Object[][]{
@@ -181,6 +200,47 @@ public class QueryTests{
 		assertThat(aEven.count()).isEqualTo(2);
 	}
 	
+	@DataProvider
+	Object[][] taggedLists() throws IOException{
+		return lists(Tagged.class);
+	}
+	
+	@Test(dataProvider = "taggedLists")
+	void dictionaryEqual(IOList<Tagged> list) throws IOException{
+		list.addAll(List.of(
+			new Tagged("open", null),
+			new Tagged("closed", "a"),
+			new Tagged("open", "b"),
+			new Tagged("pending", null),
+			new Tagged("closed", "a")
+		));
+		
+		assertThat(list.where(fieldEQ(Tagged::status, "open")).count()).isEqualTo(2);
+		assertThat(list.where(fieldEQ(Tagged::status, "closed")).mapF(Tagged::note).allToList()).containsExactly("a", "a");
+		assertThat(list.where(fieldNotEQ(Tagged::status, "open")).count()).isEqualTo(3);
+		assertThat(list.where(fieldEQ(Tagged::status, "missing")).first()).isEmpty();
+		assertThat(list.where(fieldEQ(Tagged::note, null)).count()).isEqualTo(2);
+	}
+	
+	@Test
+	void dictionaryReopen() throws IOException{
+		var cl = Cluster.emptyMem();
+		IOList<Tagged> tags = cl.roots().request("tags", IOList.class, Tagged.class);
+		tags.addAll(List.of(
+			new Tagged("open", null),
+			new Tagged("closed", "a"),
+			new Tagged("open", "b")
+		));
+		
+		IOList<Tagged> list = new Cluster(cl.getSource()).roots().request("tags", IOList.class, Tagged.class);
+		assertThat(list).extracting(Tagged::status, Tagged::note).containsExactly(
+			tuple("open", null),
+			tuple("closed", "a"),
+			tuple("open", "b")
+		);
+		assertThat(list.where(fieldEQ(Tagged::status, "open")).count()).isEqualTo(2);
+	}
+	
 	@Test(dataProvider = "ffLists")
 	void filterFull(IOList<FF> list) throws IOException{
 		fillFF(list);
@@ -15,6 +15,7 @@ import com.lapissea.dfs.objects.Blob;
 import com.lapissea.dfs.objects.ChunkPointer;
 import com.lapissea.dfs.objects.NumberSize;
 import com.lapissea.dfs.objects.collections.ContiguousIOList;
+import com.lapissea.dfs.objects.collections.BPlusTreeMap;
 import com.lapissea.dfs.objects.collections.HashIOMap;
 import com.lapissea.dfs.objects.collections.IOHashSet;
 import com.lapissea.dfs.objects.collections.IOList;
@@ -64,6 +65,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -399,6 +402,191 @@ public class SlowTests{
 		runSetFuzz(20000, IOTreeSet.class);
 	}
 	
+	@Test(dependsOnMethods = "simpleTreeSet", ignoreMissingDependencies = true)
+	void treeSetRanges() throws IOException{
+		var provider = Cluster.emptyMem();
+		var set      = provider.roots().<IOTreeSet<Integer>>request(1, IOTreeSet.class, Integer.class);
+		var ref      = new TreeSet<Integer>();
+		
+		var rand = new RawRandom(42);
+		for(int i = 0; i<300; i++){
+			var v = rand.nextInt(1000);
+			set.add(v);
+			ref.add(v);
+			if(i%3 == 0){
+				var r = rand.nextInt(1000);
+				set.remove(r);
+				ref.remove(r);
+			}
+		}
+		
+		assertThat(set.ascending().iterator().toList()).containsExactlyElementsOf(ref);
+		assertThat(set.descending().iterator().toList()).containsExactlyElementsOf(ref.descendingSet());
+		assertThat(set.first()).isEqualTo(ref.first());
+		assertThat(set.last()).isEqualTo(ref.last());
+		
+		for(int i = 0; i<200; i++){
+			int a = rand.nextInt(1100) - 50, b = rand.nextInt(1100) - 50;
+			int from = Math.min(a, b), to = Math.max(a, b);
+			boolean fi = rand.nextBoolean(), ti = rand.nextBoolean();
+			
+			assertThat(set.range(from, fi, to, ti).iterator().toList()).as("range " + from + " " + to)
+			                                                          .containsExactlyElementsOf(ref.subSet(from, fi, to, ti));
+			assertThat(set.range(from, fi, to, ti).descending().iterator().toList())
+				.containsExactlyElementsOf(ref.subSet(from, fi, to, ti).descendingSet());
+			assertThat(set.headSet(to, ti).iterator().toList()).containsExactlyElementsOf(ref.headSet(to, ti));
+			assertThat(set.tailSet(from, fi).iterator().toList()).containsExactlyElementsOf(ref.tailSet(from, fi));
+			
+			assertThat(set.floor(from)).isEqualTo(ref.floor(from));
+			assertThat(set.lower(from)).isEqualTo(ref.lower(from));
+			assertThat(set.ceiling(from)).isEqualTo(ref.ceiling(from));
+			assertThat(set.higher(from)).isEqualTo(ref.higher(from));
+			
+			assertThat(set.range(from, to).query().limit(5).allToList())
+				.containsExactlyElementsOf(ref.subSet(from, to).stream().limit(5).toList());
+		}
+	}
+	
+	@Test(dependsOnGroups = "rootProvider", ignoreMissingDependencies = true)
+	void bPlusTreeMap() throws IOException{
+		var provider = Cluster.emptyMem();
+		var map      = provider.roots().<BPlusTreeMap<Integer, String>>request(1, BPlusTreeMap.class, Integer.class, String.class);
+		map.setPageSize(64);
+		var ref = new TreeMap<Integer, String>();
+		
+		var rand = new RawRandom(42);
+		for(int i = 0; i<3000; i++){
+			var k = rand.nextInt(2000);
+			if(rand.nextInt(4) == 0){
+				assertThat(map.remove(k)).as("remove " + k).isEqualTo(ref.containsKey(k));
+				ref.remove(k);
+			}else{
+				var v = rand.nextInt(10) == 0? null : "v" + rand.nextInt(100);
+				map.put(k, v);
+				ref.put(k, v);
+			}
+		}
+		
+		assertThat(map.size()).isEqualTo(ref.size());
+		assertThat(map.height()).isGreaterThan(2);
+		checkBTreeContents(map, ref, rand);
+		
+		var loaded = provider.roots().<BPlusTreeMap<Integer, String>>request(2, BPlusTreeMap.class, Integer.class, String.class);
+		loaded.setPageSize(64);
+		loaded.putAll(ref);
+		checkBTreeContents(loaded, ref, rand);
+		
+		for(int i = 0; i<500; i++){
+			var k = rand.nextInt(2200) - 100;
+			loaded.put(k, "n" + i);
+			ref.put(k, "n" + i);
+		}
+		checkBTreeContents(loaded, ref, rand);
+		
+		map.clear();
+		assertThat(map.isEmpty()).isTrue();
+		assertThat(map.iterator().hasNext()).isFalse();
+		
+		provider.scanGarbage(ERROR);
+	}
+	private static void checkBTreeContents(BPlusTreeMap<Integer, String> map, TreeMap<Integer, String> ref, RawRandom rand) throws IOException{
+		assertThat(map.size()).isEqualTo(ref.size());
+		assertThat(map.iterator().toList()).map(IOMap.IOEntry::getKey).containsExactlyElementsOf(ref.keySet());
+		for(int k = -150; k<2150; k++){
+			assertThat(map.get(k)).as("get " + k).isEqualTo(ref.get(k));
+			assertThat(map.containsKey(k)).as("containsKey " + k).isEqualTo(ref.containsKey(k));
+		}
+		for(int i = 0; i<200; i++){
+			int a = rand.nextInt(2300) - 150, b = rand.nextInt(2300) - 150;
+			int from = Math.min(a, b), to = Math.max(a, b);
+			boolean fi = rand.nextBoolean(), ti = rand.nextBoolean();
+			
+			assertThat(map.range(from, fi, to, ti).toList()).as("range " + from + " " + to)
+			                                                 .map(IOMap.IOEntry::getKey)
+			                                                 .containsExactlyElementsOf(ref.subMap(from, fi, to, ti).keySet());
+		}
+	}
+	
+	@Test(dependsOnGroups = "rootProvider", ignoreMissingDependencies = true)
+	void bPlusTreeStringPrefix() throws IOException{
+		var provider = Cluster.emptyMem();
+		var map      = provider.roots().<BPlusTreeMap<String, Integer>>request(1, BPlusTreeMap.class, String.class, Integer.class);
+		map.setPageSize(128);
+		var ref = new TreeMap<String, Integer>();
+		
+		String[] dirs = {"home/", "home/lapis/", "home/lapis/photos/", "home/lapis/photos/📷", "home/lapis/photos/📸", "usr/lib/", "usr/local/"};
+		
+		var rand = new RawRandom(42);
+		for(int i = 0; i<3000; i++){
+			var k = dirs[rand.nextInt(dirs.length)] + "file" + rand.nextInt(500);
+			if(rand.nextInt(5) == 0){
+				map.remove(k);
+				ref.remove(k);
+			}else{
+				map.put(k, i);
+				ref.put(k, i);
+			}
+		}
+		
+		assertThat(map.size()).isEqualTo(ref.size());
+		assertThat(map.height()).isGreaterThan(2);
+		assertThat(map.iterator().toList()).map(IOMap.IOEntry::getKey).containsExactlyElementsOf(ref.keySet());
+		for(var e : ref.entrySet()){
+			assertThat(map.get(e.getKey())).as(e.getKey()).isEqualTo(e.getValue());
+		}
+		
+		var loaded = provider.roots().<BPlusTreeMap<String, Integer>>request(2, BPlusTreeMap.class, String.class, Integer.class);
+		loaded.setPageSize(128);
+		loaded.putAll(ref);
+		
+		for(var prefix : List.of("", "h", "home/lapis/", "home/lapis/photos/📷", "home/lapis/photos/\uD83D", "usr/l", "usr/local/file4", "x")){
+			var expected = ref.keySet().stream().filter(k -> k.startsWith(prefix)).toList();
+			assertThat(map.withPrefix(prefix).toList()).as(prefix).map(IOMap.IOEntry::getKey).containsExactlyElementsOf(expected);
+			assertThat(loaded.withPrefix(prefix).toList()).as(prefix).map(IOMap.IOEntry::getKey).containsExactlyElementsOf(expected);
+		}
+		
+		provider.scanGarbage(ERROR);
+	}
+	
+	@Test(dependsOnGroups = "hashMap", ignoreMissingDependencies = true)
+	void hashMapBloomFilter() throws IOException{
+		var provider = Cluster.emptyMem();
+		var map      = provider.roots().<HashIOMap<Integer, Integer>>request(1, HashIOMap.class, Integer.class, Integer.class);
+		assertThat(map.hasBloomFilter()).isFalse();
+		map.put(-1, -1);
+		map.setBloomFilter(true);
+		
+		var checked = new CheckMap<>(map);
+		var rand    = new RawRandom(42);
+		for(int i = 0; i<2000; i++){
+			var k = rand.nextInt(1000);
+			switch(rand.nextInt(4)){
+				case 0 -> checked.remove(k);
+				case 1 -> checked.containsKey(k + 1000);
+				default -> checked.put(k, i);
+			}
+			checked.get(rand.nextInt(2000));
+		}
+		
+		var reopened = new Cluster(provider.getSource());
+		var map2     = reopened.roots().<HashIOMap<Integer, Integer>>request(1, HashIOMap.class, Integer.class, Integer.class);
+		assertThat(map2.hasBloomFilter()).isTrue();
+		assertThat(map2).isEqualTo(map);
+		
+		map.setBloomFilter(false);
+		var checked2 = new CheckMap<>(map);
+		for(int i = 0; i<2000; i++){
+			checked2.get(i);
+		}
+		provider.scanGarbage(ERROR);
+		map.setBloomFilter(true);
+		for(int i = 0; i<2000; i++){
+			checked2.get(i);
+		}
+		
+		provider.scanGarbage(ERROR);
+	}
+	
 	interface ListAction{
 		enum NumT{ADD, REMOVE, CONTAINS}
 		
@@ -3,9 +3,18 @@ package com.lapissea.dfs.run;
 import com.lapissea.dfs.config.ConfigDefs;
 import com.lapissea.dfs.core.AllocateTicket;
 import com.lapissea.dfs.core.Cluster;
+import com.lapissea.dfs.core.DataProvider;
 import com.lapissea.dfs.exceptions.LockedFlagSet;
+import com.lapissea.dfs.exceptions.TypeIOFail;
+import com.lapissea.dfs.io.content.ContentInputStream;
+import com.lapissea.dfs.io.content.ContentOutputBuilder;
+import com.lapissea.dfs.io.instancepipe.FixedStructPipe;
 import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
+import com.lapissea.dfs.io.instancepipe.StructPipe;
+import com.lapissea.dfs.io.instancepipe.StructView;
 import com.lapissea.dfs.objects.NumberSize;
+import com.lapissea.dfs.objects.collections.ContiguousIOList;
+import com.lapissea.dfs.objects.collections.IOList;
 import com.lapissea.dfs.run.TempClassGen.VisiblityGen;
 import com.lapissea.dfs.type.IOInstance;
 import com.lapissea.dfs.type.Struct;
@@ -13,6 +22,7 @@ import com.lapissea.dfs.type.compilation.FieldCompiler;
 import com.lapissea.dfs.type.field.Annotations;
 import com.lapissea.dfs.type.field.FieldSet;
 import com.lapissea.dfs.type.field.IOFieldTools;
+import com.lapissea.dfs.type.field.StoragePool;
 import com.lapissea.dfs.type.field.annotations.IODependency;
 import com.lapissea.dfs.type.field.annotations.IONullability;
 import com.lapissea.dfs.type.field.annotations.IOValue;
@@ -35,9 +45,12 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,6 +59,8 @@ import java.util.function.BiFunction;
 import java.util.random.RandomGenerator;
 
 import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public final class StructFuzzTest{
 	static{ IOInstance.allowFullAccessI(MethodHandles.lookup()); }
@@ -300,7 +315,235 @@ public final class StructFuzzTest{
 		LogUtil.println(encountered.size(), sequenceSource.totalIterations(), encountered.size()/(double)sequenceSource.totalIterations()*100);
 	}
 	
-	public <T extends IOInstance<T>> void testType(TempClassGen.ClassGen def) throws IOException, ReflectiveOperationException{
+	public static class Primitives extends IOInstance.Managed<Primitives>{
+		@IOValue
+		public long    l;
+		@IOValue
+		public int     i;
+		@IOValue
+		public double  d;
+		@IOValue
+		public float   f;
+		@IOValue
+		public byte    b;
+		@IOValue
+		public boolean flag1;
+		@IOValue
+		public boolean flag2;
+	}
+	
+	@Test
+	void generatedPrimitivePipes() throws IOException, LockedFlagSet{
+		var struct = Struct.of(Primitives.class, STATE_DONE);
+		
+		List<StructPipe<Primitives>> generated;
+		try(var ignore = ConfigDefs.GENERATED_PIPE.temporarySet(true)){
+			generated = List.of(new StandardStructPipe<>(struct, STATE_DONE), new FixedStructPipe<>(struct, STATE_DONE));
+		}
+		List<StructPipe<Primitives>> reference = List.of(StandardStructPipe.of(struct, STATE_DONE), FixedStructPipe.of(struct, STATE_DONE));
+		
+		var mem  = Cluster.emptyMem();
+		var rand = new RawRandom(42);
+		for(int i = 0; i<100; i++){
+			var val = new Primitives();
+			val.l = rand.nextLong();
+			val.i = rand.nextInt();
+			val.d = rand.nextDouble();
+			val.f = rand.nextFloat();
+			val.b = (byte)rand.nextInt();
+			val.flag1 = rand.nextBoolean();
+			val.flag2 = rand.nextBoolean();
+			
+			for(int p = 0; p<generated.size(); p++){
+				var pipe = generated.get(p);
+				assertThat(pipe.hasGeneratedIO()).as(pipe.toString()).isTrue();
+				TestUtils.checkPipeInOutEquality(pipe, val);
+				checkSameBytes(mem, reference.get(p), pipe, val);
+			}
+		}
+	}
+	
+	@Test
+	void generatedPipeReportsField() throws IOException, LockedFlagSet{
+		var struct = Struct.of(Primitives.class, STATE_DONE);
+		
+		StructPipe<Primitives> pipe;
+		try(var ignore = ConfigDefs.GENERATED_PIPE.temporarySet(true)){
+			pipe = new StandardStructPipe<>(struct, STATE_DONE);
+		}
+		assertThat(pipe.hasGeneratedIO()).isTrue();
+		
+		var mem = Cluster.emptyMem();
+		var out = new ContentOutputBuilder();
+		pipe.write(mem, out, new Primitives());
+		var data = out.toByteArray();
+		
+		var truncated = Arrays.copyOf(data, data.length - 1);
+		assertThatThrownBy(() -> pipe.readNew(mem, new ContentInputStream.BA(truncated), null))
+			.isInstanceOf(TypeIOFail.class);
+	}
+	
+	private static <T extends IOInstance<T>> void checkSameBytes(DataProvider provider, StructPipe<T> reference, StructPipe<T> pipe, T instance) throws IOException{
+		var expected = new ContentOutputBuilder();
+		var actual   = new ContentOutputBuilder();
+		reference.write(provider, expected, instance);
+		pipe.write(provider, actual, instance);
+		assertThat(actual.toByteArray()).as(pipe + " " + instance).containsExactly(expected.toByteArray());
+	}
+	
+	@Test(dependsOnGroups = "earlyCheck")
+	void generatedPipe() throws ReflectiveOperationException, IOException, LockedFlagSet{
+		var rand = new RawRandom(4242);
+		for(int i = 0; i<100; i++){
+			testType(tryCreate(rand, 100_000 + i, 1 + rand.nextInt(8)), true);
+		}
+	}
+	
+	public static class Sizes extends IOInstance.Managed<Sizes>{
+		@IOValue
+		@IODependency.VirtualNumSize
+		@IOValue.Unsigned
+		public long a;
+		@IOValue
+		@IODependency.VirtualNumSize
+		public int  b;
+	}
+	
+	@Test
+	void reusedIOPool() throws IOException{
+		var pipe = StandardStructPipe.of(Sizes.class, STATE_DONE);
+		assertThat(pipe.getType().needsPool(StoragePool.IO)).isTrue();
+		
+		var mem  = Cluster.emptyMem();
+		var ch   = AllocateTicket.bytes(64).submit(mem);
+		var rand = new RawRandom(42);
+		for(int i = 0; i<200; i++){
+			var val = new Sizes();
+			val.a = rand.nextBoolean()? rand.nextInt(200) : rand.nextLong(Long.MAX_VALUE);
+			val.b = rand.nextBoolean()? rand.nextInt(200) : rand.nextInt();
+			TestUtils.checkPipeInOutEquality(ch, pipe, val);
+		}
+	}
+	
+	@Test
+	void scratchBufferReuse(){
+		var buff = ContentOutputBuilder.takeScratch(16);
+		assertThat(ContentOutputBuilder.takeScratch(16)).isNotSameAs(buff);
+		buff.write(1);
+		ContentOutputBuilder.releaseScratch(buff);
+		
+		var reused = ContentOutputBuilder.takeScratch(16);
+		assertThat(reused).isSameAs(buff);
+		assertThat(reused.size()).isZero();
+		ContentOutputBuilder.releaseScratch(reused);
+	}
+	
+	public interface ViewStruct extends IOInstance.Def<ViewStruct>{
+		long l();
+		void l(long l);
+		int i();
+		void i(int i);
+		double d();
+		void d(double d);
+		float f();
+		void f(float f);
+		short s();
+		void s(short s);
+		char c();
+		void c(char c);
+		byte b();
+		void b(byte b);
+	}
+	
+	private static ViewStruct randViewStruct(RandomGenerator rand){
+		var val = IOInstance.Def.of(ViewStruct.class);
+		val.l(rand.nextLong());
+		val.i(rand.nextInt());
+		val.d(rand.nextDouble());
+		val.f(rand.nextFloat());
+		val.s((short)rand.nextInt());
+		val.c((char)rand.nextInt());
+		val.b((byte)rand.nextInt());
+		return val;
+	}
+	
+	@Test
+	void structView() throws IOException{
+		var factory = StructView.of(ViewStruct.class);
+		var pipe    = factory.getPipe();
+		var mem     = Cluster.emptyMem();
+		var rand    = new RawRandom(42);
+		
+		var values = Iters.range(0, 20).mapToObj(i -> randViewStruct(rand)).toList();
+		var buff   = new ContentOutputBuilder();
+		for(var val : values){
+			pipe.write(mem, buff, val);
+		}
+		var data = buff.toByteArray();
+		assertThat((long)data.length).isEqualTo(factory.size()*values.size());
+		
+		var view = factory.wrap(data, 0);
+		for(int i = 0; i<values.size(); i++){
+			factory.move(view, Math.toIntExact(i*factory.size()));
+			var val = values.get(i);
+			assertThat(view.l()).isEqualTo(val.l());
+			assertThat(view.i()).isEqualTo(val.i());
+			assertThat(view.d()).isEqualTo(val.d());
+			assertThat(view.f()).isEqualTo(val.f());
+			assertThat(view.s()).isEqualTo(val.s());
+			assertThat(view.c()).isEqualTo(val.c());
+			assertThat(view.b()).isEqualTo(val.b());
+			assertThat(view.clone()).isEqualTo(val);
+		}
+		
+		var changed = randViewStruct(rand);
+		view = factory.wrap(ByteBuffer.wrap(data), 0);
+		view.l(changed.l());
+		view.i(changed.i());
+		view.d(changed.d());
+		view.f(changed.f());
+		view.s(changed.s());
+		view.c(changed.c());
+		view.b(changed.b());
+		assertThat(pipe.readNew(mem, new ContentInputStream.BA(data), null)).isEqualTo(changed);
+	}
+	
+	@Test
+	void listForEachView() throws IOException{
+		var cl   = Cluster.emptyMem();
+		var rand = new RawRandom(69);
+		
+		IOList<ViewStruct> list = cl.roots().request("list", ContiguousIOList.class, ViewStruct.class);
+		var values = Iters.range(0, 700).mapToObj(i -> randViewStruct(rand)).toList();
+		list.addAll(values);
+		
+		var read = new ArrayList<ViewStruct>();
+		var seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		((ContiguousIOList<ViewStruct>)list).forEachView(v -> {
+			read.add(v.clone());
+			seen.add(v);
+		});
+		assertThat(read).isEqualTo(values);
+		assertThat(seen).hasSize(1);
+		
+		var expected = new ArrayList<ViewStruct>();
+		var index    = new int[1];
+		((ContiguousIOList<ViewStruct>)list).forEachView(v -> {
+			if(index[0]++%5 == 0) v.l(v.l() + 1);
+			expected.add(v.clone());
+		});
+		assertThat(expected).isNotEqualTo(values);
+		assertThat(list).containsExactlyElementsOf(expected);
+	}
+	
+	public void testType(TempClassGen.ClassGen def) throws IOException, ReflectiveOperationException{
+		try{
+			testType(def, false);
+		}catch(LockedFlagSet e){
+			throw new RuntimeException(e);
+		}
+	}
+	public <T extends IOInstance<T>> void testType(TempClassGen.ClassGen def, boolean generated) throws IOException, ReflectiveOperationException, LockedFlagSet{
 //		LogUtil.println(def);
 //		LogUtil.println(def.name());
 		
@@ -309,6 +552,14 @@ public final class StructFuzzTest{
 		var struct = Struct.of(typ, STATE_DONE);
 		var pipe   = StandardStructPipe.of(struct, STATE_DONE);
 		
+		StandardStructPipe<T> generatedPipe = null;
+		if(generated){
+			try(var ignore = ConfigDefs.GENERATED_PIPE.temporarySet(true)){
+				generatedPipe = new StandardStructPipe<>(struct, STATE_DONE);
+			}
+			assertThat(generatedPipe.hasGeneratedIO()).as("generated IO for " + def).isEqualTo(!generatedPipe.getSpecificFields().isEmpty());
+		}
+		
 		var fs   = Iters.from(def.fields());
 		var rand = new RawRandom(def.name().hashCode());
 		var ctor = typ.getConstructor(fs.map(TempClassGen.FieldGen::type).toArray(Class[]::new));
@@ -321,6 +572,10 @@ public final class StructFuzzTest{
 		for(int i = 0; i<50; i++){
 			var inst = ctor.newInstance(fs.map(t -> t.generator().apply(rand)).toArray(Object[]::new));
 			TestUtils.checkPipeInOutEquality(ch, pipe, inst);
+			if(generatedPipe != null){
+				TestUtils.checkPipeInOutEquality(ch, generatedPipe, inst);
+				checkSameBytes(mem, pipe, generatedPipe, inst);
+			}
 			
 			for(var fs1 : sets){
 				TestUtils.checkPipeInOutEquality(ch, pipe, inst, fs1);
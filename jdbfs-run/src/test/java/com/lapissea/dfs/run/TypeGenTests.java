@@ -1,13 +1,36 @@
 package com.lapissea.dfs.run;
 
+import com.lapissea.dfs.core.AllocateTicket;
+import com.lapissea.dfs.core.Cluster;
+import com.lapissea.dfs.exceptions.IllegalAnnotation;
+import com.lapissea.dfs.io.instancepipe.StandardStructPipe;
 import com.lapissea.dfs.objects.collections.IOList;
+import com.lapissea.dfs.processor.DefIndexProcessor;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.LazyInstance;
 import com.lapissea.dfs.type.Struct;
+import com.lapissea.dfs.type.compilation.ClassGenerationCommons;
+import com.lapissea.dfs.type.compilation.StructCompileScheduler;
 import com.lapissea.dfs.type.field.annotations.IONullability;
 import com.lapissea.dfs.type.field.annotations.IOValue;
+import com.lapissea.dfs.type.field.fields.RefField;
+import com.lapissea.iterableplus.Iters;
 import org.testng.annotations.Test;
 
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.lapissea.dfs.type.StagedInit.STATE_DONE;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TypeGenTests{
 	
@@ -25,6 +48,58 @@ public class TypeGenTests{
 		void setDyn(Object a);
 	}
 	
+	interface LazyChild extends IOInstance.Def<LazyChild>{
+		String getName();
+		void setName(String name);
+	}
+	
+	interface LazyHolder extends IOInstance.Def<LazyHolder>{
+		@IOValue.Reference(lazyLoad = true)
+		@IONullability(IONullability.Mode.NULLABLE)
+		LazyChild getChild();
+		void setChild(LazyChild child);
+	}
+	
+	static class BadLazy extends IOInstance.Managed<BadLazy>{
+		@IOValue
+		@IOValue.Reference(lazyLoad = true)
+		@IONullability(IONullability.Mode.NULLABLE)
+		public BadLazy child;
+	}
+	
+	@IOValue
+	static class SchedLeaf extends IOInstance.Managed<SchedLeaf>{
+		public int value;
+	}
+	
+	@IOValue
+	static class SchedMid extends IOInstance.Managed<SchedMid>{
+		@IONullability(IONullability.Mode.NULLABLE)
+		public SchedLeaf leaf;
+	}
+	
+	@IOValue
+	static class SchedRoot extends IOInstance.Managed<SchedRoot>{
+		@IONullability(IONullability.Mode.NULLABLE)
+		public SchedMid  mid;
+		@IONullability(IONullability.Mode.NULLABLE)
+		public SchedLeaf leaf;
+	}
+	
+	@IOValue
+	static class SchedCycleA extends IOInstance.Managed<SchedCycleA>{
+		@IOValue.Reference
+		@IONullability(IONullability.Mode.NULLABLE)
+		public SchedCycleB other;
+	}
+	
+	@IOValue
+	static class SchedCycleB extends IOInstance.Managed<SchedCycleB>{
+		@IOValue.Reference
+		@IONullability(IONullability.Mode.NULLABLE)
+		public SchedCycleA other;
+	}
+	
 	@Test
 	void overrideType(){
 		assertThat(IOList.class).hasAnnotation(IOValue.OverrideType.DefaultImpl.class);
@@ -55,4 +130,223 @@ public class TypeGenTests{
 		}
 	}
 	
+	private static LazyHolder makeLazyHolder(){
+		var child = IOInstance.Def.of(LazyChild.class);
+		child.setName("Lazy");
+		var holder = IOInstance.Def.of(LazyHolder.class);
+		holder.setChild(child);
+		return holder;
+	}
+	
+	@Test
+	void lazyReference() throws IOException{
+		var pipe   = StandardStructPipe.of(LazyHolder.class, STATE_DONE);
+		var mem    = Cluster.emptyMem();
+		var ch     = AllocateTicket.bytes(64).submit(mem);
+		var holder = makeLazyHolder();
+		try(var io = ch.io()){
+			pipe.write(mem, io, holder);
+		}
+		
+		var read = pipe.readNew(mem, ch, null);
+		assertThat(LazyInstance.isLazy(read.getChild())).isTrue();
+		assertThat(LazyInstance.isLoaded(read.getChild())).isFalse();
+		
+		assertThat(read.getChild().getName()).isEqualTo("Lazy");
+		assertThat(LazyInstance.isLoaded(read.getChild())).isTrue();
+		assertThat(read).isEqualTo(holder);
+	}
+	
+	@Test
+	void lazyReferenceWrite() throws IOException{
+		var pipe = StandardStructPipe.of(LazyHolder.class, STATE_DONE);
+		var mem  = Cluster.emptyMem();
+		var ch   = AllocateTicket.bytes(64).submit(mem);
+		try(var io = ch.io()){
+			pipe.write(mem, io, makeLazyHolder());
+		}
+		
+		var untouched = pipe.readNew(mem, ch, null);
+		try(var io = ch.io()){
+			pipe.write(mem, io, untouched);
+		}
+		assertThat(LazyInstance.isLoaded(untouched.getChild())).isFalse();
+		
+		var read = pipe.readNew(mem, ch, null);
+		read.getChild().setName("Modified");
+		try(var io = ch.io()){
+			pipe.write(mem, io, read);
+		}
+		
+		assertThat(pipe.readNew(mem, ch, null).getChild().getName()).isEqualTo("Modified");
+	}
+	
+	@Test
+	void lazyReferenceCopiedToOtherHolder() throws IOException{
+		var pipe = StandardStructPipe.of(LazyHolder.class, STATE_DONE);
+		var mem  = Cluster.emptyMem();
+		var chA  = AllocateTicket.bytes(64).submit(mem);
+		var chB  = AllocateTicket.bytes(64).submit(mem);
+		try(var io = chA.io()){
+			pipe.write(mem, io, makeLazyHolder());
+		}
+		var other = makeLazyHolder();
+		other.getChild().setName("Other");
+		try(var io = chB.io()){
+			pipe.write(mem, io, other);
+		}
+		
+		var a = pipe.readNew(mem, chA, null);
+		var b = pipe.readNew(mem, chB, null);
+		b.setChild(a.getChild());
+		assertThat(LazyInstance.isLoaded(b.getChild())).isFalse();
+		try(var io = chB.io()){
+			pipe.write(mem, io, b);
+		}
+		
+		assertThat(pipe.readNew(mem, chB, null).getChild().getName()).isEqualTo("Lazy");
+		assertThat(pipe.readNew(mem, chA, null).getChild().getName()).isEqualTo("Lazy");
+	}
+	
+	@Test
+	void lazyReferenceNotLoadedByHolder() throws IOException{
+		var pipe = StandardStructPipe.of(LazyHolder.class, STATE_DONE);
+		var mem  = Cluster.emptyMem();
+		var ch   = AllocateTicket.bytes(64).submit(mem);
+		try(var io = ch.io()){
+			pipe.write(mem, io, makeLazyHolder());
+		}
+		
+		var read = pipe.readNew(mem, ch, null);
+		assertThat(read.hashCode()).isEqualTo(pipe.readNew(mem, ch, null).hashCode());
+		assertThat(read.toString()).contains("lazy");
+		assertThat(LazyInstance.isLoaded(read.getChild())).isFalse();
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void lazyReferenceAfterMove() throws IOException{
+		var pipe = StandardStructPipe.of(LazyHolder.class, STATE_DONE);
+		var mem  = Cluster.emptyMem();
+		var ch   = AllocateTicket.bytes(64).submit(mem);
+		try(var io = ch.io()){
+			pipe.write(mem, io, makeLazyHolder());
+		}
+		
+		var held = pipe.readNew(mem, ch, null);
+		assertThat(LazyInstance.isLoaded(held.getChild())).isFalse();
+		
+		//Moves the child to a new chunk the way a rewrite does, by changing the reference of the holder
+		var field = (RefField<LazyHolder, LazyChild>)pipe.getSpecificFields().requireByName("child");
+		var moved = LazyInstance.unwrap(pipe.readNew(mem, ch, null).getChild());
+		moved.setName("Moved");
+		var newCh = AllocateTicket.withData(field.getReferencedPipe(held), mem, moved).submit(mem);
+		field.setReference(held, newCh.getPtr().makeReference());
+		
+		assertThat(held.getChild().getName()).isEqualTo("Moved");
+	}
+	
+	@Test
+	void lazyReferenceNonDef(){
+		assertThatThrownBy(() -> Struct.of(BadLazy.class, Struct.STATE_DONE)).isInstanceOf(IllegalAnnotation.class);
+	}
+	
+	@Test
+	void structCompileSchedulerOrder(){
+		var progress = new AtomicInteger();
+		var report = new StructCompileScheduler()
+			             .add(SchedRoot.class, List.of(SchedMid.class, SchedLeaf.class))
+			             .add(SchedMid.class, List.of(SchedLeaf.class))
+			             .add(SchedLeaf.class, List.of())
+			             .add(SchedCycleA.class, List.of(SchedCycleB.class))
+			             .add(SchedCycleB.class, List.of(SchedCycleA.class))
+			             .threads(4)
+			             .onProgress((timing, done, total) -> progress.incrementAndGet())
+			             .compile();
+		
+		var order = Iters.from(report.timings()).<Class<?>>map(StructCompileScheduler.Timing::type).toList();
+		assertThat(order).containsExactlyInAnyOrder(SchedRoot.class, SchedMid.class, SchedLeaf.class, SchedCycleA.class, SchedCycleB.class);
+		assertThat(order.indexOf(SchedLeaf.class)).isLessThan(order.indexOf(SchedMid.class));
+		assertThat(order.indexOf(SchedMid.class)).isLessThan(order.indexOf(SchedRoot.class));
+		assertThat(progress).hasValue(5);
+		assertThat(report.threads()).isEqualTo(4);
+	}
+	
+	@Test
+	void structCompileSchedulerFail(){
+		var scheduler = new StructCompileScheduler().add(BadLazy.class, List.of()).add(SchedRoot.class, List.of(BadLazy.class));
+		assertThatThrownBy(scheduler::compile)
+			.isInstanceOf(StructCompileScheduler.CompilationFailed.class)
+			.satisfies(e -> assertThat(((StructCompileScheduler.CompilationFailed)e).type).isEqualTo(BadLazy.class));
+	}
+	
+	@Test
+	void defIndexProcessor() throws IOException, URISyntaxException{
+		var dir = Files.createTempDirectory("dfs-processor");
+		try{
+			runDefIndexProcessor(dir);
+		}finally{
+			deleteDir(dir);
+		}
+	}
+	
+	private static void runDefIndexProcessor(Path dir) throws IOException, URISyntaxException{
+		var src = dir.resolve("Thing.java");
+		Files.writeString(src, """
+			package test;
+			public interface Thing extends com.lapissea.dfs.type.IOInstance.Def<Thing>{
+				int num();
+				interface Inner extends com.lapissea.dfs.type.IOInstance.Def<Inner>{ }
+				interface NotDef{ }
+			}
+			""");
+		
+		//Tests run in the module of the library which does not need the compiler itself
+		TypeGenTests.class.getModule().addReads(ModuleLayer.boot().findModule("java.compiler").orElseThrow());
+		
+		var libPath = Path.of(IOInstance.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		var javac   = ToolProvider.getSystemJavaCompiler();
+		try(var files = javac.getStandardFileManager(null, null, null)){
+			var task = javac.getTask(
+				null, files, null,
+				List.of("-proc:only", "-d", dir.toString(), "-cp", libPath.toString()),
+				null, files.getJavaFileObjects(src.toFile())
+			);
+			task.setProcessors(List.of(new DefIndexProcessor()));
+			assertThat(task.call()).isTrue();
+		}
+		
+		var index = dir.resolve(ClassGenerationCommons.TYPE_INDEX);
+		assertThat(Files.readAllLines(index)).containsExactly("test.Thing", "test.Thing$Inner");
+	}
+	
+	@Test
+	void pregeneratedClassLookup() throws IOException{
+		var dir = Files.createTempDirectory("dfs-pregen");
+		try{
+			var name = "test.Thing" + IOInstance.Def.IMPL_NAME_POSTFIX;
+			var data = new byte[]{(byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 1, 2, 3};
+			Files.createDirectories(dir.resolve(ClassGenerationCommons.PREGENERATED_LOCATION + "test"));
+			Files.write(dir.resolve(ClassGenerationCommons.PREGENERATED_LOCATION + "test/Thing_Impl-abc.class"), data);
+			Files.writeString(dir.resolve(ClassGenerationCommons.TYPE_INDEX), "test.Thing\n");
+			
+			try(var loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)){
+				assertThat(ClassGenerationCommons.hasPregenerated(loader)).isTrue();
+				
+				assertThat(new ClassGenerationCommons.CacheKey(name, "abc", loader).read()).hasValue(data);
+				assertThat(new ClassGenerationCommons.CacheKey(name, "def", loader).read()).isEmpty();
+				assertThat(new ClassGenerationCommons.CacheKey(name, "abc", null).read()).isEmpty();
+			}
+		}finally{
+			deleteDir(dir);
+		}
+	}
+	
+	private static void deleteDir(Path dir) throws IOException{
+		try(var files = Files.walk(dir)){
+			for(var file : files.sorted(Comparator.reverseOrder()).toList()){
+				Files.delete(file);
+			}
+		}
+	}
 }
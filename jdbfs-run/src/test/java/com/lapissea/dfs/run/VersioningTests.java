@@ -3,9 +3,17 @@ package com.lapissea.dfs.run;
 import com.lapissea.dfs.core.Cluster;
 import com.lapissea.dfs.io.IOInterface;
 import com.lapissea.dfs.io.impl.MemoryData;
+import com.lapissea.dfs.objects.ObjectID;
+import com.lapissea.dfs.objects.collections.ContiguousIOList;
+import com.lapissea.dfs.objects.collections.HashIOMap;
+import com.lapissea.dfs.objects.collections.IOList;
+import com.lapissea.dfs.objects.collections.IOMap;
 import com.lapissea.dfs.tools.logging.DataLogger;
 import com.lapissea.dfs.tools.logging.LoggedMemoryUtils;
 import com.lapissea.dfs.type.IOInstance;
+import com.lapissea.dfs.type.IOType;
+import com.lapissea.dfs.type.IOTypeDB;
+import com.lapissea.dfs.type.TypeMigration;
 import com.lapissea.dfs.type.field.IOField;
 import com.lapissea.dfs.type.field.annotations.IOValue;
 import com.lapissea.iterableplus.Iters;
@@ -20,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class VersioningTests{
 	
@@ -124,6 +133,124 @@ public class VersioningTests{
 		assertThat(aField.get(null, obj)).as("field has a wrong value").isEqualTo(1);
 	}
 	
+	static byte[] makeAVersionsData() throws IOException{
+		var data = Cluster.emptyMem();
+		data.roots().request(1, A.class);
+		data.roots().request(2, A.class);
+		return data.getSource().readAll();
+	}
+	
+	@Test
+	void migrateOnRead() throws Exception{
+		byte[] bb = TestUtils.callWithClassLoader(SHADOW_CL, "makeAVersionsData");
+		var    cl = new Cluster(MemoryData.of(bb));
+		
+		var a1 = cl.roots().require(1, A.class);
+		assertThat(a1.a).as("stored value").isEqualTo(1);
+		assertThat(a1.b).as("added field").isEqualTo(420);
+		
+		a1.b = 5;
+		cl.roots().provide(1, a1);
+		
+		var reopened = new Cluster(MemoryData.of(cl.getSource().readAll()));
+		var db       = reopened.getTypeDb();
+		
+		var versioned = TypeMigration.versionedName(A.class.getName(), 1);
+		assertThat(db.getDefinitionFromClassName(A.class.getName()).orElseThrow().getFields()).extracting(f -> f.name).containsExactly("a", "b");
+		assertThat(db.getDefinitionFromClassName(versioned).orElseThrow().getFields()).extracting(f -> f.name).containsExactly("a");
+		
+		var stored1 = reopened.roots().require(1, IOInstance.class);
+		assertThat(stored1.getClass()).as("rewritten in the new layout").isSameAs(A.class);
+		assertThat(((A)stored1).a).isEqualTo(1);
+		assertThat(((A)stored1).b).isEqualTo(5);
+		
+		var stored2 = reopened.roots().require(2, IOInstance.class);
+		assertThat(stored2.getClass().getName()).as("untouched data keeps the old layout").isEqualTo(versioned);
+		var a2 = reopened.roots().require(2, A.class);
+		assertThat(a2.a).isEqualTo(1);
+		assertThat(a2.b).isEqualTo(420);
+	}
+	
+	static byte[] makeAContainersData() throws IOException{
+		var data = Cluster.emptyMem();
+		var a    = new A();
+		a.a = 2;
+		
+		IOList<A> list = data.roots().request("list", ContiguousIOList.class, A.class);
+		list.add(a);
+		IOMap<String, A> map = data.roots().request("map", HashIOMap.class, String.class, A.class);
+		map.put("x", a);
+		return data.getSource().readAll();
+	}
+	
+	@Test
+	void migrateListElements() throws Exception{
+		byte[] bb = TestUtils.callWithClassLoader(SHADOW_CL, "makeAContainersData");
+		var    cl = new Cluster(MemoryData.of(bb));
+		
+		IOList<A> list = cl.roots().require("list", IOList.class);
+		assertThat(list.elementType()).isSameAs(A.class);
+		var a = list.get(0);
+		assertThat(a.a).as("stored value").isEqualTo(2);
+		assertThat(a.b).as("added field").isEqualTo(420);
+		
+		a.a = 3;
+		list.set(0, a);
+		list.add(new A());
+		assertThat(list.get(0).a).isEqualTo(3);
+		assertThat(list.get(1).a).isEqualTo(69);
+		assertThat(list).extracting(e -> e.b).containsExactly(420, 420);
+		
+		assertThatThrownBy(() -> cl.roots().require(ObjectID.of("list"), ContiguousIOList.class, A.class))
+			.isInstanceOf(ClassCastException.class);
+	}
+	
+	@Test
+	void migrateMapValues() throws Exception{
+		byte[] bb = TestUtils.callWithClassLoader(SHADOW_CL, "makeAContainersData");
+		var    cl = new Cluster(MemoryData.of(bb));
+		
+		//Storing the current class moves the map to the versioned class
+		cl.roots().provide("current", new A());
+		
+		IOMap<String, A> map = cl.roots().require("map", IOMap.class);
+		var a = map.get("x");
+		assertThat(a.a).as("stored value").isEqualTo(2);
+		assertThat(a.b).as("added field").isEqualTo(420);
+		
+		a.a = 3;
+		map.put("y", a);
+		assertThat(map.get("y").a).isEqualTo(3);
+		assertThat(map.size()).isEqualTo(2);
+		assertThat(map.iterator().next().getValue()).isInstanceOf(A.class);
+	}
+	
+	@IOValue
+	public static class B extends IOInstance.Managed<B>{
+		int b = 1;
+	}
+	
+	@Test
+	void storedTypesOnDemand() throws Exception{
+		var cl = versionedCl(A.class, makeCLDataRaw(A.class));
+		var db = cl.getTypeDb();
+		
+		var def = db.getDefinitionFromClassName(A.class.getName()).orElseThrow();
+		assertThat(def.getFields()).extracting(f -> f.name).containsExactly("a");
+		assertThat(db.getDefinitionFromClassName("not.a.StoredType").isEmpty()).isTrue();
+		
+		var aID = db.toID(IOType.of(A.class), false);
+		assertThat(aID.stored()).isTrue();
+		
+		var bID = db.toID(IOType.of(B.class), true).val();
+		var cID = db.toID(IOType.of(GenericContainer.class, B.class), true).val();
+		assertThat(cID).isEqualTo(bID + 1);
+		assertThat(db.toID(IOType.of(B.class), false)).isEqualTo(new IOTypeDB.TypeID(bID, true));
+		assertThat(db.toID(IOType.of(A.class), false)).isEqualTo(aID);
+		assertThat(db.fromID(cID)).isEqualTo(IOType.of(GenericContainer.class, B.class));
+		assertThat(db.getDefinitionFromClassName(B.class.getName()).isPresent()).isTrue();
+	}
+	
 	public enum TestNames{
 		FOO, BAR
 	}
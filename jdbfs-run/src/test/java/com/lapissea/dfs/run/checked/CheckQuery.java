@@ -3,6 +3,7 @@ package com.lapissea.dfs.run.checked;
 import com.lapissea.dfs.query.Query;
 import com.lapissea.dfs.query.QueryFields;
 import com.lapissea.dfs.query.QueryableData;
+import com.lapissea.dfs.type.IOTypeDB;
 
 import java.io.IOException;
 
@@ -26,6 +27,10 @@ public class CheckQuery<T> implements Query<T>{
 			private T       toCheck;
 			private boolean closed;
 			
+			@Override
+			public IOTypeDB typeDb(){
+				return a.typeDb();
+			}
 			@Override
 			public void close() throws IOException{
 				checkClosed();